@@ -33,6 +33,15 @@ public final class DataSetFactory {
         return new DataSetImpl();
     }
 
+    /**
+     * Creates an empty data set whose NUMBER, DATE and LABEL columns store their values in primitive arrays.
+     */
+    public static DataSet newColumnarDataSet() {
+        DataSetImpl dataSet = new DataSetImpl();
+        dataSet.setColumnar(true);
+        return dataSet;
+    }
+
     public static DataSetBuilder newDataSetBuilder() {
         return new DataSetBuilderImpl();
     }
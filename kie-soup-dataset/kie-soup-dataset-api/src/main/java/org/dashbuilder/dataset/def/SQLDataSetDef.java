@@ -42,6 +42,10 @@ public class SQLDataSetDef extends DataSetDef {
     
     protected boolean estimateSize = true;
 
+    protected Integer fetchSize = null;
+
+    protected String watermarkColumn = null;
+
     public SQLDataSetDef() {
         super.setProvider(DataSetProviderType.SQL);
     }
@@ -102,6 +106,33 @@ public class SQLDataSetDef extends DataSetDef {
         return estimateSize;
     }
 
+    /**
+     * The number of rows fetched from the database on every round trip. Depending on the database, this also
+     * makes the results to be streamed instead of loaded all at once (see the SQL provider dialects).
+     * @return null if not set, so the SQL provider's default is used. Zero means the JDBC driver's default.
+     */
+    public Integer getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(Integer fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * A column whose values always increase as new rows are inserted (a sequence number or a creation timestamp).
+     * When set, the refresh of a cached data set fetches just the rows greater than the last value loaded and
+     * appends them to the data set, instead of loading it again. Only suitable for append-only tables.
+     * @return null if not set, so the cached data set is always loaded in full.
+     */
+    public String getWatermarkColumn() {
+        return watermarkColumn;
+    }
+
+    public void setWatermarkColumn(String watermarkColumn) {
+        this.watermarkColumn = watermarkColumn;
+    }
+
     @Override
     public boolean equals(Object obj) {
         try {
@@ -124,6 +155,12 @@ public class SQLDataSetDef extends DataSetDef {
             if(estimateSize != other.estimateSize){
                 return false;
             }
+            if (fetchSize != null && !fetchSize.equals(other.fetchSize)) {
+                return false;
+            }
+            if (watermarkColumn != null && !watermarkColumn.equals(other.watermarkColumn)) {
+                return false;
+            }
             return true;
         } catch (ClassCastException e) {
             return false;
@@ -148,6 +185,8 @@ public class SQLDataSetDef extends DataSetDef {
         def.setDbTable(getDbTable());
         def.setDbSQL(getDbSQL());
         def.setEstimateSize(isEstimateSize());
+        def.setFetchSize(getFetchSize());
+        def.setWatermarkColumn(getWatermarkColumn());
         return def;
     }
 
@@ -170,6 +209,8 @@ public class SQLDataSetDef extends DataSetDef {
         out.append("Cache enabled=").append(cacheEnabled).append("\n");
         out.append("Cache max rows=").append(cacheMaxRows).append(" Kb\n");
         out.append("Estimate size=").append(estimateSize).append("\n");
+        if (fetchSize != null) out.append("Fetch size=").append(fetchSize).append("\n");
+        if (watermarkColumn != null) out.append("Watermark column=").append(watermarkColumn).append("\n");
         return out.toString();
     }
 }
@@ -67,4 +67,20 @@ public interface SQLDataSetDefBuilder<T extends DataSetDefBuilder> extends DataS
      * @return The DataSetDefBuilder instance that is being used to configure a DataSetDef.
      */
     T dbSQL(String dbSQL, boolean allColumns);
+
+    /**
+     * Set the number of rows fetched from the database on every round trip.
+     *
+     * @param fetchSize the fetch size (zero means the JDBC driver's default)
+     * @return The DataSetDefBuilder instance that is being used to configure a DataSetDef.
+     */
+    T fetchSize(int fetchSize);
+
+    /**
+     * Set the column used to fetch only the new rows when a cached data set is refreshed.
+     *
+     * @param columnId a column whose values always increase as new rows are inserted
+     * @return The DataSetDefBuilder instance that is being used to configure a DataSetDef.
+     */
+    T watermarkColumn(String columnId);
 }
@@ -35,6 +35,8 @@ public class Interval {
 
     /**
      * The row indexes of the values that belong to this interval.
+     * <p>A plain list by default as intervals are sent to the server within the lookups. The group builders
+     * set a {@link org.dashbuilder.dataset.impl.RowList} instead, which is server side only.</p>
      */
     protected List<Integer> rows = new ArrayList<Integer>();
 
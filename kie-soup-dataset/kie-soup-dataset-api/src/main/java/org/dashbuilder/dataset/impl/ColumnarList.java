@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.impl;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+import org.dashbuilder.dataset.ColumnType;
+
+/**
+ * Base class for the column value lists that keep their values in primitive arrays rather than in boxed objects.
+ * <p>Instances honour the {@link java.util.List} contract through a lazy view: values are only boxed when
+ * accessed via {@link #get(int)}. Data set operations aware of the concrete storage can read the primitive
+ * values directly and skip the boxing altogether.</p>
+ * <p>Null values are tracked in a bitmap which is only allocated once the first null value is stored.</p>
+ */
+public abstract class ColumnarList<T> extends AbstractList<T> {
+
+    protected static final int DEFAULT_CAPACITY = 16;
+
+    protected int size = 0;
+    protected long[] nulls = null;
+
+    /**
+     * Creates an empty columnar list suitable for the given column type.
+     * @return null if the column type does not support columnar storage.
+     */
+    public static ColumnarList create(ColumnType columnType) {
+        return create(columnType, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty columnar list suitable for the given column type, able to hold the given number of values.
+     * @return null if the column type does not support columnar storage.
+     */
+    public static ColumnarList create(ColumnType columnType, int capacity) {
+        if (ColumnType.NUMBER.equals(columnType)) {
+            return new DoubleColumnarList(capacity);
+        }
+        if (ColumnType.DATE.equals(columnType)) {
+            return new DateColumnarList(capacity);
+        }
+        if (ColumnType.LABEL.equals(columnType)) {
+            return new LabelColumnarList(capacity);
+        }
+        return null;
+    }
+
+    /**
+     * Check if the value at the given position is null.
+     */
+    public boolean isNull(int index) {
+        // The bitmap only covers up to the last null stored
+        return nulls != null && (index >> 6) < nulls.length && (nulls[index >> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Creates an empty list of the same type.
+     */
+    public abstract ColumnarList<T> cloneEmpty();
+
+    /**
+     * Creates a copy of this list (storage & values).
+     */
+    public abstract ColumnarList<T> cloneInstance();
+
+    /**
+     * The estimated memory (in bytes) taken by this list.
+     */
+    public long getEstimatedSize() {
+        return nulls != null ? nulls.length * 8 : 0;
+    }
+
+    /**
+     * Make room for at least the given number of values.
+     */
+    protected abstract void ensureCapacity(int capacity);
+
+    /**
+     * Store the given value at the specified position (no bounds check).
+     */
+    protected abstract void store(int index, Object value);
+
+    /**
+     * Move a range of values within the underlying storage (no bounds check).
+     */
+    protected abstract void move(int from, int to, int length);
+
+    protected int grow(int current, int capacity) {
+        int newCapacity = current + (current >> 1);
+        if (newCapacity < capacity) newCapacity = capacity;
+        if (newCapacity < DEFAULT_CAPACITY) newCapacity = DEFAULT_CAPACITY;
+        return newCapacity;
+    }
+
+    protected void setNull(int index, boolean isNull) {
+        if (nulls == null) {
+            if (!isNull) return;
+            nulls = new long[(index >> 6) + 1];
+        }
+        int word = index >> 6;
+        if (word >= nulls.length) {
+            if (!isNull) return;
+            nulls = Arrays.copyOf(nulls, Math.max(word + 1, nulls.length * 2));
+        }
+        if (isNull) nulls[word] |= (1L << index);
+        else nulls[word] &= ~(1L << index);
+    }
+
+    protected void moveNulls(int from, int to, int length) {
+        if (nulls == null) return;
+        if (from < to) {
+            for (int i = length - 1; i >= 0; i--) setNull(to + i, isNull(from + i));
+        } else {
+            for (int i = 0; i < length; i++) setNull(to + i, isNull(from + i));
+        }
+    }
+
+    protected void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public T set(int index, T value) {
+        checkIndex(index);
+        T old = get(index);
+        store(index, value);
+        return old;
+    }
+
+    @Override
+    public void add(int index, T value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        ensureCapacity(size + 1);
+        if (index < size) {
+            move(index, index + 1, size - index);
+        }
+        size++;
+        store(index, value);
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        checkIndex(index);
+        T old = get(index);
+        move(index + 1, index, size - index - 1);
+        setNull(size - 1, false);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        nulls = null;
+        modCount++;
+    }
+}
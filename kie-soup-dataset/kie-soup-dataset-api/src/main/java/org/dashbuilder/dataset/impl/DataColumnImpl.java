@@ -124,12 +124,14 @@ public class DataColumnImpl implements DataColumn {
         otherCol.setMinValue(getMinValue());
         otherCol.setMaxValue(getMaxValue());
         if (groupFunction != null) otherCol.setGroupFunction(groupFunction.cloneInstance());
+        if (values instanceof ColumnarList) otherCol.setValues(((ColumnarList) values).cloneEmpty());
         return otherCol;
     }
 
     public DataColumn cloneInstance() {
         DataColumnImpl otherCol = (DataColumnImpl) cloneEmpty();
-        otherCol.setValues(new ArrayList(values));
+        if (values instanceof ColumnarList) otherCol.setValues(((ColumnarList) values).cloneInstance());
+        else otherCol.setValues(new ArrayList(values));
         return otherCol;
     }
 
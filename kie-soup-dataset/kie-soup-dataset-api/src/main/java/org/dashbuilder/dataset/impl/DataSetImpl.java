@@ -34,6 +34,7 @@ public class DataSetImpl implements DataSet {
     protected Date creationDate = new Date();
     protected List<DataColumnImpl> columns = new ArrayList<DataColumnImpl>();
     protected int rowCountNonTrimmed = -1;
+    protected boolean columnar = false;
 
     public DataSetMetadata getMetadata() {
         return new DataSetMetadataImpl(this);
@@ -63,6 +64,18 @@ public class DataSetImpl implements DataSet {
         this.creationDate = creationDate;
     }
 
+    /**
+     * Check whether the columns added through {@link #addColumn(String, ColumnType)} keep their values in
+     * primitive arrays (see {@link ColumnarList}) instead of in lists of boxed objects.
+     */
+    public boolean isColumnar() {
+        return columnar;
+    }
+
+    public void setColumnar(boolean columnar) {
+        this.columnar = columnar;
+    }
+
     public List<DataColumn> getColumns() {
         return new ArrayList<DataColumn>(columns);
     }
@@ -118,6 +131,10 @@ public class DataSetImpl implements DataSet {
         c.setId(id);
         c.setColumnType(type);
         if (values != null) c.setValues(values);
+        else if (columnar) {
+            ColumnarList columnarList = ColumnarList.create(type);
+            if (columnarList != null) c.setValues(columnarList);
+        }
         columns.add(c);
         return this;
     }
@@ -315,10 +332,12 @@ public class DataSetImpl implements DataSet {
         other.rowCountNonTrimmed = getRowCount();
         if (rows.isEmpty()) return other;
 
+        RowList rowList = RowList.of(rows);
         for (int i=0; i<columns.size(); i++) {
             List values = columns.get(i).getValues();
             List valOther = other.getColumns().get(i).getValues();
-            for (Integer row : rows) {
+            for (int j=0; j<rowList.size(); j++) {
+                int row = rowList.getRow(j);
                 if (row >= values.size()) {
                     throw new IllegalArgumentException("Row number is out of bounds: " + row);
                 }
@@ -331,6 +350,7 @@ public class DataSetImpl implements DataSet {
 
     public DataSetImpl cloneEmpty() {
         DataSetImpl other = new DataSetImpl();
+        other.columnar = columnar;
         for (int i=0; i<columns.size(); i++) {
             DataColumn column = columns.get(i);
             DataColumn otherCol = column.cloneEmpty();
@@ -339,8 +359,36 @@ public class DataSetImpl implements DataSet {
         return other;
     }
 
+    /**
+     * Get a data set holding its values in plain lists, as the {@link ColumnarList} storage is server side only
+     * and can't be sent to the client. This same instance is returned if no column is columnar.
+     */
+    public DataSetImpl toPortable() {
+        boolean portable = true;
+        for (DataColumnImpl column : columns) {
+            if (column.getValues() instanceof ColumnarList) {
+                portable = false;
+                break;
+            }
+        }
+        if (portable) {
+            return this;
+        }
+        DataSetImpl other = cloneEmpty();
+        other.columnar = false;
+        other.definition = definition;
+        other.uuid = uuid;
+        other.creationDate = creationDate;
+        other.rowCountNonTrimmed = rowCountNonTrimmed;
+        for (int i = 0; i < columns.size(); i++) {
+            other.columns.get(i).setValues(new ArrayList(columns.get(i).getValues()));
+        }
+        return other;
+    }
+
     public DataSetImpl cloneInstance() {
         DataSetImpl other = new DataSetImpl();
+        other.columnar = columnar;
         for (int i=0; i<columns.size(); i++) {
             DataColumn column = columns.get(i);
             DataColumn otherCol = column.cloneInstance();
@@ -377,9 +425,15 @@ public class DataSetImpl implements DataSet {
         if (nrows == 0) return 0;
 
         List<DataColumn> columns = getColumns();
-        int ncells = nrows * columns.size();
-        int result = ncells * 4;
+        long ncells = (long) nrows * columns.size();
+        long result = ncells * 4;
         for (int i = 0; i < columns.size(); i++) {
+            List values = columns.get(i).getValues();
+            if (values instanceof ColumnarList) {
+                // No object references to account for
+                result += ((ColumnarList) values).getEstimatedSize() - nrows * 4L;
+                continue;
+            }
             Object firstRowValue = getValueAt(0, i);
             if (firstRowValue instanceof String) {
                 for (int j = 0; j < nrows; j++) {
@@ -388,7 +442,7 @@ public class DataSetImpl implements DataSet {
                 }
             } else {
                 int singleValueSize = MemSizeEstimator.sizeOf(firstRowValue);
-                result += nrows * singleValueSize;
+                result += (long) nrows * singleValueSize;
             }
         }
         return result;
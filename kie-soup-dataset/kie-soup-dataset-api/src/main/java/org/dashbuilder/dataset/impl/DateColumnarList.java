@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.impl;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Columnar storage for DATE columns backed by a <i>long</i> array holding the epoch millis of every value.
+ */
+public class DateColumnarList extends ColumnarList<Date> {
+
+    protected long[] values;
+
+    public DateColumnarList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DateColumnarList(int capacity) {
+        values = new long[capacity];
+    }
+
+    /**
+     * Get the epoch millis at the given position. Null values are returned as 0.
+     */
+    public long getTime(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    public void addTime(long millis) {
+        ensureCapacity(size + 1);
+        values[size++] = millis;
+        modCount++;
+    }
+
+    public Date get(int index) {
+        checkIndex(index);
+        return isNull(index) ? null : new Date(values[index]);
+    }
+
+    protected void store(int index, Object value) {
+        if (value == null) {
+            values[index] = 0;
+        } else if (value instanceof Date) {
+            values[index] = ((Date) value).getTime();
+        } else if (value instanceof Number) {
+            values[index] = ((Number) value).longValue();
+        } else {
+            throw new IllegalArgumentException("Not a date: " + value);
+        }
+        setNull(index, value == null);
+    }
+
+    protected void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, capacity));
+        }
+    }
+
+    protected void move(int from, int to, int length) {
+        System.arraycopy(values, from, values, to, length);
+        moveNulls(from, to, length);
+    }
+
+    public DateColumnarList cloneEmpty() {
+        return new DateColumnarList();
+    }
+
+    public DateColumnarList cloneInstance() {
+        DateColumnarList other = new DateColumnarList(0);
+        other.values = Arrays.copyOf(values, size);
+        other.nulls = nulls != null ? Arrays.copyOf(nulls, nulls.length) : null;
+        other.size = size;
+        return other;
+    }
+
+    @Override
+    public long getEstimatedSize() {
+        return super.getEstimatedSize() + values.length * 8L;
+    }
+}
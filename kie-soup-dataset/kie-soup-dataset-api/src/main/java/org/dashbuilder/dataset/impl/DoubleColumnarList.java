@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.impl;
+
+import java.util.Arrays;
+
+/**
+ * Columnar storage for NUMBER columns backed by a <i>double</i> array.
+ */
+public class DoubleColumnarList extends ColumnarList<Double> {
+
+    protected double[] values;
+
+    public DoubleColumnarList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DoubleColumnarList(int capacity) {
+        values = new double[capacity];
+    }
+
+    /**
+     * Get the primitive value at the given position. Null values are returned as 0.
+     */
+    public double getDouble(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    public void addDouble(double value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+        modCount++;
+    }
+
+    public Double get(int index) {
+        checkIndex(index);
+        return isNull(index) ? null : values[index];
+    }
+
+    protected void store(int index, Object value) {
+        if (value == null) {
+            values[index] = 0;
+        } else if (value instanceof Number) {
+            values[index] = ((Number) value).doubleValue();
+        } else {
+            values[index] = Double.parseDouble(value.toString());
+        }
+        setNull(index, value == null);
+    }
+
+    protected void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, capacity));
+        }
+    }
+
+    protected void move(int from, int to, int length) {
+        System.arraycopy(values, from, values, to, length);
+        moveNulls(from, to, length);
+    }
+
+    public DoubleColumnarList cloneEmpty() {
+        return new DoubleColumnarList();
+    }
+
+    public DoubleColumnarList cloneInstance() {
+        DoubleColumnarList other = new DoubleColumnarList(0);
+        other.values = Arrays.copyOf(values, size);
+        other.nulls = nulls != null ? Arrays.copyOf(nulls, nulls.length) : null;
+        other.size = size;
+        return other;
+    }
+
+    @Override
+    public long getEstimatedSize() {
+        return super.getEstimatedSize() + values.length * 8L;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar storage for LABEL columns. Every distinct label is stored once in a dictionary and
+ * the list itself keeps an <i>int</i> array with the dictionary code of every value (-1 stands for null).
+ */
+public class LabelColumnarList extends ColumnarList<String> {
+
+    public static final int NULL_CODE = -1;
+
+    protected int[] codes;
+    protected List<String> dictionary = new ArrayList<String>();
+    protected Map<String, Integer> codeMap = new HashMap<String, Integer>();
+
+    public LabelColumnarList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LabelColumnarList(int capacity) {
+        codes = new int[capacity];
+    }
+
+    /**
+     * Get the dictionary code of the value at the given position.
+     */
+    public int getCode(int index) {
+        checkIndex(index);
+        return codes[index];
+    }
+
+    /**
+     * Get the label for the given dictionary code.
+     */
+    public String getLabel(int code) {
+        return code == NULL_CODE ? null : dictionary.get(code);
+    }
+
+    /**
+     * Get the dictionary code of the given label.
+     * @return The code or -2 if the label is not part of the dictionary.
+     */
+    public int lookupCode(String label) {
+        if (label == null) return NULL_CODE;
+        Integer code = codeMap.get(label);
+        return code == null ? -2 : code;
+    }
+
+    /**
+     * The number of distinct non-null labels ever stored in the list.
+     */
+    public int getCardinality() {
+        return dictionary.size();
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        return codes[index] == NULL_CODE;
+    }
+
+    public String get(int index) {
+        checkIndex(index);
+        return getLabel(codes[index]);
+    }
+
+    protected int encode(String label) {
+        if (label == null) return NULL_CODE;
+        Integer code = codeMap.get(label);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(label);
+            codeMap.put(label, code);
+        }
+        return code;
+    }
+
+    protected void store(int index, Object value) {
+        codes[index] = encode(value == null ? null : value.toString());
+    }
+
+    protected void ensureCapacity(int capacity) {
+        if (capacity > codes.length) {
+            codes = Arrays.copyOf(codes, grow(codes.length, capacity));
+        }
+    }
+
+    protected void move(int from, int to, int length) {
+        System.arraycopy(codes, from, codes, to, length);
+    }
+
+    @Override
+    protected void setNull(int index, boolean isNull) {
+        // Nulls are encoded within the code array
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        dictionary.clear();
+        codeMap.clear();
+    }
+
+    public LabelColumnarList cloneEmpty() {
+        return new LabelColumnarList();
+    }
+
+    public LabelColumnarList cloneInstance() {
+        LabelColumnarList other = new LabelColumnarList(0);
+        other.codes = Arrays.copyOf(codes, size);
+        other.dictionary.addAll(dictionary);
+        other.codeMap.putAll(codeMap);
+        other.size = size;
+        return other;
+    }
+
+    @Override
+    public long getEstimatedSize() {
+        long result = codes.length * 4L;
+        for (String label : dictionary) {
+            result += MemSizeEstimator.sizeOfString(label);
+        }
+        return result;
+    }
+}
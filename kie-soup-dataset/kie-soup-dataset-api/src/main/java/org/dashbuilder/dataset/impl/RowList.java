@@ -0,0 +1,287 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.impl;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A list of data set row numbers backed by an <i>int</i> array.
+ * <p>It keeps track of whether the rows are in strictly ascending order (the usual case for filter and
+ * group results) so that look-ups and intersections can be resolved through binary searches and merges.</p>
+ */
+public class RowList extends AbstractList<Integer> implements RandomAccess {
+
+    protected int[] rows;
+    protected int size = 0;
+    protected boolean sorted = true;
+
+    public RowList() {
+        this(16);
+    }
+
+    public RowList(int capacity) {
+        rows = new int[capacity];
+    }
+
+    public RowList(Collection<Integer> c) {
+        this(c.size());
+        if (c instanceof RowList) {
+            RowList other = (RowList) c;
+            System.arraycopy(other.rows, 0, rows, 0, other.size);
+            size = other.size;
+            sorted = other.sorted;
+        } else {
+            for (Integer row : c) {
+                addRow(row);
+            }
+        }
+    }
+
+    /**
+     * Get a row list containing the rows from 0 to n-1.
+     */
+    public static RowList range(int n) {
+        RowList result = new RowList(n);
+        for (int i = 0; i < n; i++) {
+            result.rows[i] = i;
+        }
+        result.size = n;
+        return result;
+    }
+
+    /**
+     * Get the given rows as a row list (no copy is made if the list is already a row list).
+     */
+    public static RowList of(List<Integer> rows) {
+        if (rows == null) return null;
+        if (rows instanceof RowList) return (RowList) rows;
+        return new RowList(rows);
+    }
+
+    /**
+     * Get the rows in both lists. The order of the first list is preserved.
+     */
+    public static RowList and(List<Integer> rows1, List<Integer> rows2) {
+        RowList l1 = of(rows1);
+        RowList l2 = of(rows2);
+        RowList result = new RowList(Math.min(l1.size, l2.size));
+        if (l1.sorted && l2.sorted) {
+            int i = 0, j = 0;
+            while (i < l1.size && j < l2.size) {
+                int r1 = l1.rows[i];
+                int r2 = l2.rows[j];
+                if (r1 == r2) {
+                    result.addRow(r1);
+                    i++;
+                    j++;
+                }
+                else if (r1 < r2) i++;
+                else j++;
+            }
+        } else {
+            for (int i = 0; i < l1.size; i++) {
+                int row = l1.rows[i];
+                if (l2.containsRow(row)) {
+                    result.addRow(row);
+                }
+            }
+        }
+        return result;
+    }
+
+    public int getRow(int index) {
+        checkIndex(index);
+        return rows[index];
+    }
+
+    public void addRow(int row) {
+        ensureCapacity(size + 1);
+        if (size > 0 && rows[size - 1] >= row) {
+            sorted = false;
+        }
+        rows[size++] = row;
+        modCount++;
+    }
+
+    /**
+     * Check whether the rows are in strictly ascending order.
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    public boolean containsRow(int row) {
+        if (sorted) {
+            return Arrays.binarySearch(rows, 0, size, row) >= 0;
+        }
+        for (int i = 0; i < size; i++) {
+            if (rows[i] == row) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get a copy of this list with the rows in reverse order.
+     */
+    public RowList reverse() {
+        RowList result = new RowList(size);
+        for (int i = 0; i < size; i++) {
+            result.rows[i] = rows[size - 1 - i];
+        }
+        result.size = size;
+        result.sorted = size < 2;
+        return result;
+    }
+
+    /**
+     * Get the rows as an array.
+     */
+    public int[] toIntArray() {
+        return Arrays.copyOf(rows, size);
+    }
+
+    /**
+     * The estimated memory (in bytes) taken by this list.
+     */
+    public long getEstimatedSize() {
+        return rows.length * 4L;
+    }
+
+    protected void ensureCapacity(int capacity) {
+        if (capacity > rows.length) {
+            int newCapacity = Math.max(capacity, rows.length + (rows.length >> 1));
+            rows = Arrays.copyOf(rows, Math.max(newCapacity, 16));
+        }
+    }
+
+    protected void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * The sorted flag is conservative: it's only kept if the row placed at the given position preserves the order.
+     */
+    protected void updateSorted(int index) {
+        if (sorted) {
+            sorted = (index == 0 || rows[index - 1] < rows[index]) && (index == size - 1 || rows[index] < rows[index + 1]);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getRow(index);
+    }
+
+    @Override
+    public boolean add(Integer row) {
+        addRow(row);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Integer row) {
+        if (index == size) {
+            addRow(row);
+            return;
+        }
+        checkIndex(index);
+        ensureCapacity(size + 1);
+        System.arraycopy(rows, index, rows, index + 1, size - index);
+        rows[index] = row;
+        size++;
+        modCount++;
+        updateSorted(index);
+    }
+
+    @Override
+    public Integer set(int index, Integer row) {
+        checkIndex(index);
+        int old = rows[index];
+        rows[index] = row;
+        updateSorted(index);
+        return old;
+    }
+
+    @Override
+    public Integer remove(int index) {
+        checkIndex(index);
+        int old = rows[index];
+        System.arraycopy(rows, index + 1, rows, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void sort(Comparator<? super Integer> c) {
+        Integer[] array = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = rows[i];
+        }
+        Arrays.sort(array, c);
+        for (int i = 0; i < size; i++) {
+            rows[i] = array[i];
+        }
+        modCount++;
+        sorted = true;
+        for (int i = 1; i < size && sorted; i++) {
+            sorted = rows[i - 1] < rows[i];
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Integer> c) {
+        if (!(c instanceof RowList)) {
+            return super.addAll(c);
+        }
+        RowList other = (RowList) c;
+        if (other.size == 0) {
+            return false;
+        }
+        ensureCapacity(size + other.size);
+        if (!other.sorted || (size > 0 && rows[size - 1] >= other.rows[0])) {
+            sorted = false;
+        }
+        System.arraycopy(other.rows, 0, rows, size, other.size);
+        size += other.size;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && containsRow((Integer) o);
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        sorted = true;
+        modCount++;
+    }
+}
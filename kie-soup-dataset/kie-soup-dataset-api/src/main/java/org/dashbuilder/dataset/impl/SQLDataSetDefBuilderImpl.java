@@ -51,4 +51,14 @@ public class SQLDataSetDefBuilderImpl extends AbstractDataSetDefBuilder<SQLDataS
         ((SQLDataSetDef) def).setEstimateSize(estimateSize);
         return this;
     }
+
+    public SQLDataSetDefBuilderImpl fetchSize(int fetchSize) {
+        ((SQLDataSetDef) def).setFetchSize(fetchSize);
+        return this;
+    }
+
+    public SQLDataSetDefBuilderImpl watermarkColumn(String columnId) {
+        ((SQLDataSetDef) def).setWatermarkColumn(columnId);
+        return this;
+    }
 }
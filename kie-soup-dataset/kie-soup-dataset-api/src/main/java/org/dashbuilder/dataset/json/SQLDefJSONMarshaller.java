@@ -28,6 +28,8 @@ public class SQLDefJSONMarshaller implements DataSetDefJSONMarshallerExt<SQLData
     public static final String DB_SCHEMA = "dbSchema";
     public static final String DB_TABLE = "dbTable";
     public static final String DB_SQL = "dbSQL";
+    public static final String FETCH_SIZE = "fetchSize";
+    public static final String WATERMARK_COLUMN = "watermarkColumn";
 
     @Override
     public void fromJson(SQLDataSetDef def, JsonObject json) {
@@ -35,6 +37,8 @@ public class SQLDefJSONMarshaller implements DataSetDefJSONMarshallerExt<SQLData
         String dbTable = json.getString(DB_TABLE);
         String dbSchema = json.getString(DB_SCHEMA);
         String dbSQL = json.getString(DB_SQL);
+        String fetchSize = json.getString(FETCH_SIZE);
+        String watermarkColumn = json.getString(WATERMARK_COLUMN);
 
         if (!isBlank(dataSource)) {
             def.setDataSource(dataSource);
@@ -48,6 +52,12 @@ public class SQLDefJSONMarshaller implements DataSetDefJSONMarshallerExt<SQLData
         if (!isBlank(dbSQL)) {
             def.setDbSQL(dbSQL);
         }
+        if (!isBlank(fetchSize)) {
+            def.setFetchSize(Integer.parseInt(fetchSize));
+        }
+        if (!isBlank(watermarkColumn)) {
+            def.setWatermarkColumn(watermarkColumn);
+        }
     }
 
     @Override
@@ -68,6 +78,16 @@ public class SQLDefJSONMarshaller implements DataSetDefJSONMarshallerExt<SQLData
             json.put(DB_SQL, dataSetDef.getDbSQL());
         }
 
+        // Fetch size.
+        if (dataSetDef.getFetchSize() != null) {
+            json.put(FETCH_SIZE, dataSetDef.getFetchSize());
+        }
+
+        // Watermark column.
+        if (dataSetDef.getWatermarkColumn() != null) {
+            json.put(WATERMARK_COLUMN, dataSetDef.getWatermarkColumn());
+        }
+
         // All columns flag.
         json.put(ALL_COLUMNS, dataSetDef.isAllColumnsEnabled());
     }
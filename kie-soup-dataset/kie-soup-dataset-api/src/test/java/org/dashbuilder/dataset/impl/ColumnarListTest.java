@@ -0,0 +1,191 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.impl;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ColumnarListTest {
+
+    @Test
+    public void testDoubleList() {
+        DoubleColumnarList values = new DoubleColumnarList();
+        for (int i = 0; i < 100; i++) {
+            values.add(i % 10 == 0 ? null : (double) i);
+        }
+        assertEquals(100, values.size());
+        assertNull(values.get(0));
+        assertTrue(values.isNull(90));
+        assertEquals(55d, values.get(55), 0);
+        assertEquals(55d, values.getDouble(55), 0);
+
+        values.add(1, 1000d);
+        assertEquals(101, values.size());
+        assertEquals(1000d, values.get(1), 0);
+        assertNull(values.get(11));
+        assertTrue(values.isNull(91));
+
+        values.remove(1);
+        assertEquals(100, values.size());
+        assertNull(values.get(10));
+        assertFalse(values.isNull(11));
+
+        values.set(10, 10d);
+        assertEquals(10d, values.get(10), 0);
+        assertFalse(values.isNull(10));
+    }
+
+    @Test
+    public void testNullBeforeLastValues() {
+        // The null bitmap is shorter than the list
+        DoubleColumnarList values = new DoubleColumnarList();
+        for (int i = 0; i < 200; i++) {
+            values.add(i == 3 ? null : (double) i);
+        }
+        assertTrue(values.isNull(3));
+        assertFalse(values.isNull(150));
+        assertEquals(150d, values.get(150), 0);
+        assertEquals(199d, values.get(199), 0);
+
+        DateColumnarList dates = new DateColumnarList();
+        LabelColumnarList labels = new LabelColumnarList();
+        for (int i = 0; i < 200; i++) {
+            dates.add(i == 3 ? null : new Date(i));
+            labels.add(i == 3 ? null : "L" + i);
+        }
+        assertEquals(new Date(150), dates.get(150));
+        assertFalse(dates.isNull(150));
+        assertEquals("L150", labels.get(150));
+    }
+
+    @Test
+    public void testDateList() {
+        Date date = new Date();
+        DateColumnarList values = new DateColumnarList();
+        values.add(date);
+        values.add(null);
+        assertEquals(date, values.get(0));
+        assertEquals(date.getTime(), values.getTime(0));
+        assertNull(values.get(1));
+        assertTrue(values.isNull(1));
+    }
+
+    @Test
+    public void testLabelList() {
+        LabelColumnarList values = new LabelColumnarList();
+        values.addAll(Arrays.asList("A", "B", null, "A", "C", "B"));
+        assertEquals(6, values.size());
+        assertEquals(3, values.getCardinality());
+        assertEquals(values.getCode(0), values.getCode(3));
+        assertEquals(LabelColumnarList.NULL_CODE, values.getCode(2));
+        assertNull(values.get(2));
+        assertEquals("C", values.get(4));
+        assertEquals(Arrays.asList("A", "B", null, "A", "C", "B"), values);
+
+        values.remove(0);
+        assertEquals(Arrays.asList("B", null, "A", "C", "B"), values);
+    }
+
+    @Test
+    public void testCloneInstance() {
+        LabelColumnarList labels = new LabelColumnarList();
+        labels.addAll(Arrays.asList("A", "B"));
+        ColumnarList clone = labels.cloneInstance();
+        labels.set(0, "C");
+        assertEquals(Arrays.asList("A", "B"), clone);
+
+        DoubleColumnarList doubles = new DoubleColumnarList();
+        doubles.addAll(Arrays.asList(1d, null));
+        DoubleColumnarList doublesClone = doubles.cloneInstance();
+        doubles.set(1, 2d);
+        assertNull(doublesClone.get(1));
+    }
+
+    @Test
+    public void testColumnarDataSet() {
+        DataSet dataSet = DataSetFactory.newColumnarDataSet()
+                .addColumn("label", ColumnType.LABEL)
+                .addColumn("number", ColumnType.NUMBER)
+                .addColumn("date", ColumnType.DATE)
+                .addColumn("text", ColumnType.TEXT);
+
+        Date date = new Date();
+        dataSet.addValues("A", 1, date, "text1");
+        dataSet.addValues("B", 2d, null, "text2");
+
+        assertTrue(dataSet.getColumnByIndex(0).getValues() instanceof LabelColumnarList);
+        assertTrue(dataSet.getColumnByIndex(1).getValues() instanceof DoubleColumnarList);
+        assertTrue(dataSet.getColumnByIndex(2).getValues() instanceof DateColumnarList);
+        assertFalse(dataSet.getColumnByIndex(3).getValues() instanceof ColumnarList);
+        assertEquals(1d, dataSet.getValueAt(0, 1));
+        assertEquals(date, dataSet.getValueAt(0, 2));
+        assertNull(dataSet.getValueAt(1, 2));
+
+        DataSet trimmed = dataSet.trim(1, 1);
+        assertEquals(1, trimmed.getRowCount());
+        assertEquals("B", trimmed.getValueAt(0, 0));
+        assertTrue(trimmed.getColumnByIndex(1).getValues() instanceof DoubleColumnarList);
+        assertTrue(dataSet.getEstimatedSize() > 0);
+    }
+
+    @Test
+    public void testToPortable() {
+        DataSetImpl dataSet = (DataSetImpl) DataSetFactory.newColumnarDataSet()
+                .addColumn("label", ColumnType.LABEL)
+                .addColumn("number", ColumnType.NUMBER)
+                .addColumn("date", ColumnType.DATE);
+        dataSet.setUUID("columnar");
+        Date date = new Date();
+        dataSet.addValues("A", 1d, date);
+        dataSet.addValues(null, null, null);
+
+        // The columnar storage is replaced by plain lists holding the same values
+        DataSetImpl portable = dataSet.toPortable();
+        assertNotSame(dataSet, portable);
+        assertFalse(portable.isColumnar());
+        assertEquals("columnar", portable.getUUID());
+        assertEquals(2, portable.getRowCount());
+        for (int i = 0; i < 3; i++) {
+            assertFalse(portable.getColumnByIndex(i).getValues() instanceof ColumnarList);
+            assertEquals(dataSet.getColumnByIndex(i).getValues(), portable.getColumnByIndex(i).getValues());
+        }
+        assertTrue(dataSet.getColumnByIndex(1).getValues() instanceof DoubleColumnarList);
+
+        // Nothing to convert
+        assertSame(portable, portable.toPortable());
+    }
+
+    @Test
+    public void testEstimatedSizeOverflow() {
+        DataSetImpl dataSet = new DataSetImpl() {
+            public int getRowCount() {
+                return Integer.MAX_VALUE / 2;
+            }
+        };
+        DoubleColumnarList values = new DoubleColumnarList();
+        values.add(1d);
+        dataSet.addColumn("number", ColumnType.NUMBER, values);
+        dataSet.addColumn("boxed", ColumnType.NUMBER, Arrays.asList(1d));
+        assertTrue(dataSet.getEstimatedSize() > Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RowListTest {
+
+    @Test
+    public void testAddRows() {
+        RowList rows = new RowList(2);
+        for (int i = 0; i < 100; i += 2) {
+            rows.addRow(i);
+        }
+        assertEquals(50, rows.size());
+        assertTrue(rows.isSorted());
+        assertEquals(98, rows.getRow(49));
+        assertTrue(rows.contains(10));
+        assertFalse(rows.contains(11));
+
+        rows.add(3);
+        assertFalse(rows.isSorted());
+        assertTrue(rows.contains(3));
+        assertEquals(Integer.valueOf(3), rows.remove(50));
+    }
+
+    @Test
+    public void testRange() {
+        assertEquals(Arrays.asList(0, 1, 2, 3), RowList.range(4));
+        assertEquals(Arrays.asList(3, 2, 1, 0), RowList.range(4).reverse());
+    }
+
+    @Test
+    public void testAnd() {
+        RowList rows1 = new RowList(Arrays.asList(1, 3, 5, 7, 9));
+        RowList rows2 = new RowList(Arrays.asList(3, 4, 5, 9, 10));
+        assertEquals(Arrays.asList(3, 5, 9), RowList.and(rows1, rows2));
+
+        // The order of the first list is preserved
+        List<Integer> unsorted = Arrays.asList(9, 5, 1, 3);
+        assertEquals(Arrays.asList(9, 5, 3), RowList.and(unsorted, rows2));
+    }
+
+    @Test
+    public void testSort() {
+        RowList rows = new RowList(Arrays.asList(5, 1, 4, 2));
+        assertFalse(rows.isSorted());
+        Collections.sort(rows);
+        assertEquals(Arrays.asList(1, 2, 4, 5), rows);
+        assertTrue(rows.isSorted());
+
+        Collections.sort(rows, Collections.reverseOrder());
+        assertEquals(Arrays.asList(5, 4, 2, 1), rows);
+        assertFalse(rows.isSorted());
+    }
+
+    @Test
+    public void testAddAll() {
+        RowList rows = new RowList(Arrays.asList(1, 2));
+        rows.addAll(new RowList(Arrays.asList(5, 6)));
+        assertTrue(rows.isSorted());
+        rows.addAll(new ArrayList<Integer>(Arrays.asList(0)));
+        assertFalse(rows.isSorted());
+        assertEquals(Arrays.asList(1, 2, 5, 6, 0), rows);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.benchmarks;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.kie.soup.commons.cron.CronExpression;
+import org.kie.soup.project.datamodel.commons.types.ClassTypeResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The kie-soup commons utilities used on the data set refresh and type resolution paths:
+ * cron expression parsing and the {@link ClassTypeResolver}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CommonsBenchmark {
+
+    @Param({"0 0 12 * * ?", "0 15 10 ? * MON-FRI", "0 0/5 14,18 * * ?", "0 15 10 L * ? 2030"})
+    String cronExpression;
+
+    Set<String> imports;
+    ClassTypeResolver resolver;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        imports = new HashSet<>();
+        imports.add("java.util.*");
+        imports.add("java.math.BigDecimal");
+        imports.add("org.dashbuilder.dataset.DataSet");
+
+        // A resolver with its cache already populated
+        resolver = createResolver();
+        resolver.resolveType("List");
+        resolver.resolveType("BigDecimal");
+        resolver.resolveType("String");
+    }
+
+    private ClassTypeResolver createResolver() {
+        return new ClassTypeResolver(new HashSet<>(imports), getClass().getClassLoader());
+    }
+
+    @Benchmark
+    public CronExpression cronParse() throws Exception {
+        return new CronExpression(cronExpression);
+    }
+
+    @Benchmark
+    public boolean cronValidate() {
+        return CronExpression.isValidExpression(cronExpression);
+    }
+
+    @Benchmark
+    public Class<?>[] resolveTypesCold() throws Exception {
+        ClassTypeResolver resolver = createResolver();
+        return new Class<?>[] {
+                resolver.resolveType("List"),
+                resolver.resolveType("BigDecimal"),
+                resolver.resolveType("DataSet"),
+                resolver.resolveType("String"),
+                resolver.resolveType("int[]")
+        };
+    }
+
+    @Benchmark
+    public Class<?>[] resolveTypesCached() throws Exception {
+        return new Class<?>[] {
+                resolver.resolveType("List"),
+                resolver.resolveType("BigDecimal"),
+                resolver.resolveType("String")
+        };
+    }
+}
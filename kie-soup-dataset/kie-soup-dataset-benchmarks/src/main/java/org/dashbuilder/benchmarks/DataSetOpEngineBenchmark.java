@@ -0,0 +1,136 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.dashbuilder.DataSetCore;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.DataSetLookupFactory;
+import org.dashbuilder.dataset.DataSetOp;
+import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.dataset.group.DateIntervalType;
+import org.dashbuilder.dataset.sort.SortOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.dashbuilder.benchmarks.SyntheticDataSets.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+
+/**
+ * Filter, group, sort and aggregate operations run by the op engine on synthetic data sets. Every
+ * invocation starts with no indexes, so the figures are the ones of a first (non cached) lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class DataSetOpEngineBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    int rows;
+
+    @Param({"10", "1000", "100000"})
+    int cardinality;
+
+    SharedDataSetOpEngine opEngine;
+    DataSet dataSet;
+    List<DataSetOp> filterOps;
+    List<DataSetOp> groupOps;
+    List<DataSetOp> groupByDateOps;
+    List<DataSetOp> sortOps;
+    List<DataSetOp> aggregateOps;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        opEngine = DataSetCore.get().getSharedDataSetOpEngine();
+        dataSet = create(rows, cardinality);
+
+        filterOps = ops(DataSetLookupFactory.newDataSetLookupBuilder()
+                .filter(COLUMN_CATEGORY, equalsTo(category(0)))
+                .filter(COLUMN_AMOUNT, greaterThan(500d))
+                .buildLookup());
+
+        groupOps = ops(DataSetLookupFactory.newDataSetLookupBuilder()
+                .group(COLUMN_CATEGORY)
+                .column(COLUMN_CATEGORY)
+                .column(AggregateFunctionType.COUNT, "occurrences")
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM, "total")
+                .column(COLUMN_AMOUNT, AggregateFunctionType.AVERAGE, "average")
+                .buildLookup());
+
+        groupByDateOps = ops(DataSetLookupFactory.newDataSetLookupBuilder()
+                .group(COLUMN_DATE).fixed(DateIntervalType.MONTH, true)
+                .column(COLUMN_DATE)
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM, "total")
+                .buildLookup());
+
+        sortOps = ops(DataSetLookupFactory.newDataSetLookupBuilder()
+                .sort(COLUMN_AMOUNT, SortOrder.DESCENDING)
+                .buildLookup());
+
+        aggregateOps = ops(DataSetLookupFactory.newDataSetLookupBuilder()
+                .column(COLUMN_AMOUNT, AggregateFunctionType.MIN, "min")
+                .column(COLUMN_AMOUNT, AggregateFunctionType.MAX, "max")
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM, "total")
+                .column(COLUMN_CATEGORY, AggregateFunctionType.DISTINCT, "categories")
+                .buildLookup());
+    }
+
+    @Benchmark
+    public DataSet filter() {
+        return opEngine.execute(dataSet, filterOps);
+    }
+
+    @Benchmark
+    public DataSet group() {
+        return opEngine.execute(dataSet, groupOps);
+    }
+
+    @Benchmark
+    public DataSet groupByDate() {
+        return opEngine.execute(dataSet, groupByDateOps);
+    }
+
+    @Benchmark
+    public DataSet sort() {
+        return opEngine.execute(dataSet, sortOps);
+    }
+
+    @Benchmark
+    public DataSet aggregate() {
+        return opEngine.execute(dataSet, aggregateOps);
+    }
+
+    private static List<DataSetOp> ops(DataSetLookup lookup) {
+        return lookup.getOperationList();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.engine.group.IntervalBuilderDynamicLabel;
+import org.dashbuilder.dataset.engine.group.IntervalList;
+import org.dashbuilder.dataset.group.ColumnGroup;
+import org.dashbuilder.dataset.group.GroupStrategy;
+import org.dashbuilder.dataset.impl.DataColumnImpl;
+import org.dashbuilder.dataset.impl.LabelColumnarList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Grouping of label columns by value on high cardinality columns, either stored as a plain list of
+ * strings or as a dictionary encoded {@link LabelColumnarList}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IntervalBuilderDynamicLabelBenchmark {
+
+    @Param({"200000"})
+    int rows;
+
+    @Param({"100", "2000", "20000"})
+    int cardinality;
+
+    IntervalBuilderDynamicLabel builder;
+    DataColumnImpl listColumn;
+    DataColumnImpl columnarColumn;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        builder = new IntervalBuilderDynamicLabel();
+        Random random = new Random(rows + cardinality);
+        List<String> values = new ArrayList<String>(rows);
+        for (int i = 0; i < rows; i++) {
+            values.add("customer" + random.nextInt(cardinality));
+        }
+        LabelColumnarList labels = new LabelColumnarList(rows);
+        labels.addAll(values);
+
+        listColumn = createColumn(values);
+        columnarColumn = createColumn(labels);
+    }
+
+    @Benchmark
+    public IntervalList groupList() {
+        return builder.build(listColumn);
+    }
+
+    @Benchmark
+    public IntervalList groupColumnar() {
+        return builder.build(columnarColumn);
+    }
+
+    private static DataColumnImpl createColumn(List<String> values) {
+        DataColumnImpl column = new DataColumnImpl("label", ColumnType.LABEL);
+        column.setColumnGroup(new ColumnGroup("label", "label", GroupStrategy.DYNAMIC));
+        column.setValues(values);
+        return column;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.DataSetLookupFactory;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.dataset.group.DateIntervalType;
+import org.dashbuilder.dataset.json.DataSetJSONMarshaller;
+import org.dashbuilder.dataset.json.DataSetLookupJSONMarshaller;
+import org.dashbuilder.dataset.sort.SortOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.dashbuilder.benchmarks.SyntheticDataSets.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+
+/**
+ * JSON round-trips of data sets and data set lookups, as exchanged between the client and the server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JSONMarshallerBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    int rows;
+
+    DataSetJSONMarshaller dataSetMarshaller;
+    DataSetLookupJSONMarshaller lookupMarshaller;
+    DataSet dataSet;
+    String dataSetJson;
+    DataSetLookup lookup;
+    String lookupJson;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSetMarshaller = DataSetJSONMarshaller.get();
+        lookupMarshaller = DataSetLookupJSONMarshaller.get();
+
+        dataSet = create(rows, 100);
+        dataSetJson = dataSetMarshaller.toJson(dataSet).toJson();
+
+        lookup = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset("benchmark")
+                .filter(COLUMN_AMOUNT, OR(lowerThan(100d), greaterThan(900d)))
+                .group(COLUMN_CATEGORY).select(category(0), category(1), category(2))
+                .group(COLUMN_DATE).fixed(DateIntervalType.MONTH, true)
+                .column(COLUMN_DATE)
+                .column(AggregateFunctionType.COUNT, "occurrences")
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM, "total")
+                .sort("total", SortOrder.DESCENDING)
+                .rowNumber(10)
+                .buildLookup();
+        lookupJson = lookupMarshaller.toJson(lookup).toJson();
+    }
+
+    @Benchmark
+    public String dataSetToJson() {
+        return dataSetMarshaller.toJson(dataSet).toJson();
+    }
+
+    @Benchmark
+    public DataSet dataSetFromJson() {
+        return dataSetMarshaller.fromJson(dataSetJson);
+    }
+
+    @Benchmark
+    public DataSet dataSetRoundTrip() {
+        return dataSetMarshaller.fromJson(dataSetMarshaller.toJson(dataSet).toJson());
+    }
+
+    @Benchmark
+    public DataSetLookup lookupRoundTrip() {
+        return lookupMarshaller.fromJson(lookupMarshaller.toJson(lookup).toJson());
+    }
+
+    @Benchmark
+    public DataSetLookup lookupFromJson() {
+        return lookupMarshaller.fromJson(lookupJson);
+    }
+}
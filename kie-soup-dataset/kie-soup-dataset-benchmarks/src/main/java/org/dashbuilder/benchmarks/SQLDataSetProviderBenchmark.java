@@ -0,0 +1,183 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.benchmarks;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+
+import org.dashbuilder.DataSetCore;
+import org.dashbuilder.dataprovider.sql.SQLDataSetProvider;
+import org.dashbuilder.dataprovider.sql.SQLDataSourceLocator;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetLookupFactory;
+import org.dashbuilder.dataset.def.DataSetDefFactory;
+import org.dashbuilder.dataset.def.SQLDataSetDef;
+import org.dashbuilder.dataset.def.SQLDataSourceDef;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.dataset.group.DateIntervalType;
+import org.dashbuilder.dataset.sort.SortOrder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+
+/**
+ * SQL lookups against an embedded H2 database, from the query generation to the data set build.
+ * The query and row count caches are disabled, so every invocation hits the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SQLDataSetProviderBenchmark {
+
+    static final String TABLE = "BENCHMARK";
+    static final String COLUMN_ID = "ID";
+    static final String COLUMN_CATEGORY = "CATEGORY";
+    static final String COLUMN_AMOUNT = "AMOUNT";
+    static final String COLUMN_DATE = "CREATION_DATE";
+
+    @Param({"10000", "100000", "1000000"})
+    int rows;
+
+    @Param({"10", "1000"})
+    int cardinality;
+
+    JdbcDataSource dataSource;
+    Connection conn;
+    SQLDataSetProvider provider;
+    SQLDataSetDef def;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+        conn = dataSource.getConnection();
+        createTable();
+
+        provider = SQLDataSetProvider.get();
+        provider.setQueryCacheEnabled(false);
+        provider.setRowCountCacheEnabled(false);
+        provider.setDataSourceLocator(new SQLDataSourceLocator() {
+            public DataSource lookup(SQLDataSetDef def) {
+                return dataSource;
+            }
+            public List<SQLDataSourceDef> list() {
+                return null;
+            }
+        });
+        DataSetCore.get().getDataSetProviderRegistry().registerDataProvider(provider);
+
+        def = (SQLDataSetDef) DataSetDefFactory.newSQLDataSetDef()
+                .uuid("benchmark")
+                .dataSource("benchmark")
+                .dbTable(TABLE, true)
+                .buildDef();
+        DataSetCore.get().getDataSetDefRegistry().registerDataSetDef(def);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        DataSetCore.get().getDataSetDefRegistry().removeDataSetDef(def.getUUID());
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE " + TABLE);
+        }
+        conn.close();
+    }
+
+    private void createTable() throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE " + TABLE + " (" + COLUMN_ID + " INT PRIMARY KEY, " + COLUMN_CATEGORY + " VARCHAR(50), "
+                    + COLUMN_AMOUNT + " DOUBLE, " + COLUMN_DATE + " TIMESTAMP)");
+        }
+        DataSet dataSet = SyntheticDataSets.create(rows, cardinality);
+        String sql = "INSERT INTO " + TABLE + " VALUES (?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < rows; i++) {
+                stmt.setInt(1, i);
+                stmt.setString(2, (String) dataSet.getValueAt(i, 0));
+                stmt.setDouble(3, (Double) dataSet.getValueAt(i, 1));
+                stmt.setTimestamp(4, new Timestamp(((Date) dataSet.getValueAt(i, 2)).getTime()));
+                stmt.addBatch();
+                if (i % 1000 == 999) {
+                    stmt.executeBatch();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    @Benchmark
+    public DataSet filterAndTrim() throws Exception {
+        return provider.lookupDataSet(def, DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(def.getUUID())
+                .filter(COLUMN_CATEGORY, equalsTo(SyntheticDataSets.category(0)))
+                .sort(COLUMN_AMOUNT, SortOrder.DESCENDING)
+                .rowNumber(20)
+                .buildLookup());
+    }
+
+    @Benchmark
+    public DataSet group() throws Exception {
+        return provider.lookupDataSet(def, DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(def.getUUID())
+                .group(COLUMN_CATEGORY)
+                .column(COLUMN_CATEGORY)
+                .column(AggregateFunctionType.COUNT, "occurrences")
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM, "total")
+                .buildLookup());
+    }
+
+    @Benchmark
+    public DataSet groupByDate() throws Exception {
+        return provider.lookupDataSet(def, DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(def.getUUID())
+                .group(COLUMN_DATE).dynamic(DateIntervalType.MONTH, true)
+                .column(COLUMN_DATE)
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM, "total")
+                .buildLookup());
+    }
+
+    @Benchmark
+    public DataSet aggregate() throws Exception {
+        return provider.lookupDataSet(def, DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(def.getUUID())
+                .column(COLUMN_AMOUNT, AggregateFunctionType.MIN, "min")
+                .column(COLUMN_AMOUNT, AggregateFunctionType.MAX, "max")
+                .column(COLUMN_AMOUNT, AggregateFunctionType.AVERAGE, "average")
+                .buildLookup());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.benchmarks;
+
+import java.util.Date;
+import java.util.Random;
+
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
+
+/**
+ * Synthetic data sets for the benchmarks. The values are random but the same for a given size and cardinality.
+ */
+public final class SyntheticDataSets {
+
+    public static final String COLUMN_CATEGORY = "category";
+    public static final String COLUMN_AMOUNT = "amount";
+    public static final String COLUMN_DATE = "date";
+
+    // Ten years of dates starting at 2010-01-01
+    private static final long DATE_START = 1262304000000L;
+    private static final long DATE_RANGE = 10L * 365 * 24 * 60 * 60 * 1000;
+
+    private SyntheticDataSets() {
+    }
+
+    /**
+     * @param rows The number of rows
+     * @param cardinality The number of distinct values of the category column
+     */
+    public static DataSet create(int rows, int cardinality) {
+        Random random = new Random(rows * 31L + cardinality);
+        DataSet dataSet = DataSetFactory.newColumnarDataSet();
+        dataSet.addColumn(COLUMN_CATEGORY, ColumnType.LABEL);
+        dataSet.addColumn(COLUMN_AMOUNT, ColumnType.NUMBER);
+        dataSet.addColumn(COLUMN_DATE, ColumnType.DATE);
+        for (int i = 0; i < rows; i++) {
+            dataSet.setValueAt(i, 0, category(random.nextInt(cardinality)));
+            dataSet.setValueAt(i, 1, random.nextInt(100000) / 100d);
+            dataSet.setValueAt(i, 2, new Date(DATE_START + (long) (random.nextDouble() * DATE_RANGE)));
+        }
+        return dataSet;
+    }
+
+    public static String category(int i) {
+        return "category" + i;
+    }
+}
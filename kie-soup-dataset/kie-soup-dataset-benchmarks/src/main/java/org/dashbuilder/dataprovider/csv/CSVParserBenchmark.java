@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.dashbuilder.benchmarks.SyntheticDataSets;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetParallelExecutor;
+import org.dashbuilder.dataset.def.CSVDataSetDef;
+import org.dashbuilder.dataset.def.DataSetDefFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Load of an in-memory CSV file. It lives in the parser package since {@link CSVParser#load()} is not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class CSVParserBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int rows;
+
+    @Param({"false", "true"})
+    boolean parallel;
+
+    byte[] csv;
+    CSVDataSetDef def;
+    CSVFileStorage storage;
+    DataSetParallelExecutor parallelExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DataSet dataSet = SyntheticDataSets.create(rows, 1000);
+        SimpleDateFormat dateFormat = new SimpleDateFormat("MM-dd-yyyy HH:mm:ss");
+        StringBuilder out = new StringBuilder("category;amount;date\n");
+        for (int i = 0; i < rows; i++) {
+            out.append('"').append(dataSet.getValueAt(i, 0)).append("\";");
+            out.append(dataSet.getValueAt(i, 1)).append(';');
+            out.append(dateFormat.format((Date) dataSet.getValueAt(i, 2))).append('\n');
+        }
+        csv = out.toString().getBytes(StandardCharsets.UTF_8);
+
+        def = (CSVDataSetDef) DataSetDefFactory.newCSVDataSetDef()
+                .uuid("benchmark")
+                .separatorChar(';')
+                .quoteChar('"')
+                .escapeChar('\\')
+                .label("category")
+                .number("amount", "#.##")
+                .date("date", "MM-dd-yyyy HH:mm:ss")
+                .buildDef();
+
+        storage = new CSVFileStorage() {
+            public InputStream getCSVInputStream(CSVDataSetDef def) {
+                return new ByteArrayInputStream(csv);
+            }
+            public String getCSVString(CSVDataSetDef def) {
+                return new String(csv, StandardCharsets.UTF_8);
+            }
+            public void saveCSVFile(CSVDataSetDef def) {
+            }
+            public void deleteCSVFile(CSVDataSetDef def) {
+            }
+        };
+
+        if (parallel) {
+            parallelExecutor = new DataSetParallelExecutor();
+            parallelExecutor.setEnabled(true);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (parallelExecutor != null) {
+            parallelExecutor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public DataSet load() throws Exception {
+        CSVParser parser = new CSVParser(def, storage);
+        parser.setParallelExecutor(parallelExecutor);
+        return parser.load();
+    }
+}
@@ -20,6 +20,7 @@ import org.dashbuilder.dataprovider.DataSetProviderRegistry;
 import org.dashbuilder.dataprovider.StaticDataSetProvider;
 import org.dashbuilder.dataset.AbstractDataSetCore;
 import org.dashbuilder.dataset.DataSetDefDeployer;
+import org.dashbuilder.dataset.DataSetParallelExecutor;
 import org.dashbuilder.dataset.IntervalBuilderDynamicDate;
 import org.dashbuilder.dataset.def.DataSetDefRegistry;
 import org.dashbuilder.dataset.json.DataSetDefJSONMarshaller;
@@ -34,6 +35,8 @@ public abstract class DataSetCore extends AbstractDataSetCore {
 
     private static DataSetCore _instance = null;
 
+    protected DataSetParallelExecutor parallelExecutor;
+
     public static DataSetCore get() {
         if (_instance == null) {
             _instance = new DataSetCoreImpl();
@@ -50,6 +53,37 @@ public abstract class DataSetCore extends AbstractDataSetCore {
 
     public abstract int getDataSetPushMaxSize();
 
+    /**
+     * Whether the filter, group and aggregate operations over large static data sets are split into parallel chunks.
+     */
+    public boolean isParallelEnabled() {
+        return getParallelExecutor().isEnabled();
+    }
+
+    /**
+     * The minimum number of rows an operation must process in order to be split into parallel chunks.
+     */
+    public int getParallelThreshold() {
+        return getParallelExecutor().getThreshold();
+    }
+
+    /**
+     * The number of threads used to run the parallel chunks.
+     */
+    public int getParallelism() {
+        return getParallelExecutor().getParallelism();
+    }
+
+    /**
+     * The executor of the parallel chunks, created with the default settings (parallel mode disabled) on first use.
+     */
+    public DataSetParallelExecutor getParallelExecutor() {
+        if (parallelExecutor == null) {
+            parallelExecutor = new DataSetParallelExecutor();
+        }
+        return parallelExecutor;
+    }
+
     public abstract Scheduler getScheduler();
 
     public abstract DataSetDefRegistry getDataSetDefRegistry();
@@ -70,6 +104,18 @@ public abstract class DataSetCore extends AbstractDataSetCore {
 
     public abstract void setDataSetPushMaxSize(int dataSetPushMaxSize);
 
+    public void setParallelEnabled(boolean parallelEnabled) {
+        getParallelExecutor().setEnabled(parallelEnabled);
+    }
+
+    public void setParallelThreshold(int parallelThreshold) {
+        getParallelExecutor().setThreshold(parallelThreshold);
+    }
+
+    public void setParallelism(int parallelism) {
+        getParallelExecutor().setParallelism(parallelism);
+    }
+
     public abstract void setScheduler(Scheduler scheduler);
 
     public abstract void setDataSetDefRegistry(DataSetDefRegistry dataSetDefRegistry);
@@ -26,9 +26,17 @@ import org.dashbuilder.dataset.DataSetManager;
 import org.dashbuilder.dataset.DataSetManagerImpl;
 import org.dashbuilder.dataset.IntervalBuilderDynamicDate;
 import org.dashbuilder.dataset.IntervalBuilderLocatorImpl;
+import org.dashbuilder.dataset.ParallelDataSetOpEngine;
+import org.dashbuilder.dataset.ParallelFilterAlgorithm;
+import org.dashbuilder.dataset.ParallelIntervalBuilderDynamicLabel;
 import org.dashbuilder.dataset.UUIDGeneratorImpl;
+import org.dashbuilder.dataset.ZonedIntervalBuilderFixedDate;
 import org.dashbuilder.dataset.def.DataSetDefRegistry;
 import org.dashbuilder.dataset.engine.Chronometer;
+import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
+import org.dashbuilder.dataset.engine.filter.DataSetFilterAlgorithm;
+import org.dashbuilder.dataset.engine.group.IntervalBuilderDynamicLabel;
+import org.dashbuilder.dataset.engine.group.IntervalBuilderFixedDate;
 import org.dashbuilder.dataset.engine.group.IntervalBuilderLocator;
 import org.dashbuilder.dataset.json.DataSetDefJSONMarshaller;
 import org.dashbuilder.dataset.uuid.UUIDGenerator;
@@ -38,6 +46,7 @@ public class DataSetCoreImpl extends DataSetCore {
 
     private static final String STATIC_DATA_SET_PROVIDER = "StaticDataSetProvider";
     private static final String DATA_SET_DEF_REGISTRY = "DataSetDefRegistry";
+    private static final String PARALLEL_EXECUTOR = "DataSetParallelExecutor";
     private boolean dataSetPushEnabled = false;
     private int dataSetPushMaxSize = 1024;
     private Scheduler scheduler;
@@ -75,6 +84,33 @@ public class DataSetCoreImpl extends DataSetCore {
         return getUUIDGeneratorImpl();
     }
 
+    @Override
+    protected SharedDataSetOpEngine newSharedDataSetOpEngine() {
+        return new ParallelDataSetOpEngine(
+                checkNotNull(getAggregateFunctionManager(), "AggregateFunctionManager"),
+                checkNotNull(getIntervalBuilderLocator(), "IntervalBuilderLocator"),
+                checkNotNull(getIndexRegistry(), "DataSetIndexRegistry"),
+                checkNotNull(getSortAlgorithm(), "DataSetSortAlgorithm"),
+                checkNotNull(getFilterAlgorithm(), "DataSetFilterAlgorithm"),
+                checkNotNull(getChronometer(), "Chronometer"),
+                checkNotNull(getParallelExecutor(), PARALLEL_EXECUTOR));
+    }
+
+    @Override
+    protected DataSetFilterAlgorithm newFilterAlgorithm() {
+        return new ParallelFilterAlgorithm(checkNotNull(getParallelExecutor(), PARALLEL_EXECUTOR));
+    }
+
+    @Override
+    protected IntervalBuilderDynamicLabel newIntervalBuilderDynamicLabel() {
+        return new ParallelIntervalBuilderDynamicLabel(checkNotNull(getParallelExecutor(), PARALLEL_EXECUTOR));
+    }
+
+    @Override
+    protected IntervalBuilderFixedDate newIntervalBuilderFixedDate() {
+        return new ZonedIntervalBuilderFixedDate();
+    }
+
     // Getters
 
     public boolean isDataSetPushEnabled() {
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider;
+
+import java.util.List;
+
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.def.DataSetDef;
+
+/**
+ * A provider able to run several lookups in a row sharing the resources they have in common
+ * (e.g. a database connection), so that they are acquired just once per batch.
+ */
+public interface BatchDataSetProvider {
+
+    /**
+     * Get the resource shared by the lookups on the given definition (e.g. the data source name).
+     *
+     * @return The batch key, or null if the lookups on the definition can't be batched.
+     */
+    String getBatchKey(DataSetDef def);
+
+    /**
+     * Run the given lookups (all of them with the same batch key) one after the other.
+     *
+     * @param defs The data set definitions
+     * @param lookups The lookups, one per definition
+     * @return The lookup results, in the same order.
+     * @throws org.dashbuilder.dataset.exception.DataSetLookupException holding the UUID of the failed lookup.
+     */
+    List<DataSet> lookupDataSets(List<DataSetDef> defs, List<DataSetLookup> lookups) throws Exception;
+}
@@ -26,7 +26,7 @@ import org.dashbuilder.dataset.def.DataSetDefRegistryListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class BeanDataSetProvider implements DataSetProvider, DataSetDefRegistryListener {
+public class BeanDataSetProvider implements DataSetProvider, RefreshableDataSetProvider, DataSetDefRegistryListener {
 
     protected Logger log = LoggerFactory.getLogger(BeanDataSetProvider.class);
     protected StaticDataSetProvider staticDataSetProvider;
@@ -70,22 +70,8 @@ public class BeanDataSetProvider implements DataSetProvider, DataSetDefRegistryL
 
         // If test mode or not exists then invoke the BEAN generator class
         if ((lookup != null && lookup.testMode()) || dataSet == null) {
-            BeanDataSetDef beanDef = (BeanDataSetDef) def;
-            DataSetGenerator dataSetGenerator = lookupGenerator(def);
-            dataSet = dataSetGenerator.buildDataSet(beanDef.getParamaterMap());
-            dataSet.setUUID(def.getUUID());
-            dataSet.setDefinition(def);
-
-            // Remove non declared columns
-            if (!def.isAllColumnsEnabled()) {
-                for (DataColumn column : dataSet.getColumns()) {
-                    if (def.getColumnById(column.getId()) == null) {
-                        dataSet.removeColumn(column.getId());
-                    }
-                }
-            }
             // Register the data set before return
-            staticDataSetProvider.registerDataSet(dataSet);
+            staticDataSetProvider.registerDataSet(buildDataSet(def));
         }
         try {
             // Always do the lookup over the static data set registry.
@@ -101,10 +87,38 @@ public class BeanDataSetProvider implements DataSetProvider, DataSetDefRegistryL
         return dataSet;
     }
 
+    protected DataSet buildDataSet(DataSetDef def) {
+        BeanDataSetDef beanDef = (BeanDataSetDef) def;
+        DataSetGenerator dataSetGenerator = lookupGenerator(def);
+        DataSet dataSet = dataSetGenerator.buildDataSet(beanDef.getParamaterMap());
+        dataSet.setUUID(def.getUUID());
+        dataSet.setDefinition(def);
+
+        // Remove non declared columns
+        if (!def.isAllColumnsEnabled()) {
+            for (DataColumn column : dataSet.getColumns()) {
+                if (def.getColumnById(column.getId()) == null) {
+                    dataSet.removeColumn(column.getId());
+                }
+            }
+        }
+        return dataSet;
+    }
+
     public boolean isDataSetOutdated(DataSetDef def) {
         return false;
     }
 
+    @Override
+    public boolean refreshDataSet(DataSetDef def) throws Exception {
+        if (staticDataSetProvider.lookupDataSet(def.getUUID(), null) == null) {
+            return false;
+        }
+        // The data set is replaced once generated
+        staticDataSetProvider.registerDataSet(buildDataSet(def));
+        return true;
+    }
+
     // Listen to changes on the data set definition registry
 
     @Override
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider;
+
+import org.dashbuilder.dataset.def.DataSetDef;
+
+/**
+ * A provider able to rebuild its data sets in the background, so that the ones already loaded keep being
+ * served until the new ones are ready (stale-while-revalidate).
+ */
+public interface RefreshableDataSetProvider {
+
+    /**
+     * Rebuild the data set of the given definition and swap it with the one currently loaded.
+     *
+     * @param def The data set definition to refresh
+     * @return false if no data set was loaded, so there was nothing to refresh.
+     */
+    boolean refreshDataSet(DataSetDef def) throws Exception;
+}
@@ -59,6 +59,15 @@ public class StaticDataSetProvider implements DataSetProvider {
         dataSetOpEngine.getIndexRegistry().put(dataSet);
     }
 
+    /**
+     * Append some rows to a registered data set, keeping its filter indexes up to date.
+     * @return The resulting data set (it replaces the registered one)
+     * @see SharedDataSetOpEngine#append(String, DataSet)
+     */
+    public DataSet appendDataSet(String uuid, DataSet rows) {
+        return dataSetOpEngine.append(uuid, rows);
+    }
+
     public DataSet removeDataSet(String uuid) {
         DataSetIndex index = dataSetOpEngine.getIndexRegistry().remove(uuid);
         return (index == null ? null : index.getDataSet());
@@ -96,9 +105,10 @@ public class StaticDataSetProvider implements DataSetProvider {
         DataSet dataSet = dataSetIndex.getDataSet();
         if (lookup == null) return dataSet;
 
-        // Apply the list of operations specified (if any).
+        // Apply the list of operations specified (if any) and trim the results as requested.
+        // (Doing both at once lets the engine sort just the rows requested)
         if (!lookup.getOperationList().isEmpty()) {
-            dataSet = dataSetOpEngine.execute(uuid, lookup.getOperationList());
+            return dataSetOpEngine.execute(uuid, lookup.getOperationList(), lookup.getRowOffset(), lookup.getNumberOfRows());
         }
 
         // Trim the data set as requested.
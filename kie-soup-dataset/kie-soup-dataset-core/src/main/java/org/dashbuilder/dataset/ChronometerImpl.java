@@ -17,20 +17,27 @@ package org.dashbuilder.dataset;
 
 import org.dashbuilder.dataset.engine.Chronometer;
 
+/**
+ * A chronometer based on {@link System#nanoTime()}.
+ * <p>It is not thread-safe: {@link #elapsedTime()} refers to the last start/stop calls made by any thread.
+ * Concurrent callers must rely on the time stamps returned instead.</p>
+ */
 public class ChronometerImpl implements Chronometer {
 
     protected Long startTime;
     protected Long stopTime;
 
     public long start() {
-        startTime = System.nanoTime();
+        long now = System.nanoTime();
+        startTime = now;
         stopTime = null;
-        return startTime;
+        return now;
     }
 
     public long stop() {
-        stopTime = System.nanoTime();
-        return stopTime;
+        long now = System.nanoTime();
+        stopTime = now;
+        return now;
     }
 
     public long elapsedTime() {
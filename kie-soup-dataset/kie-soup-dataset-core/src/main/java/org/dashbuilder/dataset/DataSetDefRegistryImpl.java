@@ -25,6 +25,7 @@ import java.util.Set;
 import org.dashbuilder.dataprovider.DataSetProvider;
 import org.dashbuilder.dataprovider.DataSetProviderRegistry;
 import org.dashbuilder.dataprovider.DataSetProviderType;
+import org.dashbuilder.dataprovider.RefreshableDataSetProvider;
 import org.dashbuilder.dataset.def.DataSetDefRegistryListener;
 import org.dashbuilder.dataset.def.DataSetPostProcessor;
 import org.dashbuilder.dataset.def.DataSetPreprocessor;
@@ -46,6 +47,7 @@ public class DataSetDefRegistryImpl implements DataSetDefRegistry {
     protected Scheduler scheduler;
     protected Map<String, DataSetDefEntry> dataSetDefMap = new HashMap<>();
     protected Set<DataSetDefRegistryListener> listenerSet = new HashSet<>();
+    protected boolean staleWhileRevalidate = false;
 
     public DataSetDefRegistryImpl() {
     }
@@ -74,10 +76,34 @@ public class DataSetDefRegistryImpl implements DataSetDefRegistry {
         this.scheduler = scheduler;
     }
 
+    public boolean isStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /**
+     * If enabled, the scheduled refresh of a data set rebuilds it in the background and then swaps it with the
+     * previous one, which (along with its indexes) keeps being served meanwhile. Otherwise, the previous data
+     * set is discarded and the next request loads it again. Only the {@link RefreshableDataSetProvider}
+     * providers support it.
+     */
+    public void setStaleWhileRevalidate(boolean staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    /**
+     * Get the background refresh metrics of the given data set, or null if not registered.
+     */
+    public synchronized DataSetRefreshStats getRefreshStats(String uuid) {
+        DataSetDefEntry record = dataSetDefMap.get(uuid);
+        if (record == null) return null;
+        return record.refreshStats;
+    }
+
     protected class DataSetDefEntry extends SchedulerTask {
         DataSetDef def;
         long lastRefreshTime;
         long refreshInMillis;
+        DataSetRefreshStats refreshStats;
 
         List<DataSetPreprocessor> preprocessors;
         List<DataSetPostProcessor> postProcessors;
@@ -86,6 +112,7 @@ public class DataSetDefRegistryImpl implements DataSetDefRegistry {
             this.def = def;
             this.lastRefreshTime = System.currentTimeMillis();
             this.refreshInMillis = -1;
+            this.refreshStats = new DataSetRefreshStats(def.getUUID());
             if (def.getRefreshTime() != null && def.getRefreshTime().trim().length() > 0) {
                 TimeAmount tf = TimeAmount.parse(def.getRefreshTime());
                 this.refreshInMillis = tf.toMillis();
@@ -143,6 +170,40 @@ public class DataSetDefRegistryImpl implements DataSetDefRegistry {
             onDataSetDefStale(def);
         }
 
+        /**
+         * Rebuild the data set in the background while the stale one keeps being served.
+         * @return false if the provider has nothing to refresh.
+         */
+        public boolean revalidate() {
+            DataSetProvider provider = resolveProvider(def);
+            if (!(provider instanceof RefreshableDataSetProvider)) {
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            long staleSince = def.isRefreshAlways() ? Math.min(now, lastRefreshTime + refreshInMillis) : now;
+            refreshStats.refreshStarted(staleSince, now);
+            try {
+                if (!((RefreshableDataSetProvider) provider).refreshDataSet(def)) {
+                    refreshStats.refreshCancelled();
+                    return false;
+                }
+            } catch (Exception e) {
+                log.error("Data set refresh failed: " + def.getUUID(), e);
+                refreshStats.refreshFailed();
+                return false;
+            }
+            lastRefreshTime = now;
+            refreshStats.refreshCompleted(System.currentTimeMillis());
+
+            // Discard the refreshed data if the definition changed meanwhile
+            synchronized (DataSetDefRegistryImpl.this) {
+                if (dataSetDefMap.get(def.getUUID()) != this) {
+                    onDataSetDefStale(def);
+                }
+            }
+            return true;
+        }
+
         @Override
         public String getDescription() {
             return "DataSetDef refresh task " + def.getUUID();
@@ -154,7 +215,7 @@ public class DataSetDefRegistryImpl implements DataSetDefRegistry {
         }
         @Override
         public void execute() {
-            if (isStale()) {
+            if (isStale() && (!staleWhileRevalidate || !revalidate())) {
                 stale();
             }
         }
@@ -15,9 +15,20 @@
  */
 package org.dashbuilder.dataset;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
+import org.dashbuilder.dataprovider.BatchDataSetProvider;
 import org.dashbuilder.dataprovider.DataSetProvider;
 import org.dashbuilder.dataprovider.DataSetProviderRegistry;
 import org.dashbuilder.dataprovider.DataSetProviderType;
@@ -28,21 +39,32 @@ import org.dashbuilder.dataset.def.DataSetPostProcessor;
 import org.dashbuilder.dataset.def.DataSetPreprocessor;
 import org.dashbuilder.dataset.def.StaticDataSetDef;
 import org.dashbuilder.dataset.exception.DataSetLookupException;
+import org.dashbuilder.dataset.impl.DataSetImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Backend implementation of the DataSetManager interface. It provides an uniform interface to the data set
  * registration and lookup services on top of the data set provider interface.
+ * <p>Multiple lookups requested at once are run one after the other by default. They can be run concurrently
+ * either by injecting an executor (e.g. a container managed one) or by raising the lookup parallelism, which runs
+ * them on a bounded pool of plain threads. In such case, the lookups sharing the same resource on a
+ * {@link BatchDataSetProvider} (e.g. the same data source) are run in a single batch.</p>
  */
 public class DataSetManagerImpl implements DataSetManager {
 
+    public static final int DEFAULT_LOOKUP_PARALLELISM = 1;
+
     private static final String DATA_SET_NOT_FOUND = "Data set not found: ";
+    private static final String LOOKUP_ERROR = "Can't lookup on specified data set: ";
     protected DataSetDefRegistry dataSetDefRegistry;
     protected DataSetProviderRegistry dataSetProviderRegistry;
     protected StaticDataSetProvider staticDataSetProvider;
     protected boolean pushEnabled = false;
     protected int pushMaxSize = 1024;
+    protected int lookupParallelism = DEFAULT_LOOKUP_PARALLELISM;
+    protected Executor lookupExecutor = null;
+    protected ThreadPoolExecutor defaultLookupExecutor = null;
     protected Logger log = LoggerFactory.getLogger(DataSetManagerImpl.class);
 
     public DataSetManagerImpl() {
@@ -81,6 +103,51 @@ public class DataSetManagerImpl implements DataSetManager {
         return staticDataSetProvider;
     }
 
+    public int getLookupParallelism() {
+        return lookupParallelism;
+    }
+
+    /**
+     * @param lookupParallelism The max. number of lookups (or batches) run at once on the default pool of threads.
+     * If 1 (the default) and no executor is set then the lookups requested at once are run one after the other by
+     * the caller thread. Notice the default threads don't inherit the caller context (JNDI, security, class loader).
+     */
+    public synchronized void setLookupParallelism(int lookupParallelism) {
+        if (lookupParallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be greater than zero: " + lookupParallelism);
+        }
+        if (lookupParallelism != this.lookupParallelism) {
+            this.lookupParallelism = lookupParallelism;
+            if (defaultLookupExecutor != null) {
+                defaultLookupExecutor.shutdown();
+                defaultLookupExecutor = null;
+            }
+        }
+    }
+
+    /**
+     * Use the given executor to run the lookups requested at once (instead of the default pool of threads). It
+     * should be a managed executor when running inside a container, so that the providers get the proper context.
+     */
+    public synchronized void setLookupExecutor(Executor lookupExecutor) {
+        this.lookupExecutor = lookupExecutor;
+    }
+
+    public synchronized Executor getLookupExecutor() {
+        if (lookupExecutor != null) {
+            return lookupExecutor;
+        }
+        if (defaultLookupExecutor == null) {
+            defaultLookupExecutor = new ThreadPoolExecutor(lookupParallelism, lookupParallelism, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "dataset-lookup");
+                thread.setDaemon(true);
+                return thread;
+            });
+            defaultLookupExecutor.allowCoreThreadTimeOut(true);
+        }
+        return defaultLookupExecutor;
+    }
+
     public DataSet createDataSet(String uuid) {
         DataSet dataSet = DataSetFactory.newEmptyDataSet();
         dataSet.setUUID(uuid);
@@ -140,36 +207,137 @@ public class DataSetManagerImpl implements DataSetManager {
             return null;
         }
 
+        DataSetDef dataSetDef = getLookupDataSetDef(uuid);
+        preprocess(uuid, lookup);
+        try {
+            final DataSet dataSet = resolveProvider(dataSetDef).lookupDataSet(dataSetDef, lookup);
+            postProcess(uuid, lookup, dataSet);
+            return toPortable(dataSet);
+        } catch (Exception e) {
+            throw new DataSetLookupException(uuid, LOOKUP_ERROR + lookup.getDataSetUUID(), e);
+        }
+    }
+
+    public DataSet[] lookupDataSets(DataSetLookup[] lookup) {
+        DataSet[] result = new DataSet[lookup.length];
+        if (lookup.length < 2 || (lookupExecutor == null && lookupParallelism < 2)) {
+            for (int i = 0; i < lookup.length; i++) {
+                result[i] = lookupDataSet(lookup[i]);
+            }
+            return result;
+        }
+
+        // The pre/post processors are run by the caller thread as they might depend on the caller context
+        DataSetDef[] defs = new DataSetDef[lookup.length];
+        Map<Object, List<Integer>> batches = new LinkedHashMap<>();
+        for (int i = 0; i < lookup.length; i++) {
+            String uuid = lookup[i].getDataSetUUID();
+            if (!StringUtils.isBlank(uuid)) {
+                defs[i] = getLookupDataSetDef(uuid);
+                preprocess(uuid, lookup[i]);
+                batches.computeIfAbsent(getBatchKey(defs[i], i), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Executor executor = getLookupExecutor();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (List<Integer> batch : batches.values()) {
+            futures.add(CompletableFuture.runAsync(() -> lookupBatch(batch, defs, lookup, result), executor));
+        }
+        // Wait for all the lookups to finish. The error of the first failed batch (if any) is thrown.
+        RuntimeException error = null;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (error == null) {
+                    error = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+
+        for (int i = 0; i < lookup.length; i++) {
+            if (defs[i] != null) {
+                postProcess(defs[i].getUUID(), lookup[i], result[i]);
+                result[i] = toPortable(result[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The lookup results can be sent to the client, so they can't keep the server side columnar storage.
+     */
+    protected DataSet toPortable(DataSet dataSet) {
+        return dataSet instanceof DataSetImpl ? ((DataSetImpl) dataSet).toPortable() : dataSet;
+    }
+
+    protected DataSetDef getLookupDataSetDef(String uuid) {
         DataSetDef dataSetDef = dataSetDefRegistry.getDataSetDef(uuid);
         if (dataSetDef == null) {
             throw new RuntimeException(DATA_SET_NOT_FOUND + uuid);
         }
+        return dataSetDef;
+    }
+
+    protected void preprocess(String uuid, DataSetLookup lookup) {
         List<DataSetPreprocessor> dataSetDefPreProcessors = dataSetDefRegistry.getDataSetDefPreProcessors(uuid);
         if (dataSetDefPreProcessors != null) {
             for(DataSetPreprocessor p : dataSetDefPreProcessors){
                 p.preprocess(lookup);
             }
         }
-        try {
-            final DataSet dataSet = resolveProvider(dataSetDef).lookupDataSet(dataSetDef, lookup);
+    }
 
-            List<DataSetPostProcessor> dataSetDefPostProcessors = dataSetDefRegistry.getDataSetDefPostProcessors(uuid);
-            if (dataSetDefPostProcessors != null) {
-                dataSetDefPostProcessors.forEach(post -> post.postProcess(lookup, dataSet));
-            }
+    protected void postProcess(String uuid, DataSetLookup lookup, DataSet dataSet) {
+        List<DataSetPostProcessor> dataSetDefPostProcessors = dataSetDefRegistry.getDataSetDefPostProcessors(uuid);
+        if (dataSetDefPostProcessors != null) {
+            dataSetDefPostProcessors.forEach(post -> post.postProcess(lookup, dataSet));
+        }
+    }
 
-            return dataSet;
-        } catch (Exception e) {
-            throw new DataSetLookupException(uuid, "Can't lookup on specified data set: " + lookup.getDataSetUUID(), e);
+    /**
+     * The lookups with the same key are run in the same batch. Lookups on providers not supporting batches
+     * get a key of their own.
+     */
+    protected Object getBatchKey(DataSetDef dataSetDef, int lookupIdx) {
+        DataSetProvider provider = resolveProvider(dataSetDef);
+        if (provider instanceof BatchDataSetProvider) {
+            String key = ((BatchDataSetProvider) provider).getBatchKey(dataSetDef);
+            if (key != null) {
+                return Arrays.asList(provider, key);
+            }
         }
+        return lookupIdx;
     }
 
-    public DataSet[] lookupDataSets(DataSetLookup[] lookup) {
-        DataSet[] result = new DataSet[lookup.length];
-        for (int i = 0; i < lookup.length; i++) {
-            result[i] = lookupDataSet(lookup[i]);
+    protected void lookupBatch(List<Integer> batch, DataSetDef[] defs, DataSetLookup[] lookup, DataSet[] result) {
+        int first = batch.get(0);
+        String uuid = defs[first].getUUID();
+        DataSetProvider provider = resolveProvider(defs[first]);
+        try {
+            if (batch.size() == 1) {
+                result[first] = provider.lookupDataSet(defs[first], lookup[first]);
+            } else {
+                List<DataSetDef> batchDefs = new ArrayList<>();
+                List<DataSetLookup> batchLookups = new ArrayList<>();
+                for (int i : batch) {
+                    batchDefs.add(defs[i]);
+                    batchLookups.add(lookup[i]);
+                }
+                List<DataSet> dataSets = ((BatchDataSetProvider) provider).lookupDataSets(batchDefs, batchLookups);
+                for (int i = 0; i < batch.size(); i++) {
+                    result[batch.get(i)] = dataSets.get(i);
+                }
+            }
+        } catch (DataSetLookupException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DataSetLookupException(uuid, LOOKUP_ERROR + uuid, e);
         }
-        return result;
     }
 
     public DataSetMetadata getDataSetMetadata(String uuid) {
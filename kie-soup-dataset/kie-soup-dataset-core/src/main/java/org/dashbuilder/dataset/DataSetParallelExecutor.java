@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Splits the rows processed by a data set operation into chunks which are run on a fork/join pool.
+ * <p>The parallel mode is disabled by default. Once enabled, only the operations over a number of rows
+ * greater or equals than the threshold are split, the rest are run by the caller thread.</p>
+ */
+public class DataSetParallelExecutor {
+
+    /**
+     * A task that processes the rows within a given range.
+     */
+    public interface ChunkTask<T> {
+
+        /**
+         * @param from The first position (inclusive)
+         * @param to The last position (exclusive)
+         */
+        T run(int from, int to);
+    }
+
+    // Number of chunks per thread, so that the load is balanced when some chunks are slower than others
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private volatile boolean enabled = false;
+    private volatile int threshold = 100000;
+    private volatile int parallelism = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool pool = null;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public synchronized void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be greater than zero: " + parallelism);
+        }
+        if (parallelism != this.parallelism) {
+            this.parallelism = parallelism;
+            shutdown();
+        }
+    }
+
+    /**
+     * Check if an operation over the given number of rows must be split into chunks.
+     */
+    public boolean isParallel(int rows) {
+        return enabled && parallelism > 1 && rows >= threshold;
+    }
+
+    /**
+     * Run the task over the range [0, size) split into chunks.
+     * @return The result of every chunk, in the same order as the chunks.
+     */
+    public <T> List<T> execute(int size, ChunkTask<T> task) {
+        int chunkSize = Math.max(1, size / (parallelism * CHUNKS_PER_THREAD));
+        return getPool().invoke(new ChunkRecursiveTask<T>(task, 0, size, chunkSize));
+    }
+
+    /**
+     * Same as {@link #execute(int, ChunkTask)} but without waiting for the task to finish.
+     * @return The results of the chunks, in the same order as the chunks.
+     */
+    public <T> Future<List<T>> submit(int size, ChunkTask<T> task) {
+        int chunkSize = Math.max(1, size / (parallelism * CHUNKS_PER_THREAD));
+        return getPool().submit(new ChunkRecursiveTask<T>(task, 0, size, chunkSize));
+    }
+
+    protected synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    public synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    protected static class ChunkRecursiveTask<T> extends RecursiveTask<List<T>> {
+
+        private ChunkTask<T> task;
+        private int from;
+        private int to;
+        private int chunkSize;
+
+        public ChunkRecursiveTask(ChunkTask<T> task, int from, int to, int chunkSize) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (to - from <= chunkSize) {
+                return Collections.singletonList(task.run(from, to));
+            }
+            int middle = (from + to) >>> 1;
+            ChunkRecursiveTask<T> left = new ChunkRecursiveTask<T>(task, from, middle, chunkSize);
+            ChunkRecursiveTask<T> right = new ChunkRecursiveTask<T>(task, middle, to, chunkSize);
+            left.fork();
+            List<T> rightResults = right.compute();
+            List<T> leftResults = left.join();
+
+            List<T> results = new ArrayList<T>(leftResults.size() + rightResults.size());
+            results.addAll(leftResults);
+            results.addAll(rightResults);
+            return results;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+/**
+ * Metrics about the background refreshes of a data set.
+ */
+public class DataSetRefreshStats {
+
+    private String uuid;
+    private long refreshCount = 0;
+    private long failureCount = 0;
+    private long lastRefreshTime = 0;
+    private long lastRefreshDuration = 0;
+    private long lastStalenessAge = 0;
+    private long staleSince = 0;
+    private long refreshStart = 0;
+
+    public DataSetRefreshStats(String uuid) {
+        this.uuid = uuid;
+    }
+
+    public String getUUID() {
+        return uuid;
+    }
+
+    public synchronized long getRefreshCount() {
+        return refreshCount;
+    }
+
+    public synchronized long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * The time the last refreshed data set was swapped in (0 if never refreshed).
+     */
+    public synchronized long getLastRefreshTime() {
+        return lastRefreshTime;
+    }
+
+    /**
+     * The millis the last refresh took to rebuild the data set.
+     */
+    public synchronized long getLastRefreshDuration() {
+        return lastRefreshDuration;
+    }
+
+    /**
+     * The millis the last refreshed data set was served stale, from the time it became stale to the swap.
+     */
+    public synchronized long getLastStalenessAge() {
+        return lastStalenessAge;
+    }
+
+    /**
+     * The millis the data set is being served stale while a refresh is in progress (0 if no refresh in progress).
+     */
+    public synchronized long getStalenessAge() {
+        return staleSince == 0 ? 0 : System.currentTimeMillis() - staleSince;
+    }
+
+    public synchronized boolean isRefreshing() {
+        return staleSince != 0;
+    }
+
+    synchronized void refreshStarted(long staleSince, long time) {
+        this.staleSince = staleSince;
+        this.refreshStart = time;
+    }
+
+    synchronized void refreshCompleted(long time) {
+        refreshCount++;
+        lastRefreshTime = time;
+        lastRefreshDuration = time - refreshStart;
+        lastStalenessAge = time - staleSince;
+        staleSince = 0;
+    }
+
+    synchronized void refreshFailed() {
+        failureCount++;
+        staleSince = 0;
+    }
+
+    synchronized void refreshCancelled() {
+        staleSince = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "uuid=" + uuid + ", refreshes=" + refreshCount + ", failures=" + failureCount +
+                ", lastRefreshDuration=" + lastRefreshDuration + "ms, lastStalenessAge=" + lastStalenessAge + "ms";
+    }
+}
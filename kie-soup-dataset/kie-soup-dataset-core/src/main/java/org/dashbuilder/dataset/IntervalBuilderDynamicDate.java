@@ -15,70 +15,76 @@
  */
 package org.dashbuilder.dataset;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.Locale;
 
 import org.apache.commons.lang3.StringUtils;
+import org.dashbuilder.dataset.date.DateFields;
 import org.dashbuilder.dataset.date.Quarter;
 import org.dashbuilder.dataset.engine.DataSetHandler;
-import org.dashbuilder.dataset.engine.group.IntervalBuilder;
 import org.dashbuilder.dataset.engine.group.IntervalList;
+import org.dashbuilder.dataset.engine.group.SortedIntervalBuilder;
 import org.dashbuilder.dataset.group.ColumnGroup;
 import org.dashbuilder.dataset.group.DateIntervalType;
 import org.dashbuilder.dataset.group.Interval;
-import org.dashbuilder.dataset.sort.ColumnSort;
-import org.dashbuilder.dataset.sort.DataSetSort;
-import org.dashbuilder.dataset.sort.SortOrder;
-import org.dashbuilder.dataset.sort.SortedList;
+import org.dashbuilder.dataset.impl.RowList;
 
 import static org.dashbuilder.dataset.group.DateIntervalType.*;
 
 /**
  * Interval builder for date columns which generates intervals depending on the underlying data available.
+ * <p>The min/max dates are found in a single pass and then the interval of every row is calculated
+ * arithmetically from its epoch millis, in the default time zone.</p>
+ * <p>Given the rows sorted by date, the min/max dates are taken from both ends and every row falls either
+ * in the same interval as the previous one or close to it.</p>
  */
-public class IntervalBuilderDynamicDate implements IntervalBuilder {
+public class IntervalBuilderDynamicDate implements SortedIntervalBuilder {
 
-    private static SimpleDateFormat format = new SimpleDateFormat("dd-MM-yyyy hh:mm:ss");
+    private static final DateTimeFormatter FORMAT_DEFAULT = DateTimeFormatter.ofPattern("dd-MM-yyyy hh:mm:ss");
+    private static final DateTimeFormatter FORMAT_DAY = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter FORMAT_HOUR = DateTimeFormatter.ofPattern("yyyy-MM-dd HH");
+    private static final DateTimeFormatter FORMAT_MINUTE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter FORMAT_SECOND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     public IntervalList build(DataSetHandler handler, ColumnGroup columnGroup) {
+        return build(handler, columnGroup, null);
+    }
+
+    public IntervalList build(DataSetHandler handler, ColumnGroup columnGroup, List<Integer> sortedRows) {
         IntervalDateRangeList results = new IntervalDateRangeList(columnGroup);
         DataSet dataSet = handler.getDataSet();
         List values = dataSet.getColumnById(columnGroup.getSourceId()).getValues();
         if (values.isEmpty()) {
             return results;
         }
-
-        // Sort the column dates.
-        DataSetSort sortOp = new DataSetSort();
-        sortOp.addSortColumn(new ColumnSort(columnGroup.getSourceId(), SortOrder.ASCENDING));
-        DataSetHandler sortResults = handler.sort(sortOp);
-        List<Integer> sortedRows = sortResults.getRows();
-        if (sortedRows == null || sortedRows.isEmpty()) {
+        RowList rows = RowList.of(sortedRows != null ? sortedRows : handler.getRows());
+        int size = rows == null ? values.size() : rows.size();
+        if (size == 0) {
             return results;
         }
 
         // Get the lower & upper limits (discard nulls).
-        SortedList sortedValues = new SortedList(values, sortedRows);
-        Date minDate = null;
-        Date maxDate = null;
-        for (int i = 0; minDate == null && i < sortedValues.size(); i++) {
-            minDate = (Date) sortedValues.get(i);
-        }
-        for (int i = sortedValues.size()-1; maxDate == null && i >= 0; i--) {
-            maxDate = (Date) sortedValues.get(i);
-        }
+        int[] minMaxRows = sortedRows != null ? getMinMaxSortedRows(values, rows) : getMinMaxRows(values, rows, size);
+        Date minDate = minMaxRows[0] == -1 ? null : (Date) values.get(minMaxRows[0]);
+        Date maxDate = minMaxRows[1] == -1 ? null : (Date) values.get(minMaxRows[1]);
+        long minTime = minDate == null ? 0 : minDate.getTime();
+        long maxTime = maxDate == null ? 0 : maxDate.getTime();
 
         // If min/max are equals then return a single interval.
         DateIntervalType intervalType = calculateIntervalSize(minDate, maxDate, columnGroup);
-        if (minDate == null || minDate.compareTo(maxDate) == 0) {
+        if (minDate == null || minTime == maxTime) {
 
             IntervalDateRange interval = new IntervalDateRange(0, intervalType, minDate, maxDate);
-            for (int row = 0; row < sortedValues.size(); row++) interval.getRows().add(row);
+            for (int i = 0; i < size; i++) interval.getRows().add(rows == null ? i : rows.getRow(i));
+            if (sortedRows != null) sortRows(interval);
 
             results.add(interval);
             results.setIntervalType(columnGroup.getIntervalSize());
@@ -88,35 +94,30 @@ public class IntervalBuilderDynamicDate implements IntervalBuilder {
         }
 
         // Create the intervals according to the min/max dates.
-        Calendar c = firstIntervalDate(intervalType, minDate, columnGroup);
-        int index = 0;
-        int counter = 0;
-        while (c.getTime().compareTo(maxDate) <= 0) {
-            Date intervalMinDate = c.getTime();
-
-            // Create the next interval
-            nextIntervalDate(c, intervalType, 1);
-            Date intervalMaxDate = c.getTime();
-            IntervalDateRange interval = new IntervalDateRange(counter++, intervalType, intervalMinDate, intervalMaxDate);
-            results.add(interval);
-
-            // Add the target rows
-            boolean stop = false;
-            while (!stop) {
-                if (index >= sortedValues.size()) {
-                    stop = true;
-                } else {
-                    Date dateValue = (Date) sortedValues.get(index);
-                    Integer row = sortedRows.get(index);
-                    if (dateValue == null) {
-                        index++;
-                    } else if (dateValue.before(intervalMaxDate)) {
-                        interval.getRows().add(row);
-                        index++;
-                    } else {
-                        stop = true;
-                    }
-                }
+        ZoneId zone = ZoneId.systemDefault();
+        long[] bounds = calculateIntervalBounds(intervalType, minDate, maxDate, columnGroup, zone);
+        createIntervals(results, intervalType, bounds);
+
+        // Add the target rows
+        DateFields fields = new DateFields(zone);
+        long firstMonth = fields.getEpochMonth(bounds[0]);
+        int index = -1;
+        for (int i = 0; i < size; i++) {
+            int row = rows == null ? i : rows.getRow(i);
+            if (DateFields.isNull(values, row)) {
+                continue;
+            }
+            long millis = DateFields.getTime(values, row);
+            if (sortedRows == null || index == -1) {
+                index = locateInterval(intervalType, bounds, firstMonth, fields, millis);
+            } else {
+                index = adjustInterval(bounds, index, millis);
+            }
+            results.get(index).getRows().add(row);
+        }
+        if (sortedRows != null) {
+            for (Interval interval : results) {
+                sortRows(interval);
             }
         }
 
@@ -144,17 +145,8 @@ public class IntervalBuilderDynamicDate implements IntervalBuilder {
         if (intervalType == null) {
             intervalType = DateIntervalType.YEAR;
         }
-        Calendar c = firstIntervalDate(intervalType, minDate, columnGroup);
-        int counter = 0;
-        while (c.getTime().compareTo(maxDate) <= 0) {
-            Date intervalMinDate = c.getTime();
-
-            // Create the next interval
-            nextIntervalDate(c, intervalType, 1);
-            Date intervalMaxDate = c.getTime();
-            IntervalDateRange interval = new IntervalDateRange(counter++, intervalType, intervalMinDate, intervalMaxDate);
-            results.add(interval);
-        }
+        long[] bounds = calculateIntervalBounds(intervalType, minDate, maxDate, columnGroup, ZoneId.systemDefault());
+        createIntervals(results, intervalType, bounds);
 
         // Reverse intervals if requested
         boolean asc = columnGroup.isAscendingOrder();
@@ -167,6 +159,136 @@ public class IntervalBuilderDynamicDate implements IntervalBuilder {
         return results;
     }
 
+    protected void createIntervals(IntervalDateRangeList results, DateIntervalType intervalType, long[] bounds) {
+        for (int i = 0; i < bounds.length - 1; i++) {
+            results.add(new IntervalDateRange(i, intervalType, new Date(bounds[i]), new Date(bounds[i + 1])));
+        }
+    }
+
+    /**
+     * Get the limits of the intervals that cover the given min/max dates.
+     * @return The start of every interval, followed by the end of the last one.
+     */
+    protected long[] calculateIntervalBounds(DateIntervalType intervalType, Date minDate, Date maxDate,
+                                             ColumnGroup columnGroup, ZoneId zone) {
+        List<Long> bounds = new ArrayList<>();
+        ZonedDateTime date = firstIntervalDate(intervalType, minDate, columnGroup, zone);
+        long time = date.toInstant().toEpochMilli();
+        bounds.add(time);
+        while (time <= maxDate.getTime()) {
+            date = nextIntervalDate(date, intervalType, 1);
+            time = date.toInstant().toEpochMilli();
+            bounds.add(time);
+        }
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Get the interval the given millis belong to. The position is estimated from the number of months
+     * (or the duration) since the first interval and then adjusted to the actual interval limits, which
+     * may be shifted by daylight saving changes.
+     */
+    protected int locateInterval(DateIntervalType intervalType, long[] bounds, long firstMonth, DateFields fields, long millis) {
+        long index;
+        int months = getDurationInMonths(intervalType);
+        if (months > 0) {
+            index = Math.floorDiv(fields.getEpochMonth(millis) - firstMonth, months);
+        } else {
+            index = (millis - bounds[0]) / getIntervalMillis(intervalType);
+        }
+        return adjustInterval(bounds, (int) Math.max(0, Math.min(bounds.length - 2, index)), millis);
+    }
+
+    /**
+     * Move from the given interval to the one the given millis belong to.
+     */
+    protected int adjustInterval(long[] bounds, int index, long millis) {
+        int last = bounds.length - 2;
+        int i = index;
+        while (i > 0 && millis < bounds[i]) i--;
+        while (i < last && millis >= bounds[i + 1]) i++;
+        return i;
+    }
+
+    /**
+     * Get the rows holding the min and max dates, or -1 if all the dates are null.
+     */
+    protected int[] getMinMaxRows(List values, RowList rows, int size) {
+        int minRow = -1;
+        int maxRow = -1;
+        long minTime = 0;
+        long maxTime = 0;
+        for (int i = 0; i < size; i++) {
+            int row = rows == null ? i : rows.getRow(i);
+            if (DateFields.isNull(values, row)) {
+                continue;
+            }
+            long time = DateFields.getTime(values, row);
+            if (minRow == -1 || time < minTime) {
+                minRow = row;
+                minTime = time;
+            }
+            if (maxRow == -1 || time > maxTime) {
+                maxRow = row;
+                maxTime = time;
+            }
+        }
+        return new int[] {minRow, maxRow};
+    }
+
+    /**
+     * Same as {@link #getMinMaxRows(List, RowList, int)} for the rows sorted by date, in either order: the
+     * first and last non-null dates are the limits.
+     */
+    protected int[] getMinMaxSortedRows(List values, RowList sortedRows) {
+        int first = 0;
+        int last = sortedRows.size() - 1;
+        while (first <= last && DateFields.isNull(values, sortedRows.getRow(first))) first++;
+        while (last >= first && DateFields.isNull(values, sortedRows.getRow(last))) last--;
+        if (first > last) {
+            return new int[] {-1, -1};
+        }
+        int firstRow = sortedRows.getRow(first);
+        int lastRow = sortedRows.getRow(last);
+        boolean ascending = DateFields.getTime(values, firstRow) <= DateFields.getTime(values, lastRow);
+        return ascending ? new int[] {firstRow, lastRow} : new int[] {lastRow, firstRow};
+    }
+
+    /**
+     * Put the rows taken in date order back in ascending order, as the target rows are.
+     */
+    protected void sortRows(Interval interval) {
+        if (!RowList.of(interval.getRows()).isSorted()) {
+            Collections.sort(interval.getRows());
+        }
+    }
+
+    protected int getDurationInMonths(DateIntervalType intervalType) {
+        switch (intervalType) {
+            case MILLENIUM: return 12000;
+            case CENTURY: return 1200;
+            case DECADE: return 120;
+            case QUARTER: return 3;
+            case MONTH: return 1;
+            case WEEK: case DAY: case DAY_OF_WEEK: case HOUR: case MINUTE: case SECOND: return 0;
+            default: return 12;
+        }
+    }
+
+    protected long getIntervalMillis(DateIntervalType intervalType) {
+        switch (intervalType) {
+            case WEEK: return 7 * DateFields.MILLIS_PER_DAY;
+            case DAY: case DAY_OF_WEEK: return DateFields.MILLIS_PER_DAY;
+            case HOUR: return DateFields.MILLIS_PER_HOUR;
+            case MINUTE: return DateFields.MILLIS_PER_MINUTE;
+            default: return DateFields.MILLIS_PER_SECOND;
+        }
+    }
+
     public DateIntervalType calculateIntervalSize(Date minDate, Date maxDate, ColumnGroup columnGroup) {
 
         DateIntervalType intervalType = DateIntervalType.getByName(columnGroup.getIntervalSize());
@@ -205,95 +327,72 @@ public class IntervalBuilderDynamicDate implements IntervalBuilder {
         return intervalType;
     }
 
-    protected Calendar firstIntervalDate(DateIntervalType intervalType, Date minDate, ColumnGroup columnGroup) {
-        Calendar c = GregorianCalendar.getInstance();
-        c.setLenient(false);
-        c.setTime(minDate);
+    protected ZonedDateTime firstIntervalDate(DateIntervalType intervalType, Date minDate, ColumnGroup columnGroup, ZoneId zone) {
+        ZonedDateTime date = Instant.ofEpochMilli(minDate.getTime()).atZone(zone);
         if (YEAR.equals(intervalType)) {
-            c.set(Calendar.MONTH, 0);
-            c.set(Calendar.DAY_OF_MONTH, 1);
-            c.set(Calendar.HOUR, 0);
-            c.set(Calendar.MINUTE, 0);
-            c.set(Calendar.SECOND, 0);
-            c.set(Calendar.MILLISECOND, 0);
+            return date.withDayOfYear(1).truncatedTo(ChronoUnit.DAYS);
         }
         if (QUARTER.equals(intervalType)) {
-            int currentMonth = c.get(Calendar.MONTH);
             int firstMonthYear = columnGroup.getFirstMonthOfYear().getIndex();
-            int rest = Quarter.getPositionInQuarter(firstMonthYear, currentMonth + 1);
-            c.add(Calendar.MONTH, rest * -1);
-            c.set(Calendar.DAY_OF_MONTH, 1);
-            c.set(Calendar.HOUR, 0);
-            c.set(Calendar.MINUTE, 0);
-            c.set(Calendar.SECOND, 0);
-            c.set(Calendar.MILLISECOND, 0);
+            int rest = Quarter.getPositionInQuarter(firstMonthYear, date.getMonthValue());
+            return date.minusMonths(rest).withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
         }
         if (MONTH.equals(intervalType)) {
-            c.set(Calendar.DAY_OF_MONTH, 1);
-            c.set(Calendar.HOUR, 0);
-            c.set(Calendar.MINUTE, 0);
-            c.set(Calendar.SECOND, 0);
-            c.set(Calendar.MILLISECOND, 0);
+            return date.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
         }
         if (DAY.equals(intervalType) || DAY_OF_WEEK.equals(intervalType) || WEEK.equals(intervalType)) {
-            c.set(Calendar.HOUR, 0);
-            c.set(Calendar.MINUTE, 0);
-            c.set(Calendar.SECOND, 0);
-            c.set(Calendar.MILLISECOND, 0);
+            return date.truncatedTo(ChronoUnit.DAYS);
         }
         if (HOUR.equals(intervalType)) {
-            c.set(Calendar.MINUTE, 0);
-            c.set(Calendar.SECOND, 0);
-            c.set(Calendar.MILLISECOND, 0);
+            return date.truncatedTo(ChronoUnit.HOURS);
         }
         if (MINUTE.equals(intervalType)) {
-            c.set(Calendar.SECOND, 0);
-            c.set(Calendar.MILLISECOND, 0);
+            return date.truncatedTo(ChronoUnit.MINUTES);
         }
         if (SECOND.equals(intervalType)) {
-            c.set(Calendar.MILLISECOND, 0);
+            return date.truncatedTo(ChronoUnit.SECONDS);
         }
-        return c;
+        return date;
     }
 
-    protected void nextIntervalDate(Calendar c, DateIntervalType intervalType, int intervals) {
+    protected ZonedDateTime nextIntervalDate(ZonedDateTime date, DateIntervalType intervalType, int intervals) {
 
         if (MILLENIUM.equals(intervalType)) {
-            c.add(Calendar.YEAR, 1000 * intervals);
+            return date.plusYears(1000L * intervals);
         }
         else if (CENTURY.equals(intervalType)) {
-            c.add(Calendar.YEAR, 100 * intervals);
+            return date.plusYears(100L * intervals);
         }
         else if (DECADE.equals(intervalType)) {
-            c.add(Calendar.YEAR, 10 * intervals);
+            return date.plusYears(10L * intervals);
         }
         else if (YEAR.equals(intervalType)) {
-            c.add(Calendar.YEAR, intervals);
+            return date.plusYears(intervals);
         }
         else if (QUARTER.equals(intervalType)) {
-            c.add(Calendar.MONTH, 3 * intervals);
+            return date.plusMonths(3L * intervals);
         }
         else if (MONTH.equals(intervalType)) {
-            c.add(Calendar.MONTH, intervals);
+            return date.plusMonths(intervals);
         }
         else if (WEEK.equals(intervalType)) {
-            c.add(Calendar.DAY_OF_MONTH, 7 * intervals);
+            return date.plusDays(7L * intervals);
         }
         else if (DAY.equals(intervalType) || DAY_OF_WEEK.equals(intervalType)) {
-            c.add(Calendar.DAY_OF_MONTH, intervals);
+            return date.plusDays(intervals);
         }
         else if (HOUR.equals(intervalType)) {
-            c.add(Calendar.HOUR_OF_DAY, intervals);
+            return date.plusHours(intervals);
         }
         else if (MINUTE.equals(intervalType)) {
-            c.add(Calendar.MINUTE, intervals);
+            return date.plusMinutes(intervals);
         }
         else if (SECOND.equals(intervalType)) {
-            c.add(Calendar.SECOND, intervals);
+            return date.plusSeconds(intervals);
         }
         else {
             // Default to year to avoid infinite loops
-            c.add(Calendar.YEAR, intervals);
+            return date.plusYears(intervals);
         }
     }
 
@@ -329,6 +428,7 @@ public class IntervalBuilderDynamicDate implements IntervalBuilder {
             super.setMaxValue(maxDate);
             super.setIndex(index);
             super.setType(intervalType != null ? intervalType.toString() : null);
+            super.setRows(new RowList());
         }
 
         public Date getMinDate() {
@@ -343,32 +443,27 @@ public class IntervalBuilderDynamicDate implements IntervalBuilder {
     public static String calculateName(DateIntervalType intervalType, Date d) {
         if (d == null) return null;
 
+        ZonedDateTime date = Instant.ofEpochMilli(d.getTime()).atZone(ZoneId.systemDefault());
         Locale l = Locale.getDefault();
         if (MILLENIUM.equals(intervalType) || CENTURY.equals(intervalType)
                 || DECADE.equals(intervalType) || YEAR.equals(intervalType)) {
-            SimpleDateFormat format  = new SimpleDateFormat("yyyy", l);
-            return format.format(d);
+            return DateTimeFormatter.ofPattern("yyyy", l).format(date);
         }
         if (QUARTER.equals(intervalType) || MONTH.equals(intervalType)) {
-            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM", l);
-            return format.format(d);
+            return DateTimeFormatter.ofPattern("yyyy-MM", l).format(date);
         }
         if (WEEK.equals(intervalType) || DAY.equals(intervalType) || DAY_OF_WEEK.equals(intervalType)) {
-            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
-            return format.format(d);
+            return FORMAT_DAY.format(date);
         }
         if (HOUR.equals(intervalType)) {
-            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH");
-            return format.format(d);
+            return FORMAT_HOUR.format(date);
         }
         if (MINUTE.equals(intervalType)) {
-            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
-            return format.format(d);
+            return FORMAT_MINUTE.format(date);
         }
         if (SECOND.equals(intervalType)) {
-            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            return format.format(d);
+            return FORMAT_SECOND.format(date);
         }
-        return format.format(d);
+        return FORMAT_DEFAULT.format(date);
     }
 }
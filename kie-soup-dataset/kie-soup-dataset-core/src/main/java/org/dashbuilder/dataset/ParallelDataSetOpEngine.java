@@ -0,0 +1,204 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.dashbuilder.dataset.engine.Chronometer;
+import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
+import org.dashbuilder.dataset.engine.filter.DataSetFilterAlgorithm;
+import org.dashbuilder.dataset.engine.function.AggregateAccumulator;
+import org.dashbuilder.dataset.engine.function.AverageFunction;
+import org.dashbuilder.dataset.engine.function.CompensatedSum;
+import org.dashbuilder.dataset.engine.function.DistinctFunction;
+import org.dashbuilder.dataset.engine.function.MaxFunction;
+import org.dashbuilder.dataset.engine.function.MinFunction;
+import org.dashbuilder.dataset.engine.function.SumFunction;
+import org.dashbuilder.dataset.engine.group.IntervalBuilderLocator;
+import org.dashbuilder.dataset.engine.index.spi.DataSetIndexRegistry;
+import org.dashbuilder.dataset.engine.sort.DataSetSortAlgorithm;
+import org.dashbuilder.dataset.group.AggregateFunction;
+import org.dashbuilder.dataset.group.AggregateFunctionManager;
+import org.dashbuilder.dataset.impl.DoubleColumnarList;
+import org.dashbuilder.dataset.impl.LabelColumnarList;
+import org.dashbuilder.dataset.impl.RowList;
+
+/**
+ * Data set operation engine that calculates the aggregate functions over large sets of rows in parallel chunks.
+ * <p>Every chunk calculates a partial result (sums, min/max values, distinct values) which are then merged.
+ * Only the built-in functions are split, any other function is calculated by the caller thread.</p>
+ */
+public class ParallelDataSetOpEngine extends SharedDataSetOpEngine {
+
+    protected DataSetParallelExecutor parallelExecutor;
+
+    public ParallelDataSetOpEngine(AggregateFunctionManager aggregateFunctionManager,
+                                   IntervalBuilderLocator intervalBuilderLocator,
+                                   DataSetIndexRegistry indexRegistry,
+                                   DataSetSortAlgorithm sortAlgorithm,
+                                   DataSetFilterAlgorithm filterAlgorithm,
+                                   Chronometer chronometer,
+                                   DataSetParallelExecutor parallelExecutor) {
+        super(aggregateFunctionManager, intervalBuilderLocator, indexRegistry, sortAlgorithm, filterAlgorithm, chronometer);
+        this.parallelExecutor = parallelExecutor;
+    }
+
+    @Override
+    protected Object aggregate(AggregateFunction function, DataColumn column, List<Integer> rows) {
+        final List values = column.getValues();
+        final RowList rowList = RowList.of(rows);
+        int size = rowList == null ? values.size() : rowList.size();
+        if (size == 0 || !parallelExecutor.isParallel(size)) {
+            return super.aggregate(function, column, rows);
+        }
+        Class functionClass = function.getClass();
+        if (functionClass == SumFunction.class) {
+            SumFunction sumFunction = (SumFunction) function;
+            return sumFunction.round(sum(values, rowList, size), sumFunction.getPrecission());
+        }
+        if (functionClass == AverageFunction.class) {
+            // Same as the serial calculation: the sum is rounded before the average is calculated
+            AverageFunction avgFunction = (AverageFunction) function;
+            double sum = avgFunction.round(sum(values, rowList, size), avgFunction.getPrecission()).doubleValue();
+            return avgFunction.round(sum / size, avgFunction.getPrecission());
+        }
+        if (functionClass == MinFunction.class || functionClass == MaxFunction.class) {
+            return minMax(function, values, rowList, size, functionClass == MinFunction.class);
+        }
+        if (functionClass == DistinctFunction.class) {
+            return distinct(values, rowList, size);
+        }
+        return super.aggregate(function, column, rows);
+    }
+
+    /**
+     * Every chunk gathers the statistics of all the functions, then the partial accumulators are merged in order.
+     */
+    @Override
+    protected AggregateAccumulator accumulate(final List<AggregateFunction> functions, DataColumn column, List<Integer> rows) {
+        final List values = column.getValues();
+        final RowList rowList = RowList.of(rows);
+        int size = rowList == null ? values.size() : rowList.size();
+        if (size == 0 || !parallelExecutor.isParallel(size)) {
+            return super.accumulate(functions, column, rows);
+        }
+        List<AggregateAccumulator> partials = parallelExecutor.execute(size, (from, to) -> {
+            AggregateAccumulator accumulator = new AggregateAccumulator(values, functions);
+            accumulator.accumulate(rowList, from, to);
+            return accumulator;
+        });
+        AggregateAccumulator result = partials.get(0);
+        for (int i = 1; i < partials.size(); i++) {
+            result.merge(partials.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Every chunk calculates a compensated sum, so merging them gives the same rounded result as the serial scan.
+     */
+    protected double sum(final List values, final RowList rows, int size) {
+        List<CompensatedSum> partials = parallelExecutor.execute(size, (from, to) -> {
+            CompensatedSum sum = new CompensatedSum();
+            if (values instanceof DoubleColumnarList) {
+                // Nulls are stored as zero
+                DoubleColumnarList doubles = (DoubleColumnarList) values;
+                for (int i = from; i < to; i++) {
+                    sum.add(doubles.getDouble(rows == null ? i : rows.getRow(i)));
+                }
+            } else {
+                for (int i = from; i < to; i++) {
+                    Number n = (Number) values.get(rows == null ? i : rows.getRow(i));
+                    if (n != null) {
+                        sum.add(n.doubleValue());
+                    }
+                }
+            }
+            return sum;
+        });
+        CompensatedSum sum = new CompensatedSum();
+        for (CompensatedSum partial : partials) {
+            sum.add(partial);
+        }
+        return sum.getSum();
+    }
+
+    /**
+     * The min/max value of every chunk is calculated by the function itself. Rounding does not alter the order
+     * of the values, so the min/max of the partial results is the same as the min/max of all the values.
+     */
+    protected Object minMax(final AggregateFunction function, final List values, final RowList rows, int size, boolean min) {
+        List<Object> partials = parallelExecutor.execute(size, (from, to) -> function.aggregate(values, chunkRows(rows, from, to)));
+        Comparable result = null;
+        for (Object partial : partials) {
+            Comparable val = (Comparable) partial;
+            if (val == null) {
+                continue;
+            }
+            // On equal values the first one is kept, as the serial calculation does
+            if (result == null || (min ? val.compareTo(result) < 0 : val.compareTo(result) > 0)) {
+                result = val;
+            }
+        }
+        return result;
+    }
+
+    protected Object distinct(final List values, final RowList rows, int size) {
+        if (values instanceof LabelColumnarList) {
+            // Merge the dictionary codes found (null is encoded as -1)
+            final LabelColumnarList labels = (LabelColumnarList) values;
+            List<boolean[]> partials = parallelExecutor.execute(size, (from, to) -> {
+                boolean[] found = new boolean[labels.getCardinality() + 1];
+                for (int i = from; i < to; i++) {
+                    found[labels.getCode(rows == null ? i : rows.getRow(i)) + 1] = true;
+                }
+                return found;
+            });
+            int distincts = 0;
+            for (int code = 0; code < labels.getCardinality() + 1; code++) {
+                for (boolean[] found : partials) {
+                    if (found[code]) {
+                        distincts++;
+                        break;
+                    }
+                }
+            }
+            return (double) distincts;
+        }
+        List<Set> partials = parallelExecutor.execute(size, (from, to) -> {
+            Set distincts = new HashSet();
+            for (int i = from; i < to; i++) {
+                distincts.add(values.get(rows == null ? i : rows.getRow(i)));
+            }
+            return distincts;
+        });
+        Set distincts = new HashSet();
+        for (Set partial : partials) {
+            distincts.addAll(partial);
+        }
+        return (double) distincts.size();
+    }
+
+    protected RowList chunkRows(RowList rows, int from, int to) {
+        RowList result = new RowList(to - from);
+        for (int i = from; i < to; i++) {
+            result.addRow(rows == null ? i : rows.getRow(i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.List;
+
+import org.dashbuilder.dataset.engine.DataSetHandler;
+import org.dashbuilder.dataset.engine.filter.CoreFunction;
+import org.dashbuilder.dataset.engine.filter.DataSetFilterContext;
+import org.dashbuilder.dataset.engine.filter.DataSetFunction;
+import org.dashbuilder.dataset.engine.filter.DefaultFilterAlgorithm;
+import org.dashbuilder.dataset.filter.ColumnFilter;
+import org.dashbuilder.dataset.filter.CoreFunctionFilter;
+import org.dashbuilder.dataset.impl.RowList;
+
+/**
+ * Filter algorithm that evaluates large sets of rows in parallel chunks. The rows passing every chunk
+ * are concatenated in order, so the result is the same as the serial one.
+ * <p>The LIKE patterns are matched through regular expressions compiled once per filter.</p>
+ */
+public class ParallelFilterAlgorithm extends DefaultFilterAlgorithm {
+
+    protected DataSetParallelExecutor parallelExecutor;
+
+    public ParallelFilterAlgorithm(DataSetParallelExecutor parallelExecutor) {
+        this.parallelExecutor = parallelExecutor;
+    }
+
+    @Override
+    public List<Integer> filter(DataSetHandler ctx, final ColumnFilter columnFilter) {
+        final DataSet dataSet = ctx.getDataSet();
+        final RowList targetRows = RowList.of(ctx.getRows());
+        int size = targetRows == null ? dataSet.getRowCount() : targetRows.size();
+        if (!parallelExecutor.isParallel(size)) {
+            return super.filter(ctx, columnFilter);
+        }
+        // The function is built once, so all the chunks share the same parameters (e.g. the time frame limits)
+        final DataSetFunction filterFunction = buildFunction(new DataSetFilterContext(dataSet), columnFilter);
+        List<RowList> chunks = parallelExecutor.execute(size, (from, to) -> filter(filterFunction, targetRows, from, to));
+
+        int total = 0;
+        for (RowList chunk : chunks) {
+            total += chunk.size();
+        }
+        RowList result = new RowList(total);
+        for (RowList chunk : chunks) {
+            result.addAll(chunk);
+        }
+        return result;
+    }
+
+    @Override
+    protected CoreFunction createCoreFunction(DataSetFilterContext filterContext, CoreFunctionFilter filter) {
+        return new RegExpCoreFunction(filterContext, filter);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.List;
+
+import org.dashbuilder.dataset.engine.DataSetHandler;
+import org.dashbuilder.dataset.engine.group.IntervalBuilderDynamicLabel;
+import org.dashbuilder.dataset.engine.group.IntervalList;
+import org.dashbuilder.dataset.group.ColumnGroup;
+import org.dashbuilder.dataset.impl.RowList;
+
+/**
+ * Label interval builder that classifies large sets of rows in parallel chunks and then merges the
+ * intervals of every chunk in order.
+ */
+public class ParallelIntervalBuilderDynamicLabel extends IntervalBuilderDynamicLabel {
+
+    protected DataSetParallelExecutor parallelExecutor;
+
+    public ParallelIntervalBuilderDynamicLabel(DataSetParallelExecutor parallelExecutor) {
+        this.parallelExecutor = parallelExecutor;
+    }
+
+    @Override
+    public IntervalList build(DataSetHandler ctx, final ColumnGroup columnGroup) {
+        final List values = ctx.getDataSet().getColumnById(columnGroup.getSourceId()).getValues();
+        final RowList rows = RowList.of(ctx.getRows());
+        int size = rows == null ? values.size() : rows.size();
+        if (!parallelExecutor.isParallel(size)) {
+            return super.build(ctx, columnGroup);
+        }
+        List<IntervalList> chunks = parallelExecutor.execute(size, (from, to) -> build(columnGroup, values, rows, from, to));
+        return merge(columnGroup, chunks);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.regex.Pattern;
+
+import org.dashbuilder.dataset.engine.filter.CoreFunction;
+import org.dashbuilder.dataset.engine.filter.DataSetFilterContext;
+import org.dashbuilder.dataset.filter.CoreFunctionFilter;
+
+/**
+ * Server side core function that compiles the regular expression of the LIKE patterns just once per filter.
+ */
+public class RegExpCoreFunction extends CoreFunction {
+
+    public RegExpCoreFunction(DataSetFilterContext ctx, CoreFunctionFilter coreFunctionFilter) {
+        super(ctx, coreFunctionFilter);
+    }
+
+    @Override
+    protected LikePattern createLikePattern(String pattern, boolean caseSensitive) {
+        return new RegExpLikePattern(pattern, caseSensitive);
+    }
+
+    /**
+     * A LIKE pattern holding the compiled regular expression. Case unsensitive patterns are matched through
+     * the regexp flags, so the values are never lower-cased.
+     */
+    public static class RegExpLikePattern extends LikePattern {
+
+        private Pattern compiled = null;
+
+        public RegExpLikePattern(String pattern, boolean caseSensitive) {
+            super(pattern, caseSensitive);
+            if (getRegExp() != null) {
+                int flags = caseSensitive ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+                compiled = Pattern.compile(getRegExp(), flags);
+            }
+        }
+
+        @Override
+        protected boolean matchesRegExp(String str) {
+            return compiled.matcher(str).matches();
+        }
+    }
+}
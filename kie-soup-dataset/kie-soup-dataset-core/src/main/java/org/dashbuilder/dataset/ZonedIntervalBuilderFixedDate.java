@@ -0,0 +1,76 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.time.ZoneId;
+import java.util.List;
+
+import org.dashbuilder.dataset.date.DateFields;
+import org.dashbuilder.dataset.engine.group.IntervalBuilderFixedDate;
+import org.dashbuilder.dataset.engine.group.IntervalList;
+import org.dashbuilder.dataset.engine.group.IntervalListFixedDate;
+import org.dashbuilder.dataset.group.DateIntervalType;
+import org.dashbuilder.dataset.group.Interval;
+import org.dashbuilder.dataset.impl.RowList;
+
+/**
+ * Fixed date interval builder that gets the date field of every row arithmetically from its epoch millis
+ * (in the default time zone), instead of going through the calendar fields of a date instance.
+ */
+public class ZonedIntervalBuilderFixedDate extends IntervalBuilderFixedDate {
+
+    @Override
+    protected void indexValues(IntervalList intervalList, List values, List<Integer> rows) {
+        DateIntervalType type = DateIntervalType.getByName(intervalList.getColumnGroup().getIntervalSize());
+        if (type == null || !(intervalList instanceof IntervalListFixedDate)) {
+            super.indexValues(intervalList, values, rows);
+            return;
+        }
+        IntervalListFixedDate fixedList = (IntervalListFixedDate) intervalList;
+        DateFields fields = new DateFields(ZoneId.systemDefault());
+        RowList rowList = RowList.of(rows);
+        int size = rowList == null ? values.size() : rowList.size();
+        for (int i = 0; i < size; i++) {
+            int row = rowList == null ? i : rowList.getRow(i);
+            if (DateFields.isNull(values, row)) {
+                continue;
+            }
+            long millis = DateFields.getTime(values, row);
+            Interval interval = fixedList.locateInterval(getDateField(type, fields, millis));
+            if (interval != null) {
+                interval.getRows().add(row);
+            }
+        }
+    }
+
+    protected int getDateField(DateIntervalType type, DateFields fields, long millis) {
+        switch (type) {
+            case QUARTER:
+            case MONTH:
+                return fields.getMonth(millis);
+            case DAY_OF_WEEK:
+                return fields.getDayOfWeek(millis);
+            case HOUR:
+                return fields.getHours(millis);
+            case MINUTE:
+                return fields.getMinutes(millis);
+            case SECOND:
+                return fields.getSeconds(millis);
+            default:
+                throw new IllegalArgumentException("Interval size not supported for fixed date intervals: " + type);
+        }
+    }
+}
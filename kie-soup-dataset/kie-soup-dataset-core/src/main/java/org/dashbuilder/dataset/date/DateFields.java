@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.date;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+import java.util.List;
+
+import org.dashbuilder.dataset.impl.DateColumnarList;
+
+/**
+ * Calculates the local date fields of epoch millis in a given time zone, with no allocations per value.
+ * <p>The zone offset is kept until the next (or previous) transition, so the fields of the values within the
+ * same offset period are calculated arithmetically. Not thread safe.</p>
+ */
+public class DateFields {
+
+    public static final long MILLIS_PER_SECOND = 1000L;
+    public static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    public static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    public static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    protected ZoneRules rules;
+    protected long offset = 0;
+    protected long validFrom = Long.MAX_VALUE;
+    protected long validTo = Long.MIN_VALUE;
+
+    public DateFields(ZoneId zone) {
+        this.rules = zone.getRules();
+    }
+
+    /**
+     * Check if the date at the given row is null (no date instance is created for the primitive storage).
+     */
+    public static boolean isNull(List values, int row) {
+        if (values instanceof DateColumnarList) {
+            return ((DateColumnarList) values).isNull(row);
+        }
+        return values.get(row) == null;
+    }
+
+    /**
+     * Get the millis of the (not null) date at the given row.
+     */
+    public static long getTime(List values, int row) {
+        if (values instanceof DateColumnarList) {
+            return ((DateColumnarList) values).getTime(row);
+        }
+        return ((Date) values.get(row)).getTime();
+    }
+
+    /**
+     * The millis since 1970-01-01T00:00 local time.
+     */
+    public long toLocalMillis(long millis) {
+        if (millis < validFrom || millis >= validTo) {
+            updateOffset(millis);
+        }
+        return millis + offset;
+    }
+
+    protected void updateOffset(long millis) {
+        Instant instant = Instant.ofEpochMilli(millis);
+        offset = rules.getOffset(instant).getTotalSeconds() * MILLIS_PER_SECOND;
+        if (rules.isFixedOffset()) {
+            validFrom = Long.MIN_VALUE;
+            validTo = Long.MAX_VALUE;
+            return;
+        }
+        ZoneOffsetTransition previous = rules.previousTransition(instant);
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        validFrom = previous != null && previous.getOffsetAfter().getTotalSeconds() * MILLIS_PER_SECOND == offset
+                ? previous.toEpochSecond() * MILLIS_PER_SECOND : millis;
+        validTo = next != null ? next.toEpochSecond() * MILLIS_PER_SECOND : Long.MAX_VALUE;
+    }
+
+    /**
+     * The days since 1970-01-01 local time.
+     */
+    public long getEpochDay(long millis) {
+        return Math.floorDiv(toLocalMillis(millis), MILLIS_PER_DAY);
+    }
+
+    /**
+     * The months since year 0 (year * 12 + month of year starting at 0).
+     */
+    public long getEpochMonth(long millis) {
+        // Civil date from the day number (proleptic gregorian calendar, years starting on March)
+        long z = getEpochDay(millis) + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long year = yoe + era * 400;
+        long month = mp < 10 ? mp + 2 : mp - 10;
+        if (month < 2) {
+            year++;
+        }
+        return year * 12 + month;
+    }
+
+    /**
+     * The year, same as {@link java.util.Calendar#YEAR}
+     */
+    public int getYear(long millis) {
+        return (int) Math.floorDiv(getEpochMonth(millis), 12);
+    }
+
+    /**
+     * The month of year from 0 to 11, same as {@link java.util.Calendar#MONTH}
+     */
+    public int getMonth(long millis) {
+        return (int) Math.floorMod(getEpochMonth(millis), 12);
+    }
+
+    /**
+     * The day of week from 0 (sunday) to 6, same as {@link java.util.Date#getDay()}
+     */
+    public int getDayOfWeek(long millis) {
+        // 1970-01-01 was thursday
+        return (int) Math.floorMod(getEpochDay(millis) + 4, 7);
+    }
+
+    public int getHours(long millis) {
+        return (int) (Math.floorMod(toLocalMillis(millis), MILLIS_PER_DAY) / MILLIS_PER_HOUR);
+    }
+
+    public int getMinutes(long millis) {
+        return (int) (Math.floorMod(toLocalMillis(millis), MILLIS_PER_HOUR) / MILLIS_PER_MINUTE);
+    }
+
+    public int getSeconds(long millis) {
+        return (int) (Math.floorMod(toLocalMillis(millis), MILLIS_PER_MINUTE) / MILLIS_PER_SECOND);
+    }
+}
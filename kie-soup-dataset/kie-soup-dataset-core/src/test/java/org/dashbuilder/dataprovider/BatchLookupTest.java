@@ -0,0 +1,203 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.dashbuilder.DataSetCore;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.DataSetLookupFactory;
+import org.dashbuilder.dataset.DataSetManagerImpl;
+import org.dashbuilder.dataset.DataSetMetadata;
+import org.dashbuilder.dataset.def.DataSetDef;
+import org.dashbuilder.dataset.def.DataSetDefRegistry;
+import org.dashbuilder.dataset.exception.DataSetLookupException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BatchLookupTest {
+
+    public static class BatchProvider implements DataSetProvider, BatchDataSetProvider {
+
+        public static final DataSetProviderType TYPE = () -> "BATCH";
+
+        List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        List<String> singles = Collections.synchronizedList(new ArrayList<>());
+
+        public DataSetProviderType getType() {
+            return TYPE;
+        }
+
+        public DataSetMetadata getDataSetMetadata(DataSetDef def) throws Exception {
+            return lookup(def).getMetadata();
+        }
+
+        public DataSet lookupDataSet(DataSetDef def, DataSetLookup lookup) throws Exception {
+            singles.add(def.getUUID());
+            return lookup(def);
+        }
+
+        public boolean isDataSetOutdated(DataSetDef def) {
+            return false;
+        }
+
+        public String getBatchKey(DataSetDef def) {
+            return def.getProperty("source");
+        }
+
+        public List<DataSet> lookupDataSets(List<DataSetDef> defs, List<DataSetLookup> lookups) throws Exception {
+            List<String> batch = new ArrayList<>();
+            List<DataSet> result = new ArrayList<>();
+            for (DataSetDef def : defs) {
+                batch.add(def.getUUID());
+                try {
+                    result.add(lookup(def));
+                } catch (Exception e) {
+                    throw new DataSetLookupException(def.getUUID(), "Can't lookup on specified data set: " + def.getUUID(), e);
+                }
+            }
+            batches.add(batch);
+            return result;
+        }
+
+        private DataSet lookup(DataSetDef def) {
+            if ("error".equals(def.getUUID())) {
+                throw new IllegalStateException("Connection refused");
+            }
+            return DataSetFactory.newDataSetBuilder()
+                    .label("uuid")
+                    .row(def.getUUID())
+                    .buildDataSet();
+        }
+    }
+
+    BatchProvider batchProvider = new BatchProvider();
+    DataSetDefRegistry dataSetDefRegistry = DataSetCore.get().getDataSetDefRegistry();
+    DataSetManagerImpl dataSetManager = (DataSetManagerImpl) DataSetCore.get().getDataSetManager();
+    List<Thread> preprocessThreads = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() {
+        DataSetCore.get().getDataSetProviderRegistry().registerDataProvider(batchProvider);
+        registerDef("a1", "source1");
+        registerDef("a2", "source1");
+        registerDef("b1", "source2");
+        registerDef("c1", null);
+        registerDef("error", "source2");
+        dataSetManager.setLookupParallelism(4);
+    }
+
+    @After
+    public void tearDown() {
+        dataSetManager.setLookupParallelism(DataSetManagerImpl.DEFAULT_LOOKUP_PARALLELISM);
+        dataSetManager.setLookupExecutor(null);
+        for (String uuid : new String[] {"a1", "a2", "b1", "c1", "error"}) {
+            dataSetDefRegistry.removeDataSetDef(uuid);
+        }
+    }
+
+    @Test
+    public void testBatches() throws Exception {
+        DataSet[] result = dataSetManager.lookupDataSets(lookups("a1", "b1", "c1", "a2"));
+        assertEquals(4, result.length);
+        assertEquals("a1", result[0].getValueAt(0, 0));
+        assertEquals("b1", result[1].getValueAt(0, 0));
+        assertEquals("c1", result[2].getValueAt(0, 0));
+        assertEquals("a2", result[3].getValueAt(0, 0));
+
+        // Same source lookups in a single batch
+        assertEquals(1, batchProvider.batches.size());
+        assertEquals(2, batchProvider.batches.get(0).size());
+        assertEquals(2, batchProvider.singles.size());
+
+        // Pre processors are run by the caller thread
+        assertEquals(4, preprocessThreads.size());
+        for (Thread thread : preprocessThreads) {
+            assertSame(Thread.currentThread(), thread);
+        }
+    }
+
+    @Test
+    public void testSequential() throws Exception {
+        dataSetManager.setLookupParallelism(1);
+        DataSet[] result = dataSetManager.lookupDataSets(lookups("a1", "a2"));
+        assertEquals("a1", result[0].getValueAt(0, 0));
+        assertEquals("a2", result[1].getValueAt(0, 0));
+        assertTrue(batchProvider.batches.isEmpty());
+        assertEquals(2, batchProvider.singles.size());
+    }
+
+    @Test
+    public void testSequentialByDefault() throws Exception {
+        dataSetManager.setLookupParallelism(DataSetManagerImpl.DEFAULT_LOOKUP_PARALLELISM);
+        dataSetManager.lookupDataSets(lookups("a1", "a2", "b1"));
+        assertTrue(batchProvider.batches.isEmpty());
+        assertEquals(3, batchProvider.singles.size());
+    }
+
+    @Test
+    public void testInjectedExecutor() throws Exception {
+        List<Runnable> tasks = new ArrayList<>();
+        dataSetManager.setLookupParallelism(DataSetManagerImpl.DEFAULT_LOOKUP_PARALLELISM);
+        dataSetManager.setLookupExecutor(task -> {
+            tasks.add(task);
+            task.run();
+        });
+        DataSet[] result = dataSetManager.lookupDataSets(lookups("a1", "b1", "c1", "a2"));
+        assertEquals("a2", result[3].getValueAt(0, 0));
+
+        // One task per batch
+        assertEquals(3, tasks.size());
+        assertEquals(1, batchProvider.batches.size());
+    }
+
+    @Test
+    public void testLookupError() throws Exception {
+        try {
+            dataSetManager.lookupDataSets(lookups("a1", "b1", "error"));
+            fail("The lookup error must be thrown");
+        } catch (DataSetLookupException e) {
+            assertEquals("Can't lookup on specified data set: error", e.getMessage());
+            assertEquals("Connection refused", e.getCause().getMessage());
+        }
+    }
+
+    private void registerDef(String uuid, String source) {
+        DataSetDef def = new DataSetDef();
+        def.setUUID(uuid);
+        def.setProvider(BatchProvider.TYPE);
+        if (source != null) {
+            def.setProperty("source", source);
+        }
+        dataSetDefRegistry.registerDataSetDef(def);
+        dataSetDefRegistry.registerPreprocessor(uuid, lookup -> preprocessThreads.add(Thread.currentThread()));
+    }
+
+    private DataSetLookup[] lookups(String... uuids) {
+        DataSetLookup[] lookups = new DataSetLookup[uuids.length];
+        for (int i = 0; i < uuids.length; i++) {
+            lookups[i] = DataSetLookupFactory.newDataSetLookupBuilder().dataset(uuids[i]).buildLookup();
+        }
+        return lookups;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import org.dashbuilder.DataSetCore;
+import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
+import org.dashbuilder.dataset.engine.index.DataSetGroupIndex;
+import org.dashbuilder.dataset.engine.index.DataSetIndex;
+import org.dashbuilder.dataset.engine.index.stats.DataSetIndexStats;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.dataset.group.DateIntervalType;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.dashbuilder.dataset.ExpenseReportsData.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.equalsTo;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DataSetAppendTest {
+
+    public static final String EXPENSE_REPORTS = "expense_reports_append";
+
+    DataSetLookup filterAndAggregate = DataSetLookupFactory.newDataSetLookupBuilder()
+            .dataset(EXPENSE_REPORTS)
+            .filter(COLUMN_CITY, equalsTo("Barcelona"))
+            .filter(COLUMN_DEPARTMENT, equalsTo("Engineering"))
+            .column(COLUMN_AMOUNT, AggregateFunctionType.COUNT, "count")
+            .column(COLUMN_AMOUNT, AggregateFunctionType.SUM, "sum")
+            .column(COLUMN_AMOUNT, AggregateFunctionType.MAX, "max")
+            .column(COLUMN_AMOUNT, AggregateFunctionType.AVERAGE, "avg")
+            .buildLookup();
+
+    SharedDataSetOpEngine dataSetOpEngine = DataSetCore.get().getSharedDataSetOpEngine();
+    DataSetFormatter dataSetFormatter = new DataSetFormatter();
+
+    @Before
+    public void setUp() throws Exception {
+        DataSet dataSet = ExpenseReportsData.INSTANCE.toDataSet();
+        dataSet.setUUID(EXPENSE_REPORTS);
+        dataSetOpEngine.getIndexRegistry().put(dataSet);
+    }
+
+    @Test
+    public void testAppendRows() throws Exception {
+        DataSet before = dataSetOpEngine.execute(EXPENSE_REPORTS, filterAndAggregate.getOperationList());
+        DataSet rows = ExpenseReportsData.INSTANCE.toDataSet().trim(0, 10);
+        DataSet result = dataSetOpEngine.append(EXPENSE_REPORTS, rows);
+        assertThat(result.getRowCount()).isEqualTo(60);
+        assertThat(result.getUUID()).isEqualTo(EXPENSE_REPORTS);
+
+        // The filter indexes are kept, along with the mergeable aggregate values
+        DataSetIndex index = dataSetOpEngine.getIndexRegistry().get(EXPENSE_REPORTS);
+        assertThat(index.getDataSet()).isSameAs(result);
+        DataSetIndexStats stats = index.getStats();
+        assertThat(stats.getNumberOfFilterOps()).isEqualTo(2);
+        assertThat(stats.getNumberOfAggFunctions()).isEqualTo(3);
+
+        // Same results as from scratch
+        DataSet after = dataSetOpEngine.execute(EXPENSE_REPORTS, filterAndAggregate.getOperationList());
+        DataSet expected = dataSetOpEngine.execute(result.cloneInstance(), filterAndAggregate.getOperationList());
+        assertThat(format(after)).isEqualTo(format(expected));
+        assertThat(format(after)).isNotEqualTo(format(before));
+        assertThat(stats.getNumberOfFilterOps()).isEqualTo(2);
+    }
+
+    @Test
+    public void testAppendLabelGroups() throws Exception {
+        DataSetLookup groupByCity = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .filter(COLUMN_DEPARTMENT, equalsTo("Engineering"))
+                .group(COLUMN_CITY)
+                .column(COLUMN_CITY)
+                .column(COLUMN_AMOUNT, AggregateFunctionType.COUNT, "count")
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM, "sum")
+                .buildLookup();
+        DataSetLookup groupByDate = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .group(COLUMN_DATE).dynamic(DateIntervalType.YEAR, true)
+                .column(COLUMN_DATE)
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM, "sum")
+                .buildLookup();
+        dataSetOpEngine.execute(EXPENSE_REPORTS, groupByCity.getOperationList());
+        dataSetOpEngine.execute(EXPENSE_REPORTS, groupByDate.getOperationList());
+        assertThat(dataSetOpEngine.getIndexRegistry().get(EXPENSE_REPORTS).getStats().getNumberOfGroupOps()).isEqualTo(2);
+
+        // Some rows of the existing cities plus a new one
+        DataSet rows = ExpenseReportsData.INSTANCE.toDataSet().trim(0, 10);
+        rows.setValueAt(0, 1, "Brno");
+        rows.setValueAt(0, 2, "Engineering");
+        DataSet result = dataSetOpEngine.append(EXPENSE_REPORTS, rows);
+
+        // The label group is kept, the date group is built again on demand
+        DataSetIndex index = dataSetOpEngine.getIndexRegistry().get(EXPENSE_REPORTS);
+        assertThat(index.getStats().getNumberOfGroupOps()).isEqualTo(1);
+        DataSetGroupIndex groupIndex = index.getFilterIndexes().get(0).getGroupIndexes().get(0);
+        DataSet after = dataSetOpEngine.execute(EXPENSE_REPORTS, groupByCity.getOperationList());
+        assertThat(index.getFilterIndexes().get(0).getGroupIndexes().get(0)).isSameAs(groupIndex);
+        DataSet expected = dataSetOpEngine.execute(result.cloneInstance(), groupByCity.getOperationList());
+        assertThat(format(after)).isEqualTo(format(expected));
+        assertThat(format(after)).contains("Brno");
+
+        after = dataSetOpEngine.execute(EXPENSE_REPORTS, groupByDate.getOperationList());
+        expected = dataSetOpEngine.execute(result.cloneInstance(), groupByDate.getOperationList());
+        assertThat(format(after)).isEqualTo(format(expected));
+    }
+
+    @Test
+    public void testAppendNothing() throws Exception {
+        DataSet before = dataSetOpEngine.execute(EXPENSE_REPORTS, filterAndAggregate.getOperationList());
+        DataSet result = dataSetOpEngine.append(EXPENSE_REPORTS, ExpenseReportsData.INSTANCE.toDataSet().cloneEmpty());
+        assertThat(result.getRowCount()).isEqualTo(50);
+        DataSet after = dataSetOpEngine.execute(EXPENSE_REPORTS, filterAndAggregate.getOperationList());
+        assertThat(format(after)).isEqualTo(format(before));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingColumn() throws Exception {
+        DataSet rows = ExpenseReportsData.INSTANCE.toDataSet().trim(0, 1);
+        rows.removeColumn(COLUMN_CITY);
+        dataSetOpEngine.append(EXPENSE_REPORTS, rows);
+    }
+
+    private String format(DataSet dataSet) {
+        return dataSetFormatter.formatDataSet(dataSet, "{", "}", ",\n", "\"", "\"", ", ");
+    }
+}
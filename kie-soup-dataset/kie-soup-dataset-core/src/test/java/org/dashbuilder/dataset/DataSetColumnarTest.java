@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import org.dashbuilder.DataSetCore;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.dataset.group.DateIntervalType;
+import org.dashbuilder.dataset.impl.DataSetLookupBuilderImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.dashbuilder.dataset.ExpenseReportsData.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+import static org.dashbuilder.dataset.sort.SortOrder.ASCENDING;
+import static org.dashbuilder.dataset.sort.SortOrder.DESCENDING;
+
+/**
+ * Check that data sets with columnar storage produce the same results as the regular ones.
+ */
+public class DataSetColumnarTest {
+
+    public static final String EXPENSE_REPORTS = "expense_reports";
+    public static final String EXPENSE_REPORTS_COLUMNAR = "expense_reports_columnar";
+
+    DataSetManager dataSetManager = DataSetCore.get().getDataSetManager();
+    DataSetFormatter dataSetFormatter = new DataSetFormatter();
+
+    @Before
+    public void setUp() throws Exception {
+        DataSet dataSet = ExpenseReportsData.INSTANCE.toDataSet();
+        dataSet.setUUID(EXPENSE_REPORTS);
+        dataSetManager.registerDataSet(dataSet);
+
+        DataSet columnar = DataSetFactory.newColumnarDataSet();
+        for (DataColumn column : dataSet.getColumns()) {
+            columnar.addColumn(column.getId(), column.getColumnType());
+        }
+        for (int i = 0; i < dataSet.getRowCount(); i++) {
+            for (int j = 0; j < dataSet.getColumns().size(); j++) {
+                columnar.setValueAt(i, j, dataSet.getValueAt(i, j));
+            }
+        }
+        columnar.setValueAt(3, 1, null);
+        dataSet.setValueAt(3, 1, null);
+        columnar.setValueAt(4, 5, null);
+        dataSet.setValueAt(4, 5, null);
+        columnar.setUUID(EXPENSE_REPORTS_COLUMNAR);
+        dataSetManager.registerDataSet(columnar);
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        assertSameResult(DataSetLookupFactory.newDataSetLookupBuilder()
+                .filter(COLUMN_CITY, equalsTo("Barcelona")));
+        assertSameResult(DataSetLookupFactory.newDataSetLookupBuilder()
+                .filter(COLUMN_CITY, isNull()));
+        assertSameResult(DataSetLookupFactory.newDataSetLookupBuilder()
+                .filter(COLUMN_AMOUNT, greaterThan(500d)));
+        assertSameResult(DataSetLookupFactory.newDataSetLookupBuilder()
+                .filter(COLUMN_AMOUNT, lowerOrEqualsTo(500d)));
+        assertSameResult(DataSetLookupFactory.newDataSetLookupBuilder()
+                .filter(COLUMN_AMOUNT, between(100d, 500d)));
+        assertSameResult(DataSetLookupFactory.newDataSetLookupBuilder()
+                .filter(COLUMN_DEPARTMENT, OR(equalsTo("Sales"), likeTo(COLUMN_DEPARTMENT, "Eng%"))));
+    }
+
+    @Test
+    public void testSort() throws Exception {
+        assertSameResult(DataSetLookupFactory.newDataSetLookupBuilder()
+                .sort(COLUMN_CITY, ASCENDING)
+                .sort(COLUMN_AMOUNT, DESCENDING));
+        assertSameResult(DataSetLookupFactory.newDataSetLookupBuilder()
+                .sort(COLUMN_DATE, DESCENDING)
+                .sort(COLUMN_ID, ASCENDING));
+    }
+
+    @Test
+    public void testGroup() throws Exception {
+        assertSameResult(DataSetLookupFactory.newDataSetLookupBuilder()
+                .group(COLUMN_DEPARTMENT)
+                .column(COLUMN_DEPARTMENT)
+                .column(AggregateFunctionType.COUNT, "occurrences")
+                .column(COLUMN_AMOUNT, AggregateFunctionType.MIN, "min")
+                .column(COLUMN_AMOUNT, AggregateFunctionType.MAX, "max")
+                .column(COLUMN_AMOUNT, AggregateFunctionType.AVERAGE, "average")
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM, "total")
+                .column(COLUMN_CITY, AggregateFunctionType.DISTINCT, "cities"));
+
+        assertSameResult(DataSetLookupFactory.newDataSetLookupBuilder()
+                .group(COLUMN_DATE).dynamic(DateIntervalType.YEAR, true)
+                .column(COLUMN_DATE)
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM, "total"));
+
+        assertSameResult(DataSetLookupFactory.newDataSetLookupBuilder()
+                .column(COLUMN_DATE, AggregateFunctionType.MIN, "min")
+                .column(COLUMN_DATE, AggregateFunctionType.MAX, "max")
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM, "total"));
+    }
+
+    private void assertSameResult(DataSetLookupBuilder<DataSetLookupBuilderImpl> builder) throws Exception {
+        DataSetLookup lookup = builder.dataset(EXPENSE_REPORTS).buildLookup();
+        DataSet expected = dataSetManager.lookupDataSet(lookup);
+        lookup.setDataSetUUID(EXPENSE_REPORTS_COLUMNAR);
+        DataSet result = dataSetManager.lookupDataSet(lookup);
+
+        assertThat(result.getRowCount()).isEqualTo(expected.getRowCount());
+        assertThat(result.getColumns().size()).isEqualTo(expected.getColumns().size());
+        for (int i = 0; i < expected.getRowCount(); i++) {
+            for (int j = 0; j < expected.getColumns().size(); j++) {
+                assertThat(dataSetFormatter.formatValueAt(result, i, j))
+                        .isEqualTo(dataSetFormatter.formatValueAt(expected, i, j));
+            }
+        }
+    }
+}
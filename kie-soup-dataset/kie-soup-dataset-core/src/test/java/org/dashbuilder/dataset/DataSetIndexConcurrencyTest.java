@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.dashbuilder.DataSetCore;
+import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
+import org.dashbuilder.dataset.engine.index.DataSetGroupIndex;
+import org.dashbuilder.dataset.engine.index.DataSetIndex;
+import org.dashbuilder.dataset.engine.index.stats.DataSetIndexStats;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.dataset.group.DataSetGroup;
+import org.dashbuilder.dataset.group.DateIntervalType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.dashbuilder.dataset.ExpenseReportsData.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.equalsTo;
+import static org.dashbuilder.dataset.filter.FilterFactory.greaterThan;
+
+/**
+ * Stress the shared engine with concurrent lookups over the same indexed data set.
+ */
+public class DataSetIndexConcurrencyTest {
+
+    public static final String EXPENSE_REPORTS = "expense_reports_concurrent";
+
+    static final int THREADS = 16;
+    static final int ITERATIONS = 200;
+
+    List<DataSetLookup> lookups = Arrays.asList(
+            DataSetLookupFactory.newDataSetLookupBuilder()
+                    .dataset(EXPENSE_REPORTS)
+                    .group(COLUMN_DEPARTMENT, "Department")
+                    .column(AggregateFunctionType.COUNT, "occurrences")
+                    .column(COLUMN_AMOUNT, AggregateFunctionType.SUM, "total")
+                    .buildLookup(),
+            DataSetLookupFactory.newDataSetLookupBuilder()
+                    .dataset(EXPENSE_REPORTS)
+                    .filter(COLUMN_CITY, equalsTo("Barcelona"))
+                    .group(COLUMN_DATE).dynamic(DateIntervalType.MONTH, true)
+                    .column(COLUMN_DATE)
+                    .column(COLUMN_AMOUNT, AggregateFunctionType.AVERAGE, "average")
+                    .buildLookup(),
+            DataSetLookupFactory.newDataSetLookupBuilder()
+                    .dataset(EXPENSE_REPORTS)
+                    .filter(COLUMN_AMOUNT, greaterThan(100d))
+                    .sort(COLUMN_AMOUNT, "desc")
+                    .buildLookup(),
+            DataSetLookupFactory.newDataSetLookupBuilder()
+                    .dataset(EXPENSE_REPORTS)
+                    .group(COLUMN_DEPARTMENT).select("Sales", "Engineering")
+                    .group(COLUMN_CITY, "City")
+                    .column(COLUMN_CITY)
+                    .column(COLUMN_AMOUNT, AggregateFunctionType.MAX, "max")
+                    .buildLookup());
+
+    SharedDataSetOpEngine dataSetOpEngine = DataSetCore.get().getSharedDataSetOpEngine();
+    DataSet dataSet;
+    ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSet = ExpenseReportsData.INSTANCE.toDataSet();
+        dataSet.setUUID(EXPENSE_REPORTS);
+        dataSetOpEngine.getIndexRegistry().put(dataSet);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        dataSetOpEngine.getIndexRegistry().remove(EXPENSE_REPORTS);
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        // The expected results are calculated with no indexes at all
+        final List<String> expected = new ArrayList<>();
+        for (DataSetLookup lookup : lookups) {
+            expected.add(format(dataSetOpEngine.execute(dataSet, lookup.getOperationList()), new DataSetFormatter()));
+        }
+
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int offset = t;
+            futures.add(executor.submit(new Callable<Integer>() {
+                public Integer call() throws Exception {
+                    // Formatters are not thread-safe
+                    DataSetFormatter formatter = new DataSetFormatter();
+                    startSignal.await();
+                    int mismatches = 0;
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        int n = (i + offset) % lookups.size();
+                        DataSet result = dataSetOpEngine.execute(EXPENSE_REPORTS, lookups.get(n).getOperationList());
+                        if (!expected.get(n).equals(format(result, formatter))) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                }
+            }));
+        }
+        startSignal.countDown();
+
+        // Any exception thrown by a lookup makes the get() call to fail
+        for (Future<Integer> future : futures) {
+            assertThat(future.get(60, TimeUnit.SECONDS)).isEqualTo(0);
+        }
+
+        // Every index has been built only once (same figures as if the lookups were run by a single thread)
+        DataSetIndex dataSetIndex = dataSetOpEngine.getIndexRegistry().get(EXPENSE_REPORTS);
+        DataSetIndexStats stats = dataSetIndex.getStats();
+        assertThat(stats.getNumberOfFilterOps()).isEqualTo(2);
+        // Only the sort lookup (grouping by date does not sort the rows)
+        assertThat(stats.getNumberOfSortOps()).isEqualTo(2);
+        assertThat(stats.getNumberOfGroupOps()).isEqualTo(4);
+        assertThat(stats.getNumberOfAggFunctions()).isEqualTo(19);
+        // Calculated from the time stamps taken by every build, not from the shared chronometer state
+        assertThat(stats.getBuildTime()).isGreaterThan(0);
+    }
+
+    @Test
+    public void testNestedGroupIndexReused() throws Exception {
+        DataSetLookup lookup = lookups.get(3);
+        DataSetGroup selectOp = lookup.getOperation(0);
+        DataSetGroup nestedOp = lookup.getOperation(1);
+        dataSetOpEngine.execute(EXPENSE_REPORTS, lookup.getOperationList());
+
+        // The nested group is indexed under the selection it was built from, where it's looked up later on
+        DataSetIndex dataSetIndex = dataSetOpEngine.getIndexRegistry().get(EXPENSE_REPORTS);
+        DataSetGroupIndex selectIndex = dataSetIndex.getGroupIndex(selectOp.getColumnGroup())
+                .getSelectionIndex(selectOp.getSelectedIntervalList());
+        DataSetGroupIndex nestedIndex = selectIndex.getGroupIndex(nestedOp.getColumnGroup());
+        assertThat(nestedIndex).isNotNull();
+
+        dataSetOpEngine.execute(EXPENSE_REPORTS, lookup.getOperationList());
+        assertThat(selectIndex.getGroupIndex(nestedOp.getColumnGroup())).isSameAs(nestedIndex);
+        assertThat(nestedIndex.getReuseHits()).isGreaterThan(0);
+    }
+
+    private String format(DataSet result, DataSetFormatter formatter) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < result.getRowCount(); i++) {
+            for (int j = 0; j < result.getColumns().size(); j++) {
+                out.append(formatter.formatValueAt(result, i, j)).append(" ");
+            }
+            out.append("\n");
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import org.dashbuilder.DataSetCore;
+import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
+import org.dashbuilder.dataset.engine.index.DataSetIndex;
+import org.dashbuilder.dataset.engine.index.TransientDataSetIndexRegistry;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.dashbuilder.dataset.ExpenseReportsData.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.greaterThan;
+
+public class DataSetIndexEvictionTest {
+
+    public static final String EXPENSE_REPORTS = "expense_reports";
+    public static final String EXPENSE_REPORTS_2 = "expense_reports_2";
+
+    DataSetCore dataSetCore = DataSetCore.get();
+    TransientDataSetIndexRegistry indexRegistry;
+    SharedDataSetOpEngine dataSetOpEngine;
+    DataSet dataSet;
+
+    @Before
+    public void setUp() throws Exception {
+        indexRegistry = new TransientDataSetIndexRegistry(dataSetCore.getUuidGenerator());
+        dataSetOpEngine = new SharedDataSetOpEngine(
+                dataSetCore.getAggregateFunctionManager(),
+                dataSetCore.getIntervalBuilderLocator(),
+                indexRegistry,
+                dataSetCore.getSortAlgorithm(),
+                dataSetCore.getFilterAlgorithm(),
+                dataSetCore.getChronometer());
+
+        dataSet = ExpenseReportsData.INSTANCE.toDataSet();
+        dataSet.setUUID(EXPENSE_REPORTS);
+        indexRegistry.put(dataSet);
+    }
+
+    @Test
+    public void testNoLimit() throws Exception {
+        long initialSize = indexRegistry.getFootprint();
+        assertThat(initialSize).isGreaterThanOrEqualTo(dataSet.getEstimatedSize());
+
+        runLookups(20);
+        assertThat(indexRegistry.getIndexEvictions()).isEqualTo(0);
+        assertThat(indexRegistry.getFootprint()).isGreaterThan(initialSize);
+    }
+
+    @Test
+    public void testEvictChildIndexes() throws Exception {
+        runLookups(20);
+        DataSetIndex index = indexRegistry.get(EXPENSE_REPORTS);
+        int filterOps = index.getStats().getNumberOfFilterOps();
+        assertThat(filterOps).isEqualTo(20);
+
+        // Leave room for just a few child indexes
+        long indexSize = index.getStats().getIndexSize();
+        long maxSize = indexSize / 2;
+        indexRegistry.setMaxSize(maxSize);
+
+        assertThat(indexRegistry.getIndexFootprint()).isLessThanOrEqualTo(maxSize);
+        assertThat(indexRegistry.getIndexEvictions()).isGreaterThan(0);
+        assertThat(indexRegistry.get(EXPENSE_REPORTS)).isSameAs(index);
+        assertThat(index.getStats().getNumberOfFilterOps()).isLessThan(filterOps);
+
+        // The lookups still work and keep the footprint under the limit
+        runLookups(40);
+        assertThat(indexRegistry.get(EXPENSE_REPORTS)).isSameAs(index);
+        assertThat(indexRegistry.getIndexFootprint()).isLessThanOrEqualTo(maxSize);
+    }
+
+    @Test
+    public void testFootprintUpdatedOnNewIndexes() throws Exception {
+        long initialSize = indexRegistry.getFootprint();
+        runLookups(5);
+
+        // The footprint is kept up to date without visiting the whole index tree
+        DataSetIndex index = indexRegistry.get(EXPENSE_REPORTS);
+        assertThat(indexRegistry.getFootprint()).isGreaterThan(initialSize);
+        assertThat(index.getIndexSize()).isEqualTo(index.getStats().getIndexSize());
+    }
+
+    @Test
+    public void testDataSetsNeverEvicted() throws Exception {
+        runLookups(20);
+        indexRegistry.setMaxSize(indexRegistry.getIndexFootprint() / 2);
+
+        DataSet dataSet2 = ExpenseReportsData.INSTANCE.toDataSet();
+        dataSet2.setUUID(EXPENSE_REPORTS_2);
+        indexRegistry.put(dataSet2);
+
+        // Only the child indexes are discarded, as the data sets can't be recovered once removed from the registry
+        assertThat(indexRegistry.getIndexEvictions()).isGreaterThan(0);
+        assertThat(indexRegistry.get(EXPENSE_REPORTS)).isNotNull();
+        assertThat(indexRegistry.get(EXPENSE_REPORTS_2)).isNotNull();
+        assertThat(indexRegistry.getFootprint()).isGreaterThan(indexRegistry.getMaxSize());
+
+        runLookups(5);
+        assertThat(indexRegistry.get(EXPENSE_REPORTS).getDataSet()).isSameAs(dataSet);
+    }
+
+    @Test
+    public void testDataSetsNotBudgeted() throws Exception {
+        runLookups(20);
+        long maxSize = indexRegistry.getIndexFootprint() * 2;
+        indexRegistry.setMaxSize(maxSize);
+
+        // The data sets alone go beyond the limit, but the indexes still fit
+        for (int i = 0; i < 3; i++) {
+            DataSet copy = ExpenseReportsData.INSTANCE.toDataSet();
+            copy.setUUID(EXPENSE_REPORTS_2 + i);
+            indexRegistry.put(copy);
+        }
+        assertThat(indexRegistry.getFootprint()).isGreaterThan(maxSize);
+
+        // So no index is evicted (evicting them can never make up for the data sets)
+        runLookups(20);
+        assertThat(indexRegistry.getIndexEvictions()).isEqualTo(0);
+        assertThat(indexRegistry.getIndexFootprint()).isLessThanOrEqualTo(maxSize);
+        assertThat(indexRegistry.get(EXPENSE_REPORTS).getStats().getNumberOfFilterOps()).isEqualTo(20);
+    }
+
+    private void runLookups(int n) {
+        for (int i = 0; i < n; i++) {
+            DataSetLookup lookup = DataSetLookupFactory.newDataSetLookupBuilder()
+                    .dataset(EXPENSE_REPORTS)
+                    .filter(COLUMN_AMOUNT, greaterThan(i * 50d))
+                    .group(COLUMN_DEPARTMENT)
+                    .column(COLUMN_DEPARTMENT)
+                    .column(COLUMN_AMOUNT, AggregateFunctionType.SUM)
+                    .buildLookup();
+            DataSet result = dataSetOpEngine.execute(EXPENSE_REPORTS, lookup.getOperationList());
+            assertThat(result.getRowCount()).isGreaterThanOrEqualTo(0);
+        }
+    }
+}
@@ -17,7 +17,9 @@ package org.dashbuilder.dataset;
 
 import org.dashbuilder.DataSetCore;
 import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
+import org.dashbuilder.dataset.engine.index.DataSetGroupIndex;
 import org.dashbuilder.dataset.engine.index.DataSetIndex;
+import org.dashbuilder.dataset.engine.index.DataSetSortIndex;
 import org.dashbuilder.dataset.engine.index.stats.DataSetIndexStats;
 import org.dashbuilder.dataset.group.AggregateFunctionType;
 import org.junit.Before;
@@ -25,8 +27,11 @@ import org.junit.Test;
 
 import static org.dashbuilder.dataset.ExpenseReportsData.COLUMN_AMOUNT;
 import static org.dashbuilder.dataset.ExpenseReportsData.COLUMN_CITY;
+import static org.dashbuilder.dataset.ExpenseReportsData.COLUMN_DATE;
 import static org.dashbuilder.dataset.ExpenseReportsData.COLUMN_DEPARTMENT;
 import static org.dashbuilder.dataset.filter.FilterFactory.equalsTo;
+import static org.dashbuilder.dataset.filter.FilterFactory.greaterThan;
+import static org.dashbuilder.dataset.group.DateIntervalType.MONTH;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class DataSetIndexTest {
@@ -178,4 +183,179 @@ public class DataSetIndexTest {
         // The index size must not be greater than the 20% of the dataset's size
         assertThat(stats.getIndexSize()).isLessThan(dataSet.getEstimatedSize() / 5);
     }
+
+    @Test
+    public void testFilterIntersection() throws Exception {
+        // Index the department filter over the whole data set first
+        DataSetLookup filterByDept = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .filter(COLUMN_DEPARTMENT, equalsTo("Engineering"))
+                .buildLookup();
+        dataSetOpEngine.execute(EXPENSE_REPORTS, filterByDept.getOperationList());
+
+        // The nested department filter is resolved by intersecting the existing row sets
+        DataSet result = dataSetOpEngine.execute(EXPENSE_REPORTS, filterByCityAndDept.getOperationList());
+        DataSet dataSet = dataSetOpEngine.getIndexRegistry().get(EXPENSE_REPORTS).getDataSet();
+        int expected = 0;
+        for (int i = 0; i < dataSet.getRowCount(); i++) {
+            if ("Barcelona".equals(dataSet.getValueAt(i, COLUMN_CITY)) && "Engineering".equals(dataSet.getValueAt(i, COLUMN_DEPARTMENT))) {
+                expected++;
+            }
+        }
+        assertThat(result.getRowCount()).isEqualTo(expected);
+        for (int i = 0; i < result.getRowCount(); i++) {
+            assertThat(result.getValueAt(i, COLUMN_CITY)).isEqualTo("Barcelona");
+            assertThat(result.getValueAt(i, COLUMN_DEPARTMENT)).isEqualTo("Engineering");
+        }
+    }
+
+    @Test
+    public void testFilterSubsumption() throws Exception {
+        DataSetLookup filterAbove100 = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .filter(COLUMN_AMOUNT, greaterThan(100d))
+                .buildLookup();
+        DataSetLookup filterAbove500 = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .filter(COLUMN_AMOUNT, greaterThan(500d))
+                .buildLookup();
+        dataSetOpEngine.execute(EXPENSE_REPORTS, filterAbove100.getOperationList());
+
+        // The narrower filter is evaluated over the rows of the broader one
+        DataSetIndex dataSetIndex = dataSetOpEngine.getIndexRegistry().get(EXPENSE_REPORTS);
+        int reuseHits = dataSetIndex.getFilterIndexes().get(0).getReuseHits();
+        DataSet result = dataSetOpEngine.execute(EXPENSE_REPORTS, filterAbove500.getOperationList());
+        assertThat(dataSetIndex.getFilterIndexes().get(0).getReuseHits()).isEqualTo(reuseHits + 1);
+
+        DataSet dataSet = dataSetIndex.getDataSet();
+        int expected = 0;
+        for (int i = 0; i < dataSet.getRowCount(); i++) {
+            if (((Number) dataSet.getValueAt(i, COLUMN_AMOUNT)).doubleValue() > 500d) {
+                expected++;
+            }
+        }
+        assertThat(result.getRowCount()).isEqualTo(expected);
+        for (int i = 0; i < result.getRowCount(); i++) {
+            assertThat(((Number) result.getValueAt(i, COLUMN_AMOUNT)).doubleValue()).isGreaterThan(500d);
+        }
+    }
+
+    @Test
+    public void testSortPrefix() throws Exception {
+        DataSetLookup sortByCity = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .sort(COLUMN_CITY, "asc")
+                .buildLookup();
+        dataSetOpEngine.execute(EXPENSE_REPORTS, sortByCity.getOperationList());
+        DataSetIndex dataSetIndex = dataSetOpEngine.getIndexRegistry().get(EXPENSE_REPORTS);
+        int reuseHits = getSortReuseHits(dataSetIndex);
+
+        // Only the rows of every city are sorted by amount (also from the inverted city sort)
+        DataSetLookup sortByCityAndAmount = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .sort(COLUMN_CITY, "asc")
+                .sort(COLUMN_AMOUNT, "desc")
+                .buildLookup();
+        DataSetLookup sortByCityDescAndAmount = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .sort(COLUMN_CITY, "desc")
+                .sort(COLUMN_AMOUNT, "asc")
+                .buildLookup();
+        DataSet dataSet = dataSetIndex.getDataSet();
+        assertSameRows(dataSetOpEngine.execute(dataSet, sortByCityAndAmount.getOperationList()),
+                dataSetOpEngine.execute(EXPENSE_REPORTS, sortByCityAndAmount.getOperationList()));
+        assertSameRows(dataSetOpEngine.execute(dataSet, sortByCityDescAndAmount.getOperationList()).trim(0, 5),
+                dataSetOpEngine.execute(EXPENSE_REPORTS, sortByCityDescAndAmount.getOperationList(), 0, 5));
+        assertThat(getSortReuseHits(dataSetIndex)).isEqualTo(reuseHits + 2);
+    }
+
+    @Test
+    public void testGroupFromSort() throws Exception {
+        DataSetLookup sortByDept = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .sort(COLUMN_DEPARTMENT, "desc")
+                .buildLookup();
+        DataSetLookup sortByDate = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .sort(COLUMN_DATE, "asc")
+                .buildLookup();
+        dataSetOpEngine.execute(EXPENSE_REPORTS, sortByDept.getOperationList());
+        dataSetOpEngine.execute(EXPENSE_REPORTS, sortByDate.getOperationList());
+
+        // The intervals are taken from the sorted rows, the results are the same
+        DataSetLookup groupByMonth = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .group(COLUMN_DATE).dynamic(MONTH, true)
+                .column(COLUMN_DATE)
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM)
+                .buildLookup();
+        DataSet dataSet = dataSetOpEngine.getIndexRegistry().get(EXPENSE_REPORTS).getDataSet();
+        assertSameRows(dataSetOpEngine.execute(dataSet, groupByDeptAndSum.getOperationList()),
+                dataSetOpEngine.execute(EXPENSE_REPORTS, groupByDeptAndSum.getOperationList()));
+        assertSameRows(dataSetOpEngine.execute(dataSet, groupByMonth.getOperationList()),
+                dataSetOpEngine.execute(EXPENSE_REPORTS, groupByMonth.getOperationList()));
+    }
+
+    @Test
+    public void testGroupFromAscendingSort() throws Exception {
+        assertGroupFromSort(DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .sort(COLUMN_DEPARTMENT, "asc")
+                .buildLookup(), true);
+    }
+
+    @Test
+    public void testGroupFromDescendingSort() throws Exception {
+        // Through the ascending copy of the index, whose ties are in descending order
+        assertGroupFromSort(DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .sort(COLUMN_DEPARTMENT, "desc")
+                .buildLookup(), true);
+    }
+
+    @Test
+    public void testGroupNotFromMultiColumnSort() throws Exception {
+        assertGroupFromSort(DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .sort(COLUMN_DEPARTMENT, "asc")
+                .sort(COLUMN_AMOUNT, "desc")
+                .buildLookup(), false);
+        assertGroupFromSort(DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(EXPENSE_REPORTS)
+                .sort(COLUMN_DEPARTMENT, "desc")
+                .sort(COLUMN_CITY, "asc")
+                .buildLookup(), false);
+    }
+
+    private void assertGroupFromSort(DataSetLookup sortLookup, boolean sortIndexUsed) throws Exception {
+        DataSetIndex dataSetIndex = dataSetOpEngine.getIndexRegistry().get(EXPENSE_REPORTS);
+        for (DataSetGroupIndex groupIndex : dataSetIndex.getGroupIndexes()) {
+            dataSetIndex.removeIndex(groupIndex);
+        }
+        dataSetOpEngine.execute(EXPENSE_REPORTS, sortLookup.getOperationList());
+        int reuseHits = getSortReuseHits(dataSetIndex);
+
+        DataSet dataSet = dataSetIndex.getDataSet();
+        assertSameRows(dataSetOpEngine.execute(dataSet, groupByDeptAndCount.getOperationList()),
+                dataSetOpEngine.execute(EXPENSE_REPORTS, groupByDeptAndCount.getOperationList()));
+        assertThat(getSortReuseHits(dataSetIndex)).isEqualTo(sortIndexUsed ? reuseHits + 1 : reuseHits);
+    }
+
+    private int getSortReuseHits(DataSetIndex dataSetIndex) {
+        int hits = 0;
+        for (DataSetSortIndex sortIndex : dataSetIndex.getSortIndexes()) {
+            hits += sortIndex.getReuseHits();
+        }
+        return hits;
+    }
+
+    private void assertSameRows(DataSet expected, DataSet actual) {
+        assertThat(actual.getRowCount()).isEqualTo(expected.getRowCount());
+        assertThat(actual.getColumns().size()).isEqualTo(expected.getColumns().size());
+        for (int i = 0; i < expected.getRowCount(); i++) {
+            for (int j = 0; j < expected.getColumns().size(); j++) {
+                assertThat(actual.getValueAt(i, j)).isEqualTo(expected.getValueAt(i, j));
+            }
+        }
+    }
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.dashbuilder.DataSetCore;
+import org.dashbuilder.DataSetCoreImpl;
+import org.dashbuilder.dataset.engine.SharedDataSetOpEngine;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+
+/**
+ * Check the parallel execution of the filter, group and aggregate operations gives the same results as the serial one.
+ */
+public class DataSetParallelTest {
+
+    static final int ROWS = 20000;
+    static final String[] DEPARTMENTS = {"Sales", "Engineering", "Services", "Management", "Support", null};
+    static final String[] CITIES = {"Barcelona", "Madrid", "London", "Brno", "Raleigh", "Westford", "Boston"};
+
+    DataSetCore serialCore = new DataSetCoreImpl();
+    DataSetCore parallelCore = new DataSetCoreImpl();
+
+    List<DataSetLookup> lookups = Arrays.asList(
+            DataSetLookupFactory.newDataSetLookupBuilder()
+                    .group("department")
+                    .column("department")
+                    .column(AggregateFunctionType.COUNT, "count")
+                    .column("amount", AggregateFunctionType.SUM, "sum")
+                    .column("amount", AggregateFunctionType.AVERAGE, "avg")
+                    .column("amount", AggregateFunctionType.MIN, "min")
+                    .column("amount", AggregateFunctionType.MAX, "max")
+                    .column("city", AggregateFunctionType.DISTINCT, "cities")
+                    .buildLookup(),
+            DataSetLookupFactory.newDataSetLookupBuilder()
+                    .filter("amount", OR(greaterThan(500d), isNull()))
+                    .filter("city", likeTo("city", "B%"))
+                    .group("city")
+                    .column("city")
+                    .column("amount", AggregateFunctionType.SUM, "sum")
+                    .column("amount", AggregateFunctionType.MIN, "min")
+                    .buildLookup(),
+            DataSetLookupFactory.newDataSetLookupBuilder()
+                    .filter("department", in("department", Arrays.asList("Sales", "Support")))
+                    .column("amount", AggregateFunctionType.SUM, "sum")
+                    .column("amount", AggregateFunctionType.AVERAGE, "avg")
+                    .column("department", AggregateFunctionType.DISTINCT, "departments")
+                    .column("amount", AggregateFunctionType.DISTINCT, "amounts")
+                    .column("date", AggregateFunctionType.MIN, "first")
+                    .column("date", AggregateFunctionType.MAX, "last")
+                    .buildLookup(),
+            DataSetLookupFactory.newDataSetLookupBuilder()
+                    .group("department").select("Sales", "Engineering")
+                    .group("city")
+                    .column("city")
+                    .column("amount", AggregateFunctionType.MAX, "max")
+                    .buildLookup(),
+            DataSetLookupFactory.newDataSetLookupBuilder()
+                    .filter("amount", between(100d, 200d))
+                    .sort("amount", "desc")
+                    .buildLookup());
+
+    @Before
+    public void setUp() throws Exception {
+        parallelCore.setParallelEnabled(true);
+        parallelCore.setParallelThreshold(1000);
+        parallelCore.setParallelism(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        parallelCore.getParallelExecutor().shutdown();
+    }
+
+    @Test
+    public void testConfiguration() {
+        DataSetParallelExecutor executor = parallelCore.getParallelExecutor();
+        assertThat(serialCore.isParallelEnabled()).isFalse();
+        assertThat(serialCore.getParallelExecutor().isParallel(ROWS)).isFalse();
+        assertThat(parallelCore.isParallelEnabled()).isTrue();
+        assertThat(executor.isParallel(ROWS)).isTrue();
+        assertThat(executor.isParallel(999)).isFalse();
+        assertThat(parallelCore.getSharedDataSetOpEngine()).isInstanceOf(ParallelDataSetOpEngine.class);
+    }
+
+    @Test
+    public void testChunksInOrder() {
+        List<String> chunks = parallelCore.getParallelExecutor().execute(ROWS, (from, to) -> from + "-" + to);
+        assertThat(chunks.size()).isGreaterThan(1);
+        int next = 0;
+        for (String chunk : chunks) {
+            String[] range = chunk.split("-");
+            assertThat(Integer.parseInt(range[0])).isEqualTo(next);
+            next = Integer.parseInt(range[1]);
+        }
+        assertThat(next).isEqualTo(ROWS);
+    }
+
+    @Test
+    public void testSameResults() throws Exception {
+        assertSameResults(createDataSet(false));
+    }
+
+    @Test
+    public void testSameResultsColumnar() throws Exception {
+        assertSameResults(createDataSet(true));
+    }
+
+    @Test
+    public void testSameSums() throws Exception {
+        // Adding the small values to the big one loses precision unless the sum is compensated
+        for (boolean columnar : new boolean[] {false, true}) {
+            DataSet dataSet = columnar ? DataSetFactory.newColumnarDataSet() : DataSetFactory.newEmptyDataSet();
+            dataSet.setUUID("sums_" + columnar);
+            dataSet.addColumn("amount", ColumnType.NUMBER);
+            for (int i = 0; i < ROWS; i++) {
+                double amount = i == 0 ? 1e14 : (i == ROWS - 1 ? -1e14 : 0.01d);
+                dataSet.addValuesAt(i, amount);
+            }
+            DataSetLookup sumLookup = DataSetLookupFactory.newDataSetLookupBuilder()
+                    .column("amount", AggregateFunctionType.SUM, "sum")
+                    .buildLookup();
+            DataSetLookup sumAvgLookup = DataSetLookupFactory.newDataSetLookupBuilder()
+                    .column("amount", AggregateFunctionType.SUM, "sum")
+                    .column("amount", AggregateFunctionType.AVERAGE, "avg")
+                    .buildLookup();
+
+            for (DataSetLookup lookup : Arrays.asList(sumLookup, sumAvgLookup)) {
+                DataSet serial = serialCore.getSharedDataSetOpEngine().execute(dataSet, lookup.getOperationList());
+                DataSet parallel = parallelCore.getSharedDataSetOpEngine().execute(dataSet, lookup.getOperationList());
+                assertThat(serial.getValueAt(0, 0)).isEqualTo(199.98d);
+                assertThat(parallel.getValueAt(0, 0)).isEqualTo(199.98d);
+                assertThat(format(parallel)).isEqualTo(format(serial));
+            }
+        }
+    }
+
+    private void assertSameResults(DataSet dataSet) {
+        SharedDataSetOpEngine serialEngine = serialCore.getSharedDataSetOpEngine();
+        SharedDataSetOpEngine parallelEngine = parallelCore.getSharedDataSetOpEngine();
+        parallelEngine.getIndexRegistry().put(dataSet);
+
+        for (DataSetLookup lookup : lookups) {
+            String expected = format(serialEngine.execute(dataSet, lookup.getOperationList()));
+            String parallel = format(parallelEngine.execute(dataSet, lookup.getOperationList()));
+            assertThat(parallel).isEqualTo(expected);
+
+            // The indexed execution, twice so that the indexes are also reused
+            for (int i = 0; i < 2; i++) {
+                String indexed = format(parallelEngine.execute(dataSet.getUUID(), lookup.getOperationList()));
+                assertThat(indexed).isEqualTo(expected);
+            }
+        }
+    }
+
+    private DataSet createDataSet(boolean columnar) {
+        DataSet dataSet = columnar ? DataSetFactory.newColumnarDataSet() : DataSetFactory.newEmptyDataSet();
+        dataSet.setUUID("parallel_" + columnar);
+        dataSet.addColumn("department", ColumnType.LABEL);
+        dataSet.addColumn("city", ColumnType.LABEL);
+        dataSet.addColumn("amount", ColumnType.NUMBER);
+        dataSet.addColumn("date", ColumnType.DATE);
+
+        Random random = new Random(ROWS);
+        long time = new Date().getTime();
+        for (int i = 0; i < ROWS; i++) {
+            String dept = DEPARTMENTS[random.nextInt(DEPARTMENTS.length)];
+            String city = CITIES[random.nextInt(CITIES.length)];
+            Double amount = random.nextInt(20) == 0 ? null : random.nextInt(100000) / 100d;
+            Date date = new Date(time - random.nextInt(1000000) * 1000L);
+            dataSet.addValuesAt(i, dept, city, amount, date);
+        }
+        return dataSet;
+    }
+
+    private String format(DataSet result) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < result.getRowCount(); i++) {
+            for (int j = 0; j < result.getColumns().size(); j++) {
+                out.append(result.getValueAt(i, j)).append(" ");
+            }
+            out.append("\n");
+        }
+        return out.toString();
+    }
+}
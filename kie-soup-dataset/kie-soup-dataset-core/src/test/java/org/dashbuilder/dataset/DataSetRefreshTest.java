@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import java.util.Map;
+
+import org.dashbuilder.DataSetCore;
+import org.dashbuilder.dataprovider.StaticDataSetProvider;
+import org.dashbuilder.dataset.def.DataSetDef;
+import org.dashbuilder.dataset.def.DataSetDefFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DataSetRefreshTest {
+
+    static int builds = 0;
+
+    public static class CountingGenerator implements DataSetGenerator {
+
+        public DataSet buildDataSet(Map<String,String> params) {
+            builds++;
+            return DataSetFactory.newDataSetBuilder()
+                    .label("build")
+                    .row(String.valueOf(builds))
+                    .buildDataSet();
+        }
+    }
+
+    DataSetDefRegistryImpl dataSetDefRegistry;
+    DataSetManager dataSetManager;
+    StaticDataSetProvider staticDataSetProvider;
+
+    DataSetDef dataSetDef = DataSetDefFactory.newBeanDataSetDef()
+            .uuid("counting")
+            .generatorClass(CountingGenerator.class.getName())
+            .refreshOn("1hour", true)
+            .buildDef();
+
+    @Before
+    public void setUp() {
+        dataSetDefRegistry = (DataSetDefRegistryImpl) DataSetCore.get().getDataSetDefRegistry();
+        dataSetManager = DataSetCore.get().getDataSetManager();
+        staticDataSetProvider = DataSetCore.get().getStaticDataSetProvider();
+        dataSetDefRegistry.registerDataSetDef(dataSetDef);
+        builds = 0;
+    }
+
+    @After
+    public void tearDown() {
+        dataSetDefRegistry.setStaleWhileRevalidate(false);
+        dataSetDefRegistry.removeDataSetDef("counting");
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        dataSetDefRegistry.setStaleWhileRevalidate(true);
+        assertEquals("1", dataSetManager.getDataSet("counting").getValueAt(0, 0));
+        DataSet stale = staticDataSetProvider.lookupDataSet("counting", null);
+
+        // The refreshed data set is swapped in, with no load on the next request
+        refresh();
+        DataSet refreshed = staticDataSetProvider.lookupDataSet("counting", null);
+        assertNotSame(stale, refreshed);
+        assertEquals(2, builds);
+        assertEquals("2", dataSetManager.getDataSet("counting").getValueAt(0, 0));
+        assertEquals(2, builds);
+
+        DataSetRefreshStats stats = dataSetDefRegistry.getRefreshStats("counting");
+        assertEquals(1, stats.getRefreshCount());
+        assertEquals(0, stats.getFailureCount());
+        assertFalse(stats.isRefreshing());
+        assertTrue(stats.getLastStalenessAge() >= stats.getLastRefreshDuration());
+    }
+
+    @Test
+    public void testNothingToRevalidate() throws Exception {
+        dataSetDefRegistry.setStaleWhileRevalidate(true);
+        refresh();
+        assertEquals(0, builds);
+        assertEquals(0, dataSetDefRegistry.getRefreshStats("counting").getRefreshCount());
+    }
+
+    @Test
+    public void testStaleDiscarded() throws Exception {
+        dataSetManager.getDataSet("counting");
+        refresh();
+        assertNull(staticDataSetProvider.lookupDataSet("counting", null));
+        assertEquals("2", dataSetManager.getDataSet("counting").getValueAt(0, 0));
+        assertEquals(0, dataSetDefRegistry.getRefreshStats("counting").getRefreshCount());
+    }
+
+    private void refresh() {
+        DataSetDefRegistryImpl.DataSetDefEntry entry = dataSetDefRegistry.dataSetDefMap.get("counting");
+        entry.lastRefreshTime = 0;
+        entry.execute();
+    }
+}
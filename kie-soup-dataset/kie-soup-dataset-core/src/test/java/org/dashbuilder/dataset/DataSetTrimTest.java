@@ -16,7 +16,10 @@
 package org.dashbuilder.dataset;
 
 import org.dashbuilder.DataSetCore;
+import org.dashbuilder.dataset.engine.index.DataSetIndex;
+import org.dashbuilder.dataset.engine.index.DataSetSortIndex;
 import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.dataset.sort.DataSetSort;
 import org.dashbuilder.dataset.sort.SortOrder;
 import org.junit.Before;
 import org.junit.Test;
@@ -80,4 +83,68 @@ public class DataSetTrimTest {
         assertThat(result.getColumns().size()).isEqualTo(2);
         assertThat(result.getRowCount()).isEqualTo(10);
     }
+
+    @Test
+    public void testTrimSort() throws Exception {
+        DataSet expected = dataSetManager.lookupDataSet(
+                DataSetLookupFactory.newDataSetLookupBuilder()
+                        .dataset(EXPENSE_REPORTS)
+                        .sort(COLUMN_AMOUNT, SortOrder.DESCENDING)
+                        .buildLookup());
+
+        DataSet result = dataSetManager.lookupDataSet(
+                DataSetLookupFactory.newDataSetLookupBuilder()
+                        .dataset(EXPENSE_REPORTS)
+                        .sort(COLUMN_AMOUNT, SortOrder.DESCENDING)
+                        .rowOffset(5)
+                        .rowNumber(10)
+                        .buildLookup());
+
+        assertThat(result.getRowCount()).isEqualTo(10);
+        assertThat(result.getRowCountNonTrimmed()).isEqualTo(50);
+        for (int i = 0; i < 10; i++) {
+            assertThat(result.getValueAt(i, 0)).isEqualTo(expected.getValueAt(i + 5, 0));
+        }
+    }
+
+    @Test
+    public void testTopNSortIndex() throws Exception {
+        DataSet dataSet = ExpenseReportsData.INSTANCE.toDataSet();
+        dataSet.setUUID("expense_reports_top");
+        dataSetManager.registerDataSet(dataSet);
+
+        DataSetLookup topLookup = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset("expense_reports_top")
+                .sort(COLUMN_CITY, SortOrder.ASCENDING)
+                .rowNumber(10)
+                .buildLookup();
+        DataSetSort sortOp = topLookup.getFirstSortOp();
+        DataSet top = dataSetManager.lookupDataSet(topLookup);
+        assertThat(top.getRowCount()).isEqualTo(10);
+
+        // Only the first rows are sorted & indexed
+        DataSetIndex index = DataSetCore.get().getSharedDataSetOpEngine().getIndexRegistry().get("expense_reports_top");
+        DataSetSortIndex sortIndex = index.getSortIndex(sortOp, 10);
+        assertThat(sortIndex.isPartial()).isTrue();
+        assertThat(sortIndex.getRows().size()).isEqualTo(10);
+        assertThat(index.getSortIndex(sortOp)).isNull();
+        assertThat(index.getSortIndex(sortOp, 20)).isNull();
+
+        // The full sort reuses the first rows already sorted
+        DataSet all = dataSetManager.lookupDataSet(
+                DataSetLookupFactory.newDataSetLookupBuilder()
+                        .dataset("expense_reports_top")
+                        .sort(COLUMN_CITY, SortOrder.ASCENDING)
+                        .buildLookup());
+        DataSet expected = DataSetCore.get().getSharedDataSetOpEngine().execute(dataSet, topLookup.getOperationList());
+        assertThat(all.getRowCount()).isEqualTo(50);
+        for (int i = 0; i < 50; i++) {
+            assertThat(all.getValueAt(i, 0)).isEqualTo(expected.getValueAt(i, 0));
+            if (i < 10) {
+                assertThat(top.getValueAt(i, 0)).isEqualTo(expected.getValueAt(i, 0));
+            }
+        }
+        assertThat(index.getSortIndex(sortOp).isPartial()).isFalse();
+        assertThat(index.getSortIndex(sortOp.cloneInstance().invertOrder())).isNotNull();
+    }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset;
+
+import org.dashbuilder.dataset.engine.filter.CoreFunction;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RegExpCoreFunctionTest {
+
+    @Test
+    public void testSameAsClientPattern() {
+        String[] patterns = {"[BL]%", "[^b]%", "%[a-c]_", "(Bar|Lon)%", "B.r%", "%", "bar%"};
+        String[] values = {"", "Barcelona", "barcelona", "Bar.celona", "London", "New\nYork", "LONDON"};
+        for (String pattern : patterns) {
+            for (boolean caseSensitive : new boolean[] {true, false}) {
+                CoreFunction.LikePattern client = new CoreFunction.LikePattern(pattern, caseSensitive);
+                CoreFunction.LikePattern server = new RegExpCoreFunction.RegExpLikePattern(pattern, caseSensitive);
+                for (String value : values) {
+                    assertEquals(pattern + " " + value, client.matches(value), server.matches(value));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCaseUnsensitive() {
+        CoreFunction.LikePattern like = new RegExpCoreFunction.RegExpLikePattern("[B]arc%", false);
+        assertTrue(like.matches("BARCELONA"));
+        assertTrue(like.matches("barcelona"));
+        assertFalse(like.matches("Bar.celona"));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.date;
+
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DateFieldsTest {
+
+    static final String[] ZONES = {"UTC", "Europe/Madrid", "America/New_York", "Asia/Kolkata", "Australia/Lord_Howe"};
+
+    // From 1900 to 2100
+    static final long MIN_MILLIS = -2208988800000L;
+    static final long MAX_MILLIS = 4102444800000L;
+
+    @Test
+    public void testRandomDates() {
+        Random random = new Random(1);
+        for (String zone : ZONES) {
+            DateFields fields = new DateFields(ZoneId.of(zone));
+            Calendar c = new GregorianCalendar(TimeZone.getTimeZone(zone));
+            for (int i = 0; i < 10000; i++) {
+                long millis = MIN_MILLIS + (long) (random.nextDouble() * (MAX_MILLIS - MIN_MILLIS));
+                assertSameFields(fields, c, millis, zone);
+            }
+        }
+    }
+
+    @Test
+    public void testConsecutiveDates() {
+        // Every 15 minutes over two years, so that all the offset transitions are crossed
+        long from = 1577836800000L;
+        long to = from + 2 * 366 * DateFields.MILLIS_PER_DAY;
+        for (String zone : ZONES) {
+            DateFields fields = new DateFields(ZoneId.of(zone));
+            Calendar c = new GregorianCalendar(TimeZone.getTimeZone(zone));
+            for (long millis = from; millis < to; millis += 15 * DateFields.MILLIS_PER_MINUTE) {
+                assertSameFields(fields, c, millis, zone);
+            }
+        }
+    }
+
+    private void assertSameFields(DateFields fields, Calendar c, long millis, String zone) {
+        c.setTimeInMillis(millis);
+        String date = zone + " " + millis;
+        assertEquals(date, c.get(Calendar.YEAR), fields.getYear(millis));
+        assertEquals(date, c.get(Calendar.MONTH), fields.getMonth(millis));
+        assertEquals(date, c.get(Calendar.DAY_OF_WEEK) - 1, fields.getDayOfWeek(millis));
+        assertEquals(date, c.get(Calendar.HOUR_OF_DAY), fields.getHours(millis));
+        assertEquals(date, c.get(Calendar.MINUTE), fields.getMinutes(millis));
+        assertEquals(date, c.get(Calendar.SECOND), fields.getSeconds(millis));
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.csv;
+
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.DataColumn;
+import org.dashbuilder.dataset.def.CSVDataSetDef;
+import org.dashbuilder.dataset.impl.DateColumnarList;
+import org.dashbuilder.dataset.impl.DoubleColumnarList;
+
+/**
+ * Parses the values of a CSV column straight into the column's value list.
+ * <p>Numbers and dates are stored as primitives when the column has a columnar storage. The common number
+ * and date formats are parsed without the <i>java.text</i> formats (dates through a cached, thread-safe
+ * <i>java.time</i> formatter). Any value not handled that way is parsed by the <i>java.text</i> formats,
+ * so the results are always the same.</p>
+ * <p>Instances are not thread-safe, but different columns can be parsed concurrently.</p>
+ */
+public class CSVColumnParser {
+
+    // The java.time formatters for every date pattern supported (or null if the pattern is not supported)
+    private static final Map<String, DateTimeFormatter> DATE_FORMATTERS = new ConcurrentHashMap<String, DateTimeFormatter>();
+    private static final DateTimeFormatter NO_FORMATTER = new DateTimeFormatterBuilder().toFormatter();
+
+    // Dates before are always parsed by the java.text formats (calendar & time zone rules might differ)
+    private static final int MIN_FAST_YEAR = 1900;
+
+    // Numbers with more digits are always parsed by the java.text formats
+    private static final int MAX_FAST_DIGITS = 15;
+
+    protected CSVDataSetDef dataSetDef;
+    protected DataColumn column;
+    protected int columnIndex;
+    protected ColumnType columnType;
+    protected List values;
+
+    protected boolean epoch = false;
+    protected DateFormat dateFormat;
+    protected DateTimeFormatter dateFormatter;
+    protected ZoneId zoneId;
+    protected String lastDate;
+    protected long lastTime;
+
+    protected DecimalFormat numberFormat;
+    protected boolean fastNumbers;
+    protected boolean grouping;
+    protected char groupSeparator;
+    protected char decimalSeparator;
+
+    /**
+     * @param def The CSV data set definition
+     * @param column The target column
+     * @param columnIndex The position of the column values within the CSV lines
+     */
+    public CSVColumnParser(CSVDataSetDef def, DataColumn column, int columnIndex) {
+        this.dataSetDef = def;
+        this.column = column;
+        this.columnIndex = columnIndex;
+        this.columnType = column.getColumnType();
+        this.values = column.getValues();
+
+        if (ColumnType.DATE.equals(columnType)) {
+            String pattern = def.getPattern(column.getId());
+            epoch = pattern != null && CSVParser.DATE_FORMAT_EPOCH.equalsIgnoreCase(pattern);
+            if (!epoch) {
+                String datePattern = def.getDatePattern(column.getId());
+                dateFormat = new SimpleDateFormat(datePattern);
+                dateFormatter = getDateFormatter(datePattern);
+                zoneId = ZoneId.systemDefault();
+            }
+        }
+        else if (ColumnType.NUMBER.equals(columnType)) {
+            String numberPattern = def.getNumberPattern(column.getId());
+            DecimalFormatSymbols numberSymbols = new DecimalFormatSymbols();
+            groupSeparator = def.getNumberGroupSeparator(column.getId());
+            decimalSeparator = def.getNumberDecimalSeparator(column.getId());
+            numberSymbols.setGroupingSeparator(groupSeparator);
+            numberSymbols.setDecimalSeparator(decimalSeparator);
+            numberFormat = new DecimalFormat(numberPattern, numberSymbols);
+            grouping = numberFormat.isGroupingUsed();
+            fastNumbers = isFastNumberPattern(numberPattern) && groupSeparator != decimalSeparator
+                    && numberSymbols.getMinusSign() == '-' && !Character.isDigit(groupSeparator) && !Character.isDigit(decimalSeparator);
+        }
+    }
+
+    public DataColumn getColumn() {
+        return column;
+    }
+
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    /**
+     * Parse the column value within the given CSV line and add it to the column.
+     * @throws IllegalArgumentException If the value does not match the column type.
+     */
+    public void parse(String[] line) {
+        String value = line[columnIndex];
+        if (StringUtils.isBlank(value)) {
+            values.add(null);
+            return;
+        }
+        try {
+            if (ColumnType.NUMBER.equals(columnType)) {
+                double number = parseNumber(value);
+                if (values instanceof DoubleColumnarList) {
+                    ((DoubleColumnarList) values).addDouble(number);
+                } else {
+                    values.add(number);
+                }
+            }
+            else if (ColumnType.DATE.equals(columnType)) {
+                long time = parseDate(value);
+                if (values instanceof DateColumnarList) {
+                    ((DateColumnarList) values).addTime(time);
+                } else {
+                    values.add(new Date(time));
+                }
+            }
+            else {
+                values.add(value);
+            }
+        } catch (ParseException e) {
+            String msg = "Error parsing value: " + value + ", " + e.getMessage() + ". Check column's data type consistency!";
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
+    protected double parseNumber(String value) throws ParseException {
+        if (fastNumbers && isFastNumber(value)) {
+            StringBuilder out = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == decimalSeparator) out.append('.');
+                else if (c != groupSeparator) out.append(c);
+            }
+            return Double.parseDouble(out.toString());
+        }
+        return numberFormat.parse(value).doubleValue();
+    }
+
+    /**
+     * Check if the value is a plain number: an optional minus sign followed by digits, with grouping
+     * separators between the integer digits and an optional decimal separator between digits.
+     */
+    protected boolean isFastNumber(String value) {
+        int n = value.length();
+        int i = value.charAt(0) == '-' ? 1 : 0;
+        int digits = 0;
+        boolean decimal = false;
+        for (boolean digitBefore = false; i < n; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                digitBefore = true;
+                continue;
+            }
+            boolean digitAfter = i + 1 < n && value.charAt(i + 1) >= '0' && value.charAt(i + 1) <= '9';
+            if (!digitBefore || !digitAfter) return false;
+            if (c == decimalSeparator && !decimal) decimal = true;
+            else if (c != groupSeparator || !grouping || decimal) return false;
+            digitBefore = false;
+        }
+        return digits > 0 && digits <= MAX_FAST_DIGITS;
+    }
+
+    protected long parseDate(String value) throws ParseException {
+        if (epoch) {
+            Double _epoch = Double.parseDouble(value);
+            return _epoch.longValue() * 1000;
+        }
+        // Consecutive rows often hold the same date
+        if (value.equals(lastDate)) {
+            return lastTime;
+        }
+        Long time = dateFormatter != null ? parseFastDate(value) : null;
+        if (time == null) {
+            time = dateFormat.parse(value).getTime();
+        }
+        lastDate = value;
+        lastTime = time;
+        return time;
+    }
+
+    /**
+     * Parse the date through the java.time formatter.
+     * @return The date millis or null if the date must be parsed by the java.text format.
+     */
+    protected Long parseFastDate(String value) {
+        try {
+            TemporalAccessor parsed = dateFormatter.parse(value);
+            LocalDate date = parsed.query(TemporalQueries.localDate());
+            if (date == null || date.getYear() < MIN_FAST_YEAR) {
+                return null;
+            }
+            LocalTime time = parsed.query(TemporalQueries.localTime());
+            LocalDateTime dateTime = time == null ? date.atStartOfDay() : date.atTime(time);
+
+            // Gaps and overlaps (daylight saving changes) are left to the java.text format
+            List<ZoneOffset> offsets = zoneId.getRules().getValidOffsets(dateTime);
+            if (offsets.size() != 1) {
+                return null;
+            }
+            return dateTime.toInstant(offsets.get(0)).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the java.time formatter equivalent to the given <i>SimpleDateFormat</i> pattern.
+     * @return null if the pattern contains fields not supported.
+     */
+    public static DateTimeFormatter getDateFormatter(String pattern) {
+        DateTimeFormatter formatter = DATE_FORMATTERS.get(pattern);
+        if (formatter == null) {
+            formatter = createDateFormatter(pattern);
+            DATE_FORMATTERS.put(pattern, formatter == null ? NO_FORMATTER : formatter);
+        }
+        return formatter == NO_FORMATTER ? null : formatter;
+    }
+
+    /**
+     * Only fixed width numeric fields are supported: <i>yyyy, MM, dd, HH, mm, ss & SSS</i>. Both the formatter
+     * and the <i>SimpleDateFormat</i> get the same results for any value matching the pattern. Any other value
+     * (even if it is lenient parsed by the <i>SimpleDateFormat</i>) is rejected by the formatter.
+     */
+    protected static DateTimeFormatter createDateFormatter(String pattern) {
+        if (pattern == null || pattern.isEmpty()) {
+            return null;
+        }
+        DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+        for (int i = 0; i < pattern.length(); ) {
+            char c = pattern.charAt(i);
+            int j = i;
+            while (j < pattern.length() && pattern.charAt(j) == c) j++;
+            int count = j - i;
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                ChronoField field = getDateField(c, count);
+                if (field == null) {
+                    return null;
+                }
+                builder.appendValue(field, count);
+            }
+            else if (c == '\'') {
+                return null;
+            }
+            else {
+                for (int k = 0; k < count; k++) {
+                    builder.appendLiteral(c);
+                }
+            }
+            i = j;
+        }
+        return builder.toFormatter().withResolverStyle(ResolverStyle.STRICT);
+    }
+
+    private static ChronoField getDateField(char c, int count) {
+        if (c == 'y' && count == 4) return ChronoField.YEAR;
+        if (c == 'M' && count == 2) return ChronoField.MONTH_OF_YEAR;
+        if (c == 'd' && count == 2) return ChronoField.DAY_OF_MONTH;
+        if (c == 'H' && count == 2) return ChronoField.HOUR_OF_DAY;
+        if (c == 'm' && count == 2) return ChronoField.MINUTE_OF_HOUR;
+        if (c == 's' && count == 2) return ChronoField.SECOND_OF_MINUTE;
+        if (c == 'S' && count == 3) return ChronoField.MILLI_OF_SECOND;
+        return null;
+    }
+
+    private static boolean isFastNumberPattern(String pattern) {
+        if (pattern == null || pattern.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c != '#' && c != '0' && c != ',' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -21,10 +21,12 @@ import org.apache.commons.lang3.StringUtils;
 import org.dashbuilder.DataSetCore;
 import org.dashbuilder.dataprovider.DataSetProvider;
 import org.dashbuilder.dataprovider.DataSetProviderType;
+import org.dashbuilder.dataprovider.RefreshableDataSetProvider;
 import org.dashbuilder.dataprovider.StaticDataSetProvider;
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.DataSetLookup;
 import org.dashbuilder.dataset.DataSetMetadata;
+import org.dashbuilder.dataset.DataSetParallelExecutor;
 import org.dashbuilder.dataset.def.CSVDataSetDef;
 import org.dashbuilder.dataset.def.DataSetDef;
 import org.dashbuilder.dataset.def.DataSetDefRegistry;
@@ -32,10 +34,11 @@ import org.dashbuilder.dataset.def.DataSetDefRegistryListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class CSVDataSetProvider implements DataSetProvider, DataSetDefRegistryListener {
+public class CSVDataSetProvider implements DataSetProvider, RefreshableDataSetProvider, DataSetDefRegistryListener {
 
     protected StaticDataSetProvider staticDataSetProvider;
     protected CSVFileStorage csvStorage;
+    protected DataSetParallelExecutor parallelExecutor;
     protected Logger log = LoggerFactory.getLogger(CSVDataSetProvider.class);
 
     private static CSVDataSetProvider SINGLETON = null;
@@ -45,6 +48,7 @@ public class CSVDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
             StaticDataSetProvider staticDataSetProvider = DataSetCore.get().getStaticDataSetProvider();
             DataSetDefRegistry dataSetDefRegistry = DataSetCore.get().getDataSetDefRegistry();
             SINGLETON = new CSVDataSetProvider(staticDataSetProvider, null);
+            SINGLETON.setParallelExecutor(DataSetCore.get().getParallelExecutor());
             dataSetDefRegistry.addListener(SINGLETON);
         }
         return SINGLETON;
@@ -60,6 +64,13 @@ public class CSVDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
         this.csvStorage = csvStorage;
     }
 
+    /**
+     * Set the executor used to parse large CSV files in parallel (only if the executor is enabled).
+     */
+    public void setParallelExecutor(DataSetParallelExecutor parallelExecutor) {
+        this.parallelExecutor = parallelExecutor;
+    }
+
     public DataSetProviderType getType() {
         return DataSetProviderType.CSV;
     }
@@ -79,13 +90,8 @@ public class CSVDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
         // If the lookup request is in test mode or the data set not exists or is outdated then load from the CSV file
         CSVDataSetDef csvDef = (CSVDataSetDef) def;
         if ((lookup != null && lookup.testMode()) || dataSet == null || hasCSVFileChanged(dataSet, csvDef)) {
-            CSVParser csvParser = new CSVParser(csvDef, csvStorage);
-            dataSet = csvParser.load();
-            dataSet.setUUID(def.getUUID());
-            dataSet.setDefinition(def);
-
             // Register the CSV data set available into the static provider
-            staticDataSetProvider.registerDataSet(dataSet);
+            staticDataSetProvider.registerDataSet(loadDataSet(csvDef));
         }
         try {
             // Always do the lookup on the statically registered data set.
@@ -101,6 +107,28 @@ public class CSVDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
         return dataSet;
     }
 
+    protected DataSet loadDataSet(CSVDataSetDef def) throws Exception {
+        CSVParser csvParser = new CSVParser(def, csvStorage);
+        csvParser.setParallelExecutor(parallelExecutor);
+        DataSet dataSet = csvParser.load();
+        log.debug("CSV data set loaded [uuid={}]: {} rows ({} rows/sec), {} bytes ({} bytes/sec) in {} ms",
+                def.getUUID(), csvParser.getLoadedRows(), (long) csvParser.getRowsPerSecond(),
+                csvParser.getLoadedBytes(), (long) csvParser.getBytesPerSecond(), csvParser.getLoadTime());
+        dataSet.setUUID(def.getUUID());
+        dataSet.setDefinition(def);
+        return dataSet;
+    }
+
+    @Override
+    public boolean refreshDataSet(DataSetDef def) throws Exception {
+        if (staticDataSetProvider.lookupDataSet(def.getUUID(), null) == null) {
+            return false;
+        }
+        // The file is parsed while the previous data set keeps being served
+        staticDataSetProvider.registerDataSet(loadDataSet((CSVDataSetDef) def));
+        return true;
+    }
+
     public boolean isDataSetOutdated(DataSetDef def) {
         // If no data set is registered then no way for having stale data.
         DataSet dataSet = staticDataSetProvider.lookupDataSet(def, null);
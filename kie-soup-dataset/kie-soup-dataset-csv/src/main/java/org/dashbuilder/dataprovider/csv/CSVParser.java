@@ -18,6 +18,7 @@ package org.dashbuilder.dataprovider.csv;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -25,24 +26,30 @@ import java.net.URL;
 import java.text.DateFormat;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
-import java.text.ParseException;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import au.com.bytecode.opencsv.CSVReader;
 import org.apache.commons.lang3.StringUtils;
 import org.dashbuilder.dataset.ColumnType;
-import org.dashbuilder.dataset.DataColumn;
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.DataSetParallelExecutor;
 import org.dashbuilder.dataset.def.CSVDataSetDef;
 import org.dashbuilder.dataset.def.DataColumnDef;
 
+/**
+ * Loads a CSV file into a data set.
+ * <p>The CSV lines are streamed and every value is parsed straight into its column (see {@link CSVColumnParser}).
+ * If a parallel executor is given, and enabled, the lines are read in chunks and the columns of every chunk
+ * are parsed in parallel.</p>
+ */
 public class CSVParser {
 
     // Custom pattern for Unix dates (epoch).
@@ -52,12 +59,56 @@ public class CSVParser {
     protected transient Map<String,DecimalFormat> _numberFormatMap = new HashMap<String,DecimalFormat>();
     protected CSVDataSetDef dataSetDef;
     protected CSVFileStorage csvStorage;
+    protected DataSetParallelExecutor parallelExecutor;
+    protected int chunkSize = 100000;
+
+    // Statistics of the last load
+    protected int loadedRows = 0;
+    protected long loadedBytes = 0;
+    protected long loadTime = 0;
 
     public CSVParser(CSVDataSetDef def, CSVFileStorage csvFileStorage) {
         this.dataSetDef = def;
         this.csvStorage = csvFileStorage;
     }
 
+    public void setParallelExecutor(DataSetParallelExecutor parallelExecutor) {
+        this.parallelExecutor = parallelExecutor;
+    }
+
+    /**
+     * Set the number of lines read at once when the parallel mode is enabled.
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be greater than zero: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public int getLoadedRows() {
+        return loadedRows;
+    }
+
+    public long getLoadedBytes() {
+        return loadedBytes;
+    }
+
+    /**
+     * The time taken by the last load in milliseconds.
+     */
+    public long getLoadTime() {
+        return loadTime;
+    }
+
+    public double getRowsPerSecond() {
+        return loadTime == 0 ? loadedRows * 1000d : loadedRows * 1000d / loadTime;
+    }
+
+    public double getBytesPerSecond() {
+        return loadTime == 0 ? loadedBytes * 1000d : loadedBytes * 1000d / loadTime;
+    }
+
     protected boolean isColumnIncluded(String columnId) {
         if (dataSetDef.isAllColumnsEnabled()) return true;
         if (dataSetDef.getColumns() == null) return false;
@@ -65,7 +116,8 @@ public class CSVParser {
     }
 
     protected DataSet load() throws Exception {
-        InputStream is = getCSVInputStream();
+        long startTime = System.currentTimeMillis();
+        CountingInputStream is = new CountingInputStream(getCSVInputStream());
         CSVReader csvReader = null; 
         try {
             BufferedReader br = new BufferedReader(new InputStreamReader(is));
@@ -83,30 +135,50 @@ public class CSVParser {
             }
 
             // Build the data set structure
-            List<Integer> _columnIdxs = new ArrayList<Integer>();
-            DataSet dataSet = DataSetFactory.newEmptyDataSet();
+            List<CSVColumnParser> columnParsers = new ArrayList<CSVColumnParser>();
+            DataSet dataSet = DataSetFactory.newColumnarDataSet();
             for (int i = 0; i < header.length; i++) {
                 String columnId = header[i];
                 if (isColumnIncluded(columnId)) {
                     ColumnType type = ColumnType.LABEL;
                     if (firstRow != null) type = calculateType(columnId, firstRow[i]);
                     dataSet.addColumn(columnId, type);
-                    _columnIdxs.add(i);
+                    columnParsers.add(new CSVColumnParser(dataSetDef, dataSet.getColumnByIndex(columnParsers.size()), i));
                 }
             }
 
             // Load & insert the CSV rows
-            if (firstRow != null) {
-                Object[] _rowArray = new Object[dataSet.getColumns().size()];
-                _processLine(dataSet, _rowArray, firstRow, _columnIdxs);
-                dataSet.setValuesAt(dataSet.getRowCount(), _rowArray);
-                String[] _line = csvReader.readNext();
-                while (_line != null && _line.length == header.length) {
-                    _processLine(dataSet,_rowArray, _line, _columnIdxs);
-                    dataSet.setValuesAt(dataSet.getRowCount(), _rowArray);
-                    _line = csvReader.readNext();
+            // (in chunked mode, a chunk is parsed while the next one is read)
+            int rows = 0;
+            boolean chunked = parallelExecutor != null && parallelExecutor.isEnabled();
+            List<String[]> chunk = new ArrayList<String[]>();
+            Future<?> pendingChunk = null;
+            String[] _line = firstRow;
+            while (_line != null) {
+                if (chunked) {
+                    chunk.add(_line);
+                    if (chunk.size() == chunkSize) {
+                        _waitFor(pendingChunk);
+                        pendingChunk = _submitChunk(chunk, columnParsers);
+                        chunk = new ArrayList<String[]>();
+                    }
+                } else {
+                    for (CSVColumnParser columnParser : columnParsers) {
+                        columnParser.parse(_line);
+                    }
+                }
+                rows++;
+                _line = csvReader.readNext();
+                if (_line != null && _line.length != header.length) {
+                    break;
                 }
             }
+            _waitFor(pendingChunk);
+            _processLines(chunk, columnParsers, 0, columnParsers.size());
+
+            loadedRows = rows;
+            loadedBytes = is.getCount();
+            loadTime = System.currentTimeMillis() - startTime;
             return dataSet;
         } finally {
             is.close();
@@ -116,6 +188,35 @@ public class CSVParser {
         }
     }
 
+    protected Future<?> _submitChunk(final List<String[]> lines, final List<CSVColumnParser> columnParsers) {
+        // Every column is parsed by a single task
+        return parallelExecutor.submit(columnParsers.size(), (from, to) -> {
+            _processLines(lines, columnParsers, from, to);
+            return null;
+        });
+    }
+
+    protected void _waitFor(Future<?> chunk) throws Exception {
+        if (chunk == null) {
+            return;
+        }
+        try {
+            chunk.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    protected void _processLines(List<String[]> lines, List<CSVColumnParser> columnParsers, int fromColumn, int toColumn) {
+        for (int i = fromColumn; i < toColumn; i++) {
+            CSVColumnParser columnParser = columnParsers.get(i);
+            for (String[] line : lines) {
+                columnParser.parse(line);
+            }
+        }
+    }
+
     protected InputStream getCSVInputStream() throws Exception {
         String url = dataSetDef.getFileURL();
         if (!StringUtils.isBlank(url)) {
@@ -163,45 +264,6 @@ public class CSVParser {
         return position.getIndex() == value.length();
     }
 
-    protected void _processLine(DataSet dataSet, Object[] row, String[] line, List<Integer> columnIdxs) throws Exception {
-        List<DataColumn> columns = dataSet.getColumns();
-        for (int i=0; i<columns.size(); i++) {
-            DataColumn column = dataSet.getColumnByIndex(i);
-            int columnIdx = columnIdxs.get(i);
-            String valueStr = line[columnIdx];
-            if (!StringUtils.isBlank(valueStr)){
-                row[i] = parseValue(column, valueStr);
-            } else {
-                row[i] = null;
-            }
-        }
-    }
-
-    protected Object parseValue(DataColumn column, String value) throws Exception {
-        ColumnType type = column.getColumnType();
-        try {
-            if (type.equals(ColumnType.DATE)) {
-                String pattern = dataSetDef.getPattern(column.getId());
-                // Handle special date pattern "epoch"
-                if (pattern != null && DATE_FORMAT_EPOCH.equalsIgnoreCase(pattern)) {
-                    Double _epoch = Double.parseDouble(value);
-                    return new Date(_epoch.longValue() * 1000);
-                } else {
-                    DateFormat dateFormat = getDateFormat(column.getId());
-                    return dateFormat.parse(value);
-                }
-            } else if (type.equals(ColumnType.NUMBER)) {
-                DecimalFormat numberFormat = getNumberFormat(column.getId());
-                return numberFormat.parse(value).doubleValue();
-            } else {
-                return value;
-            }
-        } catch (ParseException e) {
-            String msg = "Error parsing value: " + value + ", " + e.getMessage() + ". Check column\u0027s data type consistency!";
-            throw new Exception(msg);
-        }
-    }
-
     protected DateFormat getDateFormat(String columnId) {
         DateFormat format = _dateFormatMap.get(columnId);
         if (format == null) {
@@ -222,4 +284,41 @@ public class CSVParser {
         }
         return format;
     }
+
+    /**
+     * Counts the bytes read from the CSV content.
+     */
+    protected static class CountingInputStream extends FilterInputStream {
+
+        private long count = 0;
+
+        public CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
 }
@@ -3,16 +3,23 @@ package org.dashbuilder.dataprovider.csv;
 
 import org.dashbuilder.dataset.ColumnType;
 import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetParallelExecutor;
 import org.dashbuilder.dataset.def.CSVDataSetDef;
 import org.dashbuilder.dataset.def.DataSetDefFactory;
+import org.dashbuilder.dataset.impl.DateColumnarList;
+import org.dashbuilder.dataset.impl.DoubleColumnarList;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class CSVParserTest {
 
@@ -71,6 +78,101 @@ public class CSVParserTest {
         assertEquals(ColumnType.LABEL, dset.getColumnById("Address").getColumnType());
     }
 
+    @Test
+    public void valuesParsedIntoTypedColumns() throws Exception {
+        final String CSV_DATA = "Name;Amount;Date;Time\n" +
+                "Jan;1,234.5;01-20-1950;2017-03-01 10:30:15\n" +
+                "Ana;;1-5-2012;2017-3-1 9:05:00\n" +
+                ";-0.75;02-31-2012;\n";
+
+        CSVDataSetDef def = (CSVDataSetDef) DataSetDefFactory.newCSVDataSetDef()
+                .separatorChar(';')
+                .quoteChar('\"')
+                .escapeChar('\\')
+                .label("Name")
+                .number("Amount", "#,###.##")
+                .date("Date", "MM-dd-yyyy")
+                .date("Time", "yyyy-MM-dd HH:mm:ss")
+                .buildDef();
+
+        CSVParser testedParser = new CSVParser(def, new MockCSVFileStorage(CSV_DATA));
+        DataSet dset = testedParser.load();
+
+        assertEquals(3, dset.getRowCount());
+        assertTrue(dset.getColumnById("Amount").getValues() instanceof DoubleColumnarList);
+        assertTrue(dset.getColumnById("Date").getValues() instanceof DateColumnarList);
+        assertEquals(1234.5d, dset.getValueAt(0, 1));
+        assertNull(dset.getValueAt(1, 1));
+        assertEquals(-0.75d, dset.getValueAt(2, 1));
+        assertNull(dset.getValueAt(2, 0));
+        assertNull(dset.getValueAt(2, 3));
+
+        // Same results as the java.text formats, even for the values only accepted by the lenient parsing
+        SimpleDateFormat dateFormat = new SimpleDateFormat("MM-dd-yyyy");
+        assertEquals(dateFormat.parse("01-20-1950"), dset.getValueAt(0, 2));
+        assertEquals(dateFormat.parse("1-5-2012"), dset.getValueAt(1, 2));
+        assertEquals(dateFormat.parse("02-31-2012"), dset.getValueAt(2, 2));
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        assertEquals(timeFormat.parse("2017-03-01 10:30:15"), dset.getValueAt(0, 3));
+        assertEquals(timeFormat.parse("2017-3-1 9:05:00"), dset.getValueAt(1, 3));
+
+        assertEquals(3, testedParser.getLoadedRows());
+        assertEquals(CSV_DATA.length(), testedParser.getLoadedBytes());
+        assertTrue(testedParser.getRowsPerSecond() > 0);
+        assertTrue(testedParser.getBytesPerSecond() > 0);
+    }
+
+    @Test
+    public void exceptionThrown_whenValueNotMatchingColumnType() throws Exception {
+        final String CSV_DATA = "'Name','Weight'\n'Jan','75.64'\n'Ana','heavy'";
+
+        CSVParser testedParser = new CSVParser(csvDataSet, new MockCSVFileStorage(CSV_DATA));
+        try {
+            testedParser.load();
+            Assert.fail("IllegalArgumentException should be thrown when a value does not match the column type");
+        } catch (IllegalArgumentException iae) {
+            assertTrue(iae.getMessage().startsWith("Error parsing value: heavy"));
+        }
+    }
+
+    @Test
+    public void sameDataSet_whenParsedInParallelChunks() throws Exception {
+        StringBuilder csv = new StringBuilder("'Name','Weight','Date of birth'");
+        for (int i = 0; i < 1000; i++) {
+            csv.append("\n'Name").append(i % 7).append("','").append(i % 13 == 0 ? "" : String.valueOf(i / 10d))
+                    .append("','").append(1950 + i % 50).append("-0").append(1 + i % 9).append("-1").append(i % 10).append("'");
+        }
+        DataSet expected = new CSVParser(csvDataSet, new MockCSVFileStorage(csv.toString())).load();
+
+        DataSetParallelExecutor parallelExecutor = new DataSetParallelExecutor();
+        parallelExecutor.setEnabled(true);
+        parallelExecutor.setParallelism(4);
+        try {
+            CSVParser testedParser = new CSVParser(csvDataSet, new MockCSVFileStorage(csv.toString()));
+            testedParser.setParallelExecutor(parallelExecutor);
+            testedParser.setChunkSize(64);
+            DataSet dset = testedParser.load();
+
+            assertEquals(1000, dset.getRowCount());
+            for (int i = 0; i < 1000; i++) {
+                for (int j = 0; j < 3; j++) {
+                    assertEquals(expected.getValueAt(i, j), dset.getValueAt(i, j));
+                }
+            }
+        } finally {
+            parallelExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void dateFormatter_onlyForFixedWidthNumericPatterns() {
+        assertNotNull(CSVColumnParser.getDateFormatter("MM-dd-yyyy"));
+        assertNotNull(CSVColumnParser.getDateFormatter("yyyy-MM-dd HH:mm:ss.SSS"));
+        assertNull(CSVColumnParser.getDateFormatter("YYYY-MM-dd"));
+        assertNull(CSVColumnParser.getDateFormatter("dd-MMM-yy"));
+        assertNull(CSVColumnParser.getDateFormatter("yyyy-MM-dd'T'HH:mm"));
+    }
+
     static class MockCSVFileStorage implements CSVFileStorage {
 
         private final String csvData;
@@ -25,8 +25,8 @@ import org.dashbuilder.dataset.engine.group.IntervalBuilderFixedDate;
 import org.dashbuilder.dataset.engine.group.IntervalBuilderLocator;
 import org.dashbuilder.dataset.engine.index.TransientDataSetIndexRegistry;
 import org.dashbuilder.dataset.engine.index.spi.DataSetIndexRegistry;
-import org.dashbuilder.dataset.engine.sort.CollectionsDataSetSort;
 import org.dashbuilder.dataset.engine.sort.DataSetSortAlgorithm;
+import org.dashbuilder.dataset.engine.sort.PrimitiveDataSetSort;
 import org.dashbuilder.dataset.group.AggregateFunctionManager;
 import org.dashbuilder.dataset.uuid.UUIDGenerator;
 
@@ -43,6 +43,7 @@ public abstract class AbstractDataSetCore {
     private DataSetFilterAlgorithm filterAlgorithm;
     private IntervalBuilderDynamicLabel intervalBuilderDynamicLabel;
     private IntervalBuilderFixedDate intervalBuilderFixedDate;
+    private long indexMaxSize = -1;
 
     protected <T extends Object> T checkNotNull(T obj, String name) {
         if (obj == null) {
@@ -122,6 +123,14 @@ public abstract class AbstractDataSetCore {
         return chronometer;
     }
 
+    /**
+     * The maximum heap size (in bytes) for the indexes held by the index registry (the data sets are not evicted).
+     * Any value lower or equals than zero means no limit (the default).
+     */
+    public long getIndexMaxSize() {
+        return indexMaxSize;
+    }
+
     public UUIDGenerator getUuidGenerator() {
         if (uuidGenerator  == null) {
             uuidGenerator = newUuidGenerator();
@@ -143,6 +152,13 @@ public abstract class AbstractDataSetCore {
         this.indexRegistry = indexRegistry;
     }
 
+    public void setIndexMaxSize(long indexMaxSize) {
+        this.indexMaxSize = indexMaxSize;
+        if (indexRegistry instanceof TransientDataSetIndexRegistry) {
+            ((TransientDataSetIndexRegistry) indexRegistry).setMaxSize(indexMaxSize);
+        }
+    }
+
     public void setSortAlgorithm(DataSetSortAlgorithm sortAlgorithm) {
         this.sortAlgorithm = sortAlgorithm;
     }
@@ -189,11 +205,12 @@ public abstract class AbstractDataSetCore {
 
     protected DataSetIndexRegistry newIndexRegistry() {
         return new TransientDataSetIndexRegistry(
-                checkNotNull(getUuidGenerator(), "UUIDGenerator"));
+                checkNotNull(getUuidGenerator(), "UUIDGenerator"),
+                indexMaxSize);
     }
 
     protected DataSetSortAlgorithm newSortAlgorithm() {
-        return new CollectionsDataSetSort();
+        return new PrimitiveDataSetSort();
     }
 
     protected DataSetFilterAlgorithm newFilterAlgorithm() {
@@ -15,16 +15,26 @@
  */
 package org.dashbuilder.dataset.engine;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 
 import org.dashbuilder.dataset.DataSetOpEngine;
+import org.dashbuilder.dataset.engine.function.AggregateAccumulator;
 import org.dashbuilder.dataset.engine.index.DataSetStaticIndex;
 import org.dashbuilder.dataset.group.AggregateFunction;
 import org.dashbuilder.dataset.group.AggregateFunctionManager;
 import org.dashbuilder.dataset.engine.group.IntervalBuilder;
+import org.dashbuilder.dataset.engine.group.IntervalBuilderDynamicLabel;
 import org.dashbuilder.dataset.engine.group.IntervalBuilderLocator;
 import org.dashbuilder.dataset.engine.group.IntervalList;
+import org.dashbuilder.dataset.engine.group.SortedIntervalBuilder;
 import org.dashbuilder.dataset.engine.index.DataSetFilterIndex;
 import org.dashbuilder.dataset.engine.index.DataSetGroupIndex;
 import org.dashbuilder.dataset.engine.index.DataSetIndex;
@@ -49,13 +59,18 @@ import org.dashbuilder.dataset.group.GroupFunction;
 import org.dashbuilder.dataset.group.GroupStrategy;
 import org.dashbuilder.dataset.group.Interval;
 import org.dashbuilder.dataset.impl.DataColumnImpl;
+import org.dashbuilder.dataset.impl.RowList;
 import org.dashbuilder.dataset.sort.ColumnSort;
 import org.dashbuilder.dataset.sort.DataSetSort;
+import org.dashbuilder.dataset.engine.sort.DataSetRowComparator;
 import org.dashbuilder.dataset.engine.sort.DataSetSortAlgorithm;
 import org.dashbuilder.dataset.sort.SortedList;
 
 /**
  * Engine implementation that can runs both on client and server.
+ * <p>It can be shared by concurrent lookups: every execution keeps its own state while the index tree makes sure
+ * every child index is built just once. The build times are calculated from the time stamps returned by the
+ * chronometer, whose own start/stop state is shared and therefore meaningless under concurrent lookups.</p>
  */
 public class SharedDataSetOpEngine implements DataSetOpEngine {
 
@@ -102,10 +117,241 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
         return processor.getDataSet();
     }
 
+    /**
+     * Apply a sequence of operations and trim the resulting data set.
+     * <p>If the last operation is a sort then only the rows requested are sorted (top-N), instead of sorting
+     * all the rows and then trimming the results.</p>
+     *
+     * @param uuid The target data set identifier.
+     * @param opList The list of operations.
+     * @param rowOffset The offset of the first row to get.
+     * @param numberOfRows The number of rows to get. Zero or negative means all the rows.
+     * @return A data set holding the rows requested (see {@link DataSet#trim(int, int)}).
+     */
+    public DataSet execute(String uuid, List<DataSetOp> opList, int rowOffset, int numberOfRows) {
+        DataSetOpListProcessor processor = new DataSetOpListProcessor();
+        processor.setDataSetIndex(indexRegistry.get(uuid));
+        processor.setOperationList(opList);
+        processor.setTrim(rowOffset, numberOfRows);
+        processor.run();
+        return processor.getDataSet();
+    }
+
+    /**
+     * Append some rows to a registered data set.
+     * <p>The data set is replaced by a copy holding the new rows. The lookups read the data set and its indexes
+     * with no lock held, so the rows can't be appended in place: a lookup in progress would see the columns
+     * half appended and the index rows out of sync with the data set. Copying the columns takes a plain copy
+     * of their value arrays, which is far cheaper than indexing the rows again.</p>
+     * <p>The filter and label group indexes built so far, along with their count, sum, min and max values, are
+     * carried over to the new data set and updated just for the new rows. Any other index (date and fixed range
+     * groups, nested groups, interval selections, sorts) is built again on demand.</p>
+     *
+     * @param uuid The target data set identifier.
+     * @param rows A data set holding the rows to append (at least, the same columns as the target data set).
+     * @return The resulting data set.
+     */
+    public DataSet append(String uuid, DataSet rows) {
+        DataSetIndex index = indexRegistry.get(uuid);
+        if (index == null) {
+            throw new IllegalArgumentException("Data set not found: " + uuid);
+        }
+        DataSet dataSet = index.getDataSet();
+        DataSet result = dataSet.cloneInstance();
+        result.setUUID(uuid);
+        result.setDefinition(dataSet.getDefinition());
+
+        List<DataColumn> columns = result.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            String columnId = columns.get(i).getId();
+            DataColumn column = rows.getColumnById(columnId);
+            if (column == null) {
+                throw new IllegalArgumentException("Column missing in the rows to append: " + columnId);
+            }
+            int row = dataSet.getRowCount();
+            for (Object value : column.getValues()) {
+                result.setValueAt(row++, i, value);
+            }
+        }
+        RowList newRows = new RowList(rows.getRowCount());
+        for (int row = dataSet.getRowCount(); row < result.getRowCount(); row++) {
+            newRows.addRow(row);
+        }
+        DataSetStaticIndex resultIndex = new DataSetStaticIndex(result);
+        appendIndexes(result, index, resultIndex, newRows);
+        indexRegistry.put(resultIndex);
+        return result;
+    }
+
+    /**
+     * Carry over the indexes of a node to the same node of the new index tree.
+     * @param newRows The new rows that belong to the node
+     */
+    protected void appendIndexes(DataSet dataSet, DataSetIndexNode from, DataSetIndexNode to, RowList newRows) {
+        for (Map.Entry<String, Map<AggregateFunctionType, Object>> entry : from.getAggValues().entrySet()) {
+            DataColumn column = dataSet.getColumnById(entry.getKey());
+            for (Map.Entry<AggregateFunctionType, Object> aggValue : entry.getValue().entrySet()) {
+                AggregateFunctionType type = aggValue.getKey();
+                Object value = aggValue.getValue();
+                if (!newRows.isEmpty() && column != null) {
+                    value = appendAggValue(type, value, aggregate(aggregateFunctionManager.getFunctionByType(type), column, newRows));
+                }
+                if (value != null) {
+                    to.indexAggValue(entry.getKey(), type, value, 0);
+                }
+            }
+        }
+        for (DataSetFilterIndex filterIndex : from.getFilterIndexes()) {
+            RowList filterRows = new RowList(filterIndex.getRows());
+            RowList newFilterRows = newRows;
+            if (!newRows.isEmpty()) {
+                newFilterRows = RowList.of(filterAlgorithm.filter(new RowSetHandler(dataSet, newRows), filterIndex.getColumnFilter()));
+                filterRows.addAll(newFilterRows);
+            }
+            DataSetFilterIndex result = to.indexFilter(filterIndex.getColumnFilter(), filterRows, filterIndex.getBuildTime());
+            appendIndexes(dataSet, filterIndex, result, newFilterRows);
+        }
+        for (DataSetGroupIndex groupIndex : from.getGroupIndexes()) {
+            DataSetGroupIndex result = appendGroupIndex(dataSet, groupIndex, newRows);
+            if (result != null) {
+                to.indexGroup(result);
+            }
+        }
+    }
+
+    /**
+     * Carry over a label group index. The new rows are added to the interval of their label, and the new labels
+     * get new intervals at the end (they appear after all the existing rows).
+     * @param newRows The new rows that belong to the grouped node
+     * @return null if the group index can't be carried over (it must be built again).
+     */
+    protected DataSetGroupIndex appendGroupIndex(DataSet dataSet, DataSetGroupIndex from, RowList newRows) {
+        ColumnGroup columnGroup = from.getColumnGroup();
+        if (columnGroup == null) {
+            return null;
+        }
+        DataColumn column = dataSet.getColumnById(columnGroup.getSourceId());
+        if (column == null) {
+            return null;
+        }
+        IntervalBuilder intervalBuilder = intervalBuilderLocator.lookup(column.getColumnType(), columnGroup.getStrategy());
+        if (!(intervalBuilder instanceof IntervalBuilderDynamicLabel)) {
+            return null;
+        }
+        IntervalList newIntervals = newRows.isEmpty() ? null : intervalBuilder.build(new RowSetHandler(dataSet, newRows), columnGroup);
+        Map<String, Interval> newIntervalMap = new HashMap<String, Interval>();
+        if (newIntervals != null) {
+            for (Interval interval : newIntervals) {
+                newIntervalMap.put(interval.getName(), interval);
+            }
+        }
+        DataSetGroupIndex result = new DataSetGroupIndex(columnGroup);
+        result.setIntervalType(from.getIntervalType());
+        result.setMinValue(from.getMinValue());
+        result.setMaxValue(from.getMaxValue());
+        result.setBuildTime(from.getBuildTime());
+        List<DataSetIntervalIndex> intervalIndexes = result.getIntervalIndexes();
+        for (DataSetIntervalIndex intervalIndex : from.getIntervalIndexes()) {
+            if (intervalIndex instanceof DataSetIntervalSetIndex) {
+                return null;
+            }
+            Interval newInterval = newIntervalMap.remove(intervalIndex.getName());
+            RowList newIntervalRows = newInterval == null ? new RowList(0) : RowList.of(newInterval.getRows());
+            RowList rows = new RowList(intervalIndex.getRows());
+            rows.addAll(newIntervalRows);
+
+            Interval interval = new Interval(intervalIndex.getName(), intervalIndexes.size());
+            interval.setType(intervalIndex.getIntervalType());
+            interval.setMinValue(intervalIndex.getMinValue());
+            interval.setMaxValue(intervalIndex.getMaxValue());
+            interval.setRows(rows);
+            DataSetIntervalIndex resultInterval = new DataSetIntervalIndex(result, interval);
+            resultInterval.setBuildTime(intervalIndex.getBuildTime());
+            intervalIndexes.add(resultInterval);
+            appendIndexes(dataSet, intervalIndex, resultInterval, newIntervalRows);
+        }
+        if (newIntervals != null) {
+            for (Interval newInterval : newIntervals) {
+                if (newIntervalMap.containsKey(newInterval.getName())) {
+                    newInterval.setIndex(intervalIndexes.size());
+                    intervalIndexes.add(new DataSetIntervalIndex(result, newInterval));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Merge an aggregate value with the one calculated over the new rows.
+     * @return null if the aggregate value can't be merged (it must be calculated again).
+     */
+    protected Object appendAggValue(AggregateFunctionType type, Object value, Object newValue) {
+        switch (type) {
+            case COUNT:
+                return ((Number) value).doubleValue() + ((Number) newValue).doubleValue();
+            case SUM:
+            case MIN:
+            case MAX:
+                return aggregateFunctionManager.getFunctionByType(type).aggregate(Arrays.asList(value, newValue));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Calculate an aggregate function over the given rows of a column.
+     * @param rows The target rows or null to go through all the column values.
+     */
+    protected Object aggregate(AggregateFunction function, DataColumn column, List<Integer> rows) {
+        return function.aggregate(column.getValues(), rows);
+    }
+
+    /**
+     * Calculate several aggregate functions over the given rows of a column. The built-in functions are
+     * calculated together in a single scan of the rows.
+     * @param rows The target rows or null to go through all the column values.
+     * @return The result of every function
+     */
+    protected List<Object> aggregate(List<AggregateFunction> functions, DataColumn column, List<Integer> rows) {
+        List<AggregateFunction> supported = new ArrayList<AggregateFunction>();
+        for (AggregateFunction function : functions) {
+            if (AggregateAccumulator.isSupported(function)) {
+                supported.add(function);
+            }
+        }
+        AggregateAccumulator accumulator = supported.size() > 1 ? accumulate(supported, column, rows) : null;
+        List<Object> result = new ArrayList<Object>(functions.size());
+        for (AggregateFunction function : functions) {
+            if (accumulator != null && AggregateAccumulator.isSupported(function)) {
+                result.add(accumulator.getValue(function));
+            } else {
+                result.add(aggregate(function, column, rows));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gather the statistics required by the given built-in functions over the rows of a column.
+     * @param rows The target rows or null to go through all the column values.
+     */
+    protected AggregateAccumulator accumulate(List<AggregateFunction> functions, DataColumn column, List<Integer> rows) {
+        AggregateAccumulator accumulator = new AggregateAccumulator(column.getValues(), functions);
+        accumulator.accumulate(RowList.of(rows));
+        return accumulator;
+    }
+
     private class DataSetOpListProcessor implements Runnable {
 
         List<DataSetOp> operationList;
         InternalContext context;
+        boolean trim = false;
+        int rowOffset = 0;
+        int numberOfRows = -1;
+
+        // Set when the sort is only done over the rows requested
+        int sortLimit = -1;
+        int sortTotal = -1;
 
         public void setDataSetIndex(DataSetIndex index) {
             context = new InternalContext(index);
@@ -115,6 +361,12 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
             operationList = new ArrayList<DataSetOp>(opList);
         }
 
+        public void setTrim(int rowOffset, int numberOfRows) {
+            this.trim = true;
+            this.rowOffset = rowOffset;
+            this.numberOfRows = numberOfRows;
+        }
+
         /**
          * Ensure the sequence of operations to apply match the following pattern:
          * <ul>
@@ -196,6 +448,11 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
 
             // Build the resulting data set
             buildDataSet(context);
+
+            // Trim the results (if not already done by the sort)
+            if (trim && sortLimit < 0) {
+                context.dataSet = context.dataSet.trim(rowOffset, numberOfRows);
+            }
         }
 
         // GROUP OPERATION
@@ -257,15 +514,42 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
             if (groupIndex != null) {
                 return groupIndex;
             }
-            // No index match => Build required
-            chronometer.start();
-            IntervalList intervalList = intervalBuilder.build(new InternalHandler(context), columnGroup);
-            chronometer.stop();
+            String lockKey = "group " + context.index.getGroupKey(columnGroup);
+            Object lock = context.index.acquireBuildLock(lockKey);
+            try {
+                synchronized (lock) {
+                    // Look again as the index might have been built by a concurrent request
+                    groupIndex = context.index.getGroupIndex(columnGroup);
+                    if (groupIndex != null) {
+                        return groupIndex;
+                    }
+                    // No index match => Build required
+                    long startTime = chronometer.start();
+                    IntervalList intervalList = buildIntervals(intervalBuilder, columnGroup, context);
+                    long buildTime = chronometer.stop() - startTime;
+
+                    // Index before return.
+                    DataSetGroupIndex index = new DataSetGroupIndex(columnGroup, intervalList);
+                    index.setBuildTime(buildTime);
+                    return context.index.indexGroup(index);
+                }
+            } finally {
+                context.index.releaseBuildLock(lockKey);
+            }
+        }
 
-            // Index before return.
-            DataSetGroupIndex index = new DataSetGroupIndex(columnGroup, intervalList);
-            index.setBuildTime(chronometer.elapsedTime());
-            return context.index.indexGroup(index);
+        /**
+         * Build the intervals from the rows already sorted by the grouped column, if any and the builder supports it.
+         */
+        protected IntervalList buildIntervals(IntervalBuilder intervalBuilder, ColumnGroup columnGroup, InternalContext context) {
+            List<Integer> rows = context.getRows();
+            if (intervalBuilder instanceof SortedIntervalBuilder && (rows == null || RowList.of(rows).isSorted())) {
+                DataSetSortIndex sortIndex = context.index.getColumnSortIndex(columnGroup.getSourceId());
+                if (sortIndex != null) {
+                    return ((SortedIntervalBuilder) intervalBuilder).build(new InternalHandler(context), columnGroup, sortIndex.getRows());
+                }
+            }
+            return intervalBuilder.build(new InternalHandler(context), columnGroup);
         }
 
         protected DataSetGroupIndex nestedGroup(DataSetGroup op, DataSetGroupIndex lastGroupIndex, InternalContext context) {
@@ -274,8 +558,23 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
             DataSetGroupIndex nestedGroupIndex = lastGroupIndex.getGroupIndex(op.getColumnGroup());
             if (nestedGroupIndex != null) return nestedGroupIndex;
 
+            String lockKey = "group " + lastGroupIndex.getGroupKey(op.getColumnGroup());
+            Object lock = lastGroupIndex.acquireBuildLock(lockKey);
+            try {
+                synchronized (lock) {
+                    nestedGroupIndex = lastGroupIndex.getGroupIndex(op.getColumnGroup());
+                    if (nestedGroupIndex != null) return nestedGroupIndex;
+                    return _nestedGroup(op, lastGroupIndex, context);
+                }
+            } finally {
+                lastGroupIndex.releaseBuildLock(lockKey);
+            }
+        }
+
+        private DataSetGroupIndex _nestedGroup(DataSetGroup op, DataSetGroupIndex lastGroupIndex, InternalContext context) {
+
             // No index match => Create a brand new group index
-            nestedGroupIndex = new DataSetGroupIndex(op.getColumnGroup());
+            DataSetGroupIndex nestedGroupIndex = new DataSetGroupIndex(op.getColumnGroup());
 
             // Apply the nested group operation on each parent group interval.
             InternalContext nestedContext = new InternalContext(context.dataSet, null);
@@ -298,7 +597,7 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                     nestedGroupIndex.indexIntervals(sg.getIntervalIndexes());
                 }
             }
-            context.index.indexGroup(nestedGroupIndex);
+            lastGroupIndex.indexGroup(nestedGroupIndex);
             return nestedGroupIndex;
         }
 
@@ -355,20 +654,54 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                 }
                 // Index match => Reuse it
                 DataSetFilterIndex index = context.index.getFilterIndex(filter);
-                if (index != null) {
-                    context.index(op, index);
-                    continue;
+                if (index == null) {
+                    index = filterIndex(filter, context);
                 }
-                // No index match => Filter required
-                chronometer.start();
-                List<Integer> rows = filterAlgorithm.filter(new InternalHandler(context), filter);
-                chronometer.stop();
+                context.index(op, index);
+            }
+        }
 
-                // Index before continue.
-                context.index(op, context.index.indexFilter(filter, rows, chronometer.elapsedTime()));
+        protected DataSetFilterIndex filterIndex(ColumnFilter filter, InternalContext context) {
+            String lockKey = "filter " + context.index.getFilterKey(filter);
+            Object lock = context.index.acquireBuildLock(lockKey);
+            try {
+                synchronized (lock) {
+                    // Look again as the index might have been built by a concurrent request
+                    DataSetFilterIndex index = context.index.getFilterIndex(filter);
+                    if (index != null) {
+                        return index;
+                    }
+                    // No index match => Filter required
+                    long startTime = chronometer.start();
+                    List<Integer> rows = filterRows(filter, context);
+                    long buildTime = chronometer.stop() - startTime;
+
+                    // Index before return.
+                    return context.index.indexFilter(filter, rows, buildTime);
+                }
+            } finally {
+                context.index.releaseBuildLock(lockKey);
             }
         }
 
+        protected List<Integer> filterRows(ColumnFilter filter, InternalContext context) {
+            // If the filter has already been applied to the whole data set then just intersect both row sets
+            DataSetIndexNode root = context.index.getRoot();
+            List<Integer> rows = context.getRows();
+            if (root != context.index && root.getRows() == null && rows != null) {
+                DataSetFilterIndex rootIndex = root.getFilterIndex(filter);
+                if (rootIndex != null) {
+                    return RowList.and(rows, rootIndex.getRows());
+                }
+            }
+            // A broader filter already applied (e.g: "amount > 100" for "amount > 500") narrows the rows to scan
+            DataSetFilterIndex coveringIndex = context.index.getCoveringFilterIndex(filter);
+            if (coveringIndex != null) {
+                return filterAlgorithm.filter(new RowSetHandler(context.dataSet, coveringIndex.getRows()), filter);
+            }
+            return filterAlgorithm.filter(new InternalHandler(context), filter);
+        }
+
         // SORT OPERATION
 
         protected void checkSortOp(DataSet dataSet, DataSetSort op) {
@@ -383,26 +716,133 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
         protected void sort(DataSetSort op, InternalContext context) {
             checkSortOp(context.dataSet, op);
 
+            List<Integer> rows = context.getRows();
+            int totalRows = rows == null ? context.dataSet.getRowCount() : rows.size();
+            int limit = getSortLimit(totalRows);
+            if (limit >= 0) {
+                sortLimit = limit;
+                sortTotal = totalRows;
+            }
             // No index => Sort required
             if (context.index == null) {
-                List<Integer> orderedRows = sortAlgorithm.sort(context.getDataSet(), context.getRows(), op.getColumnSortList());
-                context.index(op, new DataSetSortIndex(op, orderedRows));
+                List<Integer> orderedRows = limit < 0 ? sortAlgorithm.sort(context.getDataSet(), rows, op.getColumnSortList())
+                        : sortAlgorithm.sort(context.getDataSet(), rows, op.getColumnSortList(), limit);
+                context.index(op, new DataSetSortIndex(op, orderedRows, totalRows));
                 return;
 
             }
             // Index match => Reuse it
-            DataSetSortIndex sortIndex = context.index.getSortIndex(op);
+            DataSetSortIndex sortIndex = context.index.getSortIndex(op, limit);
             if (sortIndex != null) {
                 context.index(op, sortIndex);
                 return;
             }
-            // No index match => Sort required
-            chronometer.start();
-            List<Integer> orderedRows = sortAlgorithm.sort(context.getDataSet(), context.getRows(), op.getColumnSortList());
-            chronometer.stop();
+            String lockKey = "sort " + context.index.getSortKey(op);
+            Object lock = context.index.acquireBuildLock(lockKey);
+            try {
+                synchronized (lock) {
+                    // Look again as the index might have been built by a concurrent request
+                    sortIndex = context.index.getSortIndex(op, limit);
+                    if (sortIndex == null) {
+                        // No index match => Sort required
+                        long startTime = chronometer.start();
+                        List<Integer> orderedRows = limit < 0 ? sortAll(op, context) : sortByPrefix(op, context, limit);
+                        long buildTime = chronometer.stop() - startTime;
+
+                        // Index before return.
+                        sortIndex = context.index.indexSort(op, orderedRows, totalRows, buildTime);
+                    }
+                }
+            } finally {
+                context.index.releaseBuildLock(lockKey);
+            }
+            context.index(op, sortIndex);
+        }
+
+        /**
+         * Get the number of sorted rows required to get the rows requested or -1 if all the rows must be sorted.
+         */
+        protected int getSortLimit(int totalRows) {
+            if (!trim || numberOfRows <= 0 || (long) rowOffset + numberOfRows >= totalRows) {
+                return -1;
+            }
+            return rowOffset + numberOfRows;
+        }
+
+        /**
+         * Sort all the rows. If the first rows are already sorted (top-N index) then only the rest are sorted.
+         */
+        protected List<Integer> sortAll(DataSetSort op, InternalContext context) {
+            DataSet dataSet = context.getDataSet();
+            RowList rows = RowList.of(context.getRows());
+            DataSetSortIndex prefixIndex = context.index.getSortIndex(op, 0);
+            if (prefixIndex == null) {
+                return sortByPrefix(op, context, -1);
+            }
+            RowList prefix = RowList.of(prefixIndex.getRows());
+            boolean[] sorted = new boolean[dataSet.getRowCount()];
+            for (int i = 0; i < prefix.size(); i++) {
+                sorted[prefix.getRow(i)] = true;
+            }
+            // The rest of the rows in its original order, so that the sort results are the same
+            int total = rows == null ? dataSet.getRowCount() : rows.size();
+            RowList rest = new RowList(total - prefix.size());
+            for (int i = 0; i < total; i++) {
+                int row = rows == null ? i : rows.getRow(i);
+                if (!sorted[row]) {
+                    rest.addRow(row);
+                }
+            }
+            RowList result = new RowList(total);
+            result.addAll(prefix);
+            result.addAll(RowList.of(sortAlgorithm.sort(dataSet, rest, op.getColumnSortList())));
+            return result;
+        }
 
-            // Index before return.
-            context.index(op, context.index.indexSort(op, orderedRows, chronometer.elapsedTime()));
+        /**
+         * Sort the rows (or just the first <i>limit</i> ones) from an existing sort by the leading sort columns,
+         * if any, e.g: a sort by (region, amount) from a sort by (region). Only the rows with the same values in
+         * those columns are sorted by the rest.
+         */
+        protected List<Integer> sortByPrefix(DataSetSort op, InternalContext context, int limit) {
+            DataSet dataSet = context.getDataSet();
+            List<Integer> rows = context.getRows();
+            List<ColumnSort> columnSortList = op.getColumnSortList();
+
+            // The rows with the same values keep their original order, which is only known if ascending
+            DataSetSortIndex prefixIndex = rows == null || RowList.of(rows).isSorted() ? context.index.getSortPrefixIndex(op) : null;
+            if (prefixIndex == null) {
+                return limit < 0 ? sortAlgorithm.sort(dataSet, rows, columnSortList)
+                        : sortAlgorithm.sort(dataSet, rows, columnSortList, limit);
+            }
+            int prefixSize = prefixIndex.getSortOp().getColumnSortList().size();
+            DataSetRowComparator prefixComparator = createComparator(dataSet, columnSortList.subList(0, prefixSize));
+            final DataSetRowComparator restComparator = createComparator(dataSet, columnSortList.subList(prefixSize, columnSortList.size()));
+            Comparator<Integer> tieComparator = new Comparator<Integer>() {
+                public int compare(Integer row1, Integer row2) {
+                    int comp = restComparator.compare(row1, row2);
+                    return comp != 0 ? comp : row1.compareTo(row2);
+                }
+            };
+            RowList result = new RowList(prefixIndex.getRows());
+            int end = limit < 0 ? result.size() : limit;
+            for (int i = 0; i < end; ) {
+                int j = i + 1;
+                while (j < result.size() && prefixComparator.compare(result.getRow(i), result.getRow(j)) == 0) j++;
+                if (j - i > 1) {
+                    Collections.sort(result.subList(i, j), tieComparator);
+                }
+                i = j;
+            }
+            return limit < 0 ? result : new RowList(result.subList(0, limit));
+        }
+
+        protected DataSetRowComparator createComparator(DataSet dataSet, List<ColumnSort> columnSortList) {
+            DataSetRowComparator comparator = new DataSetRowComparator();
+            for (ColumnSort columnSort : columnSortList) {
+                comparator.criteria(dataSet.getColumnById(columnSort.getColumnId()), columnSort.getOrder());
+            }
+            return comparator;
         }
 
         // DATASET BUILD
@@ -447,7 +887,13 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                 return dataSet.trim(index.getRows());
             }
             if (lastOp instanceof DataSetSort) {
-                return _filterDataSet(dataSet, index.getRows());
+                if (sortLimit < 0) {
+                    return _filterDataSet(dataSet, index.getRows());
+                }
+                // Only the rows requested
+                DataSet result = _filterDataSet(dataSet, index.getRows().subList(rowOffset, sortLimit));
+                result.setRowCountNonTrimmed(sortTotal);
+                return result;
             }
             return dataSet;
         }
@@ -506,6 +952,23 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                     }
                 }
             }
+            // The source column of every aggregate function
+            List<DataColumn> aggColumns = new ArrayList<DataColumn>();
+            List<AggregateFunctionType> aggTypes = new ArrayList<AggregateFunctionType>();
+            for (GroupFunction groupFunction : groupFunctions) {
+                String sourceId = groupFunction.getSourceId();
+                AggregateFunctionType columnFunction = groupFunction.getFunction();
+                boolean isGroupColumn = sourceId != null && sourceId.equals(columnGroup.getSourceId()) && columnFunction == null;
+                if (isGroupColumn || columnFunction == null) {
+                    aggColumns.add(null);
+                    aggTypes.add(null);
+                } else {
+                    DataColumn dataColumn = dataSet.getColumnByIndex(0);
+                    if (sourceId != null) dataColumn = dataSet.getColumnById(sourceId);
+                    aggColumns.add(dataColumn);
+                    aggTypes.add(columnFunction);
+                }
+            }
             // Add the aggregate calculations to the result.
             List<DataSetIntervalIndex> intervalIdxs = index.getIntervalIndexes();
             int row = 0;
@@ -518,6 +981,7 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                 }
 
                 // Add the aggregate calculations.
+                Object[] aggValues = _calculateFunctions(aggColumns, aggTypes, intervalIdx);
                 for (int j=0; j< groupFunctions.size(); j++) {
                     GroupFunction groupFunction = groupFunctions.get(j);
                     String sourceId = groupFunction.getSourceId();
@@ -531,8 +995,7 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
 
                         // Columns based on aggregation functions
                         if (columnFunction != null) {
-                            Object aggValue = _calculateFunction(dataColumn, groupFunction.getFunction(), intervalIdx);
-                            result.setValueAt(row, j, aggValue);
+                            result.setValueAt(row, j, aggValues[j]);
                         }
                         // Pick up the first column value for the interval
                         else {
@@ -558,6 +1021,8 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
             DataSet result = DataSetFactory.newEmptyDataSet();
 
             if (hasAggregations) {
+                List<DataColumn> aggColumns = new ArrayList<DataColumn>();
+                List<AggregateFunctionType> aggTypes = new ArrayList<AggregateFunctionType>();
                 for (int i=0; i< groupFunctions.size(); i++) {
                     GroupFunction gf = groupFunctions.get(i);
                     String sourceId = gf.getSourceId();
@@ -572,9 +1037,12 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
 
                     DataColumn dataColumn = dataSet.getColumnById(sourceId);
                     if (dataColumn == null) dataColumn = dataSet.getColumnByIndex(0);
-
-                    Object aggValue = _calculateFunction(dataColumn, gf.getFunction(), index);
-                    result.setValueAt(0, i, aggValue);
+                    aggColumns.add(dataColumn);
+                    aggTypes.add(gf.getFunction());
+                }
+                Object[] aggValues = _calculateFunctions(aggColumns, aggTypes, index);
+                for (int i=0; i< aggValues.length; i++) {
+                    result.setValueAt(0, i, aggValues[i]);
                 }
             } else {
                 DataSet _temp = dataSet.trim(index.getRows());
@@ -593,6 +1061,67 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
             return result;
         }
 
+        /**
+         * Calculate the aggregate functions over the rows of an index node. The functions not found in the index
+         * are calculated together, in a single scan of the rows of every column, and then indexed one by one.
+         * @param columns The source column of every function
+         * @param types The aggregate functions (null for the positions with no function)
+         */
+        private Object[] _calculateFunctions(List<DataColumn> columns, List<AggregateFunctionType> types, DataSetIndexNode index) {
+            Object[] result = new Object[types.size()];
+
+            // Look into the index first
+            Map<String, List<Integer>> pending = new LinkedHashMap<String, List<Integer>>();
+            for (int i=0; i<types.size(); i++) {
+                AggregateFunctionType type = types.get(i);
+                if (type == null) {
+                    continue;
+                }
+                String columnId = columns.get(i).getId();
+                Object sv = index.getAggValue(columnId, type);
+                if (sv != null) {
+                    result[i] = sv;
+                } else {
+                    List<Integer> positions = pending.get(columnId);
+                    if (positions == null) {
+                        pending.put(columnId, positions = new ArrayList<Integer>());
+                    }
+                    positions.add(i);
+                }
+            }
+            for (List<Integer> positions : pending.values()) {
+                DataColumn column = columns.get(positions.get(0));
+                Map<AggregateFunctionType, Object> aggValues = new EnumMap<AggregateFunctionType, Object>(AggregateFunctionType.class);
+                for (Integer i : positions) {
+                    aggValues.put(types.get(i), null);
+                }
+                if (aggValues.size() == 1) {
+                    AggregateFunctionType type = aggValues.keySet().iterator().next();
+                    aggValues.put(type, _calculateFunction(column, type, index));
+                } else {
+                    // Do the aggregate calculations in a single pass
+                    List<AggregateFunction> functions = new ArrayList<AggregateFunction>();
+                    for (AggregateFunctionType type : aggValues.keySet()) {
+                        functions.add(aggregateFunctionManager.getFunctionByType(type));
+                    }
+                    long startTime = chronometer.start();
+                    List<Object> values = aggregate(functions, column, index.getRows());
+                    long buildTime = (chronometer.stop() - startTime) / functions.size();
+
+                    // Index every result on its own
+                    for (int j=0; j<functions.size(); j++) {
+                        AggregateFunctionType type = functions.get(j).getType();
+                        aggValues.put(type, values.get(j));
+                        index.indexAggValue(column.getId(), type, values.get(j), buildTime);
+                    }
+                }
+                for (Integer i : positions) {
+                    result[i] = aggValues.get(types.get(i));
+                }
+            }
+            return result;
+        }
+
         private Object _calculateFunction(DataColumn column, AggregateFunctionType type, DataSetIndexNode index) {
             // Preconditions
             if (type == null) {
@@ -606,14 +1135,14 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
                 }
             }
             // Do the aggregate calculations.
-            chronometer.start();
+            long startTime = chronometer.start();
             AggregateFunction function = aggregateFunctionManager.getFunctionByType(type);
-            Object aggValue = function.aggregate(column.getValues(), index.getRows());
-            chronometer.stop();
+            Object aggValue = aggregate(function, column, index.getRows());
+            long buildTime = chronometer.stop() - startTime;
 
             // Index the result
             if (index != null) {
-                index.indexAggValue(column.getId(), type, aggValue, chronometer.elapsedTime());
+                index.indexAggValue(column.getId(), type, aggValue, buildTime);
             }
             return aggValue;
         }
@@ -690,4 +1219,38 @@ public class SharedDataSetOpEngine implements DataSetOpEngine {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A data set handler over a fixed set of rows, for filtering only.
+     */
+    private static class RowSetHandler implements DataSetHandler {
+
+        DataSet dataSet;
+        List<Integer> rows;
+
+        RowSetHandler(DataSet dataSet, List<Integer> rows) {
+            this.dataSet = dataSet;
+            this.rows = rows;
+        }
+
+        public DataSet getDataSet() {
+            return dataSet;
+        }
+
+        public List<Integer> getRows() {
+            return rows;
+        }
+
+        public DataSetHandler group(DataSetGroup op) {
+            throw new IllegalStateException("Group not supported");
+        }
+
+        public DataSetHandler filter(DataSetFilter op) {
+            throw new IllegalStateException("Filter not supported");
+        }
+
+        public DataSetHandler sort(DataSetSort op) {
+            throw new IllegalStateException("Sort not supported");
+        }
+    }
+}
@@ -15,22 +15,121 @@
  */
 package org.dashbuilder.dataset.engine.filter;
 
+import java.util.Arrays;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
+import org.dashbuilder.dataset.DataColumn;
 import org.dashbuilder.dataset.filter.CoreFunctionFilter;
 import org.dashbuilder.dataset.filter.CoreFunctionType;
 import org.dashbuilder.dataset.date.TimeFrame;
+import org.dashbuilder.dataset.impl.ColumnarList;
+import org.dashbuilder.dataset.impl.DateColumnarList;
+import org.dashbuilder.dataset.impl.DoubleColumnarList;
+import org.dashbuilder.dataset.impl.LabelColumnarList;
 
+/**
+ * A core filter function. The filter parameters are pre-processed once when the function is created
+ * (parameter sets, LIKE patterns, time frame limits, ...) so that every row is evaluated with no extra
+ * parsing or allocation.
+ * <p>The function does not keep any state between rows, so it can be evaluated by several threads at once
+ * through the {@link #pass(int)} method.</p>
+ */
 public class CoreFunction extends DataSetFunction {
 
     private CoreFunctionFilter coreFunctionFilter = null;
+    private CoreFunctionType type = null;
+    private List values = null;
+
+    // The pre-processed parameters
+    private Comparable param0 = null;
+    private Comparable param1 = null;
+    private boolean emptyParams = true;
+    private boolean nullParam = false;
+    private double[] numberParams = new double[0];
+    private Set<String> textParams = new HashSet<String>();
+    private Set<String> allParams = new HashSet<String>();
+    private LikePattern likePattern = null;
+    private TimeFrameLimits timeFrameLimits = null;
+    private boolean doubleComparison = false;
+    private boolean dateComparison = false;
 
     public CoreFunction(DataSetFilterContext ctx, CoreFunctionFilter coreFunctionFilter) {
         super(ctx, coreFunctionFilter);
         this.coreFunctionFilter = coreFunctionFilter;
+        this.type = coreFunctionFilter.getType();
+        compile();
+        DataColumn column = getDataColumn();
+        if (column != null) {
+            values = column.getValues();
+            if (values instanceof LabelColumnarList) {
+                _labelPassCache = new byte[((LabelColumnarList) values).getCardinality() + 1];
+            }
+        }
+    }
+
+    protected void compile() {
+        List<Comparable> params = getParameters();
+        emptyParams = params == null || params.isEmpty();
+        param0 = getParameter(0);
+        param1 = getParameter(1);
+
+        if (CoreFunctionType.TIME_FRAME.equals(type) && param0 != null) {
+            // Both limits are calculated just once, so all the rows are compared against the same instant
+            timeFrameLimits = new TimeFrameLimits(TimeFrame.parse(param0.toString()));
+        }
+        if (!emptyParams) {
+            double[] numbers = new double[params.size()];
+            int n = 0;
+            for (Comparable param : params) {
+                if (param == null) {
+                    nullParam = true;
+                    continue;
+                }
+                String str = param.toString();
+                allParams.add(str);
+                if (param instanceof Number) {
+                    double d = ((Number) param).doubleValue();
+                    if (!Double.isNaN(d)) {
+                        // Get rid of the -0.0 so that it matches 0.0 as the == operator does
+                        numbers[n++] = d + 0.0;
+                    }
+                } else {
+                    textParams.add(str);
+                }
+            }
+            numberParams = Arrays.copyOf(numbers, n);
+            Arrays.sort(numberParams);
+        }
+        if (CoreFunctionType.LIKE_TO.equals(type) && param0 != null) {
+            boolean caseSensitive = param1 == null || Boolean.parseBoolean(param1.toString());
+            likePattern = createLikePattern(param0.toString(), caseSensitive);
+        }
+
+        boolean rangeComparison = CoreFunctionType.GREATER_THAN.equals(type) ||
+                CoreFunctionType.GREATER_OR_EQUALS_TO.equals(type) ||
+                CoreFunctionType.LOWER_THAN.equals(type) ||
+                CoreFunctionType.LOWER_OR_EQUALS_TO.equals(type) ||
+                CoreFunctionType.BETWEEN.equals(type);
+
+        doubleComparison = rangeComparison
+                && (param0 == null || param0 instanceof Double)
+                && (param1 == null || param1 instanceof Double);
+
+        dateComparison = (rangeComparison
+                && (param0 == null || param0 instanceof Date)
+                && (param1 == null || param1 instanceof Date))
+                || (CoreFunctionType.TIME_FRAME.equals(type) && param0 != null);
+    }
+
+    /**
+     * Create the LIKE pattern matcher. Server side implementations can override it to precompile the regular
+     * expression patterns, as no <code>java.util.regex</code> support is available on the client.
+     */
+    protected LikePattern createLikePattern(String pattern, boolean caseSensitive) {
+        return new LikePattern(pattern, caseSensitive);
     }
 
     public Comparable getCurrentValue() {
@@ -49,48 +148,163 @@ public class CoreFunction extends DataSetFunction {
     }
 
     public boolean pass() {
-        CoreFunctionType type = coreFunctionFilter.getType();
+        return pass(getContext().getCurrentRow());
+    }
 
-        if (CoreFunctionType.IS_NULL.equals(type)) {
-            return isNull(getCurrentValue());
+    @Override
+    public boolean pass(int row) {
+        List values = this.values != null ? this.values : getDataColumn().getValues();
+        if (values instanceof LabelColumnarList) {
+            return passLabel((LabelColumnarList) values, row);
         }
-        if (CoreFunctionType.NOT_NULL.equals(type)) {
-            return isNotNull(getCurrentValue());
+        if (values instanceof ColumnarList && (CoreFunctionType.IS_NULL.equals(type) || CoreFunctionType.NOT_NULL.equals(type))) {
+            return ((ColumnarList) values).isNull(row) == CoreFunctionType.IS_NULL.equals(type);
         }
-        if (CoreFunctionType.EQUALS_TO.equals(type)) {
-            return isEqualsTo(getCurrentValue());
+        if (values instanceof DoubleColumnarList && isDoubleComparison()) {
+            return passDouble((DoubleColumnarList) values, row);
         }
-        if (CoreFunctionType.NOT_EQUALS_TO.equals(type)) {
-            return isNotEqualsTo(getCurrentValue());
+        if (values instanceof DoubleColumnarList && textParams.isEmpty()
+                && (CoreFunctionType.EQUALS_TO.equals(type) || CoreFunctionType.IN.equals(type))) {
+            DoubleColumnarList doubles = (DoubleColumnarList) values;
+            return doubles.isNull(row) ? isEqualsTo(null) : isEqualsTo(doubles.getDouble(row));
         }
-        if (CoreFunctionType.LIKE_TO.equals(type)) {
-            return isLikeTo(getCurrentValue());
+        if (values instanceof DateColumnarList && isDateComparison()) {
+            return passDate((DateColumnarList) values, row);
         }
-        if (CoreFunctionType.LOWER_THAN.equals(type)) {
-            return isLowerThan(getCurrentValue());
+        return pass((Comparable) values.get(row));
+    }
+
+    public boolean pass(Comparable value) {
+        if (type == null) {
+            throw new IllegalArgumentException("Core function type not supported: " + type);
         }
-        if (CoreFunctionType.LOWER_OR_EQUALS_TO.equals(type)) {
-            return isLowerThanOrEqualsTo(getCurrentValue());
+        switch (type) {
+            case IS_NULL:
+                return isNull(value);
+            case NOT_NULL:
+                return isNotNull(value);
+            case EQUALS_TO:
+            case IN:
+                return isEqualsTo(value);
+            case NOT_EQUALS_TO:
+            case NOT_IN:
+                return isNotEqualsTo(value);
+            case LIKE_TO:
+                return isLikeTo(value);
+            case LOWER_THAN:
+                return isLowerThan(value);
+            case LOWER_OR_EQUALS_TO:
+                return isLowerThanOrEqualsTo(value);
+            case GREATER_THAN:
+                return isGreaterThan(value);
+            case GREATER_OR_EQUALS_TO:
+                return isGreaterThanOrEqualsTo(value);
+            case BETWEEN:
+                return isBetween(value);
+            case TIME_FRAME:
+                return timeFrame(value);
+            default:
+                throw new IllegalArgumentException("Core function type not supported: " + type);
         }
-        if (CoreFunctionType.GREATER_THAN.equals(type)) {
-            return isGreaterThan(getCurrentValue());
+    }
+
+    // Filter results per dictionary code: 0 = not evaluated, 1 = pass, 2 = not pass
+    private byte[] _labelPassCache = new byte[0];
+
+    /**
+     * The result for a label only depends on its value so it's evaluated once per dictionary code.
+     * <p>Threads evaluating the same code at once just store the same result.</p>
+     */
+    protected boolean passLabel(LabelColumnarList labels, int row) {
+        int code = labels.getCode(row) + 1;
+        if (code >= _labelPassCache.length) {
+            byte[] cache = new byte[labels.getCardinality() + 1];
+            System.arraycopy(_labelPassCache, 0, cache, 0, _labelPassCache.length);
+            _labelPassCache = cache;
         }
-        if (CoreFunctionType.GREATER_OR_EQUALS_TO.equals(type)) {
-            return isGreaterThanOrEqualsTo(getCurrentValue());
+        byte result = _labelPassCache[code];
+        if (result == 0) {
+            _labelPassCache[code] = result = pass(labels.getLabel(code - 1)) ? (byte) 1 : (byte) 2;
         }
-        if (CoreFunctionType.BETWEEN.equals(type)) {
-            return isBetween(getCurrentValue());
+        return result == 1;
+    }
+
+    /**
+     * Check if the filter is a range comparison whose parameters can be compared against primitive doubles.
+     */
+    protected boolean isDoubleComparison() {
+        return doubleComparison;
+    }
+
+    /**
+     * Check if the filter is a range or time frame comparison whose parameters can be compared against epoch millis.
+     */
+    protected boolean isDateComparison() {
+        return dateComparison;
+    }
+
+    /**
+     * Same semantics as the boxed comparison functions but reading the primitive value.
+     */
+    protected boolean passDouble(DoubleColumnarList doubles, int row) {
+        boolean isNull = doubles.isNull(row);
+        double value = doubles.getDouble(row);
+        Double p0 = (Double) param0;
+
+        switch (type) {
+            case GREATER_THAN:
+                return !isNull && (p0 == null || Double.compare(value, p0) > 0);
+            case GREATER_OR_EQUALS_TO:
+                return p0 == null || (!isNull && Double.compare(value, p0) >= 0);
+            case LOWER_THAN:
+                return p0 != null && (isNull || Double.compare(value, p0) < 0);
+            case LOWER_OR_EQUALS_TO:
+                return isNull || (p0 != null && Double.compare(value, p0) <= 0);
+            default:
+                // BETWEEN
+                Double p1 = (Double) param1;
+                if (isNull) {
+                    return p0 == null;
+                }
+                if (p0 != null && Double.compare(value, p0) < 0) {
+                    return false;
+                }
+                return p1 == null || Double.compare(value, p1) <= 0;
         }
+    }
+
+    /**
+     * Same semantics as the boxed comparison functions but reading the epoch millis.
+     */
+    protected boolean passDate(DateColumnarList dates, int row) {
+        boolean isNull = dates.isNull(row);
+        long value = dates.getTime(row);
+
         if (CoreFunctionType.TIME_FRAME.equals(type)) {
-            return timeFrame(getCurrentValue());
-        }
-        if (CoreFunctionType.IN.equals(type)) {
-            return isEqualsTo(getCurrentValue());
+            TimeFrameLimits limits = getTimeFrameLimits();
+            return !isNull && value >= limits.from.getTime() && value <= limits.to.getTime();
         }
-        if (CoreFunctionType.NOT_IN.equals(type)) {
-            return isNotEqualsTo(getCurrentValue());
+        Date p0 = (Date) param0;
+        switch (type) {
+            case GREATER_THAN:
+                return !isNull && (p0 == null || value > p0.getTime());
+            case GREATER_OR_EQUALS_TO:
+                return p0 == null || (!isNull && value >= p0.getTime());
+            case LOWER_THAN:
+                return p0 != null && (isNull || value < p0.getTime());
+            case LOWER_OR_EQUALS_TO:
+                return isNull || (p0 != null && value <= p0.getTime());
+            default:
+                // BETWEEN
+                Date p1 = (Date) param1;
+                if (isNull) {
+                    return p0 == null;
+                }
+                if (p0 != null && value < p0.getTime()) {
+                    return false;
+                }
+                return p1 == null || value <= p1.getTime();
         }
-        throw new IllegalArgumentException("Core function type not supported: " + type);
     }
 
     public boolean isNull(Comparable value) {
@@ -114,23 +328,43 @@ public class CoreFunction extends DataSetFunction {
         return false;
     }
 
+    /**
+     * Check if the value matches any of the parameters (same semantics as the <i>compare</i> method)
+     * by looking it up in the pre-processed parameter sets.
+     */
     public boolean isEqualsTo(Comparable value) {
         // No parameters to compare => return true
-        if (getParameters().isEmpty()) {
+        if (emptyParams) {
             return true;
         }
-        // At least one parameter match is required
-        for (Comparable param : getParameters()) {
-            if (compare(param, value)) {
+        if (value == null) {
+            return nullParam;
+        }
+        if (value instanceof Number) {
+            if (isEqualsTo(((Number) value).doubleValue())) {
                 return true;
             }
+            return !textParams.isEmpty() && textParams.contains(value.toString());
         }
-        return false;
+        return allParams.contains(value.toString());
+    }
+
+    protected boolean isEqualsTo(double value) {
+        if (emptyParams) {
+            return true;
+        }
+        if (numberParams.length == 0 || Double.isNaN(value)) {
+            return false;
+        }
+        if (numberParams.length == 1) {
+            return numberParams[0] == value;
+        }
+        return Arrays.binarySearch(numberParams, value + 0.0) >= 0;
     }
 
     public boolean isNotEqualsTo(Comparable value) {
         // No parameters to compare => return true
-        if (getParameters().isEmpty()) {
+        if (emptyParams) {
             return true;
         }
         return !isEqualsTo(value);
@@ -155,25 +389,10 @@ public class CoreFunction extends DataSetFunction {
      * @return If the string on current data set's column is like (as the SQL operator) the given user's pattern.
      */
     public boolean isLikeTo(Comparable value) {
-        if (value == null) {
-            return false;
-        }
-        final Comparable param0 = getParameter(0);
-        if (param0 == null) {
+        if (value == null || likePattern == null) {
             return false;
         }
-        // Case sensitive parameter
-        final Boolean caseSensitive = getParameter(1) != null ? Boolean.parseBoolean(getParameter(1).toString()) : true;
-        String pattern = caseSensitive ? param0.toString() : param0.toString().toLowerCase();
-        String strValue = caseSensitive ? value.toString() : value.toString().toLowerCase();
-
-        // Replace the user's wilcards that come from the UI request for valid regular expression patterns.
-        pattern = pattern.replace(".", "\\."); // "\\" is escaped to "\"
-        pattern = pattern.replace("%", ".*");
-        pattern = pattern.replace("_", ".");
-
-        // Perform the regexp match operation.
-        return strValue.matches(pattern);
+        return likePattern.matches(value.toString());
     }
     
     public boolean isLowerThan(Comparable value) {
@@ -188,58 +407,51 @@ public class CoreFunction extends DataSetFunction {
         if (value == null) {
             return false;
         }
-        Comparable ref = getParameter(0);
-        return ref == null || value.compareTo(ref) == 1;
+        return param0 == null || value.compareTo(param0) > 0;
     }
 
     public boolean isGreaterThanOrEqualsTo(Comparable value) {
-        Comparable ref = getParameter(0);
-        if (ref == null) {
+        if (param0 == null) {
             return true;
         } else {
-            return value != null && value.compareTo(ref) != -1;
+            return value != null && value.compareTo(param0) >= 0;
         }
     }
 
     public boolean isBetween(Comparable value) {
-        Comparable low = getParameter(0);
-        Comparable high = getParameter(1);
-
         if (value == null) {
-            return low == null;
+            return param0 == null;
         }
-        if (low != null && value.compareTo(low) == -1) {
+        if (param0 != null && value.compareTo(param0) < 0) {
             return false;
         }
-        if (high != null && value.compareTo(high) == 1) {
+        if (param1 != null && value.compareTo(param1) > 0) {
             return false;
         }
         return true;
     }
 
-    Map<String, TimeFrameLimits> _timeFrameExprCache = new HashMap<String, TimeFrameLimits>();
-
     public boolean timeFrame(Comparable value) {
-        String timeFrameExpr = getParameter(0).toString();
-        if (timeFrameExpr == null || value == null) {
+        if (param0 == null || value == null) {
             return false;
         }
         if (!(value instanceof Date)) {
             return false;
         }
         Date target = (Date) value;
-
-        TimeFrameLimits timeFrameLimits = _timeFrameExprCache.get(timeFrameExpr);
-        if (timeFrameLimits == null) {
-            TimeFrame timeFrame = TimeFrame.parse(getParameter(0).toString());
-            _timeFrameExprCache.put(timeFrameExpr, timeFrameLimits = new TimeFrameLimits(timeFrame));
-        }
-
-        if (target.before(timeFrameLimits.from)) return false;
-        if (target.after(timeFrameLimits.to)) return false;
+        TimeFrameLimits limits = getTimeFrameLimits();
+        if (target.before(limits.from)) return false;
+        if (target.after(limits.to)) return false;
         return true;
     }
 
+    /**
+     * The time frame limits, calculated once when the function is created.
+     */
+    protected TimeFrameLimits getTimeFrameLimits() {
+        return timeFrameLimits;
+    }
+
     public class TimeFrameLimits {
 
         Date from = null;
@@ -250,4 +462,113 @@ public class CoreFunction extends DataSetFunction {
             to = timeFrame.getTo().getTimeInstant();
         }
     }
+
+    /**
+     * A LIKE pattern compiled once per filter.
+     * <p>Patterns with just the <code>%</code> and <code>_</code> wildcards are matched with no allocation at all.
+     * The runs of literal chars are compared through <code>regionMatches</code>, so case unsensitive patterns
+     * are lower-cased once and the values are never lower-cased. Any other pattern (sets and ranges of
+     * characters) is translated into a regular expression.</p>
+     */
+    public static class LikePattern {
+
+        private static final String REGEXP_CHARS = "\\[](){}*+?^$|";
+
+        private String pattern;
+        private String regexp = null;
+        private boolean caseSensitive;
+        private int[] literalRuns;
+
+        public LikePattern(String pattern, boolean caseSensitive) {
+            this.caseSensitive = caseSensitive;
+            this.pattern = caseSensitive ? pattern : pattern.toLowerCase();
+            for (int i = 0; i < pattern.length() && regexp == null; i++) {
+                if (REGEXP_CHARS.indexOf(pattern.charAt(i)) != -1) {
+                    // Replace the user's wildcards for valid regular expression patterns
+                    regexp = this.pattern.replace(".", "\\.").replace("%", ".*").replace("_", ".");
+                }
+            }
+            if (regexp == null) {
+                // The length of the literal run starting at every position
+                int plen = this.pattern.length();
+                literalRuns = new int[plen];
+                for (int i = plen - 1; i >= 0; i--) {
+                    char c = this.pattern.charAt(i);
+                    boolean wildcard = c == '%' || c == '_';
+                    literalRuns[i] = wildcard ? 0 : (i + 1 < plen ? literalRuns[i + 1] : 0) + 1;
+                }
+            }
+        }
+
+        /**
+         * The regular expression the pattern is translated into or null if just wildcards are used.
+         */
+        public String getRegExp() {
+            return regexp;
+        }
+
+        public boolean isCaseSensitive() {
+            return caseSensitive;
+        }
+
+        public boolean matches(String str) {
+            if (regexp != null) {
+                return matchesRegExp(str);
+            }
+            // Wildcard matching with backtracking to the last % found
+            int p = 0, s = 0, starP = -1, starS = -1;
+            int plen = pattern.length(), slen = str.length();
+            while (s < slen) {
+                if (p < plen) {
+                    char pc = pattern.charAt(p);
+                    if (pc == '%') {
+                        starP = p++;
+                        starS = s;
+                        continue;
+                    }
+                    if (pc == '_') {
+                        if (!isLineTerminator(str.charAt(s))) {
+                            p++;
+                            s++;
+                            continue;
+                        }
+                    } else {
+                        int len = literalRuns[p];
+                        if (s + len > slen) {
+                            // Backtracking only moves forward, so the run can never fit
+                            return false;
+                        }
+                        if (str.regionMatches(!caseSensitive, s, pattern, p, len)) {
+                            p += len;
+                            s += len;
+                            continue;
+                        }
+                    }
+                }
+                // The % wildcard does not match line terminators (same as the .* regexp)
+                if (starP != -1 && !isLineTerminator(str.charAt(starS))) {
+                    p = starP + 1;
+                    s = ++starS;
+                    continue;
+                }
+                return false;
+            }
+            while (p < plen && pattern.charAt(p) == '%') {
+                p++;
+            }
+            return p == plen;
+        }
+
+        /**
+         * Match the regular expression pattern. The expression is compiled on every call, as the client side
+         * has no support for compiled patterns.
+         */
+        protected boolean matchesRegExp(String str) {
+            return (caseSensitive ? str : str.toLowerCase()).matches(regexp);
+        }
+
+        private static boolean isLineTerminator(char c) {
+            return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+        }
+    }
 }
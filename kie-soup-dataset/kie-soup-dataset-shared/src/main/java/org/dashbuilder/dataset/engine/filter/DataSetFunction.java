@@ -66,4 +66,14 @@ public abstract class DataSetFunction {
      * Evaluate the filter function.
      */
     public abstract boolean pass();
+
+    /**
+     * Evaluate the filter function over the given row.
+     * <p>By default the row is set as the context's current row, so the function can't be evaluated by several
+     * threads at once. The built-in functions read the given row instead.</p>
+     */
+    public boolean pass(int row) {
+        context.setCurrentRow(row);
+        return pass();
+    }
 }
@@ -15,7 +15,6 @@
  */
 package org.dashbuilder.dataset.engine.filter;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.dashbuilder.dataset.DataSet;
@@ -24,6 +23,7 @@ import org.dashbuilder.dataset.filter.ColumnFilter;
 import org.dashbuilder.dataset.filter.CoreFunctionFilter;
 import org.dashbuilder.dataset.filter.CustomFunctionFilter;
 import org.dashbuilder.dataset.filter.LogicalExprFilter;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * Default data set filter algorithm.
@@ -73,30 +73,42 @@ public class DefaultFilterAlgorithm implements DataSetFilterAlgorithm {
 
      */
     public List<Integer> filter(DataSetHandler ctx, ColumnFilter columnFilter) {
-
-        // Build the data set filter function.
         DataSet dataSet = ctx.getDataSet();
-        DataSetFilterContext dataSetFilterContext = new DataSetFilterContext(dataSet);
-        DataSetFunction filterFunction = buildFunction(dataSetFilterContext, columnFilter);
-
-        List<Integer> result = new ArrayList<Integer>();
 
         // Apply the filter function to the whole data set.
-        if (ctx == null || ctx.getRows() == null) {
-            for (int i = 0; i < dataSet.getRowCount(); i++) {
-                dataSetFilterContext.setCurrentRow(i);
-                if (filterFunction.pass()) {
-                    result.add(i);
-                }
-            }
+        if (ctx.getRows() == null) {
+            return filter(dataSet, columnFilter, null, 0, dataSet.getRowCount());
         }
         // Filter only the target rows specified.
-        else {
-            for (Integer targetRow : ctx.getRows()) {
-                dataSetFilterContext.setCurrentRow(targetRow);
-                if (filterFunction.pass()) {
-                    result.add(targetRow);
-                }
+        RowList targetRows = RowList.of(ctx.getRows());
+        return filter(dataSet, columnFilter, targetRows, 0, targetRows.size());
+    }
+
+    /**
+     * Apply the filter to a range of the target rows, so that large data sets can be split into chunks.
+     * @param targetRows The target rows or null to go through all the data set rows.
+     * @param from The first position (inclusive) within the target rows
+     * @param to The last position (exclusive) within the target rows
+     * @return The rows that pass the filter, in the same order as the target rows.
+     */
+    public RowList filter(DataSet dataSet, ColumnFilter columnFilter, RowList targetRows, int from, int to) {
+
+        // Build the data set filter function.
+        DataSetFilterContext dataSetFilterContext = new DataSetFilterContext(dataSet);
+        DataSetFunction filterFunction = buildFunction(dataSetFilterContext, columnFilter);
+        return filter(filterFunction, targetRows, from, to);
+    }
+
+    /**
+     * Apply an already built filter function to a range of the target rows.
+     * <p>The functions built by this algorithm can be shared by several ranges evaluated concurrently.</p>
+     */
+    public RowList filter(DataSetFunction filterFunction, RowList targetRows, int from, int to) {
+        RowList result = new RowList();
+        for (int i = from; i < to; i++) {
+            int row = targetRows == null ? i : targetRows.getRow(i);
+            if (filterFunction.pass(row)) {
+                result.addRow(row);
             }
         }
         return result;
@@ -118,7 +130,7 @@ public class DefaultFilterAlgorithm implements DataSetFilterAlgorithm {
         // Core function filter
         if (columnFilter instanceof CoreFunctionFilter) {
             CoreFunctionFilter filter = (CoreFunctionFilter) columnFilter;
-            return new CoreFunction(filterContext, filter);
+            return createCoreFunction(filterContext, filter);
         }
         // TODO: Custom function filter
         if (columnFilter instanceof CustomFunctionFilter) {
@@ -127,4 +139,8 @@ public class DefaultFilterAlgorithm implements DataSetFilterAlgorithm {
 
         throw new IllegalArgumentException("Filter type not supported: " + columnFilter.getClass().getName());
     }
+
+    protected CoreFunction createCoreFunction(DataSetFilterContext filterContext, CoreFunctionFilter filter) {
+        return new CoreFunction(filterContext, filter);
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.filter;
+
+import java.util.List;
+
+import org.dashbuilder.dataset.filter.ColumnFilter;
+import org.dashbuilder.dataset.filter.CoreFunctionFilter;
+import org.dashbuilder.dataset.filter.CoreFunctionType;
+
+/**
+ * Checks whether every row that passes a filter also passes a broader filter over the same column, so that
+ * the narrower filter can be evaluated over the rows of the broader one only.
+ * <p>Only the range (greater/lower than, between) and the equals/in filters are supported. Their parameters
+ * must be of the same class, so they compare the same way the filter functions do.</p>
+ */
+public final class FilterSubsumption {
+
+    private FilterSubsumption() {
+    }
+
+    /**
+     * @return true if all the rows passing the <i>inner</i> filter also pass the <i>outer</i> one.
+     */
+    public static boolean subsumes(ColumnFilter outer, ColumnFilter inner) {
+        if (!(outer instanceof CoreFunctionFilter) || !(inner instanceof CoreFunctionFilter)) {
+            return false;
+        }
+        if (outer.getColumnId() == null || !outer.getColumnId().equals(inner.getColumnId())) {
+            return false;
+        }
+        CoreFunctionFilter outerFilter = (CoreFunctionFilter) outer;
+        CoreFunctionFilter innerFilter = (CoreFunctionFilter) inner;
+        if (isEqualsTo(outerFilter) && isEqualsTo(innerFilter)) {
+            return containsAll(outerFilter.getParameters(), innerFilter.getParameters());
+        }
+        Range outerRange = Range.of(outerFilter);
+        Range innerRange = Range.of(innerFilter);
+        return outerRange != null && innerRange != null && outerRange.contains(innerRange);
+    }
+
+    private static boolean isEqualsTo(CoreFunctionFilter filter) {
+        CoreFunctionType type = filter.getType();
+        return CoreFunctionType.EQUALS_TO.equals(type) || CoreFunctionType.IN.equals(type);
+    }
+
+    private static boolean containsAll(List outerParams, List innerParams) {
+        // No parameters means no filter at all
+        if (outerParams == null || outerParams.isEmpty() || innerParams == null || innerParams.isEmpty()) {
+            return false;
+        }
+        for (Object param : innerParams) {
+            if (!contains(outerParams, param)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(List params, Object param) {
+        for (Object p : params) {
+            if (param == null ? p == null : param.equals(p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The values a range filter lets pass. Null limits mean unbounded.
+     */
+    static class Range {
+
+        Comparable low;
+        boolean lowInclusive;
+        Comparable high;
+        boolean highInclusive;
+        boolean nulls;
+
+        Range(Comparable low, boolean lowInclusive, Comparable high, boolean highInclusive, boolean nulls) {
+            this.low = low;
+            this.lowInclusive = lowInclusive;
+            this.high = high;
+            this.highInclusive = highInclusive;
+            this.nulls = nulls;
+        }
+
+        /**
+         * Same semantics as the {@link CoreFunction} comparisons: the lower than filters let the nulls pass.
+         * @return null if the filter is not a range with all its limits set.
+         */
+        static Range of(CoreFunctionFilter filter) {
+            List params = filter.getParameters();
+            Comparable p0 = params != null && params.size() > 0 ? (Comparable) params.get(0) : null;
+            Comparable p1 = params != null && params.size() > 1 ? (Comparable) params.get(1) : null;
+            if (p0 == null) {
+                return null;
+            }
+            switch (filter.getType()) {
+                case GREATER_THAN:
+                    return new Range(p0, false, null, false, false);
+                case GREATER_OR_EQUALS_TO:
+                    return new Range(p0, true, null, false, false);
+                case LOWER_THAN:
+                    return new Range(null, false, p0, false, true);
+                case LOWER_OR_EQUALS_TO:
+                    return new Range(null, false, p0, true, true);
+                case BETWEEN:
+                    return p1 == null ? null : new Range(p0, true, p1, true, false);
+                default:
+                    return null;
+            }
+        }
+
+        boolean contains(Range other) {
+            if (other.nulls && !nulls) {
+                return false;
+            }
+            if (low != null) {
+                if (other.low == null || other.low.getClass() != low.getClass()) {
+                    return false;
+                }
+                int c = other.low.compareTo(low);
+                if (c < 0 || (c == 0 && other.lowInclusive && !lowInclusive)) {
+                    return false;
+                }
+            }
+            if (high != null) {
+                if (other.high == null || other.high.getClass() != high.getClass()) {
+                    return false;
+                }
+                int c = other.high.compareTo(high);
+                if (c > 0 || (c == 0 && other.highInclusive && !highInclusive)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
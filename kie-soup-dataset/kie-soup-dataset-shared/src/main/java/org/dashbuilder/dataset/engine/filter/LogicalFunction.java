@@ -37,6 +37,11 @@ public class LogicalFunction extends DataSetFunction {
     }
 
     public boolean pass() {
+        return pass(getContext().getCurrentRow());
+    }
+
+    @Override
+    public boolean pass(int row) {
         if (functionTerms .isEmpty()) {
             return true;
         }
@@ -45,21 +50,21 @@ public class LogicalFunction extends DataSetFunction {
 
         if (LogicalExprType.NOT.equals(type)) {
             for (DataSetFunction term : functionTerms) {
-                boolean termOk = term.pass();
+                boolean termOk = term.pass(row);
                 if (termOk) return false;
             }
             return true;
         }
         if (LogicalExprType.AND.equals(type)) {
             for (DataSetFunction term : functionTerms) {
-                boolean termOk = term.pass();
+                boolean termOk = term.pass(row);
                 if (!termOk) return false;
             }
             return true;
         }
         if (LogicalExprType.OR.equals(type)) {
             for (DataSetFunction term : functionTerms) {
-                boolean termOk = term.pass();
+                boolean termOk = term.pass(row);
                 if (termOk) return true;
             }
             return false;
@@ -28,6 +28,10 @@ public abstract class AbstractFunction implements AggregateFunction {
         precission = 2;
     }
 
+    public int getPrecission() {
+        return precission;
+    }
+
     public Number round(Number value, int precission) {
         if (precission < 0) return value;
 
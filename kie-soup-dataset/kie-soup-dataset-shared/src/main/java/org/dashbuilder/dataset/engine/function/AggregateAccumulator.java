@@ -0,0 +1,260 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.function;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.dashbuilder.dataset.group.AggregateFunction;
+import org.dashbuilder.dataset.impl.ColumnarList;
+import org.dashbuilder.dataset.impl.DateColumnarList;
+import org.dashbuilder.dataset.impl.DoubleColumnarList;
+import org.dashbuilder.dataset.impl.LabelColumnarList;
+import org.dashbuilder.dataset.impl.RowList;
+
+/**
+ * Calculates several built-in aggregate functions over the same column in a single scan of the rows.
+ * <p>Only the statistics the functions require (count, sum, min/max, distinct values) are gathered. The results
+ * are the same as the ones given by every function on its own. Accumulators over different rows of the same column
+ * can be merged.</p>
+ */
+public class AggregateAccumulator {
+
+    protected List values;
+    protected boolean sumRequired = false;
+    protected boolean minMaxRequired = false;
+    protected boolean distinctRequired = false;
+
+    protected int count = 0;
+    protected CompensatedSum sum = new CompensatedSum();
+
+    // Min/max row for the primitive storage, min/max value otherwise
+    protected int minRow = -1;
+    protected int maxRow = -1;
+    protected Comparable min = null;
+    protected Comparable max = null;
+
+    protected boolean[] distinctCodes = null;
+    protected Set distincts = null;
+
+    /**
+     * Check if a function can be calculated by an accumulator (only the built-in functions).
+     */
+    public static boolean isSupported(AggregateFunction function) {
+        Class functionClass = function.getClass();
+        return functionClass == CountFunction.class
+                || functionClass == SumFunction.class
+                || functionClass == AverageFunction.class
+                || functionClass == MinFunction.class
+                || functionClass == MaxFunction.class
+                || functionClass == DistinctFunction.class;
+    }
+
+    /**
+     * @param values The column values
+     * @param functions The functions to calculate (all of them must be supported)
+     */
+    public AggregateAccumulator(List values, List<AggregateFunction> functions) {
+        this.values = values;
+        for (AggregateFunction function : functions) {
+            if (!isSupported(function)) {
+                throw new IllegalArgumentException("Aggregate function not supported: " + function.getType());
+            }
+            switch (function.getType()) {
+                case SUM:
+                case AVERAGE:
+                    sumRequired = true;
+                    break;
+                case MIN:
+                case MAX:
+                    minMaxRequired = true;
+                    break;
+                case DISTINCT:
+                    distinctRequired = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (distinctRequired) {
+            if (values instanceof LabelColumnarList) {
+                distinctCodes = new boolean[((LabelColumnarList) values).getCardinality() + 1];
+            } else {
+                distincts = new HashSet();
+            }
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Accumulate all the given rows.
+     * @param rows The target rows or null to go through all the column values.
+     */
+    public void accumulate(RowList rows) {
+        accumulate(rows, 0, rows == null ? values.size() : rows.size());
+    }
+
+    /**
+     * Accumulate a range of the given rows.
+     * @param rows The target rows or null to go through all the column values.
+     * @param from The first position (inclusive)
+     * @param to The last position (exclusive)
+     */
+    public void accumulate(RowList rows, int from, int to) {
+        boolean doubles = values instanceof DoubleColumnarList;
+        boolean primitive = doubles || values instanceof DateColumnarList;
+        for (int i = from; i < to; i++) {
+            int row = rows == null ? i : rows.getRow(i);
+            if (sumRequired) {
+                if (doubles) {
+                    // Nulls are stored as zero
+                    sum.add(((DoubleColumnarList) values).getDouble(row));
+                } else {
+                    Number n = (Number) values.get(row);
+                    if (n != null) {
+                        sum.add(n.doubleValue());
+                    }
+                }
+            }
+            if (minMaxRequired) {
+                if (primitive) {
+                    accumulateMinMax((ColumnarList) values, row);
+                } else {
+                    accumulateMinMax((Comparable) values.get(row));
+                }
+            }
+            if (distinctRequired) {
+                if (distinctCodes != null) {
+                    // Null is encoded as -1
+                    distinctCodes[((LabelColumnarList) values).getCode(row) + 1] = true;
+                } else {
+                    distincts.add(values.get(row));
+                }
+            }
+        }
+        count += to - from;
+    }
+
+    protected void accumulateMinMax(ColumnarList columnar, int row) {
+        if (columnar.isNull(row)) {
+            return;
+        }
+        // On equal values the first one is kept
+        if (minRow == -1 || compare(columnar, row, minRow) < 0) {
+            minRow = row;
+        }
+        if (maxRow == -1 || compare(columnar, row, maxRow) > 0) {
+            maxRow = row;
+        }
+    }
+
+    protected void accumulateMinMax(Comparable val) {
+        if (val == null) {
+            return;
+        }
+        if (min == null || val.compareTo(min) < 0) {
+            min = val;
+        }
+        if (max == null || val.compareTo(max) > 0) {
+            max = val;
+        }
+    }
+
+    protected int compare(ColumnarList columnar, int row1, int row2) {
+        if (columnar instanceof DoubleColumnarList) {
+            DoubleColumnarList doubles = (DoubleColumnarList) columnar;
+            return Double.compare(doubles.getDouble(row1), doubles.getDouble(row2));
+        }
+        DateColumnarList dates = (DateColumnarList) columnar;
+        long t1 = dates.getTime(row1);
+        long t2 = dates.getTime(row2);
+        return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+    }
+
+    /**
+     * Merge the statistics of an accumulator over the rows that follow the ones of this accumulator.
+     */
+    public void merge(AggregateAccumulator other) {
+        count += other.count;
+        sum.add(other.sum);
+        if (other.minRow != -1) {
+            accumulateMinMax((ColumnarList) values, other.minRow);
+            accumulateMinMax((ColumnarList) values, other.maxRow);
+        }
+        accumulateMinMax(other.min);
+        accumulateMinMax(other.max);
+        if (distinctCodes != null) {
+            for (int code = 0; code < distinctCodes.length; code++) {
+                distinctCodes[code] |= other.distinctCodes[code];
+            }
+        }
+        if (distincts != null) {
+            distincts.addAll(other.distincts);
+        }
+    }
+
+    /**
+     * Get the result of a function over the rows accumulated.
+     */
+    public Object getValue(AggregateFunction function) {
+        AbstractFunction f = (AbstractFunction) function;
+        int precission = f.getPrecission();
+        switch (f.getType()) {
+            case COUNT:
+                return (double) count;
+            case SUM:
+                return count == 0 ? 0d : f.round(sum.getSum(), precission);
+            case AVERAGE:
+                // Same as the function: the sum is rounded before the average is calculated
+                return count == 0 ? 0d : f.round(f.round(sum.getSum(), precission).doubleValue() / count, precission);
+            case MIN:
+                return getMinMax(f, minRow, min);
+            case MAX:
+                return getMinMax(f, maxRow, max);
+            case DISTINCT:
+                return (double) getDistinctCount();
+            default:
+                throw new IllegalArgumentException("Aggregate function not supported: " + f.getType());
+        }
+    }
+
+    protected Object getMinMax(AbstractFunction f, int row, Comparable value) {
+        if (values instanceof DoubleColumnarList) {
+            return row == -1 ? null : f.round(((DoubleColumnarList) values).getDouble(row), f.getPrecission());
+        }
+        if (values instanceof DateColumnarList) {
+            return row == -1 ? null : values.get(row);
+        }
+        return value instanceof Number ? f.round((Number) value, f.getPrecission()) : value;
+    }
+
+    protected int getDistinctCount() {
+        if (distincts != null) {
+            return distincts.size();
+        }
+        int n = 0;
+        for (boolean found : distinctCodes) {
+            if (found) {
+                n++;
+            }
+        }
+        return n;
+    }
+}
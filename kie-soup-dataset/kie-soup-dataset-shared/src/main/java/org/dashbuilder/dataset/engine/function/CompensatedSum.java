@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.function;
+
+/**
+ * Sum of doubles that keeps track of the low-order bits lost on every addition (Kahan-Babuska summation).
+ * <p>The result barely depends on the order of the additions, so partial sums over consecutive rows
+ * can be merged and still give the same rounded value as a single scan.</p>
+ */
+public class CompensatedSum {
+
+    protected double sum = 0d;
+    protected double compensation = 0d;
+
+    public void add(double value) {
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - t) + value;
+        } else {
+            compensation += (value - t) + sum;
+        }
+        sum = t;
+    }
+
+    /**
+     * Add the partial sum of another set of values.
+     */
+    public void add(CompensatedSum other) {
+        add(other.sum);
+        add(other.compensation);
+    }
+
+    public double getSum() {
+        return sum + compensation;
+    }
+}
@@ -22,6 +22,8 @@ import java.util.Set;
 
 import org.dashbuilder.dataset.ColumnType;
 import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.dataset.impl.LabelColumnarList;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * It calculates the number of distinct occurrences inside a given collection.
@@ -41,6 +43,10 @@ public class DistinctFunction extends AbstractFunction {
             return 0d;
         }
 
+        if (values instanceof LabelColumnarList) {
+            return aggregate((LabelColumnarList) values, null, values.size());
+        }
+
         // Return the number of distinct items in the collection.
         Set distincts = new HashSet();
         Iterator it = values.iterator();
@@ -65,10 +71,15 @@ public class DistinctFunction extends AbstractFunction {
             return 0d;
         }
 
+        if (values instanceof LabelColumnarList) {
+            return aggregate((LabelColumnarList) values, RowList.of(rows), rows.size());
+        }
+
         // Return the number of distinct items in the collection.
+        RowList rowList = RowList.of(rows);
         Set distincts = new HashSet();
-        for (Integer row : rows) {
-            Object o = values.get(row);
+        for (int i = 0; i < rowList.size(); i++) {
+            Object o = values.get(rowList.getRow(i));
             if (distincts.contains(o)) {
                 continue;
             }
@@ -76,4 +87,18 @@ public class DistinctFunction extends AbstractFunction {
         }
         return (double) distincts.size();
     }
+
+    protected Object aggregate(LabelColumnarList labels, RowList rows, int n) {
+        // Count the distinct dictionary codes (null is encoded as -1)
+        boolean[] found = new boolean[labels.getCardinality() + 1];
+        int distincts = 0;
+        for (int i = 0; i < n; i++) {
+            int code = labels.getCode(rows == null ? i : rows.getRow(i)) + 1;
+            if (!found[code]) {
+                found[code] = true;
+                distincts++;
+            }
+        }
+        return (double) distincts;
+    }
 }
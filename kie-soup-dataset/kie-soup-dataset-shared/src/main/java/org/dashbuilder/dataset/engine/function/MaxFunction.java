@@ -18,6 +18,10 @@ package org.dashbuilder.dataset.engine.function;
 import java.util.List;
 
 import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.dataset.impl.ColumnarList;
+import org.dashbuilder.dataset.impl.DateColumnarList;
+import org.dashbuilder.dataset.impl.DoubleColumnarList;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * It calculates the max. number of a set of values.
@@ -37,6 +41,11 @@ public class MaxFunction extends AbstractFunction {
             return null;
         }
 
+        // Primitive storage
+        if (values instanceof DoubleColumnarList || values instanceof DateColumnarList) {
+            return aggregate(values, null, values.size());
+        }
+
         // Get the min. value from the collection.
         Comparable result = null;
         for (Object obj : values) {
@@ -61,10 +70,16 @@ public class MaxFunction extends AbstractFunction {
             return null;
         }
 
+        // Primitive storage
+        if (values instanceof DoubleColumnarList || values instanceof DateColumnarList) {
+            return aggregate(values, RowList.of(rows), rows.size());
+        }
+
         // Get the min. value within the target rows.
+        RowList rowList = RowList.of(rows);
         Comparable result = null;
-        for (Integer row : rows) {
-            Comparable val = (Comparable) values.get(row);
+        for (int i = 0; i < rowList.size(); i++) {
+            Comparable val = (Comparable) values.get(rowList.getRow(i));
             if (val == null) {
                 continue;
             }
@@ -75,4 +90,36 @@ public class MaxFunction extends AbstractFunction {
         // Adjust to the specified precision.
         return result instanceof Number ? round((Number) result, precission) : result;
     }
-}
\ No newline at end of file
+
+    protected Object aggregate(List values, RowList rows, int n) {
+        ColumnarList columnar = (ColumnarList) values;
+        int resultRow = -1;
+        for (int i = 0; i < n; i++) {
+            int row = rows == null ? i : rows.getRow(i);
+            if (columnar.isNull(row)) {
+                continue;
+            }
+            if (resultRow == -1 || compare(columnar, row, resultRow) > 0) {
+                resultRow = row;
+            }
+        }
+        if (resultRow == -1) {
+            return null;
+        }
+        if (columnar instanceof DoubleColumnarList) {
+            return round(((DoubleColumnarList) columnar).getDouble(resultRow), precission);
+        }
+        return columnar.get(resultRow);
+    }
+
+    protected int compare(ColumnarList columnar, int row1, int row2) {
+        if (columnar instanceof DoubleColumnarList) {
+            DoubleColumnarList doubles = (DoubleColumnarList) columnar;
+            return Double.compare(doubles.getDouble(row1), doubles.getDouble(row2));
+        }
+        DateColumnarList dates = (DateColumnarList) columnar;
+        long t1 = dates.getTime(row1);
+        long t2 = dates.getTime(row2);
+        return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+    }
+}
@@ -20,9 +20,12 @@ import java.util.List;
 
 import org.dashbuilder.dataset.ColumnType;
 import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.dashbuilder.dataset.impl.DoubleColumnarList;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * It calculates the sum value of a set of numbers.
+ * <p>A compensated sum is used so that the result does not depend on how the rows are split.</p>
  */
 public class SumFunction extends AbstractFunction {
 
@@ -39,15 +42,25 @@ public class SumFunction extends AbstractFunction {
             return 0d;
         }
 
+        // Sum the primitive values (nulls are stored as zero)
+        if (values instanceof DoubleColumnarList) {
+            DoubleColumnarList doubles = (DoubleColumnarList) values;
+            CompensatedSum sum = new CompensatedSum();
+            for (int i = 0; i < doubles.size(); i++) {
+                sum.add(doubles.getDouble(i));
+            }
+            return round(sum.getSum(), precission);
+        }
+
         // Sum the collection.
-        double sum = 0d;
+        CompensatedSum sum = new CompensatedSum();
         Iterator it = values.iterator();
         while (it.hasNext()) {
             Number n = (Number) it.next();
             if (n == null) continue;
-            sum += n.doubleValue();
+            sum.add(n.doubleValue());
         }
-        return round(sum, precission);
+        return round(sum.getSum(), precission);
     }
 
     public Object aggregate(List values, List<Integer> rows) {
@@ -61,13 +74,24 @@ public class SumFunction extends AbstractFunction {
             return 0d;
         }
 
+        if (values instanceof DoubleColumnarList) {
+            DoubleColumnarList doubles = (DoubleColumnarList) values;
+            RowList rowList = RowList.of(rows);
+            CompensatedSum sum = new CompensatedSum();
+            for (int i = 0; i < rowList.size(); i++) {
+                sum.add(doubles.getDouble(rowList.getRow(i)));
+            }
+            return round(sum.getSum(), precission);
+        }
+
         // Sum the collection.
-        double sum = 0d;
-        for (Integer row : rows) {
-            Number n = (Number) values.get(row);
+        RowList rowList = RowList.of(rows);
+        CompensatedSum sum = new CompensatedSum();
+        for (int i = 0; i < rowList.size(); i++) {
+            Number n = (Number) values.get(rowList.getRow(i));
             if (n == null) continue;
-            sum += n.doubleValue();
+            sum.add(n.doubleValue());
         }
-        return round(sum, precission);
+        return round(sum.getSum(), precission);
     }
 }
\ No newline at end of file
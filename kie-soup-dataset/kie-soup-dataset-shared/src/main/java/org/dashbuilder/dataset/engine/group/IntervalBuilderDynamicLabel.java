@@ -15,17 +15,23 @@
  */
 package org.dashbuilder.dataset.engine.group;
 
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.dashbuilder.dataset.DataColumn;
 import org.dashbuilder.dataset.engine.DataSetHandler;
 import org.dashbuilder.dataset.group.ColumnGroup;
 import org.dashbuilder.dataset.group.Interval;
+import org.dashbuilder.dataset.impl.LabelColumnarList;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * Interval builder for label columns which generates one interval per label.
  */
-public class IntervalBuilderDynamicLabel implements IntervalBuilder {
+public class IntervalBuilderDynamicLabel implements SortedIntervalBuilder {
 
     public IntervalList build(DataSetHandler ctx, ColumnGroup columnGroup) {
         IntervalListLabel intervalList = new IntervalListLabel(columnGroup);
@@ -35,6 +41,12 @@ public class IntervalBuilderDynamicLabel implements IntervalBuilder {
         return intervalList.indexValues(values, rows);
     }
 
+    public IntervalList build(DataSetHandler ctx, ColumnGroup columnGroup, List<Integer> sortedRows) {
+        IntervalListLabel intervalList = new IntervalListLabel(columnGroup);
+        List values = ctx.getDataSet().getColumnById(columnGroup.getSourceId()).getValues();
+        return intervalList.indexSortedValues(values, RowList.of(sortedRows));
+    }
+
     public IntervalList build(DataColumn dataColumn) {
         ColumnGroup columnGroup = dataColumn.getColumnGroup();
         IntervalListLabel intervalList = new IntervalListLabel(columnGroup);
@@ -42,37 +54,151 @@ public class IntervalBuilderDynamicLabel implements IntervalBuilder {
         return intervalList.indexValues(values, null);
     }
 
+    /**
+     * Build the intervals for a range of the target rows, so that large columns can be split into chunks.
+     * @param rows The target rows or null to go through all the column values.
+     * @param from The first position (inclusive) within the target rows
+     * @param to The last position (exclusive) within the target rows
+     */
+    public IntervalList build(ColumnGroup columnGroup, List values, List<Integer> rows, int from, int to) {
+        IntervalListLabel intervalList = new IntervalListLabel(columnGroup);
+        return intervalList.indexValues(values, RowList.of(rows), from, to);
+    }
+
+    /**
+     * Merge the intervals built over consecutive ranges of rows. The result is the same as if all the rows
+     * were indexed at once: the intervals keep their order of appearance and their rows are concatenated.
+     */
+    public IntervalList merge(ColumnGroup columnGroup, List<IntervalList> intervalLists) {
+        IntervalListLabel result = new IntervalListLabel(columnGroup);
+        for (IntervalList intervalList : intervalLists) {
+            for (Interval interval : intervalList) {
+                result.locateOrCreateInterval(interval.getName()).getRows().addAll(interval.getRows());
+            }
+        }
+        return result;
+    }
+
     private class IntervalListLabel extends IntervalList {
 
+        // Intervals by name, so that every value is classified in constant time
+        private Map<String, Interval> intervalMap = new HashMap<String, Interval>();
+
         private IntervalListLabel(ColumnGroup columnGroup) {
             super(columnGroup);
         }
 
+        @Override
+        public IntervalList indexValues(List<Object> values, List<Integer> rows) {
+            RowList rowList = RowList.of(rows);
+            return indexValues(values, rowList, 0, rowList == null ? values.size() : rowList.size());
+        }
+
+        protected IntervalList indexValues(List values, RowList rows, int from, int to) {
+            if (!(values instanceof LabelColumnarList)) {
+                for (int i = from; i < to; i++) {
+                    int row = rows == null ? i : rows.getRow(i);
+                    indexValue(values.get(row), row);
+                }
+                return this;
+            }
+            // Columnar labels: the intervals are located through the dictionary codes
+            LabelColumnarList labels = (LabelColumnarList) values;
+            Interval[] codeIntervals = new Interval[labels.getCardinality() + 1];
+            for (int i = from; i < to; i++) {
+                int row = rows == null ? i : rows.getRow(i);
+                int slot = labels.getCode(row) + 1;
+                Interval interval = codeIntervals[slot];
+                if (interval == null) {
+                    String name = labels.getLabel(slot - 1);
+                    interval = codeIntervals[slot] = locateOrCreateInterval(name);
+                }
+                interval.getRows().add(row);
+            }
+            return this;
+        }
+
+        /**
+         * Index the rows sorted by label, so the interval is only looked up when the label changes. Then the
+         * intervals are put in order of appearance and their rows in ascending order, as if indexed one by one.
+         */
+        protected IntervalList indexSortedValues(List values, RowList sortedRows) {
+            LabelColumnarList labels = values instanceof LabelColumnarList ? (LabelColumnarList) values : null;
+            Interval interval = null;
+            int lastCode = 0;
+            Object lastValue = null;
+            for (int i = 0; i < sortedRows.size(); i++) {
+                int row = sortedRows.getRow(i);
+                if (labels != null) {
+                    int code = labels.getCode(row);
+                    if (interval == null || code != lastCode) {
+                        interval = locateOrCreateInterval(labels.getLabel(code));
+                        lastCode = code;
+                    }
+                } else {
+                    Object value = values.get(row);
+                    if (interval == null || (value == null ? lastValue != null : !value.equals(lastValue))) {
+                        interval = locateOrCreateInterval(value == null ? null : value.toString());
+                        lastValue = value;
+                    }
+                }
+                interval.getRows().add(row);
+            }
+            for (Interval next : this) {
+                RowList rows = RowList.of(next.getRows());
+                if (!rows.isSorted()) {
+                    next.setRows(sortRows(rows));
+                }
+            }
+            Collections.sort(this, new Comparator<Interval>() {
+                public int compare(Interval i1, Interval i2) {
+                    return i1.getRows().get(0).compareTo(i2.getRows().get(0));
+                }
+            });
+            for (int i = 0; i < size(); i++) {
+                get(i).setIndex(i);
+            }
+            return this;
+        }
+
+        /**
+         * Put the rows of an interval in ascending order. The rows taken from an inverted sort index are in
+         * descending order, so they are just reversed.
+         */
+        protected RowList sortRows(RowList rows) {
+            for (int i = 1; i < rows.size(); i++) {
+                if (rows.getRow(i) > rows.getRow(i - 1)) {
+                    Collections.sort(rows);
+                    return rows;
+                }
+            }
+            RowList result = new RowList(rows.size());
+            for (int i = rows.size() - 1; i >= 0; i--) {
+                result.addRow(rows.getRow(i));
+            }
+            return result;
+        }
+
         public void indexValue(Object value, int row) {
-            Interval interval = locateInterval(value);
+            String name = (value == null ? null : value.toString());
+            locateOrCreateInterval(name).getRows().add(row);
+        }
+
+        protected Interval locateOrCreateInterval(String name) {
+            Interval interval = intervalMap.get(name);
             if (interval == null) {
                 // TODO: create a composite interval when the maxIntervals are reached.
-                String name = (value == null ? null : value.toString());
                 int index = this.size();
                 this.add(interval = new Interval(name, index));
+                interval.setRows(new RowList());
+                intervalMap.put(name, interval);
             }
-            interval.getRows().add(row);
+            return interval;
         }
 
         public Interval locateInterval(Object value) {
-            for (Interval interval : this) {
-                if (interval.getName() == value) {
-                    return interval;
-                }
-                if (interval.getName() == null) {
-                    continue;
-                }
-                String name = (value == null ? null : value.toString());
-                if (interval.getName().equals(name)) {
-                    return interval;
-                }
-            }
-            return null;
+            String name = (value == null ? null : value.toString());
+            return intervalMap.get(name);
         }
     }
 }
@@ -39,10 +39,18 @@ public class IntervalBuilderFixedDate implements IntervalBuilder {
         String columnId = columnGroup.getSourceId();
         List values = ctx.getDataSet().getColumnById(columnId).getValues();
         List<Integer> rows = ctx.getRows();
-        intervalList.indexValues(values, rows);
+        indexValues(intervalList, values, rows);
         return intervalList;
     }
 
+    /**
+     * Classify the values of the target rows into the intervals.
+     * @param rows The target rows or null to go through all the values.
+     */
+    protected void indexValues(IntervalList intervalList, List values, List<Integer> rows) {
+        intervalList.indexValues(values, rows);
+    }
+
     public IntervalList build(DataColumn dataColumn) {
         ColumnGroup columnGroup = dataColumn.getColumnGroup();
         return _build(columnGroup);
@@ -20,6 +20,7 @@ import java.util.List;
 
 import org.dashbuilder.dataset.group.ColumnGroup;
 import org.dashbuilder.dataset.group.Interval;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * An list containing the intervals derived from an specific domain configuration.
@@ -75,7 +76,9 @@ public abstract class IntervalList extends ArrayList<Interval> {
                 indexValue(value, row);
             }
         } else {
-            for (Integer row : rows) {
+            RowList rowList = RowList.of(rows);
+            for (int i = 0; i < rowList.size(); i++) {
+                int row = rowList.getRow(i);
                 Object value = values.get(row);
                 indexValue(value, row);
             }
@@ -16,23 +16,19 @@
 package org.dashbuilder.dataset.engine.group;
 
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.dashbuilder.dataset.date.DayOfWeek;
 import org.dashbuilder.dataset.group.ColumnGroup;
 import org.dashbuilder.dataset.group.Interval;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * List of the 7-days intervals present in a week.
  */
-public class IntervalListDayOfWeek extends IntervalList {
-
-    protected Map<Integer,Interval> intervalMap;
+public class IntervalListDayOfWeek extends IntervalListFixedDate {
 
     public IntervalListDayOfWeek(ColumnGroup columnGroup) {
-        super(columnGroup);
-        intervalMap = new HashMap<Integer, Interval>();
+        super(columnGroup, 7);
 
         DayOfWeek firstDay = columnGroup.getFirstDayOfWeek();
         int index = firstDay.getIndex();
@@ -41,16 +37,16 @@ public class IntervalListDayOfWeek extends IntervalList {
         for (int i = 0; i < array.length; i++) {
             DayOfWeek dayOfWeek = array[index-1];
             Interval interval = new Interval(Integer.toString(dayOfWeek.getIndex()), i);
+            interval.setRows(new RowList());
             interval.setType(columnGroup.getIntervalSize());
             this.add(interval);
 
-            intervalMap.put(index-1, interval);
+            fieldIntervals[index-1] = interval;
             index = DayOfWeek.nextIndex(index);
         }
     }
 
-    public Interval locateInterval(Object value) {
-        Date d = (Date) value;
-        return intervalMap.get(d.getDay());
+    public int getDateField(Date d) {
+        return d.getDay();
     }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.group;
+
+import java.util.Date;
+
+import org.dashbuilder.dataset.group.ColumnGroup;
+import org.dashbuilder.dataset.group.Interval;
+
+/**
+ * Base class for the fixed date interval lists, where every interval matches one or more values of a date field
+ * (the month, the day of week, the hour, ...).
+ */
+public abstract class IntervalListFixedDate extends IntervalList {
+
+    protected Interval[] fieldIntervals;
+
+    /**
+     * @param fieldValues The number of values of the date field (from 0 to fieldValues-1)
+     */
+    public IntervalListFixedDate(ColumnGroup columnGroup, int fieldValues) {
+        super(columnGroup);
+        fieldIntervals = new Interval[fieldValues];
+    }
+
+    public Interval locateInterval(Object value) {
+        return locateInterval(getDateField((Date) value));
+    }
+
+    /**
+     * Get the interval that holds the given date field value.
+     */
+    public Interval locateInterval(int field) {
+        if (field < 0 || field >= fieldIntervals.length) {
+            return null;
+        }
+        return fieldIntervals[field];
+    }
+
+    /**
+     * Get the date field the intervals are based on.
+     */
+    public abstract int getDateField(Date d);
+}
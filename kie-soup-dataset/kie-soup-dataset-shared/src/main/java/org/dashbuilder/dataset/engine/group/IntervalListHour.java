@@ -18,7 +18,6 @@ package org.dashbuilder.dataset.engine.group;
 import java.util.Date;
 
 import org.dashbuilder.dataset.group.ColumnGroup;
-import org.dashbuilder.dataset.group.Interval;
 
 /**
  * List of the 24-hor intervals present in a day.
@@ -29,9 +28,7 @@ public class IntervalListHour extends IntervalListSecond {
         super(columnGroup, 24);
     }
 
-    public Interval locateInterval(Object value) {
-        Date d = (Date) value;
-        int sec = d.getHours();
-        return intervalMap.get(sec);
+    public int getDateField(Date d) {
+        return d.getHours();
     }
 }
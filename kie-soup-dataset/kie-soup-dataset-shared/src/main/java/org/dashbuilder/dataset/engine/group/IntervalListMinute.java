@@ -18,7 +18,6 @@ package org.dashbuilder.dataset.engine.group;
 import java.util.Date;
 
 import org.dashbuilder.dataset.group.ColumnGroup;
-import org.dashbuilder.dataset.group.Interval;
 
 /**
  * List of the 60-minute intervals present in a hour.
@@ -29,9 +28,7 @@ public class IntervalListMinute extends IntervalListSecond {
         super(columnGroup);
     }
 
-    public Interval locateInterval(Object value) {
-        Date d = (Date) value;
-        int sec = d.getMinutes();
-        return intervalMap.get(sec);
+    public int getDateField(Date d) {
+        return d.getMinutes();
     }
 }
@@ -16,23 +16,19 @@
 package org.dashbuilder.dataset.engine.group;
 
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.dashbuilder.dataset.date.Month;
 import org.dashbuilder.dataset.group.ColumnGroup;
 import org.dashbuilder.dataset.group.Interval;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * List of the 12-months intervals present in a year.
  */
-public class IntervalListMonth extends IntervalList {
-
-    protected Map<Integer,Interval> intervalMap;
+public class IntervalListMonth extends IntervalListFixedDate {
 
     public IntervalListMonth(ColumnGroup columnGroup) {
-        super(columnGroup);
-        intervalMap = new HashMap<Integer, Interval>();
+        super(columnGroup, 12);
 
         Month firstMonth = columnGroup.getFirstMonthOfYear();
         int monthIndex = firstMonth.getIndex();
@@ -41,16 +37,16 @@ public class IntervalListMonth extends IntervalList {
         for (int i = 0; i < months.length; i++) {
             Month month = months[monthIndex-1];
             Interval interval = new Interval(Integer.toString(month.getIndex()), i);
+            interval.setRows(new RowList());
             interval.setType(columnGroup.getIntervalSize());
             this.add(interval);
 
-            intervalMap.put(monthIndex-1, interval);
+            fieldIntervals[monthIndex-1] = interval;
             monthIndex = Month.nextIndex(monthIndex);
         }
     }
 
-    public Interval locateInterval(Object value) {
-        Date d = (Date) value;
-        return intervalMap.get(d.getMonth());
+    public int getDateField(Date d) {
+        return d.getMonth();
     }
 }
@@ -16,24 +16,20 @@
 package org.dashbuilder.dataset.engine.group;
 
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.dashbuilder.dataset.date.Month;
 import org.dashbuilder.dataset.date.Quarter;
 import org.dashbuilder.dataset.group.ColumnGroup;
 import org.dashbuilder.dataset.group.Interval;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * List of the 4-quarter intervals present in a year.
  */
-public class IntervalListQuarter extends IntervalList {
-
-    protected Map<Integer,Interval> intervalMap;
+public class IntervalListQuarter extends IntervalListFixedDate {
 
     public IntervalListQuarter(ColumnGroup columnGroup) {
-        super(columnGroup);
-        intervalMap = new HashMap<Integer, Interval>();
+        super(columnGroup, 12);
 
         Month firstMonth = columnGroup.getFirstMonthOfYear();
         int monthIndex = firstMonth.getIndex();
@@ -41,18 +37,18 @@ public class IntervalListQuarter extends IntervalList {
         for (int i = 0; i < 4; i++) {
             Quarter quarter = Quarter.getByIndex(i+1);
             Interval interval = new Interval((Integer.toString(quarter.getIndex())), i);
+            interval.setRows(new RowList());
             interval.setType(columnGroup.getIntervalSize());
             this.add(interval);
 
             for (int j = 0; j < 3; j++) {
-                intervalMap.put(monthIndex-1, interval);
+                fieldIntervals[monthIndex-1] = interval;
                 monthIndex = Month.nextIndex(monthIndex);
             }
         }
     }
 
-    public Interval locateInterval(Object value) {
-        Date d = (Date) value;
-        return intervalMap.get(d.getMonth());
+    public int getDateField(Date d) {
+        return d.getMonth();
     }
 }
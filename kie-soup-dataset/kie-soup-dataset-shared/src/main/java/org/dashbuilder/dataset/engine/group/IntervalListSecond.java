@@ -16,43 +16,35 @@
 package org.dashbuilder.dataset.engine.group;
 
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.dashbuilder.dataset.group.ColumnGroup;
 import org.dashbuilder.dataset.group.Interval;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * List of the 60-second intervals present in a minute.
  */
-public class IntervalListSecond extends IntervalList {
-
-    protected Map<Integer,Interval> intervalMap;
+public class IntervalListSecond extends IntervalListFixedDate {
 
     public IntervalListSecond(ColumnGroup columnGroup) {
         this(columnGroup, 60);
     }
 
     public IntervalListSecond(ColumnGroup columnGroup, int size) {
-        super(columnGroup);
-        intervalMap = new HashMap<Integer, Interval>();
+        super(columnGroup, size);
 
         for (int i = 0; i < size; i++) {
             Interval interval = new Interval(Integer.toString(i), i);
+            interval.setRows(new RowList());
             interval.setType(columnGroup.getIntervalSize());
             this.add(interval);
 
-            intervalMap.put(i, interval);
+            fieldIntervals[i] = interval;
         }
     }
 
-    public Interval locateInterval(Object value) {
-        Date d = (Date) value;
+    public int getDateField(Date d) {
         int sec = d.getSeconds();
-        if (sec > 59) {
-            return intervalMap.get(59);
-        } else {
-            return intervalMap.get(sec);
-        }
+        return sec > 59 ? 59 : sec;
     }
 }
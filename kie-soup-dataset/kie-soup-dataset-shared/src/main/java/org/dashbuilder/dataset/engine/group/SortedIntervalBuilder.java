@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.group;
+
+import java.util.List;
+
+import org.dashbuilder.dataset.engine.DataSetHandler;
+import org.dashbuilder.dataset.group.ColumnGroup;
+
+/**
+ * An interval builder able to take the rows already sorted by the grouped column, so that rows with the same
+ * value come together and the intervals can be built without classifying every single value.
+ */
+public interface SortedIntervalBuilder extends IntervalBuilder {
+
+    /**
+     * Build the same intervals as {@link #build(DataSetHandler, ColumnGroup)} does.
+     * @param ctx The current operation engine data set handler context. Its rows must be in ascending order
+     * (or null for all the rows), as the rows of every interval are.
+     * @param columnGroup The column group operation to apply.
+     * @param sortedRows The rows of the context sorted by the grouped column (ascending or descending).
+     */
+    IntervalList build(DataSetHandler ctx, ColumnGroup columnGroup, List<Integer> sortedRows);
+}
@@ -23,6 +23,7 @@ import org.dashbuilder.dataset.group.Interval;
 import org.dashbuilder.dataset.engine.group.IntervalList;
 import org.dashbuilder.dataset.engine.index.visitor.DataSetIndexVisitor;
 import org.dashbuilder.dataset.group.ColumnGroup;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * A DataSet group operation index
@@ -37,7 +38,7 @@ public class DataSetGroupIndex extends DataSetIndexNode implements DataSetInterv
     Object maxValue = null;
 
     // And can (optionally) contains a subset of interval selections.
-    List<DataSetGroupIndex> selectIndexList = null;
+    volatile List<DataSetGroupIndex> selectIndexList = null;
 
     // When the group represents a selection it has a selection key.
     String selectKey = null;
@@ -76,6 +77,10 @@ public class DataSetGroupIndex extends DataSetIndexNode implements DataSetInterv
         intervalIndexList.add(index);
     }
 
+    public ColumnGroup getColumnGroup() {
+        return columnGroup;
+    }
+
     public String getIntervalType() {
         return intervalType;
     }
@@ -144,6 +149,7 @@ public class DataSetGroupIndex extends DataSetIndexNode implements DataSetInterv
     }
 
     public DataSetGroupIndex getSelectionIndex(List<Interval> intervalList) {
+        List<DataSetGroupIndex> selectIndexList = this.selectIndexList;
         if (selectIndexList == null) {
             return null;
         }
@@ -157,15 +163,19 @@ public class DataSetGroupIndex extends DataSetIndexNode implements DataSetInterv
         return null;
     }
 
-    public DataSetGroupIndex indexSelection(List<Interval> intervalList, List<DataSetIntervalIndex> intervalIndexes) {
-        if (selectIndexList == null) {
-            selectIndexList = new ArrayList<DataSetGroupIndex>();
+    public synchronized DataSetGroupIndex indexSelection(List<Interval> intervalList, List<DataSetIntervalIndex> intervalIndexes) {
+        // Another thread may have just indexed the same selection
+        DataSetGroupIndex existing = getSelectionIndex(intervalList);
+        if (existing != null) {
+            return existing;
         }
+        List<DataSetGroupIndex> result = selectIndexList == null ? new ArrayList<DataSetGroupIndex>() : new ArrayList<DataSetGroupIndex>(selectIndexList);
         String key = buildSelectKey(intervalList);
         DataSetGroupIndex index = new DataSetGroupIndex(key, intervalIndexes);
         index.setParent(this);
         index.setBuildTime(buildTime);
-        selectIndexList.add(index);
+        result.add(index);
+        selectIndexList = result;
         return index;
     }
 
@@ -182,7 +192,7 @@ public class DataSetGroupIndex extends DataSetIndexNode implements DataSetInterv
         if (intervalIndexList == null || intervalIndexList.isEmpty()) {
             return null;
         }
-        List<Integer> results = new ArrayList<Integer>();
+        RowList results = new RowList();
         for (DataSetIntervalIndex intervalIndex : intervalIndexList) {
             results.addAll(intervalIndex.getRows());
         }
@@ -23,6 +23,43 @@ import org.dashbuilder.dataset.DataSet;
  */
 public abstract class DataSetIndex extends DataSetIndexNode {
 
+    // The estimated size of the whole index tree, updated as child indexes are added or removed
+    private final Object sizeLock = new Object();
+    private long indexSize = 0;
+    private volatile DataSetIndexSizeListener sizeListener = null;
+
+    /**
+     * Get the estimated size (in bytes) of this index along with all its child indexes.
+     */
+    public long getIndexSize() {
+        synchronized (sizeLock) {
+            return indexSize;
+        }
+    }
+
+    /**
+     * Set the size of the whole index tree, e.g: once calculated by visiting all its child indexes.
+     */
+    public void setIndexSize(long indexSize) {
+        synchronized (sizeLock) {
+            this.indexSize = indexSize;
+        }
+    }
+
+    public void setSizeListener(DataSetIndexSizeListener sizeListener) {
+        this.sizeListener = sizeListener;
+    }
+
+    protected void updateIndexSize(long delta) {
+        synchronized (sizeLock) {
+            indexSize += delta;
+        }
+        DataSetIndexSizeListener listener = sizeListener;
+        if (listener != null) {
+            listener.indexSizeChanged(this, delta);
+        }
+    }
+
     /**
      * Get the data set referenced by this index.
      */
@@ -27,12 +27,12 @@ public abstract class DataSetIndexElement {
     /**
      * Time (in nanoseconds) required to "build" (load, create, filter, ...) the indexed element.
      */
-    long buildTime = 0;
+    volatile long buildTime = 0;
 
     /**
      * Number of times the data set has been reused from an existing build.
      */
-    int reuseHits = 0;
+    volatile int reuseHits = 0;
 
     DataSetIndexElement(long buildTime) {
         this.buildTime = buildTime;
@@ -50,7 +50,7 @@ public abstract class DataSetIndexElement {
         return reuseHits;
     }
 
-    public void reuseHit() {
+    public synchronized void reuseHit() {
         this.reuseHits++;
     }
 
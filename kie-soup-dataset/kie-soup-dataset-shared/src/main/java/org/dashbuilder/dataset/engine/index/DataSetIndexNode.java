@@ -16,18 +16,22 @@
 package org.dashbuilder.dataset.engine.index;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.dashbuilder.dataset.impl.MemSizeEstimator;
+import org.dashbuilder.dataset.impl.RowList;
+import org.dashbuilder.dataset.engine.filter.FilterSubsumption;
 import org.dashbuilder.dataset.engine.index.visitor.DataSetIndexVisitor;
 import org.dashbuilder.dataset.filter.ColumnFilter;
 import org.dashbuilder.dataset.group.AggregateFunctionType;
 import org.dashbuilder.dataset.group.ColumnGroup;
+import org.dashbuilder.dataset.sort.ColumnSort;
 import org.dashbuilder.dataset.sort.DataSetSort;
+import org.dashbuilder.dataset.sort.SortOrder;
 
 /**
  * A DataSet index node
@@ -36,10 +40,14 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
 
     DataSetIndexNode parent = null;
     List<Integer> rows = null;
-    List<DataSetGroupIndex> groupIndexes = null;
-    List<DataSetSortIndex> sortIndexes = null;
-    List<DataSetFilterIndex> filterIndexes = null;
+
+    // Child index maps are copy-on-write so they can be read without locking. Group and sort indexes are keyed
+    // by their canonical key, filter indexes by column (filters have no canonical key, they're matched by equals)
+    volatile Map<String, DataSetGroupIndex> groupIndexes = null;
+    volatile Map<String, DataSetSortIndex> sortIndexes = null;
+    volatile Map<String, List<DataSetFilterIndex>> filterIndexes = null;
     Map<String, Map<AggregateFunctionType, DataSetFunctionIndex>> functionIndexes = null;
+    Map<String, BuildLock> buildLocks = null;
 
     public DataSetIndexNode() {
         this(null, null, 0);
@@ -48,7 +56,7 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
     public DataSetIndexNode(DataSetIndexNode parent, List<Integer> rows, long buildTime) {
         super(buildTime);
         this.parent = parent;
-        this.rows = rows;
+        this.rows = RowList.of(rows);
     }
 
     public DataSetIndexNode getParent() {
@@ -63,9 +71,23 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
         return rows;
     }
 
+    /**
+     * Get the top most node of the index tree this node belongs to.
+     */
+    public DataSetIndexNode getRoot() {
+        DataSetIndexNode root = this;
+        while (root.parent != null) {
+            root = root.parent;
+        }
+        return root;
+    }
+
     public long getEstimatedSize() {
         long result = super.getEstimatedSize();
-        if (rows != null) {
+        if (rows instanceof RowList) {
+            result += ((RowList) rows).getEstimatedSize();
+        }
+        else if (rows != null) {
             result += rows.size() * MemSizeEstimator.sizeOfInteger;
         }
         return result;
@@ -74,48 +96,127 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
     public void acceptVisitor(DataSetIndexVisitor visitor) {
         super.acceptVisitor(visitor);
 
-        if (groupIndexes != null) {
-            for (DataSetGroupIndex index : groupIndexes) {
-                index.acceptVisitor(visitor);
-            }
+        for (DataSetGroupIndex index : getGroupIndexes()) {
+            index.acceptVisitor(visitor);
         }
-        if (filterIndexes != null) {
-            for (DataSetFilterIndex index : filterIndexes) {
-                index.acceptVisitor(visitor);
-            }
+        for (DataSetFilterIndex index : getFilterIndexes()) {
+            index.acceptVisitor(visitor);
         }
-        if (sortIndexes != null) {
-            for (DataSetSortIndex index : sortIndexes) {
-                index.acceptVisitor(visitor);
+        for (DataSetSortIndex index : getSortIndexes()) {
+            index.acceptVisitor(visitor);
+        }
+        for (DataSetFunctionIndex index : getFunctionIndexes()) {
+            index.acceptVisitor(visitor);
+        }
+    }
+
+    /**
+     * Get the estimated size of the given index along with all its child indexes.
+     */
+    protected static long sizeOf(DataSetIndexElement index) {
+        if (index == null) {
+            return 0;
+        }
+        final long[] size = {0};
+        index.acceptVisitor(new DataSetIndexVisitor() {
+            public void visit(DataSetIndexElement element) {
+                size[0] += element.getEstimatedSize();
             }
+        });
+        return size[0];
+    }
+
+    /**
+     * Let the index tree root know about the child indexes added or removed. It must be called with no lock
+     * held on any node, as the root may trigger the eviction of other indexes.
+     */
+    protected void indexSizeChanged(long delta) {
+        DataSetIndexNode root = getRoot();
+        if (delta != 0 && root instanceof DataSetIndex) {
+            ((DataSetIndex) root).updateIndexSize(delta);
         }
+    }
+
+    protected synchronized List<DataSetFunctionIndex> getFunctionIndexes() {
+        List<DataSetFunctionIndex> result = new ArrayList<DataSetFunctionIndex>();
         if (functionIndexes != null) {
             for (Map<AggregateFunctionType, DataSetFunctionIndex> indexMap : functionIndexes.values()) {
-                for (DataSetFunctionIndex index : indexMap.values()) {
-                    index.acceptVisitor(visitor);
-                }
+                result.addAll(indexMap.values());
             }
         }
+        return result;
     }
 
-    // Aggregate function indexes
-
-    public DataSetFunctionIndex indexAggValue(String columnId, AggregateFunctionType type, Object value, long buildTime) {
-        if (functionIndexes == null) {
-            functionIndexes = new HashMap<>();
+    /**
+     * Get the lock to hold while building the child index identified by the given key. Concurrent requests
+     * for the same child index are serialized through this lock, so that it's built only once, whereas
+     * different child indexes can still be built in parallel. Every call must be followed by a
+     * {@link #releaseBuildLock(String)} call once the index is built.
+     */
+    public synchronized Object acquireBuildLock(String key) {
+        if (buildLocks == null) {
+            buildLocks = new HashMap<>();
         }
+        BuildLock lock = buildLocks.get(key);
+        if (lock == null) {
+            buildLocks.put(key, lock = new BuildLock());
+        }
+        lock.holders++;
+        return lock;
+    }
 
-        Map<AggregateFunctionType,DataSetFunctionIndex> columnAggFunctions = functionIndexes.get(columnId);
-        if (columnAggFunctions == null) {
-            functionIndexes.put(columnId, columnAggFunctions = new EnumMap<>(AggregateFunctionType.class));
+    /**
+     * Release the build lock of the given key. The lock is discarded once no one else is waiting for it.
+     */
+    public synchronized void releaseBuildLock(String key) {
+        BuildLock lock = buildLocks == null ? null : buildLocks.get(key);
+        if (lock != null && --lock.holders == 0) {
+            buildLocks.remove(key);
         }
+    }
 
+    protected static class BuildLock {
+        int holders = 0;
+    }
+
+    // Aggregate function indexes
+
+    public DataSetFunctionIndex indexAggValue(String columnId, AggregateFunctionType type, Object value, long buildTime) {
         DataSetFunctionIndex index = new DataSetFunctionIndex(value, buildTime);
-        columnAggFunctions.put(type, index);
+        DataSetFunctionIndex old;
+        synchronized (this) {
+            if (functionIndexes == null) {
+                functionIndexes = new HashMap<>();
+            }
+
+            Map<AggregateFunctionType,DataSetFunctionIndex> columnAggFunctions = functionIndexes.get(columnId);
+            if (columnAggFunctions == null) {
+                functionIndexes.put(columnId, columnAggFunctions = new EnumMap<>(AggregateFunctionType.class));
+            }
+            old = columnAggFunctions.put(type, index);
+        }
+        indexSizeChanged(sizeOf(index) - sizeOf(old));
         return index;
     }
 
-    public Object getAggValue(String columnId, AggregateFunctionType type) {
+    /**
+     * Get the aggregate values indexed so far, by column and function type.
+     */
+    public synchronized Map<String, Map<AggregateFunctionType, Object>> getAggValues() {
+        Map<String, Map<AggregateFunctionType, Object>> result = new HashMap<>();
+        if (functionIndexes != null) {
+            for (Map.Entry<String, Map<AggregateFunctionType, DataSetFunctionIndex>> entry : functionIndexes.entrySet()) {
+                Map<AggregateFunctionType, Object> values = new EnumMap<>(AggregateFunctionType.class);
+                for (Map.Entry<AggregateFunctionType, DataSetFunctionIndex> function : entry.getValue().entrySet()) {
+                    values.put(function.getKey(), function.getValue().getValue());
+                }
+                result.put(entry.getKey(), values);
+            }
+        }
+        return result;
+    }
+
+    public synchronized Object getAggValue(String columnId, AggregateFunctionType type) {
         if (functionIndexes == null) return null;
 
         Map<AggregateFunctionType,DataSetFunctionIndex> columnAggFunctions = functionIndexes.get(columnId);
@@ -128,30 +229,89 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
         return functionIndex.getValue();
     }
 
-    // TODO: coordinate concurrent index modifications
+    /**
+     * Remove the given child index (group, filter, sort or aggregate function) from this node.
+     * @return true if the index was a child of this node.
+     */
+    public boolean removeIndex(DataSetIndexElement index) {
+        boolean removed;
+        synchronized (this) {
+            removed = _removeIndex(index);
+        }
+        if (removed) {
+            indexSizeChanged(-sizeOf(index));
+        }
+        return removed;
+    }
+
+    private boolean _removeIndex(DataSetIndexElement index) {
+        if (groupIndexes != null && groupIndexes.containsValue(index)) {
+            Map<String, DataSetGroupIndex> result = new LinkedHashMap<String, DataSetGroupIndex>(groupIndexes);
+            result.values().remove(index);
+            groupIndexes = result;
+            return true;
+        }
+        if (index instanceof DataSetFilterIndex && filterIndexes != null) {
+            String key = getFilterColumnKey(((DataSetFilterIndex) index).getColumnFilter());
+            List<DataSetFilterIndex> columnIndexes = filterIndexes.get(key);
+            if (columnIndexes != null && columnIndexes.contains(index)) {
+                Map<String, List<DataSetFilterIndex>> result = new LinkedHashMap<String, List<DataSetFilterIndex>>(filterIndexes);
+                List<DataSetFilterIndex> indexes = new ArrayList<DataSetFilterIndex>(columnIndexes);
+                indexes.remove(index);
+                if (indexes.isEmpty()) {
+                    result.remove(key);
+                } else {
+                    result.put(key, indexes);
+                }
+                filterIndexes = result;
+                return true;
+            }
+        }
+        if (sortIndexes != null && sortIndexes.containsValue(index)) {
+            Map<String, DataSetSortIndex> result = new LinkedHashMap<String, DataSetSortIndex>(sortIndexes);
+            result.values().remove(index);
+            sortIndexes = result;
+            return true;
+        }
+        if (functionIndexes != null) {
+            for (Map<AggregateFunctionType, DataSetFunctionIndex> indexMap : functionIndexes.values()) {
+                if (indexMap.values().remove(index)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 
     // Group indexes
 
     public DataSetGroupIndex indexGroup(DataSetGroupIndex index) {
-        if (groupIndexes == null) groupIndexes = new ArrayList<DataSetGroupIndex>();
-        index.setParent(this);
-        index.setBuildTime(buildTime);
-        groupIndexes.add(index);
+        DataSetGroupIndex old;
+        synchronized (this) {
+            Map<String, DataSetGroupIndex> result = groupIndexes == null ? new LinkedHashMap<String, DataSetGroupIndex>() : new LinkedHashMap<String, DataSetGroupIndex>(groupIndexes);
+            index.setParent(this);
+            index.setBuildTime(buildTime);
+            old = result.put(getGroupKey(index.columnGroup), index);
+            groupIndexes = result;
+        }
+        indexSizeChanged(sizeOf(index) - sizeOf(old));
         return index;
     }
 
+    public List<DataSetGroupIndex> getGroupIndexes() {
+        Map<String, DataSetGroupIndex> groupIndexes = this.groupIndexes;
+        return groupIndexes == null ? new ArrayList<DataSetGroupIndex>() : new ArrayList<DataSetGroupIndex>(groupIndexes.values());
+    }
+
     public DataSetGroupIndex getGroupIndex(ColumnGroup gc) {
+        Map<String, DataSetGroupIndex> groupIndexes = this.groupIndexes;
         if (groupIndexes == null) return null;
 
-        String key = getGroupKey(gc);
-        for (DataSetGroupIndex groupIndex : groupIndexes) {
-            ColumnGroup c = groupIndex.columnGroup;
-            if (key.equals(getGroupKey(c))) {
-                groupIndex.reuseHit();
-                return groupIndex;
-            }
+        DataSetGroupIndex groupIndex = groupIndexes.get(getGroupKey(gc));
+        if (groupIndex != null) {
+            groupIndex.reuseHit();
         }
-        return null;
+        return groupIndex;
     }
 
     public String getGroupKey(ColumnGroup columnGroup) {
@@ -168,19 +328,41 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
     // Filter indexes
 
     public DataSetFilterIndex indexFilter(ColumnFilter filter, List<Integer> rows, long buildTime) {
-        if (filterIndexes == null) filterIndexes = new ArrayList<DataSetFilterIndex>();
-
         DataSetFilterIndex index = new DataSetFilterIndex(filter, rows);
-        index.setParent(this);
         index.setBuildTime(buildTime);
-        filterIndexes.add(index);
+        synchronized (this) {
+            Map<String, List<DataSetFilterIndex>> result = filterIndexes == null ? new LinkedHashMap<String, List<DataSetFilterIndex>>() : new LinkedHashMap<String, List<DataSetFilterIndex>>(filterIndexes);
+            index.setParent(this);
+            String key = getFilterColumnKey(filter);
+            List<DataSetFilterIndex> columnIndexes = result.get(key);
+            columnIndexes = columnIndexes == null ? new ArrayList<DataSetFilterIndex>() : new ArrayList<DataSetFilterIndex>(columnIndexes);
+            columnIndexes.add(index);
+            result.put(key, columnIndexes);
+            filterIndexes = result;
+        }
+        indexSizeChanged(sizeOf(index));
         return index;
     }
 
+    public List<DataSetFilterIndex> getFilterIndexes() {
+        Map<String, List<DataSetFilterIndex>> filterIndexes = this.filterIndexes;
+        List<DataSetFilterIndex> result = new ArrayList<DataSetFilterIndex>();
+        if (filterIndexes != null) {
+            for (List<DataSetFilterIndex> columnIndexes : filterIndexes.values()) {
+                result.addAll(columnIndexes);
+            }
+        }
+        return result;
+    }
+
     public DataSetFilterIndex getFilterIndex(ColumnFilter filter) {
+        Map<String, List<DataSetFilterIndex>> filterIndexes = this.filterIndexes;
         if (filterIndexes == null) return null;
 
-        for (DataSetFilterIndex index: filterIndexes) {
+        List<DataSetFilterIndex> columnIndexes = filterIndexes.get(getFilterColumnKey(filter));
+        if (columnIndexes == null) return null;
+
+        for (DataSetFilterIndex index: columnIndexes) {
             if (filter.equals(index.getColumnFilter())) {
                 index.reuseHit();
                 return index;
@@ -189,37 +371,153 @@ public abstract class DataSetIndexNode extends DataSetIndexElement {
         return null;
     }
 
+    /**
+     * Get the index of a broader filter over the same column, the one with the fewest rows. All the rows
+     * passing the given filter are within the rows of such index.
+     * @return null if no indexed filter covers the given one.
+     */
+    public DataSetFilterIndex getCoveringFilterIndex(ColumnFilter filter) {
+        Map<String, List<DataSetFilterIndex>> filterIndexes = this.filterIndexes;
+        if (filterIndexes == null) return null;
+
+        List<DataSetFilterIndex> columnIndexes = filterIndexes.get(getFilterColumnKey(filter));
+        if (columnIndexes == null) return null;
+
+        DataSetFilterIndex result = null;
+        for (DataSetFilterIndex index: columnIndexes) {
+            if (FilterSubsumption.subsumes(index.getColumnFilter(), filter)
+                    && (result == null || index.getRows().size() < result.getRows().size())) {
+                result = index;
+            }
+        }
+        if (result != null) {
+            result.reuseHit();
+        }
+        return result;
+    }
+
+    protected String getFilterColumnKey(ColumnFilter filter) {
+        return String.valueOf(filter.getColumnId());
+    }
+
+    public String getFilterKey(ColumnFilter filter) {
+        return filter.toString();
+    }
+
     // Sort indexes
 
     public DataSetSortIndex indexSort(DataSetSort sortOp, List<Integer> sortedRows, long buildTime) {
-        if (sortIndexes == null) sortIndexes = new ArrayList<DataSetSortIndex>();
-
-        DataSetSortIndex index = new DataSetSortIndex(sortOp, sortedRows);
-        index.setParent(this);
-        index.setBuildTime(buildTime);
-        sortIndexes.add(index);
+        return indexSort(sortOp, sortedRows, sortedRows.size(), buildTime);
+    }
 
-        // Also create an index for the inverted sort.
+    /**
+     * Index the results of a sort operation, replacing any partial index for the same sort.
+     * @param totalRows The number of rows sorted. If greater than the number of sorted rows given then
+     * the index is a partial one, holding only the first rows of the sort results.
+     */
+    public DataSetSortIndex indexSort(DataSetSort sortOp, List<Integer> sortedRows, int totalRows, long buildTime) {
         DataSetSort invertedSortOp = sortOp.cloneInstance().invertOrder();
-        List<Integer> invertedRows = new ArrayList<Integer>(sortedRows);
-        Collections.reverse(invertedRows);
-        DataSetSortIndex invertedIndex = new DataSetSortIndex(invertedSortOp, invertedRows);
-        invertedIndex.setParent(this);
-        sortIndexes.add(invertedIndex);
+        String key = getSortKey(sortOp);
+        String invertedKey = getSortKey(invertedSortOp);
+        DataSetSortIndex index = new DataSetSortIndex(sortOp, sortedRows, totalRows);
+        index.setBuildTime(buildTime);
 
+        // Also create an index for the inverted sort (not possible from the first rows only).
+        DataSetSortIndex invertedIndex = null;
+        if (!index.isPartial()) {
+            List<Integer> invertedRows = RowList.of(sortedRows).reverse();
+            invertedIndex = new DataSetSortIndex(invertedSortOp, invertedRows);
+        }
+        long delta = sizeOf(index) + sizeOf(invertedIndex);
+        synchronized (this) {
+            Map<String, DataSetSortIndex> result = sortIndexes == null ? new LinkedHashMap<String, DataSetSortIndex>() : new LinkedHashMap<String, DataSetSortIndex>(sortIndexes);
+            delta -= sizeOf(result.remove(key)) + sizeOf(result.remove(invertedKey));
+
+            index.setParent(this);
+            result.put(key, index);
+            if (invertedIndex != null) {
+                invertedIndex.setParent(this);
+                result.put(invertedKey, invertedIndex);
+            }
+            sortIndexes = result;
+        }
+        indexSizeChanged(delta);
         return index;
     }
 
+    public List<DataSetSortIndex> getSortIndexes() {
+        Map<String, DataSetSortIndex> sortIndexes = this.sortIndexes;
+        return sortIndexes == null ? new ArrayList<DataSetSortIndex>() : new ArrayList<DataSetSortIndex>(sortIndexes.values());
+    }
+
     public DataSetSortIndex getSortIndex(DataSetSort sortOp) {
+        return getSortIndex(sortOp, -1);
+    }
+
+    /**
+     * Get the index for the given sort holding (at least) the first <i>limit</i> rows of the sort results.
+     * @param limit The number of rows required. A negative value means all the rows.
+     */
+    public DataSetSortIndex getSortIndex(DataSetSort sortOp, int limit) {
+        Map<String, DataSetSortIndex> sortIndexes = this.sortIndexes;
+        if (sortIndexes == null) return null;
+
+        DataSetSortIndex sortIndex = sortIndexes.get(getSortKey(sortOp));
+        if (sortIndex != null && sortIndex.covers(limit)) {
+            sortIndex.reuseHit();
+            return sortIndex;
+        }
+        return null;
+    }
+
+    /**
+     * Get the complete sort index over the longest leading part of the given sort columns, e.g: the index
+     * of (region) for a sort by (region, amount).
+     * @return null if no such index exists.
+     */
+    public DataSetSortIndex getSortPrefixIndex(DataSetSort sortOp) {
+        Map<String, DataSetSortIndex> sortIndexes = this.sortIndexes;
         if (sortIndexes == null) return null;
 
-        for (DataSetSortIndex sortIndex : sortIndexes) {
-            if (sortOp.equals(sortIndex.getSortOp())) {
+        List<ColumnSort> columnSortList = sortOp.getColumnSortList();
+        for (int n = columnSortList.size() - 1; n > 0; n--) {
+            DataSetSort prefixOp = new DataSetSort();
+            for (ColumnSort columnSort : columnSortList.subList(0, n)) {
+                prefixOp.addSortColumn(columnSort);
+            }
+            DataSetSortIndex sortIndex = sortIndexes.get(getSortKey(prefixOp));
+            if (sortIndex != null && !sortIndex.isPartial()) {
                 sortIndex.reuseHit();
                 return sortIndex;
             }
         }
         return null;
     }
-}
 
+    /**
+     * Get the complete index of the ascending sort by just the given column. Any other sort index (descending,
+     * over several columns) would require sorting the rows of every value again, so it's never returned.
+     * @return null if no such index exists.
+     */
+    public DataSetSortIndex getColumnSortIndex(String columnId) {
+        Map<String, DataSetSortIndex> sortIndexes = this.sortIndexes;
+        if (sortIndexes == null) return null;
+
+        DataSetSort sortOp = new DataSetSort();
+        sortOp.addSortColumn(new ColumnSort(columnId, SortOrder.ASCENDING));
+        DataSetSortIndex sortIndex = sortIndexes.get(getSortKey(sortOp));
+        if (sortIndex != null && !sortIndex.isPartial()) {
+            sortIndex.reuseHit();
+            return sortIndex;
+        }
+        return null;
+    }
+
+    public String getSortKey(DataSetSort sortOp) {
+        StringBuilder out = new StringBuilder();
+        for (ColumnSort columnSort : sortOp.getColumnSortList()) {
+            out.append(columnSort.getColumnId()).append("_").append(columnSort.getOrder()).append(" ");
+        }
+        return out.toString();
+    }
+}
@@ -21,18 +21,44 @@ import org.dashbuilder.dataset.sort.DataSetSort;
 
 /**
  * An index for source data sets.
+ * <p>A sort index might hold just the first rows of the sort results (top-N) instead of all the rows sorted.</p>
  */
 public class DataSetSortIndex extends DataSetIndexNode {
 
     private DataSetSort sortOp;
+    private int totalRows;
 
     public DataSetSortIndex(DataSetSort sortOp, List<Integer> sortedRows) {
+        this(sortOp, sortedRows, sortedRows.size());
+    }
+
+    public DataSetSortIndex(DataSetSort sortOp, List<Integer> sortedRows, int totalRows) {
         super(null, sortedRows, 0);
         this.sortOp = sortOp;
+        this.totalRows = totalRows;
     }
 
     public DataSetSort getSortOp() {
         return sortOp;
     }
+
+    /**
+     * The number of rows sorted, which is greater than the number of rows held by partial indexes.
+     */
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    public boolean isPartial() {
+        return rows.size() < totalRows;
+    }
+
+    /**
+     * Check if this index holds the first <i>limit</i> rows of the sort results.
+     * @param limit The number of rows required. A negative value means all the rows.
+     */
+    public boolean covers(int limit) {
+        return !isPartial() || (limit >= 0 && limit <= rows.size());
+    }
 }
 
@@ -15,23 +15,84 @@
  */
 package org.dashbuilder.dataset.engine.index;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.engine.index.spi.DataSetIndexRegistry;
 import org.dashbuilder.dataset.uuid.UUIDGenerator;
 
-public class TransientDataSetIndexRegistry implements DataSetIndexRegistry {
+/**
+ * An in-memory index registry.
+ * <p>It can (optionally) be bounded by a maximum heap size. The size of every index tree is kept up to date as
+ * child indexes are added or removed. Once the estimated size of the indexes goes beyond that size, the child
+ * indexes with the lowest build time and reuse per byte are discarded first (they are cheap to rebuild or rarely
+ * reused). The data sets themselves are never discarded as the registry is the only place they are kept, so
+ * their size is not part of the budget (evicting indexes could never make up for it).</p>
+ */
+public class TransientDataSetIndexRegistry implements DataSetIndexRegistry, DataSetIndexSizeListener {
 
     protected UUIDGenerator uuidGenerator;
     protected Map<String,DataSetIndex> indexMap = new HashMap<String, DataSetIndex>();
+    protected Map<String,Long> dataSetSizeMap = new HashMap<String, Long>();
+    protected long dataSetsSize = 0;
+    protected volatile long maxSize = -1;
+    protected int indexEvictions = 0;
 
     public TransientDataSetIndexRegistry(UUIDGenerator uuidGenerator) {
         this.uuidGenerator = uuidGenerator;
     }
 
-    public DataSetIndex put(DataSet dataSet) {
+    public TransientDataSetIndexRegistry(UUIDGenerator uuidGenerator, long maxSize) {
+        this(uuidGenerator);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The maximum heap size (in bytes) for the indexes of the registered data sets. Any value
+     * lower or equals than zero means no limit (the default).
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        checkMaxSize();
+    }
+
+    /**
+     * The estimated size (in bytes) of the registered data sets and their indexes.
+     */
+    public synchronized long getFootprint() {
+        return dataSetsSize + getIndexFootprint();
+    }
+
+    /**
+     * The estimated size (in bytes) of the indexes, the one bounded by the max size.
+     */
+    public synchronized long getIndexFootprint() {
+        long footprint = 0;
+        for (DataSetIndex index : indexMap.values()) {
+            footprint += index.getIndexSize();
+        }
+        return footprint;
+    }
+
+    /**
+     * Number of child indexes discarded in order to keep the footprint under the max size.
+     */
+    public synchronized int getIndexEvictions() {
+        return indexEvictions;
+    }
+
+    public synchronized DataSetIndex put(DataSet dataSet) {
         if (dataSet == null) {
             return null;
         }
@@ -41,12 +102,29 @@ public class TransientDataSetIndexRegistry implements DataSetIndexRegistry {
             dataSet.setUUID(uuid);
         }
 
-        DataSetIndex dsIndex = new DataSetStaticIndex(dataSet);
+        return put(new DataSetStaticIndex(dataSet));
+    }
+
+    public synchronized DataSetIndex put(DataSetIndex dsIndex) {
+        DataSet dataSet = dsIndex.getDataSet();
+        String uuid = dataSet.getUUID();
+        if (uuid == null || uuid.length() == 0) {
+            throw new IllegalArgumentException("The data set has no UUID");
+        }
+        remove(uuid);
         indexMap.put(uuid, dsIndex);
+        long dataSetSize = dataSet.getEstimatedSize();
+        dataSetSizeMap.put(uuid, dataSetSize);
+        dataSetsSize += dataSetSize;
+
+        // From now on, the index size is updated as child indexes are added or removed
+        dsIndex.setIndexSize(DataSetIndexNode.sizeOf(dsIndex));
+        dsIndex.setSizeListener(this);
+        checkMaxSize();
         return dsIndex;
     }
 
-    public DataSetIndex get(String uuid) {
+    public synchronized DataSetIndex get(String uuid) {
         DataSetIndex index = indexMap.get(uuid);
         if (index != null) {
             index.reuseHit();
@@ -54,8 +132,124 @@ public class TransientDataSetIndexRegistry implements DataSetIndexRegistry {
         return index;
     }
 
-    public DataSetIndex remove(String uuid) {
-        return indexMap.remove(uuid);
+    public synchronized DataSetIndex remove(String uuid) {
+        DataSetIndex index = indexMap.remove(uuid);
+        if (index != null) {
+            index.setSizeListener(null);
+        }
+        Long dataSetSize = dataSetSizeMap.remove(uuid);
+        if (dataSetSize != null) {
+            dataSetsSize -= dataSetSize;
+        }
+        return index;
     }
-}
 
+    public void indexSizeChanged(DataSetIndex index, long delta) {
+        // Only new indexes can push the footprint beyond the limit (evictions are notified as negative deltas)
+        if (delta > 0 && maxSize > 0) {
+            checkMaxSize();
+        }
+    }
+
+    /**
+     * Evict child indexes until the index footprint gets under the max size.
+     */
+    protected synchronized void checkMaxSize() {
+        if (maxSize <= 0 || getIndexFootprint() <= maxSize) {
+            return;
+        }
+        // Fix any deviation of the incremental sizes (e.g: indexes built under an already evicted node)
+        refreshSizes();
+        if (getIndexFootprint() > maxSize) {
+            evictIndexes();
+        }
+    }
+
+    /**
+     * Calculate the size of every index tree by visiting all its child indexes.
+     */
+    protected void refreshSizes() {
+        for (DataSetIndex index : indexMap.values()) {
+            index.setIndexSize(DataSetIndexNode.sizeOf(index));
+        }
+    }
+
+    /**
+     * Discard the child indexes with the lowest score until the index footprint gets under the max size. The
+     * footprint decreases as every index is removed, so the candidates are collected and sized only once.
+     */
+    protected boolean evictIndexes() {
+        List<IndexCandidate> candidates = new ArrayList<IndexCandidate>();
+        for (DataSetIndex index : indexMap.values()) {
+            collectCandidates(index, candidates);
+        }
+        Collections.sort(candidates, new Comparator<IndexCandidate>() {
+            public int compare(IndexCandidate c1, IndexCandidate c2) {
+                return Double.compare(c1.score, c2.score);
+            }
+        });
+
+        Set<DataSetIndexElement> evicted = new HashSet<DataSetIndexElement>();
+        int evictions = indexEvictions;
+        for (int i = 0; i < candidates.size() && getIndexFootprint() > maxSize; i++) {
+            IndexCandidate candidate = candidates.get(i);
+            if (isEvicted(candidate.parent, evicted) || !candidate.parent.removeIndex(candidate.index)) {
+                continue;
+            }
+            evicted.add(candidate.index);
+            indexEvictions++;
+        }
+        return indexEvictions > evictions;
+    }
+
+    protected boolean isEvicted(DataSetIndexNode node, Set<DataSetIndexElement> evicted) {
+        for (DataSetIndexNode n = node; n != null; n = n.getParent()) {
+            if (evicted.contains(n)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected void collectCandidates(DataSetIndexNode node, List<IndexCandidate> candidates) {
+        for (DataSetGroupIndex index : node.getGroupIndexes()) {
+            candidates.add(new IndexCandidate(node, index));
+            for (DataSetIntervalIndex intervalIndex : index.getIntervalIndexes()) {
+                collectCandidates(intervalIndex, candidates);
+            }
+            List<DataSetGroupIndex> selectIndexes = index.selectIndexList;
+            if (selectIndexes != null) {
+                for (DataSetGroupIndex selectIndex : selectIndexes) {
+                    collectCandidates(selectIndex, candidates);
+                }
+            }
+            collectCandidates(index, candidates);
+        }
+        for (DataSetFilterIndex index : node.getFilterIndexes()) {
+            candidates.add(new IndexCandidate(node, index));
+            collectCandidates(index, candidates);
+        }
+        for (DataSetSortIndex index : node.getSortIndexes()) {
+            candidates.add(new IndexCandidate(node, index));
+        }
+        for (DataSetFunctionIndex index : node.getFunctionIndexes()) {
+            candidates.add(new IndexCandidate(node, index));
+        }
+    }
+
+    protected static class IndexCandidate {
+
+        DataSetIndexNode parent;
+        DataSetIndexElement index;
+        long size;
+        double score;
+
+        IndexCandidate(DataSetIndexNode parent, DataSetIndexElement index) {
+            this.parent = parent;
+            this.index = index;
+            this.size = Math.max(DataSetIndexNode.sizeOf(index), 1);
+            // The time saved by the index per byte of memory it takes
+            this.score = (double) index.getBuildTime() * (index.getReuseHits() + 1) / size;
+        }
+    }
+}
@@ -28,6 +28,11 @@ public interface DataSetIndexRegistry {
      */
     DataSetIndex put(DataSet dataSet);
 
+    /**
+     * Register an index already built, replacing the current index of its data set (if any).
+     */
+    DataSetIndex put(DataSetIndex index);
+
     /**
      * Get the index for the specified data set.
      * @param uuid The data set unique identifier.
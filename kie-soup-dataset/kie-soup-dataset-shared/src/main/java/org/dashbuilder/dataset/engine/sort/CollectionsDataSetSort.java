@@ -15,13 +15,13 @@
  */
 package org.dashbuilder.dataset.engine.sort;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import org.dashbuilder.dataset.DataColumn;
 import org.dashbuilder.dataset.DataSet;
 import org.dashbuilder.dataset.sort.ColumnSort;
+import org.dashbuilder.dataset.impl.RowList;
 
 /**
  * A basic sort algorithm takes relies on the default <tt>Collections.sort()</tt> implementation.
@@ -36,24 +36,106 @@ public class CollectionsDataSetSort implements DataSetSortAlgorithm {
     public List<Integer> sort(DataSet dataSet, List<Integer> rowNumbers, List<ColumnSort> columnSortList) {
 
         // Create the comparator.
-        DataSetRowComparator comparator = new DataSetRowComparator();
-        for (ColumnSort columnSort : columnSortList) {
-            DataColumn column = dataSet.getColumnById(columnSort.getColumnId());
-            if (column == null) throw new IllegalArgumentException("Sort column not found: " + columnSort.getColumnId());
+        DataSetRowComparator comparator = createComparator(dataSet, columnSortList);
 
-            comparator.criteria(column, columnSort.getOrder());
-        }
         // Create the row number list to sort.
-        List<Integer> rows = new ArrayList<Integer>();
+        RowList rows;
         if (rowNumbers != null) {
-            rows.addAll(rowNumbers);
+            rows = new RowList(rowNumbers);
         } else {
-            for (int i=0; i<dataSet.getRowCount(); i++) {
-                rows.add(i);
-            }
+            rows = RowList.range(dataSet.getRowCount());
         }
         // Sort the row numbers.
         Collections.sort(rows, comparator);
         return rows;
     }
+
+    /**
+     * Select the first rows with a bounded heap, so just <i>O(n log(limit))</i> comparisons are needed.
+     * Rows with the same values keep their original order, as the (stable) full sort does.
+     */
+    public List<Integer> sort(DataSet dataSet, List<Integer> rowNumbers, List<ColumnSort> columnSortList, int limit) {
+        RowList targetRows = RowList.of(rowNumbers);
+        int n = targetRows == null ? dataSet.getRowCount() : targetRows.size();
+        if (limit >= n) {
+            return sort(dataSet, rowNumbers, columnSortList);
+        }
+        if (limit <= 0) {
+            return new RowList(0);
+        }
+        DataSetRowComparator comparator = createComparator(dataSet, columnSortList);
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = targetRows == null ? i : targetRows.getRow(i);
+        }
+
+        // Max-heap of positions holding the best rows found so far (the worst one on top)
+        int[] heap = new int[limit];
+        int size = 0;
+        for (int pos = 0; pos < n; pos++) {
+            if (size < limit) {
+                heap[size] = pos;
+                siftUp(heap, size++, rows, comparator);
+            }
+            // Ties are discarded as the row at the top comes first
+            else if (compare(rows, pos, heap[0], comparator) < 0) {
+                heap[0] = pos;
+                siftDown(heap, size, rows, comparator);
+            }
+        }
+        // Take the worst row out until the heap gets empty
+        int[] result = new int[limit];
+        while (size > 0) {
+            result[size - 1] = rows[heap[0]];
+            heap[0] = heap[--size];
+            siftDown(heap, size, rows, comparator);
+        }
+        RowList rowList = new RowList(limit);
+        for (int row : result) {
+            rowList.addRow(row);
+        }
+        return rowList;
+    }
+
+    protected DataSetRowComparator createComparator(DataSet dataSet, List<ColumnSort> columnSortList) {
+        DataSetRowComparator comparator = new DataSetRowComparator();
+        for (ColumnSort columnSort : columnSortList) {
+            DataColumn column = dataSet.getColumnById(columnSort.getColumnId());
+            if (column == null) throw new IllegalArgumentException("Sort column not found: " + columnSort.getColumnId());
+
+            comparator.criteria(column, columnSort.getOrder());
+        }
+        return comparator;
+    }
+
+    private static int compare(int[] rows, int pos1, int pos2, DataSetRowComparator comparator) {
+        int comp = comparator.compare(rows[pos1], rows[pos2]);
+        return comp != 0 ? comp : pos1 - pos2;
+    }
+
+    private static void siftUp(int[] heap, int i, int[] rows, DataSetRowComparator comparator) {
+        int pos = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (compare(rows, pos, heap[parent], comparator) <= 0) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = pos;
+    }
+
+    private static void siftDown(int[] heap, int size, int[] rows, DataSetRowComparator comparator) {
+        if (size == 0) return;
+        int pos = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && compare(rows, heap[child + 1], heap[child], comparator) > 0) child++;
+            if (compare(rows, pos, heap[child], comparator) >= 0) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = pos;
+    }
 }
@@ -21,6 +21,10 @@ import java.util.List;
 
 import org.dashbuilder.comparator.ComparatorUtils;
 import org.dashbuilder.dataset.DataColumn;
+import org.dashbuilder.dataset.impl.ColumnarList;
+import org.dashbuilder.dataset.impl.DateColumnarList;
+import org.dashbuilder.dataset.impl.DoubleColumnarList;
+import org.dashbuilder.dataset.impl.LabelColumnarList;
 import org.dashbuilder.dataset.sort.SortOrder;
 
 /**
@@ -50,11 +54,49 @@ public class DataSetRowComparator implements Comparator<Integer> {
         for (int i=0; i<columns.size(); i++) {
             DataColumn column = columns.get(i);
             SortOrder order = orders.get(i);
-            Comparable value1 = (Comparable) column.getValues().get(row1);
-            Comparable value2 = (Comparable) column.getValues().get(row2);
-            int comp = ComparatorUtils.compare(value1, value2, order.asInt());
+            List values = column.getValues();
+            int comp;
+            if (values instanceof ColumnarList) {
+                comp = compare((ColumnarList) values, row1, row2, order.asInt());
+            } else {
+                Comparable value1 = (Comparable) values.get(row1);
+                Comparable value2 = (Comparable) values.get(row2);
+                comp = ComparatorUtils.compare(value1, value2, order.asInt());
+            }
             if (comp != 0) return comp;
         }
         return 0;
     }
+
+    /**
+     * Compare two rows reading the values straight from the columnar storage.
+     * Nulls go first, same as in {@link ComparatorUtils#compare(Comparable, Comparable, int)}
+     */
+    protected int compare(ColumnarList values, int row1, int row2, int ordering) {
+        int comp;
+        boolean null1 = values.isNull(row1);
+        boolean null2 = values.isNull(row2);
+        if (null1 || null2) {
+            comp = null1 == null2 ? 0 : (null1 ? -1 : 1);
+        }
+        else if (values instanceof DoubleColumnarList) {
+            DoubleColumnarList doubles = (DoubleColumnarList) values;
+            comp = Double.compare(doubles.getDouble(row1), doubles.getDouble(row2));
+        }
+        else if (values instanceof DateColumnarList) {
+            DateColumnarList dates = (DateColumnarList) values;
+            long t1 = dates.getTime(row1);
+            long t2 = dates.getTime(row2);
+            comp = t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+        }
+        else {
+            LabelColumnarList labels = (LabelColumnarList) values;
+            int code1 = labels.getCode(row1);
+            int code2 = labels.getCode(row2);
+            comp = code1 == code2 ? 0 : labels.getLabel(code1).compareTo(labels.getLabel(code2));
+        }
+        if (comp > 0) comp = 1;
+        else if (comp < 0) comp = -1;
+        return ordering == -1 ? -comp : comp;
+    }
 }
@@ -41,4 +41,18 @@ public interface DataSetSortAlgorithm {
      * @return A list of ordered row numbers reflecting the sort results.
      */
     List<Integer> sort(DataSet dataSet, List<Integer> rowNumbers, List<ColumnSort> columnSortList);
+
+    /**
+     * Get only the first rows of the sort results (top-N).
+     * @param dataSet The data set to sort
+     * @param rowNumbers The subset of rows to sort (null means all the rows)
+     * @param columnSortList The sort operations to apply
+     * @param limit The number of rows to get
+     * @return The first <i>limit</i> row numbers of the list returned by {@link #sort(DataSet, List, List)}.
+     * By default, all the rows are sorted and then the first ones taken.
+     */
+    default List<Integer> sort(DataSet dataSet, List<Integer> rowNumbers, List<ColumnSort> columnSortList, int limit) {
+        List<Integer> sorted = rowNumbers == null ? sort(dataSet, columnSortList) : sort(dataSet, rowNumbers, columnSortList);
+        return sorted.subList(0, Math.max(0, Math.min(limit, sorted.size())));
+    }
 }
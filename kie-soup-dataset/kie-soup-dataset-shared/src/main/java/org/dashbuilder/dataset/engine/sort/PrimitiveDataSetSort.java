@@ -0,0 +1,270 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dashbuilder.dataset.DataColumn;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.impl.ColumnarList;
+import org.dashbuilder.dataset.impl.DateColumnarList;
+import org.dashbuilder.dataset.impl.DoubleColumnarList;
+import org.dashbuilder.dataset.impl.LabelColumnarList;
+import org.dashbuilder.dataset.impl.RowList;
+import org.dashbuilder.dataset.sort.ColumnSort;
+import org.dashbuilder.dataset.sort.SortOrder;
+
+/**
+ * A sort algorithm that extracts the values of the first sort column into an array of primitive keys
+ * (numbers and dates are turned into order-preserving longs and labels into their rank) and sorts the
+ * row numbers with a stable radix sort.
+ * <p>The row comparator is only used to sort the rows with the same first column value by the rest of
+ * the sort columns. Columns holding any other kind of values are sorted by the default algorithm.
+ * Either way, the results are the same as the ones of the {@link CollectionsDataSetSort}.</p>
+ */
+public class PrimitiveDataSetSort extends CollectionsDataSetSort {
+
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    public List<Integer> sort(DataSet dataSet, List<Integer> rowNumbers, List<ColumnSort> columnSortList) {
+        if (columnSortList == null || columnSortList.isEmpty()) {
+            return super.sort(dataSet, rowNumbers, columnSortList);
+        }
+        List<DataColumn> columns = new ArrayList<DataColumn>();
+        for (ColumnSort columnSort : columnSortList) {
+            DataColumn column = dataSet.getColumnById(columnSort.getColumnId());
+            if (column == null) throw new IllegalArgumentException("Sort column not found: " + columnSort.getColumnId());
+            columns.add(column);
+        }
+        RowList targetRows = RowList.of(rowNumbers);
+        int n = targetRows == null ? dataSet.getRowCount() : targetRows.size();
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = targetRows == null ? i : targetRows.getRow(i);
+        }
+
+        // Split the null and the non-null values, keeping the original order within each group
+        long[] keys = new long[n];
+        int[] nullRows = new int[n];
+        int nonNulls = extractKeys(columns.get(0).getValues(), rows, keys, nullRows);
+        if (nonNulls < 0) {
+            return super.sort(dataSet, rowNumbers, columnSortList);
+        }
+        int nulls = n - nonNulls;
+        boolean descending = SortOrder.DESCENDING.equals(columnSortList.get(0).getOrder());
+        if (descending) {
+            for (int i = 0; i < nonNulls; i++) {
+                keys[i] = ~keys[i];
+            }
+        }
+        radixSort(rows, keys, nonNulls);
+
+        // Nulls go first, same as in the row comparator
+        RowList result = new RowList(n);
+        if (!descending) {
+            addRows(result, nullRows, 0, nulls);
+        }
+        addRows(result, rows, 0, nonNulls);
+        if (descending) {
+            addRows(result, nullRows, 0, nulls);
+        }
+
+        // Sort the ties by the rest of the columns
+        if (columnSortList.size() > 1) {
+            DataSetRowComparator comparator = new DataSetRowComparator();
+            for (int i = 1; i < columnSortList.size(); i++) {
+                comparator.criteria(columns.get(i), columnSortList.get(i).getOrder());
+            }
+            int nullsStart = descending ? nonNulls : 0;
+            int keysStart = descending ? 0 : nulls;
+            sortRange(result, nullsStart, nullsStart + nulls, comparator);
+            for (int i = 0; i < nonNulls; ) {
+                int j = i + 1;
+                while (j < nonNulls && keys[j] == keys[i]) j++;
+                sortRange(result, keysStart + i, keysStart + j, comparator);
+                i = j;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the sort key of every non-null value, so that the order of the keys is the same as the order of the values.
+     * @param keys Filled with the keys of the non-null values.
+     * @param nullRows Filled with the rows holding a null value.
+     * @return The number of non-null values (the rows array is compacted to hold just those rows) or -1 if
+     * the values can not be turned into primitive keys.
+     */
+    protected int extractKeys(List values, int[] rows, long[] keys, int[] nullRows) {
+        int nonNulls = 0;
+        int nulls = 0;
+        int n = rows.length;
+
+        if (values instanceof ColumnarList) {
+            ColumnarList columnar = (ColumnarList) values;
+            int[] ranks = values instanceof LabelColumnarList ? labelRanks((LabelColumnarList) values) : null;
+            if (ranks == null && !(values instanceof DoubleColumnarList) && !(values instanceof DateColumnarList)) {
+                return -1;
+            }
+            for (int i = 0; i < n; i++) {
+                int row = rows[i];
+                if (columnar.isNull(row)) {
+                    nullRows[nulls++] = row;
+                    continue;
+                }
+                if (values instanceof DoubleColumnarList) {
+                    keys[nonNulls] = doubleKey(((DoubleColumnarList) values).getDouble(row));
+                } else if (values instanceof DateColumnarList) {
+                    keys[nonNulls] = ((DateColumnarList) values).getTime(row);
+                } else {
+                    keys[nonNulls] = ranks[((LabelColumnarList) values).getCode(row)];
+                }
+                rows[nonNulls++] = row;
+            }
+            return nonNulls;
+        }
+
+        // Only lists holding a single type of values are supported
+        Class type = null;
+        for (int i = 0; i < n && type == null; i++) {
+            Object value = values.get(rows[i]);
+            type = value == null ? null : value.getClass();
+        }
+        if (type != null && type != Double.class && type != Date.class && type != String.class) {
+            return -1;
+        }
+        Map<String, Integer> ranks = type == String.class ? new HashMap<String, Integer>() : null;
+        for (int i = 0; i < n; i++) {
+            int row = rows[i];
+            Object value = values.get(row);
+            if (value == null) {
+                nullRows[nulls++] = row;
+                continue;
+            }
+            if (value.getClass() != type) {
+                return -1;
+            }
+            if (type == Double.class) {
+                keys[nonNulls] = doubleKey((Double) value);
+            } else if (type == Date.class) {
+                keys[nonNulls] = ((Date) value).getTime();
+            } else {
+                ranks.put((String) value, null);
+            }
+            rows[nonNulls++] = row;
+        }
+        if (ranks != null) {
+            List<String> labels = new ArrayList<String>(ranks.keySet());
+            Collections.sort(labels);
+            for (int i = 0; i < labels.size(); i++) {
+                ranks.put(labels.get(i), i);
+            }
+            for (int i = 0; i < nonNulls; i++) {
+                keys[i] = ranks.get(values.get(rows[i]));
+            }
+        }
+        return nonNulls;
+    }
+
+    /**
+     * Turn a double into a long whose order is the same as the one given by <i>Double.compare</i>.
+     */
+    protected long doubleKey(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Get the rank of every label in the dictionary (indexed by code).
+     */
+    protected int[] labelRanks(final LabelColumnarList labels) {
+        int cardinality = labels.getCardinality();
+        List<Integer> codes = new ArrayList<Integer>(cardinality);
+        for (int i = 0; i < cardinality; i++) {
+            codes.add(i);
+        }
+        Collections.sort(codes, new Comparator<Integer>() {
+            public int compare(Integer c1, Integer c2) {
+                return labels.getLabel(c1).compareTo(labels.getLabel(c2));
+            }
+        });
+        int[] ranks = new int[cardinality];
+        for (int i = 0; i < cardinality; i++) {
+            int code = codes.get(i);
+            // Equal labels share the same rank
+            boolean tie = i > 0 && labels.getLabel(code).equals(labels.getLabel(codes.get(i - 1)));
+            ranks[code] = tie ? ranks[codes.get(i - 1)] : i;
+        }
+        return ranks;
+    }
+
+    /**
+     * Stable LSD radix sort of the first n rows by their keys. The bytes shared by all the keys are skipped.
+     */
+    protected void radixSort(int[] rows, long[] keys, int n) {
+        if (n < 2) {
+            return;
+        }
+        int[] tmpRows = new int[n];
+        long[] tmpKeys = new long[n];
+        int[] count = new int[RADIX + 1];
+        for (int shift = 0; shift < 64; shift += RADIX_BITS) {
+            for (int i = 0; i < count.length; i++) {
+                count[i] = 0;
+            }
+            for (int i = 0; i < n; i++) {
+                count[digit(keys[i], shift) + 1]++;
+            }
+            if (count[digit(keys[0], shift) + 1] == n) {
+                continue;
+            }
+            for (int i = 0; i < RADIX; i++) {
+                count[i + 1] += count[i];
+            }
+            for (int i = 0; i < n; i++) {
+                int pos = count[digit(keys[i], shift)]++;
+                tmpRows[pos] = rows[i];
+                tmpKeys[pos] = keys[i];
+            }
+            System.arraycopy(tmpRows, 0, rows, 0, n);
+            System.arraycopy(tmpKeys, 0, keys, 0, n);
+        }
+    }
+
+    private static int digit(long key, int shift) {
+        // The sign bit is flipped so that negative keys go first
+        return (int) (((key ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1));
+    }
+
+    private static void addRows(RowList result, int[] rows, int from, int to) {
+        for (int i = from; i < to; i++) {
+            result.addRow(rows[i]);
+        }
+    }
+
+    private static void sortRange(RowList rows, int from, int to, DataSetRowComparator comparator) {
+        if (to - from > 1) {
+            Collections.sort(rows.subList(from, to), comparator);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.date.TimeInstant;
+import org.dashbuilder.dataset.filter.ColumnFilter;
+import org.dashbuilder.dataset.filter.CoreFunctionFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+import static org.junit.Assert.*;
+
+public class CoreFunctionTest {
+
+    static final long DAY = 24 * 60 * 60 * 1000L;
+
+    Date now = new Date();
+    Object[][] ROWS = {
+            {"Barcelona", 10d, new Date(now.getTime() - 40 * DAY)},
+            {"barcelona", 0d, new Date(now.getTime() - 2 * DAY)},
+            {"Bar.celona", -0d, null},
+            {"London", null, new Date(now.getTime() + 2 * DAY)},
+            {null, 100.5d, new Date(now.getTime() + 40 * DAY)},
+            {"New\nYork", 25d, new Date(now.getTime())}};
+
+    @Before
+    public void setUp() {
+        TimeInstant.START_TIME = now;
+    }
+
+    @After
+    public void tearDown() {
+        TimeInstant.START_TIME = null;
+    }
+
+    @Test
+    public void testEqualsTo() {
+        assertRows(equalsTo("city", "Barcelona"), 0);
+        assertRows(in("city", Arrays.asList("London", "barcelona")), 1, 3);
+        assertRows(notIn("city", Arrays.asList("London", "barcelona")), 0, 2, 4, 5);
+        assertRows(in("amount", Arrays.asList(0d, 25, 10L)), 0, 1, 2, 5);
+        assertRows(in("amount", Arrays.asList("25.0", null)), 3, 5);
+        assertRows(equalsTo("amount", new ArrayList<Comparable>()), 0, 1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void testLikeTo() {
+        assertRows(likeTo("city", "Bar%"), 0, 2);
+        assertRows(likeTo("city", "bar%", false), 0, 1, 2);
+        assertRows(likeTo("city", "%o_"), 3);
+        assertRows(likeTo("city", "%.%"), 2);
+        assertRows(likeTo("city", "%celona"), 0, 1, 2);
+        assertRows(likeTo("city", "New%"));
+        assertRows(likeTo("city", "[BL]%"), 0, 2, 3);
+        assertRows(likeTo("city", "[^B]%", true), 1, 3);
+    }
+
+    @Test
+    public void testLikePattern() {
+        String[] patterns = {"%", "_", "a%b", "%a%b%", "a_c", "%%", "a%", "%a", "ab", "%ab_", "Ab%bA", "%aB%c"};
+        String[] values = {"", "a", "ab", "acb", "aab", "abc", "abab", "xaxbx", "a\nb", "A%B", "ABBA", "xAbAbC"};
+        for (String pattern : patterns) {
+            for (boolean caseSensitive : new boolean[] {true, false}) {
+                CoreFunction.LikePattern like = new CoreFunction.LikePattern(pattern, caseSensitive);
+                String regexp = (caseSensitive ? pattern : pattern.toLowerCase()).replace("%", ".*").replace("_", ".");
+                for (String value : values) {
+                    boolean expected = (caseSensitive ? value : value.toLowerCase()).matches(regexp);
+                    assertEquals(pattern + " " + value, expected, like.matches(value));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRanges() {
+        assertRows(greaterThan("amount", 10d), 4, 5);
+        assertRows(lowerThan("amount", 10d), 1, 2, 3);
+        assertRows(between("amount", 0d, 25d), 0, 1, 5);
+        assertRows(greaterThan("city", "Bar.celona"), 0, 1, 3, 5);
+        assertRows(lowerOrEqualsTo("city", "Barcelona"), 0, 2, 4);
+        assertRows(greaterOrEqualsTo("date", new Date(now.getTime() - 2 * DAY)), 1, 3, 4, 5);
+        assertRows(between("date", new Date(now.getTime() - 50 * DAY), now), 0, 1, 5);
+    }
+
+    @Test
+    public void testTimeFrame() {
+        assertRows(timeFrame("date", "-10day"), 1, 5);
+        assertRows(timeFrame("date", "now till 10day"), 3, 5);
+        assertRows(isNull("date"), 2);
+        assertRows(notNull("amount"), 0, 1, 2, 4, 5);
+    }
+
+    /**
+     * Check the filter gives the same results on both the row and the columnar storage.
+     */
+    private void assertRows(ColumnFilter filter, Integer... expected) {
+        for (DataSet dataSet : Arrays.asList(DataSetFactory.newEmptyDataSet(), DataSetFactory.newColumnarDataSet())) {
+            dataSet.addColumn("city", ColumnType.LABEL);
+            dataSet.addColumn("amount", ColumnType.NUMBER);
+            dataSet.addColumn("date", ColumnType.DATE);
+            for (int i = 0; i < ROWS.length; i++) {
+                dataSet.addValuesAt(i, ROWS[i]);
+            }
+            DataSetFilterContext context = new DataSetFilterContext(dataSet);
+            CoreFunction function = new CoreFunction(context, (CoreFunctionFilter) filter);
+            List<Integer> rows = new ArrayList<Integer>();
+            for (int i = 0; i < dataSet.getRowCount(); i++) {
+                context.setCurrentRow(i);
+                if (function.pass()) {
+                    rows.add(i);
+                }
+            }
+            assertEquals(filter.toString(), Arrays.asList(expected), rows);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.filter;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+import static org.junit.Assert.*;
+
+public class FilterSubsumptionTest {
+
+    @Test
+    public void testEqualsTo() {
+        assertTrue(FilterSubsumption.subsumes(in("city", Arrays.asList("London", "Barcelona")), equalsTo("city", "London")));
+        assertTrue(FilterSubsumption.subsumes(equalsTo("city", "London"), equalsTo("city", "London")));
+        assertFalse(FilterSubsumption.subsumes(equalsTo("city", "London"), in("city", Arrays.asList("London", "Barcelona"))));
+        assertFalse(FilterSubsumption.subsumes(equalsTo("city", "London"), equalsTo("dept", "London")));
+
+        // Numbers of different classes are not compared
+        assertFalse(FilterSubsumption.subsumes(equalsTo("amount", 25d), equalsTo("amount", 25)));
+    }
+
+    @Test
+    public void testRanges() {
+        assertTrue(FilterSubsumption.subsumes(greaterThan("amount", 100d), greaterThan("amount", 500d)));
+        assertTrue(FilterSubsumption.subsumes(greaterOrEqualsTo("amount", 100d), greaterThan("amount", 100d)));
+        assertFalse(FilterSubsumption.subsumes(greaterThan("amount", 100d), greaterOrEqualsTo("amount", 100d)));
+        assertFalse(FilterSubsumption.subsumes(greaterThan("amount", 500d), greaterThan("amount", 100d)));
+        assertTrue(FilterSubsumption.subsumes(greaterThan("amount", 100d), between("amount", 200d, 300d)));
+        assertTrue(FilterSubsumption.subsumes(between("amount", 100d, 500d), between("amount", 200d, 300d)));
+        assertFalse(FilterSubsumption.subsumes(between("amount", 100d, 500d), between("amount", 200d, 600d)));
+        assertTrue(FilterSubsumption.subsumes(lowerThan("amount", 500d), lowerOrEqualsTo("amount", 100d)));
+
+        // The lower than filters let the nulls pass
+        assertFalse(FilterSubsumption.subsumes(between("amount", 0d, 500d), lowerThan("amount", 100d)));
+
+        Date date = new Date();
+        assertTrue(FilterSubsumption.subsumes(greaterThan("date", date), greaterThan("date", new Date(date.getTime() + 1))));
+        assertFalse(FilterSubsumption.subsumes(greaterThan("date", date), greaterThan("date", 100d)));
+    }
+
+    @Test
+    public void testNotSupported() {
+        assertFalse(FilterSubsumption.subsumes(likeTo("city", "Lon%"), equalsTo("city", "London")));
+        assertFalse(FilterSubsumption.subsumes(notEqualsTo("city", "London"), notEqualsTo("city", "London")));
+        assertFalse(FilterSubsumption.subsumes(greaterThan("amount", 100d), equalsTo("amount", 200d)));
+    }
+}
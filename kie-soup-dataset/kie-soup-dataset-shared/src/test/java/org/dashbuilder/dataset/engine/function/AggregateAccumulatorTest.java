@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.function;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.group.AggregateFunction;
+import org.dashbuilder.dataset.impl.ColumnarList;
+import org.dashbuilder.dataset.impl.RowList;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AggregateAccumulatorTest {
+
+    List<AggregateFunction> NUMBER_FUNCTIONS = Arrays.<AggregateFunction>asList(new CountFunction(), new DistinctFunction(),
+            new SumFunction(), new AverageFunction(), new MinFunction(), new MaxFunction());
+    List<AggregateFunction> OBJECT_FUNCTIONS = Arrays.<AggregateFunction>asList(new CountFunction(), new DistinctFunction(),
+            new MinFunction(), new MaxFunction());
+
+    List<Double> NUMBERS = Arrays.asList(3.456d, 1.1d, null, 7d, 1.1d, 2.5d, null, 10.01d);
+    List<String> LABELS = Arrays.asList("b", "a", null, "c", "a", "b", "d", null);
+    List<Date> DATES = Arrays.asList(new Date(3000), null, new Date(1000), new Date(5000), new Date(1000), null, new Date(2000), new Date(4000));
+
+    @Test
+    public void testSupportedFunctions() {
+        for (AggregateFunction function : NUMBER_FUNCTIONS) {
+            assertTrue(AggregateAccumulator.isSupported(function));
+        }
+        assertFalse(AggregateAccumulator.isSupported(new SumFunction() {}));
+    }
+
+    @Test
+    public void testNumbers() {
+        assertSameResults(NUMBERS, NUMBER_FUNCTIONS);
+        assertSameResults(columnar(ColumnType.NUMBER, NUMBERS), NUMBER_FUNCTIONS);
+    }
+
+    @Test
+    public void testLabels() {
+        assertSameResults(LABELS, OBJECT_FUNCTIONS);
+        assertSameResults(columnar(ColumnType.LABEL, LABELS), OBJECT_FUNCTIONS);
+    }
+
+    @Test
+    public void testDates() {
+        assertSameResults(DATES, OBJECT_FUNCTIONS);
+        assertSameResults(columnar(ColumnType.DATE, DATES), OBJECT_FUNCTIONS);
+    }
+
+    @Test
+    public void testMerge() {
+        List values = columnar(ColumnType.NUMBER, NUMBERS);
+        RowList rows = RowList.of(Arrays.asList(7, 0, 1, 3, 4, 6));
+        AggregateAccumulator expected = new AggregateAccumulator(values, NUMBER_FUNCTIONS);
+        expected.accumulate(rows);
+
+        AggregateAccumulator merged = new AggregateAccumulator(values, NUMBER_FUNCTIONS);
+        merged.accumulate(rows, 0, 2);
+        AggregateAccumulator other = new AggregateAccumulator(values, NUMBER_FUNCTIONS);
+        other.accumulate(rows, 2, rows.size());
+        merged.merge(other);
+
+        assertEquals(expected.getCount(), merged.getCount());
+        for (AggregateFunction function : NUMBER_FUNCTIONS) {
+            assertEquals(expected.getValue(function), merged.getValue(function));
+        }
+    }
+
+    private void assertSameResults(List values, List<AggregateFunction> functions) {
+        List<List<Integer>> rowSets = Arrays.asList(null, new ArrayList<>(), Arrays.asList(2), Arrays.asList(6, 2),
+                Arrays.asList(5, 4, 1, 0, 3), Arrays.asList(7, 6, 5, 4, 3, 2, 1, 0));
+        for (List<Integer> rows : rowSets) {
+            AggregateAccumulator accumulator = new AggregateAccumulator(values, functions);
+            accumulator.accumulate(RowList.of(rows));
+            for (AggregateFunction function : functions) {
+                assertEquals(function.getType() + " " + rows, function.aggregate(values, rows), accumulator.getValue(function));
+            }
+        }
+    }
+
+    private List columnar(ColumnType type, List values) {
+        ColumnarList result = ColumnarList.create(type);
+        result.addAll(values);
+        return result;
+    }
+}
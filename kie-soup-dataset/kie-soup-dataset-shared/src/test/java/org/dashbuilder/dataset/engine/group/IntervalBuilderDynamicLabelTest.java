@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.group;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.engine.DataSetHandler;
+import org.dashbuilder.dataset.filter.DataSetFilter;
+import org.dashbuilder.dataset.group.DataSetGroup;
+import org.dashbuilder.dataset.group.ColumnGroup;
+import org.dashbuilder.dataset.group.GroupStrategy;
+import org.dashbuilder.dataset.group.Interval;
+import org.dashbuilder.dataset.impl.DataColumnImpl;
+import org.dashbuilder.dataset.impl.LabelColumnarList;
+import org.dashbuilder.dataset.sort.DataSetSort;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IntervalBuilderDynamicLabelTest {
+
+    List<Object> VALUES = Arrays.<Object>asList("b", "a", null, "b", 1, "1", null, "c");
+
+    IntervalBuilderDynamicLabel builder = new IntervalBuilderDynamicLabel();
+
+    @Test
+    public void testIntervals() {
+        IntervalList intervals = builder.build(createColumn(VALUES));
+        assertIntervals(intervals);
+        assertEquals(Arrays.asList(4, 5), intervals.locateInterval(1).getRows());
+    }
+
+    @Test
+    public void testColumnarIntervals() {
+        LabelColumnarList labels = new LabelColumnarList();
+        for (Object value : VALUES) {
+            labels.add(value == null ? null : value.toString());
+        }
+        IntervalList intervals = builder.build(createColumn(labels));
+        assertIntervals(intervals);
+    }
+
+    @Test
+    public void testSortedIntervals() {
+        // Same intervals from the rows sorted by label, with the ties in any order
+        DataColumnImpl column = createColumn(VALUES);
+        List<Integer> sortedRows = Arrays.asList(6, 2, 5, 4, 1, 3, 0, 7);
+        assertIntervals(builder.build(createHandler(column), column.getColumnGroup(), sortedRows));
+
+        LabelColumnarList labels = new LabelColumnarList();
+        for (Object value : VALUES) {
+            labels.add(value == null ? null : value.toString());
+        }
+        column = createColumn(labels);
+        assertIntervals(builder.build(createHandler(column), column.getColumnGroup(), sortedRows));
+    }
+
+    private void assertIntervals(IntervalList intervals) {
+        // One interval per label in order of appearance, including the null one
+        assertEquals(5, intervals.size());
+        assertEquals("b", intervals.get(0).getName());
+        assertEquals("a", intervals.get(1).getName());
+        assertNull(intervals.get(2).getName());
+        assertEquals("1", intervals.get(3).getName());
+        assertEquals("c", intervals.get(4).getName());
+        for (int i = 0; i < intervals.size(); i++) {
+            assertEquals(i, intervals.get(i).getIndex());
+        }
+        assertEquals(Arrays.asList(0, 3), intervals.get(0).getRows());
+        assertEquals(Arrays.asList(2, 6), intervals.get(2).getRows());
+        assertEquals(Arrays.asList(4, 5), intervals.get(3).getRows());
+        assertSame(intervals.get(2), intervals.locateInterval(null));
+        assertNull(intervals.locateInterval("d"));
+    }
+
+    private DataSetHandler createHandler(DataColumnImpl column) {
+        final DataSet dataSet = DataSetFactory.newEmptyDataSet();
+        dataSet.addColumn(column);
+        return new DataSetHandler() {
+            public DataSet getDataSet() {
+                return dataSet;
+            }
+            public List<Integer> getRows() {
+                return null;
+            }
+            public DataSetHandler group(DataSetGroup op) {
+                throw new UnsupportedOperationException();
+            }
+            public DataSetHandler filter(DataSetFilter op) {
+                throw new UnsupportedOperationException();
+            }
+            public DataSetHandler sort(DataSetSort op) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private DataColumnImpl createColumn(List values) {
+        DataColumnImpl column = new DataColumnImpl("label", ColumnType.LABEL);
+        column.setColumnGroup(new ColumnGroup("label", "label", GroupStrategy.DYNAMIC));
+        column.setValues(values);
+        return column;
+    }
+}
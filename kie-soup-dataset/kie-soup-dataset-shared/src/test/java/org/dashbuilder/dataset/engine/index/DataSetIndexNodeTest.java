@@ -0,0 +1,42 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.index;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DataSetIndexNodeTest {
+
+    @Test
+    public void testBuildLocksReleased() {
+        DataSetIndexNode node = new DataSetIndexNode() {};
+        Object lock = node.acquireBuildLock("group dept");
+        assertSame(lock, node.acquireBuildLock("group dept"));
+        assertNotSame(lock, node.acquireBuildLock("sort amount"));
+
+        // The lock is kept while someone else is holding it
+        node.releaseBuildLock("group dept");
+        node.releaseBuildLock("sort amount");
+        assertEquals(1, node.buildLocks.size());
+        assertSame(lock, node.acquireBuildLock("group dept"));
+
+        node.releaseBuildLock("group dept");
+        node.releaseBuildLock("group dept");
+        assertTrue(node.buildLocks.isEmpty());
+        assertNotSame(lock, node.acquireBuildLock("group dept"));
+    }
+}
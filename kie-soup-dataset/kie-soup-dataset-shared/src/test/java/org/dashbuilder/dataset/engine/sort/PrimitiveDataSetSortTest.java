@@ -0,0 +1,151 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataset.engine.sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.sort.ColumnSort;
+import org.dashbuilder.dataset.sort.SortOrder;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveDataSetSortTest {
+
+    static final int ROWS = 2000;
+    static final String[] COLUMNS = {"label", "number", "date", "text"};
+    static final Double[] NUMBERS = {null, -0d, 0d, -1.5d, 1.5d, Double.NaN, Double.MAX_VALUE, -Double.MAX_VALUE, 100d};
+
+    CollectionsDataSetSort expectedSort = new CollectionsDataSetSort();
+    PrimitiveDataSetSort primitiveSort = new PrimitiveDataSetSort();
+
+    @Test
+    public void testSingleColumn() {
+        for (DataSet dataSet : createDataSets()) {
+            for (String column : COLUMNS) {
+                assertSameSort(dataSet, sort(column, SortOrder.ASCENDING));
+                assertSameSort(dataSet, sort(column, SortOrder.DESCENDING));
+            }
+        }
+    }
+
+    @Test
+    public void testMultipleColumns() {
+        for (DataSet dataSet : createDataSets()) {
+            assertSameSort(dataSet, sort("label", SortOrder.ASCENDING, "number", SortOrder.DESCENDING));
+            assertSameSort(dataSet, sort("label", SortOrder.DESCENDING, "date", SortOrder.ASCENDING));
+            assertSameSort(dataSet, sort("number", SortOrder.ASCENDING, "label", SortOrder.ASCENDING, "date", SortOrder.DESCENDING));
+            assertSameSort(dataSet, sort("text", SortOrder.DESCENDING, "number", SortOrder.ASCENDING));
+        }
+    }
+
+    @Test
+    public void testUnsupportedValues() {
+        // Not supported by the primitive keys, so the default algorithm is used
+        DataSet dataSet = DataSetFactory.newEmptyDataSet();
+        dataSet.addColumn("integer", ColumnType.NUMBER, new ArrayList(Arrays.asList(3, null, 1, 2)));
+        assertEquals(Arrays.asList(1, 2, 3, 0), primitiveSort.sort(dataSet, sort("integer", SortOrder.ASCENDING)));
+        assertEquals(Arrays.asList(0, 3, 2, 1), primitiveSort.sort(dataSet, sort("integer", SortOrder.DESCENDING)));
+    }
+
+    @Test
+    public void testTopN() {
+        for (DataSet dataSet : createDataSets()) {
+            List<ColumnSort> sorts = sort("label", SortOrder.DESCENDING, "number", SortOrder.ASCENDING);
+            List<Integer> expected = expectedSort.sort(dataSet, sorts);
+            for (int limit : new int[] {1, 10, 500, ROWS, ROWS + 1}) {
+                List<Integer> top = primitiveSort.sort(dataSet, null, sorts, limit);
+                assertEquals(expected.subList(0, Math.min(limit, ROWS)), top);
+            }
+            // Ties keep the original order
+            sorts = sort("text", SortOrder.ASCENDING);
+            assertEquals(expectedSort.sort(dataSet, sorts).subList(0, 300), primitiveSort.sort(dataSet, null, sorts, 300));
+            assertTrue(primitiveSort.sort(dataSet, null, sorts, 0).isEmpty());
+        }
+    }
+
+    @Test
+    public void testDefaultTopN() {
+        // An algorithm implementing just the full sort
+        DataSetSortAlgorithm fullSort = new DataSetSortAlgorithm() {
+            public List<Integer> sort(DataSet dataSet, List<ColumnSort> columnSortList) {
+                return expectedSort.sort(dataSet, columnSortList);
+            }
+            public List<Integer> sort(DataSet dataSet, List<Integer> rowNumbers, List<ColumnSort> columnSortList) {
+                return expectedSort.sort(dataSet, rowNumbers, columnSortList);
+            }
+        };
+        DataSet dataSet = createDataSets().get(0);
+        List<ColumnSort> sorts = sort("label", SortOrder.DESCENDING, "number", SortOrder.ASCENDING);
+        for (int limit : new int[] {0, 1, 10, ROWS, ROWS + 1}) {
+            assertEquals(primitiveSort.sort(dataSet, null, sorts, limit), fullSort.sort(dataSet, null, sorts, limit));
+        }
+        List<Integer> rows = Arrays.asList(5, 3, 1, 7);
+        assertEquals(primitiveSort.sort(dataSet, rows, sorts, 2), fullSort.sort(dataSet, rows, sorts, 2));
+    }
+
+    private void assertSameSort(DataSet dataSet, List<ColumnSort> sorts) {
+        assertEquals(sorts.toString(), expectedSort.sort(dataSet, sorts), primitiveSort.sort(dataSet, sorts));
+
+        // A subset of the rows in random order
+        List<Integer> rows = new ArrayList<Integer>();
+        for (int i = 0; i < ROWS; i += 3) {
+            rows.add(i);
+        }
+        Collections.shuffle(rows, new Random(ROWS));
+        assertEquals(sorts.toString(), expectedSort.sort(dataSet, rows, sorts), primitiveSort.sort(dataSet, rows, sorts));
+        assertEquals(sorts.toString(), expectedSort.sort(dataSet, rows, sorts).subList(0, 50), primitiveSort.sort(dataSet, rows, sorts, 50));
+    }
+
+    private List<ColumnSort> sort(Object... criteria) {
+        List<ColumnSort> result = new ArrayList<ColumnSort>();
+        for (int i = 0; i < criteria.length; i += 2) {
+            result.add(new ColumnSort((String) criteria[i], (SortOrder) criteria[i + 1]));
+        }
+        return result;
+    }
+
+    private List<DataSet> createDataSets() {
+        List<DataSet> result = new ArrayList<DataSet>();
+        for (DataSet dataSet : Arrays.asList(DataSetFactory.newEmptyDataSet(), DataSetFactory.newColumnarDataSet())) {
+            dataSet.addColumn("label", ColumnType.LABEL);
+            dataSet.addColumn("number", ColumnType.NUMBER);
+            dataSet.addColumn("date", ColumnType.DATE);
+            dataSet.addColumn("text", ColumnType.TEXT);
+
+            Random random = new Random(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                int label = random.nextInt(12);
+                Date date = random.nextInt(10) == 0 ? null : new Date((random.nextInt(2000) - 1000) * 1000000L);
+                dataSet.addValuesAt(i,
+                        label == 0 ? null : "label" + label,
+                        NUMBERS[random.nextInt(NUMBERS.length)],
+                        date,
+                        random.nextInt(10) == 0 ? null : "text" + random.nextInt(50));
+            }
+            result.add(dataSet);
+        }
+        return result;
+    }
+}
@@ -69,6 +69,8 @@ public class JDBCUtils {
 
     private static final Logger log = LoggerFactory.getLogger(JDBCUtils.class);
 
+    private static final PreparedStatementCache STATEMENT_CACHE = new PreparedStatementCache();
+
     public static List<SQLDataSourceDef> listDatasourceDefs() {
         List<SQLDataSourceDef> result = new ArrayList<>();
         String[] namespaces = {"java:comp/env/jdbc/", "java:jboss/datasources/"};
@@ -128,6 +130,78 @@ public class JDBCUtils {
         }
     }
 
+    public static ResultSetHandler executeQuery(Connection connection, String sql, List<Object> params) throws SQLException {
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug(sql + " " + params);
+            }
+            return STATEMENT_CACHE.executeQuery(connection, sql, params);
+        } catch (SQLException e) {
+            log.error(sql + " " + params);
+            throw e;
+        }
+    }
+
+    /**
+     * Run a query fetching its results in chunks of the given size, so that large results can be read in bounded
+     * memory. If the dialect requires it, the auto-commit is disabled until the returned handler is closed.
+     * @param params The parameter values, or null to run the SQL as a plain statement
+     * @param fetchSize The number of rows to fetch on every round trip (zero means the driver's default)
+     */
+    public static ResultSetHandler executeQuery(final Connection connection, Dialect dialect, String sql, List<Object> params, int fetchSize) throws SQLException {
+        final boolean transactional = fetchSize > 0 && dialect.isFetchSizeTransactional() && connection.getAutoCommit();
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug(sql + (params != null ? " " + params : "") + " (fetch size " + fetchSize + ")");
+            }
+            if (transactional) {
+                connection.setAutoCommit(false);
+            }
+            final ResultSetHandler handler;
+            if (params != null) {
+                handler = STATEMENT_CACHE.executeQuery(connection, sql, params, dialect, fetchSize);
+            } else {
+                Statement statement = connection.createStatement();
+                try {
+                    dialect.setFetchSize(statement, fetchSize);
+                    handler = new ResultSetHandler(statement.executeQuery(sql), statement);
+                } catch (SQLException e) {
+                    statement.close();
+                    throw e;
+                }
+            }
+            if (!transactional) {
+                return handler;
+            }
+            return new ResultSetHandler(handler.getResultSet(), handler.getStatement()) {
+                @Override
+                public void close() throws SQLException {
+                    try {
+                        handler.close();
+                    } finally {
+                        restoreAutoCommit(connection);
+                    }
+                }
+            };
+        } catch (SQLException e) {
+            log.error(sql);
+            if (transactional) {
+                restoreAutoCommit(connection);
+            }
+            throw e;
+        }
+    }
+
+    protected static void restoreAutoCommit(Connection connection) throws SQLException {
+        // Nothing to commit, the transaction just held the cursor open
+        connection.rollback();
+        connection.setAutoCommit(true);
+    }
+
+    public static PreparedStatementCache getStatementCache() {
+        return STATEMENT_CACHE;
+    }
+
     public static Dialect dialect(Connection connection) {
         try {
             DatabaseMetaData m = connection.getMetaData();
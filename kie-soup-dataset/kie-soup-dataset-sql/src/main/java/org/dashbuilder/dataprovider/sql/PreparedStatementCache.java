@@ -0,0 +1,220 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.sql;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dashbuilder.dataprovider.sql.dialect.Dialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache of prepared statements per connection, keyed by the SQL with the parameters as placeholders.
+ * <p>Statements are kept per physical connection (see {@link Connection#unwrap}) and prepared on it, so that
+ * the lookups getting the same connection out of a pool reuse them, even if every lookup gets a different proxy.</p>
+ * <p>Statements are taken out of the cache while their results are read and given back once closed, so the same
+ * statement is never run twice at once. Every connection keeps a bounded number of statements (the least recently
+ * used are closed) and the statements of the closed connections are dropped.</p>
+ */
+public class PreparedStatementCache {
+
+    public static final int DEFAULT_MAX_STATEMENTS = 32;
+
+    private static final Logger log = LoggerFactory.getLogger(PreparedStatementCache.class);
+
+    protected int maxStatements;
+    protected Map<Connection, Map<String, PreparedStatement>> cache = new IdentityHashMap<>();
+    protected long hits = 0;
+    protected long misses = 0;
+
+    public PreparedStatementCache() {
+        this(DEFAULT_MAX_STATEMENTS);
+    }
+
+    /**
+     * @param maxStatements The max. number of statements kept for every connection. Zero means no caching.
+     */
+    public PreparedStatementCache(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    public int getMaxStatements() {
+        return maxStatements;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Run the given query with the given parameter values.
+     * @return A handler that gives the statement back to the cache once closed.
+     */
+    public ResultSetHandler executeQuery(Connection connection, String sql, List<Object> params) throws SQLException {
+        return executeQuery(connection, sql, params, null, 0);
+    }
+
+    /**
+     * Run the given query with the given parameter values and fetch size.
+     * @param dialect The dialect that sets the fetch size (if null, the driver's default is used)
+     * @return A handler that gives the statement back to the cache once closed.
+     */
+    public ResultSetHandler executeQuery(final Connection connection, final String sql, List<Object> params,
+                                         Dialect dialect, int fetchSize) throws SQLException {
+        final Connection physical = getPhysicalConnection(connection);
+        final PreparedStatement statement = take(physical, sql);
+        try {
+            if (dialect != null) {
+                dialect.setFetchSize(statement, fetchSize);
+            } else {
+                // Cached statements might have been used with a different fetch size
+                statement.setFetchSize(0);
+            }
+            for (int i = 0; i < params.size(); i++) {
+                setParameter(statement, i + 1, params.get(i));
+            }
+            ResultSet resultSet = statement.executeQuery();
+            return new ResultSetHandler(resultSet, statement) {
+                @Override
+                public void close() throws SQLException {
+                    try {
+                        resultSet.close();
+                    } finally {
+                        release(physical, sql, statement);
+                    }
+                }
+            };
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the connection wrapped by the given one (e.g. a pooled connection proxy), or the given one if
+     * it's not a wrapper.
+     */
+    protected Connection getPhysicalConnection(Connection connection) {
+        try {
+            if (connection.isWrapperFor(Connection.class)) {
+                Connection physical = connection.unwrap(Connection.class);
+                if (physical != null) {
+                    return physical;
+                }
+            }
+        } catch (SQLException e) {
+            log.debug("Connection can't be unwrapped", e);
+        }
+        return connection;
+    }
+
+    protected PreparedStatement take(Connection connection, String sql) throws SQLException {
+        synchronized (this) {
+            Map<String, PreparedStatement> statements = cache.get(connection);
+            PreparedStatement statement = statements == null ? null : statements.remove(sql);
+            if (statement != null && !statement.isClosed()) {
+                hits++;
+                return statement;
+            }
+            misses++;
+        }
+        return connection.prepareStatement(sql);
+    }
+
+    protected void release(Connection connection, String sql, PreparedStatement statement) throws SQLException {
+        if (maxStatements > 0 && !connection.isClosed()) {
+            statement.clearParameters();
+            PreparedStatement replaced;
+            synchronized (this) {
+                purge();
+                Map<String, PreparedStatement> statements = cache.get(connection);
+                if (statements == null) {
+                    statements = createStatementMap();
+                    cache.put(connection, statements);
+                }
+                replaced = statements.put(sql, statement);
+            }
+            if (replaced != null && replaced != statement) {
+                replaced.close();
+            }
+        } else {
+            statement.close();
+        }
+    }
+
+    /**
+     * Drop the statements of the connections already closed (closing a connection closes its statements).
+     */
+    protected void purge() throws SQLException {
+        Iterator<Connection> it = cache.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().isClosed()) {
+                it.remove();
+            }
+        }
+    }
+
+    protected Map<String, PreparedStatement> createStatementMap() {
+        return new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= maxStatements) {
+                    return false;
+                }
+                try {
+                    eldest.getValue().close();
+                } catch (SQLException e) {
+                    log.debug("Error closing cached statement", e);
+                }
+                return true;
+            }
+        };
+    }
+
+    protected void setParameter(PreparedStatement statement, int index, Object param) throws SQLException {
+        if (param instanceof Date) {
+            statement.setTimestamp(index, new Timestamp(((Date) param).getTime()));
+        }
+        else if (param instanceof Integer || param instanceof Long || param instanceof Short || param instanceof Byte) {
+            statement.setLong(index, ((Number) param).longValue());
+        }
+        else if (param instanceof BigDecimal) {
+            statement.setBigDecimal(index, (BigDecimal) param);
+        }
+        else if (param instanceof Number) {
+            statement.setDouble(index, ((Number) param).doubleValue());
+        }
+        else {
+            // Same as the literal rendering, any other value is turned into a string
+            statement.setString(index, param.toString());
+        }
+    }
+}
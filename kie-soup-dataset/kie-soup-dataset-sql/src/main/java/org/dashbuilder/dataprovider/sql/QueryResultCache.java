@@ -0,0 +1,380 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.sql;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.DataSetOp;
+import org.dashbuilder.dataset.filter.ColumnFilter;
+import org.dashbuilder.dataset.filter.CoreFunctionFilter;
+import org.dashbuilder.dataset.filter.DataSetFilter;
+import org.dashbuilder.dataset.group.DataSetGroup;
+
+/**
+ * A cache of the data sets returned by the SQL lookup queries.
+ * <p>Entries are keyed by the data set, the data source and the lookup request. They expire after the given time
+ * to live and the least recently used are evicted once the estimated size of all the entries exceeds the max. size.
+ * Concurrent requests of the same key share a single load.</p>
+ * <p>Every caller gets its own copy of the data set, so the cached ones are never modified. The copy costs as much
+ * as the data set size on every hit, so the data sets bigger than the max. entry size are not cached at all.</p>
+ */
+public class QueryResultCache {
+
+    public static final long DEFAULT_MAX_SIZE = 50 * 1024 * 1024;
+    public static final long DEFAULT_MAX_ENTRY_SIZE = 5 * 1024 * 1024;
+
+    protected long maxSize;
+    protected long maxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+    protected long size = 0;
+    protected long hits = 0;
+    protected long misses = 0;
+    protected Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    protected Map<Key, CompletableFuture<DataSet>> loading = new HashMap<>();
+    protected Map<String, Long> versions = new HashMap<>();
+    protected Clock clock;
+
+    public QueryResultCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize The max. estimated size in bytes of all the data sets cached.
+     */
+    public QueryResultCache(long maxSize) {
+        this(maxSize, Clock.systemUTC());
+    }
+
+    /**
+     * @param maxSize The max. estimated size in bytes of all the data sets cached.
+     * @param clock The clock the entries expiration is checked against.
+     */
+    public QueryResultCache(long maxSize, Clock clock) {
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    public synchronized long getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        evict();
+    }
+
+    public synchronized long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * Set the max. estimated size in bytes of a single data set cached.
+     */
+    public synchronized void setMaxEntrySize(long maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * The estimated size in bytes of all the data sets cached.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized int getNumberOfEntries() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Check if there is a non expired data set cached for the given key.
+     */
+    public synchronized boolean contains(Key key) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.expires > clock.millis();
+    }
+
+    /**
+     * Get the cached data set or load it if missing or expired.
+     * <p>If the same key is already being loaded then the caller waits for that load instead.</p>
+     * @param key The cache key
+     * @param timeToLive The millis the loaded data set is kept in the cache
+     * @param loader Loads the data set from the database
+     * @return A copy of the data set (see {@link #setMaxEntrySize})
+     */
+    public DataSet get(Key key, long timeToLive, Callable<DataSet> loader) throws Exception {
+        CompletableFuture<DataSet> future;
+        boolean owner = false;
+        long version;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expires > clock.millis()) {
+                    hits++;
+                    return copy(entry.dataSet);
+                }
+                remove(key);
+            }
+            misses++;
+            version = getVersion(key.uuid);
+            future = loading.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                loading.put(key, future);
+                owner = true;
+            }
+        }
+        if (!owner) {
+            return copy(await(future));
+        }
+        try {
+            DataSet dataSet = loader.call();
+            put(key, dataSet, timeToLive, version);
+            future.complete(dataSet);
+            return copy(dataSet);
+        } catch (Exception | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (this) {
+                loading.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remove all the entries of the given data set. The loads in progress are not cached once finished.
+     */
+    public synchronized void invalidate(String uuid) {
+        versions.put(uuid, getVersion(uuid) + 1);
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> entry = it.next();
+            if (Objects.equals(uuid, entry.getKey().uuid)) {
+                size -= entry.getValue().size;
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        for (Key key : entries.keySet()) {
+            versions.put(key.uuid, getVersion(key.uuid) + 1);
+        }
+        for (Key key : loading.keySet()) {
+            versions.put(key.uuid, getVersion(key.uuid) + 1);
+        }
+        entries.clear();
+        size = 0;
+    }
+
+    protected synchronized void put(Key key, DataSet dataSet, long timeToLive, long version) {
+        long dataSetSize = dataSet.getEstimatedSize();
+        if (timeToLive <= 0 || dataSetSize > maxSize || dataSetSize > maxEntrySize || version != getVersion(key.uuid)) {
+            return;
+        }
+        remove(key);
+        entries.put(key, new Entry(dataSet, dataSetSize, clock.millis() + timeToLive));
+        size += dataSetSize;
+        evict();
+    }
+
+    protected void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            size -= entry.size;
+        }
+    }
+
+    /**
+     * Remove the expired entries first and then the least recently used until the max. size is met.
+     */
+    protected void evict() {
+        if (size <= maxSize) {
+            return;
+        }
+        long now = clock.millis();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.expires <= now) {
+                size -= entry.size;
+                it.remove();
+            }
+        }
+        it = entries.values().iterator();
+        while (size > maxSize && it.hasNext()) {
+            size -= it.next().size;
+            it.remove();
+        }
+    }
+
+    protected long getVersion(String uuid) {
+        Long version = versions.get(uuid);
+        return version == null ? 0 : version;
+    }
+
+    protected DataSet await(CompletableFuture<DataSet> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    protected DataSet copy(DataSet dataSet) {
+        DataSet copy = dataSet.cloneInstance();
+        copy.setUUID(dataSet.getUUID());
+        copy.setDefinition(dataSet.getDefinition());
+        copy.setRowCountNonTrimmed(dataSet.getRowCountNonTrimmed());
+        return copy;
+    }
+
+    protected static class Entry {
+
+        DataSet dataSet;
+        long size;
+        long expires;
+
+        Entry(DataSet dataSet, long size, long expires) {
+            this.dataSet = dataSet;
+            this.size = size;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * The key of the data sets cached.
+     */
+    public static class Key {
+
+        protected String uuid;
+        protected String dataSource;
+        protected String sql;
+        protected List<Object> parameters;
+        protected DataSetLookup lookup;
+        protected int hash;
+
+        /**
+         * @param uuid The data set definition UUID
+         * @param dataSource The data source name
+         * @param sql The SQL query with the parameter values as <i>?</i> placeholders
+         * @param parameters The parameter values
+         * @param lookup The lookup request (the key keeps its own copy)
+         */
+        public Key(String uuid, String dataSource, String sql, List<Object> parameters, DataSetLookup lookup) {
+            this.uuid = uuid;
+            this.dataSource = dataSource;
+            this.sql = sql;
+            this.parameters = parameters == null ? new ArrayList<>() : new ArrayList<>(parameters);
+            this.lookup = lookup == null ? null : lookup.cloneInstance();
+            // The lookup is only hashed if there is no SQL (equal lookups get always the same SQL)
+            this.hash = Objects.hash(uuid, dataSource, sql, this.parameters) * 31 + (sql == null ? hash(lookup) : 0);
+        }
+
+        /**
+         * A key for the lookups whose SQL generated is always the same, so it can be checked before generating it.
+         * @param uuid The data set definition UUID
+         * @param dataSource The data source name
+         * @param lookup The lookup request (the key keeps its own copy)
+         */
+        public Key(String uuid, String dataSource, DataSetLookup lookup) {
+            this(uuid, dataSource, null, null, lookup);
+        }
+
+        protected static int hash(DataSetLookup lookup) {
+            if (lookup == null) {
+                return 0;
+            }
+            // Lookups do not implement hashCode, so only the parts consistent with their equals are hashed
+            int result = Objects.hash(lookup.getRowOffset(), lookup.getNumberOfRows());
+            for (DataSetOp op : lookup.getOperationList()) {
+                result = result * 31 + op.getType().ordinal();
+                if (op instanceof DataSetFilter) {
+                    for (ColumnFilter filter : ((DataSetFilter) op).getColumnFilterList()) {
+                        // Core function filters print their parameter values
+                        String text = filter instanceof CoreFunctionFilter ? filter.toString() : filter.getColumnId();
+                        result = result * 31 + Objects.hashCode(text);
+                    }
+                }
+                if (op instanceof DataSetGroup && ((DataSetGroup) op).getColumnGroup() != null) {
+                    result = result * 31 + Objects.hashCode(((DataSetGroup) op).getColumnGroup().getSourceId());
+                }
+            }
+            return result;
+        }
+
+        public String getUUID() {
+            return uuid;
+        }
+
+        public String getSQL() {
+            return sql;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash
+                    && Objects.equals(uuid, other.uuid)
+                    && Objects.equals(dataSource, other.dataSource)
+                    && Objects.equals(sql, other.sql)
+                    && parameters.equals(other.parameters)
+                    && Objects.equals(lookup, other.lookup);
+        }
+
+        @Override
+        public String toString() {
+            return dataSource + ": " + sql + " " + parameters;
+        }
+    }
+}
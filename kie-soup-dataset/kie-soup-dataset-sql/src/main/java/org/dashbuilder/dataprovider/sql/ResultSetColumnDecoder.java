@@ -0,0 +1,174 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.sql;
+
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Date;
+import java.util.List;
+
+import org.dashbuilder.dataprovider.sql.dialect.Dialect;
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.impl.DateColumnarList;
+import org.dashbuilder.dataset.impl.DoubleColumnarList;
+
+/**
+ * Reads the values of a result set column and adds them to a data set column.
+ * <p>The JDBC getter is chosen once from the column types: numbers, dates and strings are read through
+ * the typed getters (numbers and dates go straight into the primitive storage of columnar lists). Any other
+ * value is read as an object and converted by the dialect.</p>
+ */
+public class ResultSetColumnDecoder {
+
+    protected enum Getter {
+        DOUBLE,
+        TIMESTAMP,
+        STRING,
+        OBJECT,
+        RAW
+    }
+
+    protected Dialect dialect;
+    protected int columnIndex;
+    protected ColumnType columnType;
+    protected List values;
+    protected Getter getter;
+
+    /**
+     * @param dialect The dialect used to convert the values not read through a typed getter
+     * @param columnIndex The result set column (starting at 1)
+     * @param sqlType The result set column type (see {@link Types})
+     * @param columnType The data set column type
+     * @param values The list where to add the values
+     */
+    public ResultSetColumnDecoder(Dialect dialect, int columnIndex, int sqlType, ColumnType columnType, List values) {
+        this.dialect = dialect;
+        this.columnIndex = columnIndex;
+        this.columnType = columnType;
+        this.values = values;
+        this.getter = calculateGetter(sqlType, columnType);
+    }
+
+    /**
+     * Creates a decoder that adds the values just as read from the result set, with no conversion at all.
+     */
+    public static ResultSetColumnDecoder raw(int columnIndex, List values) {
+        ResultSetColumnDecoder decoder = new ResultSetColumnDecoder(null, columnIndex, Types.OTHER, null, values);
+        decoder.getter = Getter.RAW;
+        return decoder;
+    }
+
+    protected Getter calculateGetter(int sqlType, ColumnType columnType) {
+        if (ColumnType.NUMBER.equals(columnType)) {
+            switch (sqlType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                case Types.DOUBLE:
+                case Types.FLOAT:
+                case Types.REAL:
+                    return Getter.DOUBLE;
+            }
+        }
+        else if (ColumnType.DATE.equals(columnType)) {
+            switch (sqlType) {
+                // Some drivers keep the time of the DATE columns, so the timestamp is read. Outside
+                // the columnar storage the value is read as an object to keep its original class.
+                case Types.DATE:
+                    return values instanceof DateColumnarList ? Getter.TIMESTAMP : Getter.OBJECT;
+                case Types.TIMESTAMP:
+                    return Getter.TIMESTAMP;
+            }
+        }
+        else {
+            switch (sqlType) {
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGVARCHAR:
+                case Types.LONGNVARCHAR:
+                    return Getter.STRING;
+            }
+        }
+        return Getter.OBJECT;
+    }
+
+    /**
+     * Read the value at the current row and add it to the list.
+     */
+    public void decode(ResultSet rs) throws SQLException {
+        switch (getter) {
+            case DOUBLE: {
+                double d = rs.getDouble(columnIndex);
+                if (rs.wasNull()) {
+                    values.add(null);
+                } else if (values instanceof DoubleColumnarList) {
+                    ((DoubleColumnarList) values).addDouble(d);
+                } else {
+                    values.add(d);
+                }
+                break;
+            }
+            case TIMESTAMP: {
+                Date date = rs.getTimestamp(columnIndex);
+                if (date == null) {
+                    values.add(null);
+                } else if (values instanceof DateColumnarList) {
+                    ((DateColumnarList) values).addTime(date.getTime());
+                } else {
+                    values.add(date);
+                }
+                break;
+            }
+            case STRING: {
+                values.add(rs.getString(columnIndex));
+                break;
+            }
+            case RAW: {
+                values.add(readObject(rs));
+                break;
+            }
+            default: {
+                values.add(convert(readObject(rs)));
+            }
+        }
+    }
+
+    protected Object readObject(ResultSet rs) throws SQLException {
+        Object value = rs.getObject(columnIndex);
+        // Clob conversion must be done when object is still open
+        if (value instanceof Clob) {
+            value = JDBCUtils.clobToString((Clob) value);
+        }
+        return value;
+    }
+
+    protected Object convert(Object value) {
+        if (ColumnType.NUMBER.equals(columnType)) {
+            return dialect.convertToDouble(value);
+        }
+        if (ColumnType.DATE.equals(columnType)) {
+            return dialect.convertToDate(value);
+        }
+        return dialect.convertToString(value);
+    }
+}
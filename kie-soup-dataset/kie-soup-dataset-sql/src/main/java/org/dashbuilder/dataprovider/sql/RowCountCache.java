@@ -0,0 +1,242 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.sql;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache of the total number of rows of the SQL lookups, keyed by the count query (the data set filters
+ * along with the lookup ones).
+ * <p>Once a count is cached it is always returned straight away. The expired ones are refreshed in the
+ * background, as well as the estimated ones given by the database statistics on a first request.
+ * Only the first request with no estimate available waits for the count query.</p>
+ */
+public class RowCountCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(RowCountCache.class);
+
+    protected int maxEntries;
+    protected Executor executor;
+    protected ThreadPoolExecutor defaultExecutor;
+    protected Clock clock;
+    protected Map<QueryResultCache.Key, Entry> entries;
+    protected Set<QueryResultCache.Key> refreshing = new HashSet<>();
+    protected Map<String, Long> versions = new HashMap<>();
+
+    public RowCountCache() {
+        this(DEFAULT_MAX_ENTRIES, null);
+    }
+
+    /**
+     * @param maxEntries The max. number of counts kept (the least recently used are evicted)
+     * @param executor The executor running the count refreshes, or null to use a default pool of threads
+     */
+    public RowCountCache(int maxEntries, Executor executor) {
+        this(maxEntries, executor, Clock.systemUTC());
+    }
+
+    /**
+     * @param maxEntries The max. number of counts kept (the least recently used are evicted)
+     * @param executor The executor running the count refreshes, or null to use a default pool of threads
+     * @param clock The clock the counts expiration is checked against
+     */
+    public RowCountCache(int maxEntries, Executor executor, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.executor = executor;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<QueryResultCache.Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<QueryResultCache.Key, Entry> eldest) {
+                return size() > RowCountCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The executor running the count refreshes. If none is set, a small pool of daemon threads is created on
+     * first use (refreshes are skipped while its queue is full).
+     */
+    public synchronized Executor getExecutor() {
+        if (executor != null) {
+            return executor;
+        }
+        if (defaultExecutor == null) {
+            defaultExecutor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(100), r -> {
+                Thread thread = new Thread(r, "sql-row-count");
+                thread.setDaemon(true);
+                return thread;
+            });
+            defaultExecutor.allowCoreThreadTimeOut(true);
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * Use the given executor to run the count refreshes (instead of the default pool of threads). It should be
+     * a managed executor when running inside a container.
+     */
+    public synchronized void setExecutor(Executor executor) {
+        this.executor = executor;
+        shutdown();
+    }
+
+    /**
+     * Shut down the default pool of threads (if created). An executor set is left to its owner.
+     */
+    public synchronized void shutdown() {
+        if (defaultExecutor != null) {
+            defaultExecutor.shutdown();
+            defaultExecutor = null;
+        }
+    }
+
+    public synchronized int getNumberOfEntries() {
+        return entries.size();
+    }
+
+    /**
+     * Get the number of rows of the given query.
+     * @param key The count query key
+     * @param timeToLive The millis an exact count is returned before it gets refreshed
+     * @param counter Counts the rows on the caller's thread (only if nothing is cached or estimated)
+     * @param estimator Gets an estimate of the rows, or null if not available (can be null)
+     * @param refresher Counts the rows in the background
+     */
+    public int getRowCount(QueryResultCache.Key key, long timeToLive, Callable<Integer> counter,
+                           Callable<Integer> estimator, Callable<Integer> refresher) throws Exception {
+        long version;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.exact || entry.expires <= clock.millis()) {
+                    refresh(key, timeToLive, refresher);
+                }
+                return entry.count;
+            }
+            version = getVersion(key.getUUID());
+        }
+        Integer estimate = estimate(key, estimator);
+        if (estimate != null) {
+            put(key, estimate, false, 0, version);
+            refresh(key, timeToLive, refresher);
+            return estimate;
+        }
+        int count = counter.call();
+        put(key, count, true, timeToLive, version);
+        return count;
+    }
+
+    /**
+     * Remove all the counts of the given data set. The refreshes in progress are not cached once finished.
+     */
+    public synchronized void invalidate(String uuid) {
+        versions.put(uuid, getVersion(uuid) + 1);
+        Iterator<QueryResultCache.Key> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            if (Objects.equals(uuid, it.next().getUUID())) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        for (QueryResultCache.Key key : entries.keySet()) {
+            versions.put(key.getUUID(), getVersion(key.getUUID()) + 1);
+        }
+        for (QueryResultCache.Key key : refreshing) {
+            versions.put(key.getUUID(), getVersion(key.getUUID()) + 1);
+        }
+        entries.clear();
+    }
+
+    protected Integer estimate(QueryResultCache.Key key, Callable<Integer> estimator) {
+        if (estimator == null) {
+            return null;
+        }
+        try {
+            return estimator.call();
+        } catch (Exception e) {
+            log.debug("Row estimate not available: " + key, e);
+            return null;
+        }
+    }
+
+    protected synchronized void refresh(final QueryResultCache.Key key, final long timeToLive, final Callable<Integer> refresher) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        final long version = getVersion(key.getUUID());
+        try {
+            getExecutor().execute(() -> {
+                try {
+                    put(key, refresher.call(), true, timeToLive, version);
+                } catch (Exception e) {
+                    log.warn("Error counting the rows: " + key, e);
+                } finally {
+                    synchronized (RowCountCache.this) {
+                        refreshing.remove(key);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Keep serving the current count, a further request will try again
+            refreshing.remove(key);
+        }
+    }
+
+    protected synchronized void put(QueryResultCache.Key key, int count, boolean exact, long timeToLive, long version) {
+        if (version != getVersion(key.getUUID())) {
+            return;
+        }
+        entries.put(key, new Entry(count, exact, clock.millis() + timeToLive));
+    }
+
+    protected long getVersion(String uuid) {
+        Long version = versions.get(uuid);
+        return version == null ? 0 : version;
+    }
+
+    protected static class Entry {
+
+        int count;
+        boolean exact;
+        long expires;
+
+        Entry(int count, boolean exact, long expires) {
+            this.count = count;
+            this.exact = exact;
+            this.expires = expires;
+        }
+    }
+}
@@ -15,23 +15,28 @@
  */
 package org.dashbuilder.dataprovider.sql;
 
-import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 import javax.naming.InitialContext;
 import javax.sql.DataSource;
 
 import org.apache.commons.lang3.StringUtils;
 import org.dashbuilder.DataSetCore;
+import org.dashbuilder.dataprovider.BatchDataSetProvider;
 import org.dashbuilder.dataprovider.DataSetProvider;
 import org.dashbuilder.dataprovider.DataSetProviderType;
+import org.dashbuilder.dataprovider.RefreshableDataSetProvider;
 import org.dashbuilder.dataprovider.StaticDataSetProvider;
 import org.dashbuilder.dataprovider.sql.dialect.Dialect;
 import org.dashbuilder.dataprovider.sql.model.Column;
@@ -49,6 +54,7 @@ import org.dashbuilder.dataset.DataSetOp;
 import org.dashbuilder.dataset.DataSetOpEngine;
 import org.dashbuilder.dataset.IntervalBuilderDynamicDate;
 import org.dashbuilder.dataset.date.DateUtils;
+import org.dashbuilder.dataset.date.TimeAmount;
 import org.dashbuilder.dataset.date.TimeFrame;
 import org.dashbuilder.dataset.def.DataColumnDef;
 import org.dashbuilder.dataset.def.DataSetDef;
@@ -59,6 +65,7 @@ import org.dashbuilder.dataset.def.SQLDataSourceDef;
 import org.dashbuilder.dataset.engine.group.IntervalBuilder;
 import org.dashbuilder.dataset.engine.group.IntervalBuilderLocator;
 import org.dashbuilder.dataset.engine.group.IntervalList;
+import org.dashbuilder.dataset.exception.DataSetLookupException;
 import org.dashbuilder.dataset.filter.ColumnFilter;
 import org.dashbuilder.dataset.filter.CoreFunctionFilter;
 import org.dashbuilder.dataset.filter.CoreFunctionType;
@@ -73,6 +80,7 @@ import org.dashbuilder.dataset.group.DateIntervalType;
 import org.dashbuilder.dataset.group.GroupFunction;
 import org.dashbuilder.dataset.group.GroupStrategy;
 import org.dashbuilder.dataset.group.Interval;
+import org.dashbuilder.dataset.impl.ColumnarList;
 import org.dashbuilder.dataset.impl.DataColumnImpl;
 import org.dashbuilder.dataset.impl.DataSetMetadataImpl;
 import org.dashbuilder.dataset.impl.MemSizeEstimator;
@@ -96,10 +104,13 @@ import org.slf4j.LoggerFactory;
  *      - Group (fixed) by date of week
  *  </p>
  */
-public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryListener {
+public class SQLDataSetProvider implements DataSetProvider, RefreshableDataSetProvider, BatchDataSetProvider, DataSetDefRegistryListener {
 
     private static SQLDataSetProvider SINGLETON = null;
 
+    public static final long DEFAULT_QUERY_CACHE_TTL = 10000;
+    public static final long DEFAULT_ROW_COUNT_TTL = 60000;
+
     public static SQLDataSetProvider get() {
         if (SINGLETON == null) {
             DataSetCore dataSetCore = DataSetCore.get();
@@ -139,6 +150,15 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
     protected IntervalBuilderLocator intervalBuilderLocator;
     protected IntervalBuilderDynamicDate intervalBuilderDynamicDate;
     protected DataSetOpEngine opEngine;
+    protected boolean preparedStatementsEnabled = true;
+    protected int fetchSize = 0;
+    protected QueryResultCache queryResultCache = new QueryResultCache();
+    protected boolean queryCacheEnabled = false;
+    protected long queryCacheTimeToLive = DEFAULT_QUERY_CACHE_TTL;
+    protected RowCountCache rowCountCache = new RowCountCache();
+    protected boolean rowCountCacheEnabled = false;
+    protected boolean rowCountEstimatesEnabled = false;
+    protected long rowCountTimeToLive = DEFAULT_ROW_COUNT_TTL;
 
     public SQLDataSetProvider() {
     }
@@ -162,6 +182,149 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
         this.staticDataSetProvider = staticDataSetProvider;
     }
 
+    public boolean isPreparedStatementsEnabled() {
+        return preparedStatementsEnabled;
+    }
+
+    /**
+     * Run the queries as prepared statements with the filter values as bound parameters (enabled by default).
+     * If disabled, the filter values are rendered as SQL literals.
+     */
+    public void setPreparedStatementsEnabled(boolean preparedStatementsEnabled) {
+        this.preparedStatementsEnabled = preparedStatementsEnabled;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Set the default number of rows fetched on every round trip when reading the data set rows, for the data sets
+     * not setting their own (see {@link SQLDataSetDef#getFetchSize()}). Zero (the default) means the driver's default.
+     * <p>On some databases this also makes the results to be streamed (see {@link Dialect#setFetchSize}), so that large
+     * lookups are read in bounded memory.</p>
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    protected int getFetchSize(SQLDataSetDef def) {
+        Integer defFetchSize = def.getFetchSize();
+        return defFetchSize != null ? defFetchSize : fetchSize;
+    }
+
+    public boolean isQueryCacheEnabled() {
+        return queryCacheEnabled;
+    }
+
+    /**
+     * Keep the results of the lookups sent to the database, so that the same query is not run again for the
+     * same data set until its refresh time is elapsed (disabled by default). Only the lookups not served from
+     * the static data set cache are kept (see {@link SQLDataSetDef#isCacheEnabled()}).
+     */
+    public void setQueryCacheEnabled(boolean queryCacheEnabled) {
+        this.queryCacheEnabled = queryCacheEnabled;
+        if (!queryCacheEnabled) {
+            queryResultCache.clear();
+        }
+    }
+
+    public long getQueryCacheTimeToLive() {
+        return queryCacheTimeToLive;
+    }
+
+    /**
+     * Set the millis a query result is kept in the cache for the data sets with no refresh time.
+     * The data sets with a refresh time keep their results for that time.
+     */
+    public void setQueryCacheTimeToLive(long queryCacheTimeToLive) {
+        this.queryCacheTimeToLive = queryCacheTimeToLive;
+    }
+
+    public QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
+    public void setQueryResultCache(QueryResultCache queryResultCache) {
+        this.queryResultCache = queryResultCache;
+    }
+
+    public boolean isRowCountCacheEnabled() {
+        return rowCountCacheEnabled;
+    }
+
+    /**
+     * Keep the total number of rows of the trimmed lookups (disabled by default). Once counted, further
+     * requests with the same filters get the cached total straight away, while the expired totals are
+     * counted again in the background.
+     */
+    public void setRowCountCacheEnabled(boolean rowCountCacheEnabled) {
+        this.rowCountCacheEnabled = rowCountCacheEnabled;
+        if (!rowCountCacheEnabled) {
+            rowCountCache.clear();
+        }
+    }
+
+    public boolean isRowCountEstimatesEnabled() {
+        return rowCountEstimatesEnabled;
+    }
+
+    /**
+     * If the row count cache is enabled, the first request of an uncounted lookup gets the row estimate of the
+     * database statistics (if available, see {@link Dialect#getEstimateCountQuerySQL}) while the rows are counted
+     * in the background.
+     */
+    public void setRowCountEstimatesEnabled(boolean rowCountEstimatesEnabled) {
+        this.rowCountEstimatesEnabled = rowCountEstimatesEnabled;
+    }
+
+    public long getRowCountTimeToLive() {
+        return rowCountTimeToLive;
+    }
+
+    /**
+     * Set the millis a row count is served before it is counted again, for the data sets with no refresh time.
+     */
+    public void setRowCountTimeToLive(long rowCountTimeToLive) {
+        this.rowCountTimeToLive = rowCountTimeToLive;
+    }
+
+    public RowCountCache getRowCountCache() {
+        return rowCountCache;
+    }
+
+    public void setRowCountCache(RowCountCache rowCountCache) {
+        this.rowCountCache = rowCountCache;
+    }
+
+    /**
+     * Use the given executor to count the rows in the background (instead of the default pool of threads). It
+     * should be a managed executor when running inside a container, like the data set lookup executor.
+     */
+    public void setRowCountExecutor(Executor executor) {
+        rowCountCache.setExecutor(executor);
+    }
+
+    /**
+     * Release the threads created by the provider (if any).
+     */
+    public void shutdown() {
+        rowCountCache.shutdown();
+    }
+
+    protected long getQueryCacheTimeToLive(SQLDataSetDef def) {
+        return getTimeToLive(def, queryCacheTimeToLive);
+    }
+
+    protected long getRowCountTimeToLive(SQLDataSetDef def) {
+        return getTimeToLive(def, rowCountTimeToLive);
+    }
+
+    protected long getTimeToLive(SQLDataSetDef def, long defaultTimeToLive) {
+        TimeAmount refreshTime = def.getRefreshTimeAmount();
+        return refreshTime != null ? refreshTime.toMillis() : defaultTimeToLive;
+    }
+
     public SQLDataSourceLocator getDataSourceLocator() {
         return dataSourceLocator;
     }
@@ -199,6 +362,53 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
     }
 
     public DataSet lookupDataSet(DataSetDef def, DataSetLookup lookup) throws Exception {
+        return lookupDataSet(def, lookup, null);
+    }
+
+    /**
+     * The lookups on the same data source are run in a single batch.
+     */
+    public String getBatchKey(DataSetDef def) {
+        return ((SQLDataSetDef) def).getDataSource();
+    }
+
+    /**
+     * Run the given lookups one after the other on a single connection. The connection is acquired on the
+     * first database access (so never for the lookups served from the cache) and closed once all are done.
+     */
+    public List<DataSet> lookupDataSets(List<DataSetDef> defs, List<DataSetLookup> lookups) throws Exception {
+        List<DataSet> result = new ArrayList<>();
+        Connection conn = null;
+        try {
+            for (int i = 0; i < defs.size(); i++) {
+                SQLDataSetDef sqlDef = (SQLDataSetDef) defs.get(i);
+                if (conn == null && !sqlDef.isCacheEnabled() && !StringUtils.isBlank(sqlDef.getDataSource())
+                        && !_isQueryCached(sqlDef, lookups.get(i))) {
+                    conn = dataSourceLocator.lookup(sqlDef).getConnection();
+                }
+                try {
+                    result.add(lookupDataSet(sqlDef, lookups.get(i), conn));
+                } catch (Exception e) {
+                    throw new DataSetLookupException(sqlDef.getUUID(), "Can't lookup on specified data set: " + sqlDef.getUUID(), e);
+                }
+            }
+            return result;
+        } finally {
+            if (conn != null) {
+                conn.close();
+            }
+        }
+    }
+
+    protected boolean _isQueryCached(SQLDataSetDef def, DataSetLookup lookup) {
+        QueryResultCache.Key key = _getQueryCacheKey(def, lookup, queryCacheEnabled);
+        return key != null && queryResultCache.contains(key);
+    }
+
+    /**
+     * @param conn The connection to run the queries on, or null to get one from the data source.
+     */
+    protected DataSet lookupDataSet(DataSetDef def, DataSetLookup lookup, Connection conn) throws Exception {
         SQLDataSetDef sqlDef = (SQLDataSetDef) def;
         if (StringUtils.isBlank(sqlDef.getDataSource())) {
             throw new IllegalArgumentException("Missing data source in SQL data set definition: " + sqlDef);
@@ -214,25 +424,20 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
 
                 // Lookup from cache.
                 return staticDataSetProvider.lookupDataSet(def.getUUID(), lookup);
-            } else  {
+            } else if (_loadStaticDataSet(sqlDef)) {
 
-                // Fetch always from database if existing rows are greater than the cache max. rows
-                DataSetMetadata metadata = getDataSetMetadata(def);
-                int rows = metadata.getNumberOfRows();
-                if (rows > sqlDef.getCacheMaxRows()) {
-                    return _lookupDataSet(sqlDef, lookup);
+                // Lookup from the just loaded cache.
+                dataSet = staticDataSetProvider.lookupDataSet(def.getUUID(), lookup);
+                if (dataSet != null) {
+                    return dataSet;
                 }
-                // Fetch from database and register into the static cache. Further requests will lookup from cache.
-                dataSet = _lookupDataSet(sqlDef, null);
-                dataSet.setUUID(def.getUUID());
-                dataSet.setDefinition(def);
-                staticDataSetProvider.registerDataSet(dataSet);
-                return staticDataSetProvider.lookupDataSet(def.getUUID(), lookup);
             }
+            // Fetch always from database if existing rows are greater than the cache max. rows
+            // (or if the cached data set has been removed in the meantime).
         }
 
         // If cache is disabled then always fetch from database.
-        return _lookupDataSet(sqlDef, lookup);
+        return _lookupDataSet(sqlDef, lookup, queryCacheEnabled, conn);
     }
 
     public boolean isDataSetOutdated(DataSetDef def) {
@@ -252,6 +457,41 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
         }
     }
 
+    /**
+     * Fetch again a statically cached data set and swap it with the one in cache, which keeps being served meanwhile.
+     */
+    @Override
+    public boolean refreshDataSet(DataSetDef def) throws Exception {
+        SQLDataSetDef sqlDef = (SQLDataSetDef) def;
+        String uuid = def.getUUID();
+        DataSet cached = staticDataSetProvider.lookupDataSet(uuid, null);
+        if (!sqlDef.isCacheEnabled() || cached == null) {
+            return false;
+        }
+        DataSet newRows = StringUtils.isBlank(sqlDef.getWatermarkColumn()) ? null : _lookupNewRows(sqlDef, cached);
+        if (newRows != null) {
+            // The metadata is not fetched again after every append, so check the rows actually cached
+            if (cached.getRowCount() + newRows.getRowCount() > sqlDef.getCacheMaxRows()) {
+                return false;
+            }
+            if (newRows.getRowCount() > 0) {
+                staticDataSetProvider.appendDataSet(uuid, newRows);
+            }
+        } else {
+            DataSetMetadata metadata = getDataSetMetadata(def);
+            if (metadata.getNumberOfRows() > sqlDef.getCacheMaxRows()) {
+                return false;
+            }
+            DataSet dataSet = _lookupDataSet(sqlDef, null);
+            dataSet.setUUID(uuid);
+            dataSet.setDefinition(def);
+            staticDataSetProvider.registerDataSet(dataSet);
+        }
+        queryResultCache.invalidate(uuid);
+        rowCountCache.invalidate(uuid);
+        return true;
+    }
+
     public DataSetMetadata getDataSetMetadata(DataSetDef def) throws Exception {
         SQLDataSetDef sqlDef = (SQLDataSetDef) def;
         DataSource ds = dataSourceLocator.lookup(sqlDef);
@@ -268,7 +508,10 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
     @Override
     public void onDataSetDefStale(DataSetDef def) {
         if (DataSetProviderType.SQL.equals(def.getProvider())) {
+            _loadingMap.remove(def.getUUID());
             staticDataSetProvider.removeDataSet(def.getUUID());
+            queryResultCache.invalidate(def.getUUID());
+            rowCountCache.invalidate(def.getUUID());
         }
     }
 
@@ -277,7 +520,10 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
         if (DataSetProviderType.SQL.equals(olDef.getProvider())) {
             String uuid = olDef.getUUID();
             _metadataMap.remove(uuid);
+            _loadingMap.remove(uuid);
             staticDataSetProvider.removeDataSet(uuid);
+            queryResultCache.invalidate(uuid);
+            rowCountCache.invalidate(uuid);
         }
     }
 
@@ -286,7 +532,10 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
         if (DataSetProviderType.SQL.equals(oldDef.getProvider())) {
             String uuid = oldDef.getUUID();
             _metadataMap.remove(uuid);
+            _loadingMap.remove(uuid);
             staticDataSetProvider.removeDataSet(uuid);
+            queryResultCache.invalidate(uuid);
+            rowCountCache.invalidate(uuid);
         }
     }
 
@@ -302,7 +551,105 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
         List<Column> columns;
     }
 
-    protected transient Map<String,MetadataHolder> _metadataMap = new HashMap<String,MetadataHolder>();
+    protected transient Map<String,MetadataHolder> _metadataMap = new ConcurrentHashMap<String,MetadataHolder>();
+    protected transient Map<String,CompletableFuture<Boolean>> _loadingMap = new ConcurrentHashMap<String,CompletableFuture<Boolean>>();
+
+    /**
+     * Fetch the whole data set from database and register it into the static cache. Further requests will lookup
+     * from cache. Only the first of the concurrent callers fetches the data set, the others wait for it.
+     * @return false if the data set is not cached, as its rows are greater than the cache max. rows.
+     */
+    protected boolean _loadStaticDataSet(SQLDataSetDef def) throws Exception {
+        String uuid = def.getUUID();
+        CompletableFuture<Boolean> loading = new CompletableFuture<>();
+        CompletableFuture<Boolean> current = _loadingMap.putIfAbsent(uuid, loading);
+        if (current != null) {
+            try {
+                return current.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+        try {
+            // Another caller might have just registered it
+            boolean cached = staticDataSetProvider.lookupDataSet(uuid, null) != null;
+            if (!cached) {
+                DataSetMetadata metadata = getDataSetMetadata(def);
+                if (metadata.getNumberOfRows() <= def.getCacheMaxRows()) {
+                    DataSet dataSet = _lookupDataSet(def, null);
+                    dataSet.setUUID(uuid);
+                    dataSet.setDefinition(def);
+                    staticDataSetProvider.registerDataSet(dataSet);
+                    cached = true;
+
+                    // Discard it if the definition has changed while loading
+                    if (_loadingMap.get(uuid) != loading) {
+                        staticDataSetProvider.removeDataSet(uuid);
+                    }
+                }
+            }
+            loading.complete(cached);
+            return cached;
+        } catch (Exception e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            _loadingMap.remove(uuid, loading);
+        }
+    }
+
+    /**
+     * Fetch only the rows newer than the last watermark column value in the cached data set.
+     * <p>The cached values might be less precise than the database ones (e.g: timestamps are cached in millis),
+     * so the rows matching the watermark are fetched again and the ones already in cache are discarded.</p>
+     * @return null if the cached data set has no watermark value, so it must be loaded in full.
+     */
+    protected DataSet _lookupNewRows(SQLDataSetDef def, DataSet dataSet) throws Exception {
+        String uuid = def.getUUID();
+        String columnId = def.getWatermarkColumn();
+        DataColumn column = dataSet.getColumnById(columnId);
+        if (column == null) {
+            throw new IllegalArgumentException("Watermark column not found in the data set " + uuid + ": " + columnId);
+        }
+        List values = column.getValues();
+        Comparable watermark = null;
+        for (Object value : values) {
+            if (value != null && (watermark == null || ((Comparable) value).compareTo(watermark) > 0)) {
+                watermark = (Comparable) value;
+            }
+        }
+        if (watermark == null) {
+            return null;
+        }
+        List<List<Object>> cachedRows = new ArrayList<List<Object>>();
+        for (int row = 0; row < values.size(); row++) {
+            Object value = values.get(row);
+            if (value != null && watermark.compareTo(value) == 0) {
+                cachedRows.add(_getRowValues(dataSet, row));
+            }
+        }
+        DataSetFilter filter = new DataSetFilter();
+        filter.addFilterColumn(FilterFactory.greaterOrEqualsTo(columnId, watermark));
+        DataSet rows = _lookupDataSet(def, new DataSetLookup(uuid, filter));
+
+        List<Integer> newRows = new ArrayList<Integer>();
+        for (int row = 0; row < rows.getRowCount(); row++) {
+            if (!cachedRows.remove(_getRowValues(rows, row))) {
+                newRows.add(row);
+            }
+        }
+        log.debug("SQL data set refreshed [uuid={}]: {} rows fetched after {}={}", uuid, newRows.size(), columnId, watermark);
+        return newRows.size() == rows.getRowCount() ? rows : rows.trim(newRows);
+    }
+
+    protected List<Object> _getRowValues(DataSet dataSet, int row) {
+        List<Object> result = new ArrayList<Object>();
+        for (DataColumn column : dataSet.getColumns()) {
+            result.add(dataSet.getValueAt(row, column.getId()));
+        }
+        return result;
+    }
 
     protected Column _getDbColumn(Collection<Column> dbColumns, String columnId) {
         for (Column dbColumn: dbColumns) {
@@ -410,7 +757,7 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
 
     protected List<Column> _getColumns(SQLDataSetDef def, Connection conn) {
         final Dialect dialect = JDBCUtils.dialect(conn);
-        Select q = SQLFactory.select(conn);
+        Select q = createSelect(conn);
         q = (!StringUtils.isBlank(def.getDbSQL()) ? q.from(def.getDbSQL()) : q.from(_createTable(def))).limit(0);
         return logSQL(q).fetch(new ResultSetConsumer<List<Column>>() {
             public List<Column> consume(ResultSet _rs) {
@@ -422,7 +769,7 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
     protected int _getRowCount(DataSetMetadata metadata, SQLDataSetDef def, Connection conn) throws Exception {
 
         // Count rows, either on an SQL or a DB table
-        Select _query = SQLFactory.select(conn);
+        Select _query = createSelect(conn);
         _appendFrom(def, _query);
 
         // Filters set must be taken into account
@@ -436,11 +783,89 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
         return _query.fetchCount();
     }
 
+    /**
+     * Count the rows on a brand new connection (the row counts are refreshed once the lookup is done).
+     */
+    protected int _fetchCount(SQLDataSetDef def, String countSql, List<Object> params) throws Exception {
+        Connection conn = dataSourceLocator.lookup(def).getConnection();
+        try (ResultSetHandler handler = JDBCUtils.executeQuery(conn, countSql, params)) {
+            ResultSet _rs = handler.getResultSet();
+            return _rs.next() ? _rs.getInt(1) : 0;
+        } finally {
+            conn.close();
+        }
+    }
+
     protected DataSet _lookupDataSet(SQLDataSetDef def, DataSetLookup lookup) throws Exception {
+        return _lookupDataSet(def, lookup, false);
+    }
+
+    protected DataSet _lookupDataSet(SQLDataSetDef def, DataSetLookup lookup, boolean queryCache) throws Exception {
+        return _lookupDataSet(def, lookup, queryCache, null);
+    }
+
+    protected DataSet _lookupDataSet(SQLDataSetDef def, DataSetLookup lookup, boolean queryCache, Connection conn) throws Exception {
+        // The cache is checked before taking a connection
+        QueryResultCache.Key key = _getQueryCacheKey(def, lookup, queryCache);
+        if (key != null) {
+            return queryResultCache.get(key, getQueryCacheTimeToLive(def), () -> _lookupDataSet(def, lookup, false, conn));
+        }
         LookupProcessor processor = new LookupProcessor(def, lookup);
+        processor.conn = conn;
         return processor.run();
     }
 
+    /**
+     * Get the query cache key of a lookup, or null if its results can't be cached.
+     * <p>The lookups with no time frames always render the same SQL on the same data source, so the lookup stands
+     * for its rendered SQL (the entries are invalidated once the data set definition changes). Time frames are
+     * relative to the current time and render different parameter values on every call, so they are never cached.</p>
+     */
+    protected QueryResultCache.Key _getQueryCacheKey(SQLDataSetDef def, DataSetLookup lookup, boolean queryCache) {
+        if (!queryCache || (lookup != null && lookup.testMode())) {
+            return null;
+        }
+        if (_isTimeDependent(def.getDataSetFilter())) {
+            return null;
+        }
+        if (lookup != null) {
+            for (DataSetFilter filter : lookup.getOperationList(DataSetFilter.class)) {
+                if (_isTimeDependent(filter)) {
+                    return null;
+                }
+            }
+        }
+        return new QueryResultCache.Key(def.getUUID(), def.getDataSource(), lookup);
+    }
+
+    /**
+     * Check if the given filter holds time frames, which are relative to the current time.
+     */
+    protected boolean _isTimeDependent(DataSetFilter filter) {
+        if (filter != null) {
+            for (ColumnFilter columnFilter : filter.getColumnFilterList()) {
+                if (_isTimeDependent(columnFilter)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    protected boolean _isTimeDependent(ColumnFilter filter) {
+        if (filter instanceof CoreFunctionFilter) {
+            return CoreFunctionType.TIME_FRAME.equals(((CoreFunctionFilter) filter).getType());
+        }
+        if (filter instanceof LogicalExprFilter) {
+            for (ColumnFilter term : ((LogicalExprFilter) filter).getLogicalTerms()) {
+                if (_isTimeDependent(term)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     protected Table _createTable(SQLDataSetDef def) {
         if (StringUtils.isBlank(def.getDbSchema())) return SQLFactory.table(def.getDbTable());
         else return SQLFactory.table(def.getDbSchema(), def.getDbTable());
@@ -596,6 +1021,10 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
                 "' not found in data set: " + metadata.getUUID());
     }
 
+    protected Select createSelect(Connection conn) {
+        return SQLFactory.select(conn).bindParameters(preparedStatementsEnabled);
+    }
+
     public Select logSQL(Select q) {
         String sql = q.getSQL();
         log.debug(sql);
@@ -608,6 +1037,8 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
     private class LookupProcessor {
 
         private static final String NOT_SUPPORTED = "' not supported";
+        // Column buffers are never pre-sized above this number of rows, the limit might be far beyond the actual results
+        private static final int MAX_PRESIZED_ROWS = 10000;
 		SQLDataSetDef def;
         DataSetLookup lookup;
         DataSetMetadata metadata;
@@ -616,6 +1047,9 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
         Date[] dateLimits;
         DateIntervalType dateIntervalType;
         List<DataSetOp> postProcessingOps = new ArrayList<DataSetOp>();
+        List<ColumnGroup> joinGroups = new ArrayList<ColumnGroup>();
+        long queryTime;
+        long decodeTime;
 
         public LookupProcessor(SQLDataSetDef def, DataSetLookup lookup) {
             this.def = def;
@@ -640,7 +1074,7 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
                         }
                     }
                     for (GroupFunction gf : groupOp.getGroupFunctions()) {
-                        if (!cg.getSourceId().equals(gf.getSourceId()) && gf.getFunction() == null) {
+                        if (!cg.getSourceId().equals(gf.getSourceId()) && gf.getFunction() == null && getJoinGroup(gf) == null) {
                             return true;
                         }
                     }
@@ -649,9 +1083,74 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
             return false;
         }
 
+        /**
+         * Get the group join operations (if any) following the given group.
+         */
+        public List<DataSetGroup> getJoinGroupOps(int groupIdx) {
+            List<DataSetGroup> result = new ArrayList<DataSetGroup>();
+            List<DataSetOp> opList = lookup.getOperationList();
+            for (int i = groupIdx + 1; i < opList.size(); i++) {
+                DataSetOp op = opList.get(i);
+                if (!(op instanceof DataSetGroup)) {
+                    break;
+                }
+                DataSetGroup joinOp = (DataSetGroup) op;
+                if (!joinOp.isJoin() || joinOp.getColumnGroup() == null) {
+                    break;
+                }
+                result.add(joinOp);
+            }
+            return result;
+        }
+
+        /**
+         * A group join can be translated into a single GROUP BY on all the join columns as long as
+         * no in-memory post processing of the intervals (i.e. date groups or column pick ups) is required.
+         */
+        public boolean isJoinPushable(DataSetGroup groupOp, List<DataSetGroup> joinOps) {
+            List<DataSetGroup> groupOps = new ArrayList<DataSetGroup>();
+            groupOps.add(groupOp);
+            groupOps.addAll(joinOps);
+            List<String> groupColumns = new ArrayList<String>();
+            for (DataSetGroup op : groupOps) {
+                String sourceId = op.getColumnGroup().getSourceId();
+                _assertColumnExists(metadata, sourceId);
+                ColumnType columnType = metadata.getColumnType(_columnFromMetadata(metadata, sourceId));
+                if (!ColumnType.LABEL.equals(columnType) && !ColumnType.NUMBER.equals(columnType)) {
+                    return false;
+                }
+                groupColumns.add(sourceId);
+            }
+            DataSetGroup lastOp = joinOps.get(joinOps.size() - 1);
+            if (lastOp.getGroupFunctions().isEmpty()) {
+                return false;
+            }
+            for (GroupFunction gf : lastOp.getGroupFunctions()) {
+                if (gf.getFunction() == null && !groupColumns.contains(gf.getSourceId())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public ColumnGroup getJoinGroup(GroupFunction gf) {
+            if (gf.getFunction() == null) {
+                for (ColumnGroup jcg : joinGroups) {
+                    if (jcg.getSourceId().equals(gf.getSourceId())) {
+                        return jcg;
+                    }
+                }
+            }
+            return null;
+        }
+
         public DataSet run() throws Exception {
-            DataSource ds = dataSourceLocator.lookup(def);
-            conn = ds.getConnection();
+            // Connections given by the caller are not closed
+            boolean closeConn = conn == null;
+            if (closeConn) {
+                DataSource ds = dataSourceLocator.lookup(def);
+                conn = ds.getConnection();
+            }
             try {
                 boolean skipCache = lookup != null && lookup.testMode();
                 metadata = _getDataSetMetadata(def, conn, skipCache);
@@ -662,20 +1161,11 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
                 if (lookup == null || lookup.getOperationList().isEmpty()) {
 
                     // Prepare the select
-                    _query = SQLFactory.select(conn).columns(_createAllColumns());
+                    _query = createSelect(conn).columns(_createAllColumns());
                     _appendFrom(def, _query);
 
-                    // Row limits
-                    if (trim && postProcessingOps.isEmpty()) {
-                        if(def.isEstimateSize()) {
-                            totalRows = _query.fetchCount();
-                        }
-                        _query.limit(lookup.getNumberOfRows()).offset(lookup.getRowOffset());
-                    }
-
                     // Fetch the results and build the data set
-                    List<DataColumn> columns = calculateColumns(null);
-                    return buildDataSet(columns, trim, totalRows);
+                    return fetchDataSet(null, trim, totalRows);
                 }
                 // ... or a list of operations.
                 else {
@@ -683,8 +1173,27 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
                     int groupIdx = lookup.getFirstGroupOpIndex(0, null, false);
                     if (groupIdx != -1) groupOp = lookup.getOperation(groupIdx);
 
+                    // Group joins are grouped by all the join columns in a single query.
+                    // Otherwise, the filtered rows are grouped in memory.
+                    boolean joinPostProcessing = false;
+                    List<DataSetGroup> joinOps = groupOp != null ? getJoinGroupOps(groupIdx) : new ArrayList<DataSetGroup>();
+                    if (!joinOps.isEmpty()) {
+                        if (isJoinPushable(groupOp, joinOps)) {
+                            joinGroups.add(groupOp.getColumnGroup());
+                            for (int i = 0; i < joinOps.size() - 1; i++) {
+                                joinGroups.add(joinOps.get(i).getColumnGroup());
+                            }
+                            groupOp = joinOps.get(joinOps.size() - 1);
+                        } else {
+                            postProcessingOps.add(groupOp);
+                            postProcessingOps.addAll(joinOps);
+                            joinPostProcessing = true;
+                            groupOp = null;
+                        }
+                    }
+
                     // Prepare the select
-                    _query = SQLFactory.select(conn).columns(_createColumns(groupOp));
+                    _query = createSelect(conn).columns(_createColumns(groupOp));
                     _appendFrom(def, _query);
 
                     // Append the filter clauses
@@ -697,6 +1206,11 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
                     for (DataSetGroup intervalSelect : intervalSelects) {
                         _appendIntervalSelection(intervalSelect, _query);
                     }
+                    if (!joinPostProcessing) {
+                        for (DataSetGroup joinOp : joinOps) {
+                            _appendIntervalSelection(joinOp, _query);
+                        }
+                    }
 
                     // ... the group by clauses
                     ColumnGroup cg = null;
@@ -719,7 +1233,9 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
 
                     // ... the sort clauses
                     DataSetSort sortOp = lookup.getFirstSortOp();
-                    if (sortOp != null) {
+                    if (sortOp != null && joinPostProcessing) {
+                        postProcessingOps.add(sortOp);
+                    } else if (sortOp != null) {
                         if (cg != null) {
                             _appendOrderGroupBy(groupOp, sortOp, groupColumnAdded);
                         } else {
@@ -729,27 +1245,47 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
                         _appendOrderGroupBy(groupOp);
                     }
 
-                    // ... and the row limits.
-                    // If post-processing then defer the trim operation in order to not leave out rows
-                    if (trim && postProcessingOps.isEmpty()) {
-                        if (def.isEstimateSize()) {
-                            totalRows = _query.fetchCount();
-                        }
-                        _query.limit(lookup.getNumberOfRows()).offset(lookup.getRowOffset());
-                    }
-
                     // Fetch the results and build the data set
-                    List<DataColumn> columns = calculateColumns(groupOp);
-                    return buildDataSet(columns, trim, totalRows);
+                    return fetchDataSet(groupOp, trim, totalRows);
                 }
             } finally {
-                conn.close();
+                if (closeConn) {
+                    conn.close();
+                }
             }
         }
         
+        protected DataSet fetchDataSet(DataSetGroup groupOp, boolean trim, int totalRows) throws Exception {
+            // Row limits. If post-processing then defer the trim operation in order to not leave out rows
+            if (trim && postProcessingOps.isEmpty()) {
+                if (def.isEstimateSize()) {
+                    totalRows = fetchCount();
+                }
+                _query.limit(lookup.getNumberOfRows()).offset(lookup.getRowOffset());
+            }
+            List<DataColumn> columns = calculateColumns(groupOp);
+            return buildDataSet(columns, trim, totalRows);
+        }
+
+        protected int fetchCount() throws Exception {
+            if (!rowCountCacheEnabled || (lookup != null && lookup.testMode())) {
+                return _query.fetchCount();
+            }
+            final List<Object> params = new ArrayList<>();
+            final String countSql = _query.getCountSQL(params);
+            QueryResultCache.Key key = new QueryResultCache.Key(def.getUUID(), def.getDataSource(), countSql, params, null);
+            return rowCountCache.getRowCount(key, getRowCountTimeToLive(def),
+                    _query::fetchCount,
+                    rowCountEstimatesEnabled ? _query::fetchEstimateCount : null,
+                    () -> _fetchCount(def, countSql, params));
+        }
+
         protected DataSet buildDataSet(final List<DataColumn> columns, boolean trim, int totalRows) throws Exception {
+            final long queryStart = System.currentTimeMillis();
+            _query.fetchSize(getFetchSize(def));
             DataSet dataSet = logSQL(_query).fetch(new ResultSetConsumer<DataSet>() {
                 public DataSet consume(ResultSet _rs) {
+                    queryTime = System.currentTimeMillis() - queryStart;
                     try {
                         return _buildDataSet(columns, _rs);
                     } catch (Exception e) {
@@ -760,6 +1296,10 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
             if (trim && postProcessingOps.isEmpty()) {
                 dataSet.setRowCountNonTrimmed(totalRows);
             }
+            if (log.isDebugEnabled()) {
+                log.debug("Data set [" + def.getUUID() + "] rows: " + dataSet.getRowCount() +
+                        ", query time: " + queryTime + " ms, decode time: " + decodeTime + " ms");
+            }
             return dataSet;
         }
 
@@ -792,7 +1332,7 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
         protected Date calculateDateLimit(String dateColumnId, boolean min) {
             String dbColumnId = _columnFromMetadata(metadata, dateColumnId);
             Column _dateColumn = SQLFactory.column(dbColumnId);
-            Select _limitsQuery = SQLFactory.select(conn).columns(_dateColumn);
+            Select _limitsQuery = createSelect(conn).columns(_dateColumn);
             _appendFrom(def, _limitsQuery);
 
             // Append the filter clauses
@@ -830,6 +1370,8 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
                     String columnId = metadata.getColumnId(i);
                     ColumnType columnType = metadata.getColumnType(i);
                     DataColumn column = new DataColumnImpl(columnId, columnType);
+                    ColumnarList values = ColumnarList.create(columnType);
+                    if (values != null) column.setValues(values);
                     result.add(column);
                 }
             }
@@ -846,8 +1388,14 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
                     column.setGroupFunction(gf);
                     result.add(column);
 
+                    // Join group columns
+                    ColumnGroup jcg = getJoinGroup(gf);
+                    if (jcg != null) {
+                        column.setColumnType(ColumnType.LABEL);
+                        column.setColumnGroup(jcg);
+                    }
                     // Group column
-                    if (cg != null && cg.getSourceId().equals(sourceId) && gf.getFunction() == null) {
+                    else if (cg != null && cg.getSourceId().equals(sourceId) && gf.getFunction() == null) {
                         column.setColumnType(ColumnType.LABEL);
                         column.setColumnGroup(cg);
                         if (ColumnType.DATE.equals(columnType)) {
@@ -1000,6 +1548,11 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
             ColumnType columnType = metadata.getColumnType(dbColumnId);
             boolean postProcessing = false;
 
+            // Group by the join columns first
+            for (ColumnGroup jcg : joinGroups) {
+                _query.groupBy(_createColumn(jcg));
+            }
+
             // Group by Text => not supported
             if (ColumnType.TEXT.equals(columnType)) {
                 throw new IllegalArgumentException("Group by text '" + sourceId + NOT_SUPPORTED);
@@ -1013,7 +1566,7 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
             else {
                 _query.groupBy(SQLFactory.column(dbColumnId));
                 for (GroupFunction gf : groupOp.getGroupFunctions()) {
-                    if (!sourceId.equals(gf.getSourceId()) && gf.getFunction() == null) {
+                    if (!sourceId.equals(gf.getSourceId()) && gf.getFunction() == null && getJoinGroup(gf) == null) {
                         postProcessing = cg.isPostEnabled();
                     }
                 }
@@ -1021,7 +1574,7 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
 
             // Also add any non-aggregated column (columns pick up) to the group statement
             for (GroupFunction gf : groupOp.getGroupFunctions()) {
-                if (gf.getFunction() == null && !gf.getSourceId().equalsIgnoreCase(cg.getSourceId())) {
+                if (gf.getFunction() == null && !gf.getSourceId().equalsIgnoreCase(cg.getSourceId()) && getJoinGroup(gf) == null) {
                     String dbGfId = _columnFromMetadata(metadata, gf.getSourceId());
                     _query.groupBy(SQLFactory.column(dbGfId));
                 }
@@ -1047,10 +1600,12 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
         }
 
         protected DataSet _buildDataSet(List<DataColumn> columns, ResultSet _rs) throws Exception {
+            long decodeStart = System.currentTimeMillis();
             DataSet dataSet = DataSetFactory.newEmptyDataSet();
             dataSet.setUUID(def.getUUID());
             dataSet.setDefinition(def);
             DataColumn dateGroupColumn = null;
+            List<DataColumn> dateGroupColumns = new ArrayList<>();
             boolean dateIncludeEmptyIntervals = false;
 
             // Create an empty data set
@@ -1065,70 +1620,48 @@ public class SQLDataSetProvider implements DataSetProvider, DataSetDefRegistryLi
                 for (int i=0; i<_query.getOffset() && _rs.next(); i++);
             }
 
-            // Populate the data set
-            int rowIdx = 0;
-            int numRows = _query.getLimit();
-            while (_rs.next() && (numRows < 0 || rowIdx++ < numRows)) {
-                for (int i=0; i<columns.size(); i++) {
-                    DataColumn column = dataSet.getColumnByIndex(i);
-                    Object value = _rs.getObject(i+1);
-                    // Clob conversion must be done when object is still open
-                    if (value instanceof Clob) {
-                        value = JDBCUtils.clobToString((Clob) value);
-                    }
-                    column.getValues().add(value);
-                }
-            }
-
-            // Process the data set values according to each column type and the JDBC dialect
+            // Populate the data set in a single pass: every column decoder is chosen once from the column types
             Dialect dialect = JDBCUtils.dialect(conn);
-            for (DataColumn column : dataSet.getColumns()) {
-                ColumnType columnType = column.getColumnType();
+            ResultSetMetaData rsMetadata = _rs.getMetaData();
+            int numRows = _query.getLimit();
+            int capacity = numRows < 0 ? -1 : Math.min(numRows, MAX_PRESIZED_ROWS);
+            ResultSetColumnDecoder[] decoders = new ResultSetColumnDecoder[columns.size()];
+            for (int i=0; i<columns.size(); i++) {
+                DataColumn column = dataSet.getColumnByIndex(i);
                 List values = column.getValues();
-
-                if (ColumnType.LABEL.equals(columnType)) {
-                    ColumnGroup cg = column.getColumnGroup();
-                    if (cg != null && ColumnType.DATE.equals(metadata.getColumnType(cg.getSourceId()))) {
-                        dateGroupColumn = column;
-                        dateIncludeEmptyIntervals = cg.areEmptyIntervalsAllowed();
-
-                        // If grouped by date then convert back to absolute dates
-                        // in order to allow the post processing of the data set.
-                        column.setColumnType(ColumnType.DATE);
-                        for (int j=0; j<values.size(); j++) {
-                            Object val = values.remove(j);
-                            Date dateObj = DateUtils.parseDate(column, val);
-                            values.add(j, dateObj);
-                        }
-                    }
-                    else {
-                        for (int j=0; j<values.size(); j++) {
-                            Object value = dialect.convertToString(values.remove(j));
-                            values.add(j, value);
-                        }
-                    }
+                if (capacity >= 0) {
+                    List presized = values instanceof ColumnarList ? ColumnarList.create(column.getColumnType(), capacity) : null;
+                    values = presized != null ? presized : new ArrayList(capacity);
+                    column.setValues(values);
                 }
-                else if (ColumnType.NUMBER.equals(columnType)) {
-                    for (int j=0; j<values.size(); j++) {
-                        Object value = dialect.convertToDouble(values.remove(j));
-                        values.add(j, value);
-                    }
+                ColumnGroup cg = column.getColumnGroup();
+                if (!(values instanceof ColumnarList) && ColumnType.LABEL.equals(column.getColumnType())
+                        && cg != null && ColumnType.DATE.equals(metadata.getColumnType(cg.getSourceId()))) {
+                    // If grouped by date then convert back to absolute dates
+                    // in order to allow the post processing of the data set.
+                    dateGroupColumn = column;
+                    dateIncludeEmptyIntervals = cg.areEmptyIntervalsAllowed();
+                    dateGroupColumns.add(column);
+                    decoders[i] = ResultSetColumnDecoder.raw(i+1, values);
+                } else {
+                    decoders[i] = new ResultSetColumnDecoder(dialect, i+1, rsMetadata.getColumnType(i+1), column.getColumnType(), values);
                 }
-                else if (ColumnType.DATE.equals(columnType)) {
-                    for (int j=0; j<values.size(); j++) {
-                        Object value = dialect.convertToDate(values.remove(j));
-                        values.add(j, value);
-                    }
+            }
+            int rowIdx = 0;
+            while (_rs.next() && (numRows < 0 || rowIdx++ < numRows)) {
+                for (int i=0; i<decoders.length; i++) {
+                    decoders[i].decode(_rs);
                 }
-                else {
-                    for (int j=0; j<values.size(); j++) {
-                        Object value = dialect.convertToString(values.remove(j));
-                        values.add(j, value);
-                    }
+            }
+            for (DataColumn column : dateGroupColumns) {
+                column.setColumnType(ColumnType.DATE);
+                List values = column.getValues();
+                for (int j=0; j<values.size(); j++) {
+                    values.set(j, DateUtils.parseDate(column, values.get(j)));
                 }
-
-                column.setValues(values);
             }
+            decodeTime = System.currentTimeMillis() - decodeStart;
+
             // Some operations requires some in-memory post-processing
             if (!postProcessingOps.isEmpty()) {
                 dataSet = opEngine.execute(dataSet, postProcessingOps);
@@ -17,6 +17,8 @@ package org.dashbuilder.dataprovider.sql.dialect;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.text.ParseException;
@@ -52,15 +54,28 @@ import org.dashbuilder.dataset.sort.SortOrder;
 
 import static org.dashbuilder.dataprovider.sql.SQLFactory.*;
 
-public class DefaultDialect implements Dialect {
+public class DefaultDialect implements Dialect, Cloneable {
 
     private static final String AND = " AND ";
 
+    // The values of the parameters rendered as placeholders (only set on bound dialects)
+    protected List<Object> boundParameters = null;
+
     @Override
     public String[] getExcludedColumns() {
         return new String[] {};
     }
 
+    @Override
+    public void setFetchSize(Statement statement, int fetchSize) throws SQLException {
+        statement.setFetchSize(fetchSize > 0 ? fetchSize : 0);
+    }
+
+    @Override
+    public boolean isFetchSizeTransactional() {
+        return false;
+    }
+
     @Override
     public String getColumnSQL(Column column) {
 
@@ -531,6 +546,10 @@ public class DefaultDialect implements Dialect {
         if (param == null) {
             return "null";
         }
+        if (boundParameters != null) {
+            boundParameters.add(param);
+            return "?";
+        }
         if (param instanceof Number) {
             return getNumberParameterSQL((Number) param);
         }
@@ -540,6 +559,16 @@ public class DefaultDialect implements Dialect {
         return getStringParameterSQL(param.toString());
     }
 
+    @Override
+    public Dialect bind(List<Object> parameters) {
+        try {
+            DefaultDialect bound = (DefaultDialect) clone();
+            bound.boundParameters = parameters;
+            return bound;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
     @Override
     public String getNumberParameterSQL(Number param) {
@@ -651,6 +680,20 @@ public class DefaultDialect implements Dialect {
         }
     }
 
+    @Override
+    public String getEstimateCountQuerySQL(Select select) {
+        return null;
+    }
+
+    /**
+     * Check if the select reads all the rows of a table, so that the table statistics give its number of rows.
+     */
+    protected boolean isTableScan(Select select) {
+        return select.getFromTable() != null
+                && select.getWheres().isEmpty()
+                && select.getGroupBys().isEmpty();
+    }
+
     @Override
     public String getSQL(CreateTable create) {
         StringBuilder sql = new StringBuilder("CREATE TABLE ");
@@ -15,7 +15,10 @@
  */
 package org.dashbuilder.dataprovider.sql.dialect;
 
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Date;
+import java.util.List;
 
 import org.dashbuilder.dataprovider.sql.model.Column;
 import org.dashbuilder.dataprovider.sql.model.Condition;
@@ -38,6 +41,13 @@ public interface Dialect {
 
     String getCountQuerySQL(Select select);
 
+    /**
+     * Get a query returning a cheap estimate of the number of rows of the given select (usually taken from the
+     * database statistics), in the first column of a single row.
+     * @return null if the database can not estimate the rows of the given select.
+     */
+    String getEstimateCountQuerySQL(Select select);
+
     String getSQL(CreateTable create);
 
     String getSQL(Select select);
@@ -88,6 +98,18 @@ public interface Dialect {
 
     String[] getExcludedColumns();
 
+    /**
+     * Set the number of rows the statement fetches on every round trip, streaming the results if the driver
+     * requires something else than the plain JDBC fetch size to do so. Zero means the driver's default.
+     */
+    void setFetchSize(Statement statement, int fetchSize) throws SQLException;
+
+    /**
+     * Check if the results are only fetched in chunks (cursor based) within a transaction, so the auto-commit
+     * must be disabled while they are read.
+     */
+    boolean isFetchSizeTransactional();
+
     String getTableSQL(SQLStatement<?> stmt);
 
     String getTableNameSQL(String name);
@@ -150,6 +172,12 @@ public interface Dialect {
 
     String getParameterSQL(Object param);
 
+    /**
+     * Get a dialect that renders the (non-null) parameters as <i>?</i> placeholders and adds their
+     * values, in order, to the given list, so that the statement can be run as a prepared statement.
+     */
+    Dialect bind(List<Object> parameters);
+
     String getNumberParameterSQL(Number param);
 
     String getDateParameterSQL(Date param);
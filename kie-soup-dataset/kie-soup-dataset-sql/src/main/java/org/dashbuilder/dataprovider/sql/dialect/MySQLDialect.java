@@ -15,11 +15,16 @@
  */
 package org.dashbuilder.dataprovider.sql.dialect;
 
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.commons.lang3.StringUtils;
 import org.dashbuilder.dataprovider.sql.model.Column;
 import org.dashbuilder.dataprovider.sql.model.DynamicDateColumn;
+import org.dashbuilder.dataprovider.sql.model.Select;
+import org.dashbuilder.dataprovider.sql.model.Table;
 import org.dashbuilder.dataset.group.DateIntervalType;
 
 public class MySQLDialect extends DefaultDialect {
@@ -48,6 +53,25 @@ public class MySQLDialect extends DefaultDialect {
         datePatternMap.put(DateIntervalType.MILLENIUM, PATTERN_YEAR);
     }
 
+    @Override
+    public String getEstimateCountQuerySQL(Select select) {
+        if (!isTableScan(select)) {
+            return null;
+        }
+        // The InnoDB statistics, which might differ from the actual number of rows by a 40-50%
+        Table table = select.getFromTable();
+        String schema = StringUtils.isBlank(table.getSchema()) ? "DATABASE()" : getParameterSQL(table.getSchema());
+        return "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = " + schema
+                + " AND TABLE_NAME = " + getParameterSQL(table.getName());
+    }
+
+    @Override
+    public void setFetchSize(Statement statement, int fetchSize) throws SQLException {
+        // Any positive fetch size is ignored by the driver (unless the useCursorFetch property is set),
+        // it only streams the results row by row on a forward-only, read-only statement given Integer.MIN_VALUE
+        statement.setFetchSize(fetchSize > 0 ? Integer.MIN_VALUE : 0);
+    }
+
     @Override
     public boolean allowAliasInStatements() {
         return true;
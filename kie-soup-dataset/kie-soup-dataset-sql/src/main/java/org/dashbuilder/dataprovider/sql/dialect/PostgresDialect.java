@@ -18,7 +18,10 @@ package org.dashbuilder.dataprovider.sql.dialect;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.commons.lang3.StringUtils;
 import org.dashbuilder.dataprovider.sql.model.DynamicDateColumn;
+import org.dashbuilder.dataprovider.sql.model.Select;
+import org.dashbuilder.dataprovider.sql.model.Table;
 import org.dashbuilder.dataset.group.DateIntervalType;
 
 public class PostgresDialect extends DefaultDialect {
@@ -47,6 +50,23 @@ public class PostgresDialect extends DefaultDialect {
         datePatternMap.put(DateIntervalType.MILLENIUM, PATTERN_YEAR);
     }
 
+    @Override
+    public String getEstimateCountQuerySQL(Select select) {
+        if (!isTableScan(select)) {
+            return null;
+        }
+        // The planner statistics (-1 if the table has never been analyzed)
+        Table table = select.getFromTable();
+        String name = StringUtils.isBlank(table.getSchema()) ? table.getName() : table.getSchema() + "." + table.getName();
+        return "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass(" + getParameterSQL(name) + ")";
+    }
+
+    @Override
+    public boolean isFetchSizeTransactional() {
+        // The driver only uses a cursor if the auto-commit is disabled, otherwise it loads all the results
+        return true;
+    }
+
     @Override
     public boolean allowAliasInStatements() {
         return true;
@@ -21,6 +21,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.dashbuilder.dataprovider.sql.JDBCUtils;
 import org.dashbuilder.dataprovider.sql.ResultSetConsumer;
@@ -42,11 +43,38 @@ public class Select extends SQLStatement<Select> {
     protected int offset = -1;
     protected boolean offsetPostProcessing = false;
     protected List<String> quotedFields = null;
+    protected boolean bindParameters = true;
+    protected int fetchSize = 0;
 
     public Select(Connection connection, Dialect dialect) {
         super(connection, dialect);
     }
 
+    public boolean isBindParameters() {
+        return bindParameters;
+    }
+
+    /**
+     * Run the statement as a prepared statement with the condition values as bound parameters (enabled by default).
+     * Otherwise, the values are rendered as literals.
+     */
+    public Select bindParameters(boolean bindParameters) {
+        this.bindParameters = bindParameters;
+        return this;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Set the number of rows fetched on every round trip (zero means the driver's default).
+     */
+    public Select fetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
     public boolean isOffsetPostProcessing() {
         return offsetPostProcessing;
     }
@@ -172,10 +200,46 @@ public class Select extends SQLStatement<Select> {
         return getSQL();
     }
 
+    /**
+     * Get the SQL with the condition values rendered as <i>?</i> placeholders.
+     * @param parameters Filled with the values of the placeholders, in order
+     */
+    public String getSQL(List<Object> parameters) {
+        return bindSQL(this::getSQL, parameters);
+    }
+
+    /**
+     * Get the count query SQL with the condition values rendered as <i>?</i> placeholders.
+     * @param parameters Filled with the values of the placeholders, in order
+     */
+    public String getCountSQL(List<Object> parameters) {
+        return bindSQL(() -> dialect.getCountQuerySQL(this), parameters);
+    }
+
+    /**
+     * Get the row estimate query SQL with the values rendered as <i>?</i> placeholders.
+     * @param parameters Filled with the values of the placeholders, in order
+     * @return null if the database can not estimate the rows of this select.
+     */
+    public String getEstimateCountSQL(List<Object> parameters) {
+        return bindSQL(() -> dialect.getEstimateCountQuerySQL(this), parameters);
+    }
+
+    protected String bindSQL(Supplier<String> sql, List<Object> parameters) {
+        Dialect literalDialect = dialect;
+        dialect = literalDialect.bind(parameters);
+        try {
+            return sql.get();
+        } finally {
+            dialect = literalDialect;
+        }
+    }
+
     // Fetch
     public int fetchCount() throws SQLException {
-        String countSql = dialect.getCountQuerySQL(this);
-        try (ResultSetHandler handler = JDBCUtils.executeQuery(connection, countSql)) {
+        List<Object> params = new ArrayList<Object>();
+        String countSql = bindParameters ? getCountSQL(params) : dialect.getCountQuerySQL(this);
+        try (ResultSetHandler handler = executeQuery(countSql, params)) {
             ResultSet _rs = handler.getResultSet();
             return _rs.next() ? _rs.getInt(1) : 0;
         } catch (Exception e) {
@@ -184,10 +248,34 @@ public class Select extends SQLStatement<Select> {
         } 
     }
 
+    /**
+     * Get a cheap estimate of the number of rows (see {@link Dialect#getEstimateCountQuerySQL(Select)}).
+     * @return null if the database can not estimate the rows of this select.
+     */
+    public Integer fetchEstimateCount() throws SQLException {
+        List<Object> params = new ArrayList<Object>();
+        String estimateSql = bindParameters ? getEstimateCountSQL(params) : dialect.getEstimateCountQuerySQL(this);
+        if (estimateSql == null) {
+            return null;
+        }
+        try (ResultSetHandler handler = executeQuery(estimateSql, params)) {
+            ResultSet _rs = handler.getResultSet();
+            if (!_rs.next()) {
+                return null;
+            }
+            long estimate = _rs.getLong(1);
+            return _rs.wasNull() || estimate < 0 ? null : (int) Math.min(estimate, Integer.MAX_VALUE);
+        } catch (Exception e) {
+            logger.debug("SQLException while fetching the row estimate with SQL command [{}]. Exception: [{}]", estimateSql, e);
+            throw e;
+        }
+    }
+
     public <R> R fetch(ResultSetConsumer<R> consumer) {
         try {
-            String sql = getSQL();
-            try (ResultSetHandler handler = JDBCUtils.executeQuery(connection, sql)){
+            List<Object> params = new ArrayList<Object>();
+            String sql = bindParameters ? getSQL(params) : getSQL();
+            try (ResultSetHandler handler = executeQuery(sql, params)){
                 return consumer.consume(handler.getResultSet());
             } catch (Exception e) {
                 logger.debug("SQLException while fetching results with SQL command [{}]. Exception: [{}]", sql, e);
@@ -197,4 +285,14 @@ public class Select extends SQLStatement<Select> {
             throw new RuntimeException(e);
         }
     }
+
+    protected ResultSetHandler executeQuery(String sql, List<Object> params) throws SQLException {
+        if (fetchSize > 0) {
+            return JDBCUtils.executeQuery(connection, dialect, sql, bindParameters ? params : null, fetchSize);
+        }
+        if (bindParameters) {
+            return JDBCUtils.executeQuery(connection, sql, params);
+        }
+        return JDBCUtils.executeQuery(connection, sql);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.sql;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.DataSetLookupFactory;
+import org.dashbuilder.dataset.filter.FilterFactory;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class QueryResultCacheTest {
+
+    TestClock clock = new TestClock();
+    QueryResultCache cache = new QueryResultCache(QueryResultCache.DEFAULT_MAX_SIZE, clock);
+    AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void testHit() throws Exception {
+        DataSet first = cache.get(key("ds1", "Barcelona"), 10000, loader(3));
+        DataSet second = cache.get(key("ds1", "Barcelona"), 10000, loader(3));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(3, second.getRowCount());
+        assertEquals("ds1", second.getUUID());
+
+        // Callers get their own copy
+        assertNotSame(first, second);
+        second.addEmptyRowAt(0);
+        assertEquals(3, cache.get(key("ds1", "Barcelona"), 10000, loader(3)).getRowCount());
+    }
+
+    @Test
+    public void testKey() throws Exception {
+        cache.get(key("ds1", "Barcelona"), 10000, loader(3));
+        cache.get(key("ds1", "Madrid"), 10000, loader(3));
+        cache.get(key("ds2", "Barcelona"), 10000, loader(3));
+        cache.get(new QueryResultCache.Key("ds1", "java:jboss/other", lookup("ds1", "Barcelona")), 10000, loader(3));
+
+        DataSetLookup trimmed = lookup("ds1", "Barcelona");
+        trimmed.setNumberOfRows(10);
+        cache.get(new QueryResultCache.Key("ds1", "java:jboss/test", trimmed), 10000, loader(3));
+        assertEquals(5, loads.get());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        cache.get(key("ds1", "Barcelona"), 1000, loader(3));
+        clock.advance(999);
+        cache.get(key("ds1", "Barcelona"), 1000, loader(3));
+        assertEquals(1, loads.get());
+        assertTrue(cache.contains(key("ds1", "Barcelona")));
+
+        clock.advance(1);
+        assertFalse(cache.contains(key("ds1", "Barcelona")));
+        cache.get(key("ds1", "Barcelona"), 1000, loader(3));
+        assertEquals(2, loads.get());
+
+        // Not cached at all
+        cache.get(key("ds1", "Madrid"), 0, loader(3));
+        assertEquals(1, cache.getNumberOfEntries());
+    }
+
+    @Test
+    public void testLookupKey() throws Exception {
+        DataSetLookup barcelona = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset("ds1")
+                .filter("city", FilterFactory.equalsTo("Barcelona"))
+                .buildLookup();
+        DataSetLookup madrid = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset("ds1")
+                .filter("city", FilterFactory.equalsTo("Madrid"))
+                .buildLookup();
+
+        cache.get(new QueryResultCache.Key("ds1", "java:jboss/test", barcelona), 10000, loader(3));
+        cache.get(new QueryResultCache.Key("ds1", "java:jboss/test", barcelona.cloneInstance()), 10000, loader(3));
+        assertEquals(1, loads.get());
+        assertTrue(cache.contains(new QueryResultCache.Key("ds1", "java:jboss/test", barcelona)));
+        assertFalse(cache.contains(new QueryResultCache.Key("ds1", "java:jboss/test", madrid)));
+        assertFalse(cache.contains(new QueryResultCache.Key("ds1", "java:jboss/other", barcelona)));
+
+        // The key keeps its own copy of the lookup
+        QueryResultCache.Key key = new QueryResultCache.Key("ds1", "java:jboss/test", madrid);
+        madrid.setNumberOfRows(10);
+        cache.get(key, 10000, loader(3));
+        assertTrue(cache.contains(key));
+        assertFalse(cache.contains(new QueryResultCache.Key("ds1", "java:jboss/test", madrid)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        cache.get(key("ds1", "Barcelona"), 10000, loader(3));
+        cache.get(key("ds2", "Barcelona"), 10000, loader(3));
+        cache.invalidate("ds1");
+        assertEquals(1, cache.getNumberOfEntries());
+
+        cache.get(key("ds1", "Barcelona"), 10000, loader(3));
+        cache.get(key("ds2", "Barcelona"), 10000, loader(3));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testInvalidateWhileLoading() throws Exception {
+        cache.get(key("ds1", "Barcelona"), 10000, () -> {
+            cache.invalidate("ds1");
+            return dataSet("ds1", 3);
+        });
+        assertEquals(0, cache.getNumberOfEntries());
+    }
+
+    @Test
+    public void testMaxSize() throws Exception {
+        long size = dataSet("ds1", 100).getEstimatedSize();
+        cache.setMaxSize(size * 2);
+        cache.get(key("ds1", "Barcelona"), 10000, loader(100));
+        cache.get(key("ds1", "Madrid"), 10000, loader(100));
+        cache.get(key("ds1", "Barcelona"), 10000, loader(100));
+        cache.get(key("ds1", "London"), 10000, loader(100));
+        assertEquals(2, cache.getNumberOfEntries());
+        assertEquals(size * 2, cache.getSize());
+
+        // The least recently used is evicted
+        cache.get(key("ds1", "Barcelona"), 10000, loader(100));
+        assertEquals(3, loads.get());
+        cache.get(key("ds1", "Madrid"), 10000, loader(100));
+        assertEquals(4, loads.get());
+
+        // Too big to be cached
+        cache.get(key("ds1", "Brno"), 10000, loader(300));
+        assertEquals(2, cache.getNumberOfEntries());
+        assertTrue(cache.getSize() <= size * 2);
+    }
+
+    @Test
+    public void testMaxEntrySize() throws Exception {
+        long size = dataSet("ds1", 100).getEstimatedSize();
+        cache.setMaxEntrySize(size);
+        cache.get(key("ds1", "Barcelona"), 10000, loader(100));
+        cache.get(key("ds1", "Madrid"), 10000, loader(101));
+        assertEquals(1, cache.getNumberOfEntries());
+        assertTrue(cache.contains(key("ds1", "Barcelona")));
+        assertFalse(cache.contains(key("ds1", "Madrid")));
+    }
+
+    @Test
+    public void testSingleLoad() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch waiting = new CountDownLatch(7);
+        final CountDownLatch release = new CountDownLatch(1);
+        cache = new QueryResultCache() {
+            @Override
+            protected DataSet await(CompletableFuture<DataSet> future) throws Exception {
+                waiting.countDown();
+                return super.await(future);
+            }
+        };
+        final Callable<DataSet> slowLoader = () -> {
+            loads.incrementAndGet();
+            started.countDown();
+            release.await();
+            return dataSet("ds1", 3);
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<DataSet>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get(key("ds1", "Barcelona"), 10000, slowLoader)));
+            started.await();
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> cache.get(key("ds1", "Barcelona"), 10000, slowLoader)));
+            }
+            assertTrue(waiting.await(10, TimeUnit.SECONDS));
+            release.countDown();
+            for (Future<DataSet> result : results) {
+                assertEquals(3, result.get().getRowCount());
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLoadError() throws Exception {
+        try {
+            cache.get(key("ds1", "Barcelona"), 10000, () -> {
+                throw new IllegalStateException("Connection refused");
+            });
+            fail("The load error must be thrown");
+        } catch (IllegalStateException e) {
+            assertEquals("Connection refused", e.getMessage());
+        }
+        assertEquals(0, cache.getNumberOfEntries());
+        cache.get(key("ds1", "Barcelona"), 10000, loader(3));
+        assertEquals(1, loads.get());
+    }
+
+    private Callable<DataSet> loader(final int rows) {
+        return () -> {
+            loads.incrementAndGet();
+            return dataSet("ds1", rows);
+        };
+    }
+
+    private QueryResultCache.Key key(String uuid, String city) {
+        return new QueryResultCache.Key(uuid, "java:jboss/test", lookup(uuid, city));
+    }
+
+    private DataSetLookup lookup(String uuid, String city) {
+        return DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(uuid)
+                .filter("city", FilterFactory.equalsTo(city))
+                .buildLookup();
+    }
+
+    private DataSet dataSet(String uuid, int rows) {
+        DataSet dataSet = DataSetFactory.newEmptyDataSet();
+        dataSet.setUUID(uuid);
+        dataSet.addColumn("city", ColumnType.LABEL);
+        for (int i = 0; i < rows; i++) {
+            dataSet.addValuesAt(i, "City " + i);
+        }
+        return dataSet;
+    }
+
+    /**
+     * A clock only moving forward when told.
+     */
+    static class TestClock extends Clock {
+
+        long millis = 1000000;
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
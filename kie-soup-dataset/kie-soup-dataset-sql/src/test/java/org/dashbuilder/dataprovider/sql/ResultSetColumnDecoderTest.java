@@ -0,0 +1,202 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.sql;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dashbuilder.dataprovider.sql.dialect.DefaultDialect;
+import org.dashbuilder.dataprovider.sql.dialect.Dialect;
+import org.dashbuilder.dataset.ColumnType;
+import org.dashbuilder.dataset.impl.ColumnarList;
+import org.dashbuilder.dataset.impl.DateColumnarList;
+import org.dashbuilder.dataset.impl.DoubleColumnarList;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the decoded values are the same the dialect conversions give for the values read as objects.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ResultSetColumnDecoderTest {
+
+    @Mock
+    ResultSet resultSet;
+
+    @Mock
+    Clob clob;
+
+    Dialect dialect = new DefaultDialect();
+
+    @Test
+    public void testNumber() throws Exception {
+        BigDecimal amount = new BigDecimal("1250.75");
+        when(resultSet.getDouble(1)).thenReturn(amount.doubleValue());
+
+        for (List values : numberLists()) {
+            decode(Types.DECIMAL, ColumnType.NUMBER, values);
+            assertEquals(dialect.convertToDouble(amount), values.get(0));
+        }
+        assertEquals(1250.75, decodeDoubles(Types.INTEGER).getDouble(0), 0d);
+    }
+
+    @Test
+    public void testNumberNull() throws Exception {
+        when(resultSet.getDouble(1)).thenReturn(0d);
+        when(resultSet.wasNull()).thenReturn(true);
+
+        for (List values : numberLists()) {
+            decode(Types.DOUBLE, ColumnType.NUMBER, values);
+            assertNull(values.get(0));
+            assertEquals(dialect.convertToDouble(null), values.get(0));
+        }
+        assertTrue(decodeDoubles(Types.BIGINT).isNull(0));
+    }
+
+    @Test
+    public void testNumberNotTyped() throws Exception {
+        // Read as an object and converted by the dialect
+        when(resultSet.getObject(1)).thenReturn("12.5");
+        for (List values : numberLists()) {
+            decode(Types.VARCHAR, ColumnType.NUMBER, values);
+            assertEquals(dialect.convertToDouble("12.5"), values.get(0));
+        }
+    }
+
+    @Test
+    public void testTimestamp() throws Exception {
+        Timestamp timestamp = Timestamp.valueOf("2015-12-31 23:59:59.999");
+        when(resultSet.getTimestamp(1)).thenReturn(timestamp);
+
+        for (List values : dateLists()) {
+            decode(Types.TIMESTAMP, ColumnType.DATE, values);
+            assertEquals(dialect.convertToDate(timestamp).getTime(), ((java.util.Date) values.get(0)).getTime());
+        }
+        assertEquals(timestamp.getTime(), decodeDates(Types.TIMESTAMP).getTime(0));
+    }
+
+    @Test
+    public void testDate() throws Exception {
+        java.sql.Date date = java.sql.Date.valueOf("2015-12-31");
+        when(resultSet.getTimestamp(1)).thenReturn(new Timestamp(date.getTime()));
+        when(resultSet.getObject(1)).thenReturn(date);
+
+        // Outside the columnar storage the value keeps its original class
+        List values = decode(Types.DATE, ColumnType.DATE, new ArrayList());
+        assertEquals(dialect.convertToDate(date), values.get(0));
+        assertSame(java.sql.Date.class, values.get(0).getClass());
+
+        assertEquals(date.getTime(), decodeDates(Types.DATE).getTime(0));
+    }
+
+    @Test
+    public void testDateNull() throws Exception {
+        for (int sqlType : new int[] {Types.DATE, Types.TIMESTAMP}) {
+            for (List values : dateLists()) {
+                decode(sqlType, ColumnType.DATE, values);
+                assertNull(values.get(0));
+                assertEquals(dialect.convertToDate(null), values.get(0));
+            }
+        }
+    }
+
+    @Test
+    public void testLabel() throws Exception {
+        when(resultSet.getString(1)).thenReturn("Barcelona");
+
+        for (ColumnType columnType : new ColumnType[] {ColumnType.LABEL, ColumnType.TEXT}) {
+            for (int sqlType : new int[] {Types.VARCHAR, Types.CHAR, Types.NVARCHAR, Types.LONGVARCHAR}) {
+                List values = decode(sqlType, columnType, new ArrayList());
+                assertEquals(dialect.convertToString("Barcelona"), values.get(0));
+            }
+        }
+        List labels = decode(Types.VARCHAR, ColumnType.LABEL, ColumnarList.create(ColumnType.LABEL));
+        assertEquals("Barcelona", labels.get(0));
+    }
+
+    @Test
+    public void testLabelNotTyped() throws Exception {
+        when(resultSet.getObject(1)).thenReturn(1024);
+        List values = decode(Types.INTEGER, ColumnType.LABEL, new ArrayList());
+        assertEquals(dialect.convertToString(1024), values.get(0));
+        assertEquals("1024", values.get(0));
+    }
+
+    @Test
+    public void testText() throws Exception {
+        when(clob.getCharacterStream()).thenReturn(new StringReader("A long description"));
+        when(resultSet.getObject(1)).thenReturn(clob);
+
+        // Clobs are read while the result set is still open
+        List values = decode(Types.CLOB, ColumnType.TEXT, new ArrayList());
+        assertEquals(dialect.convertToString("A long description"), values.get(0));
+    }
+
+    @Test
+    public void testLabelNull() throws Exception {
+        for (int sqlType : new int[] {Types.VARCHAR, Types.CLOB}) {
+            List values = decode(sqlType, ColumnType.LABEL, new ArrayList());
+            assertNull(values.get(0));
+            assertEquals(dialect.convertToString(null), values.get(0));
+        }
+    }
+
+    @Test
+    public void testDateGroup() throws Exception {
+        // The date group intervals are kept just as read, they are parsed once all the rows are read
+        when(resultSet.getObject(1)).thenReturn(2015);
+        List values = new ArrayList();
+        ResultSetColumnDecoder.raw(1, values).decode(resultSet);
+        assertEquals(2015, values.get(0));
+
+        when(resultSet.getObject(1)).thenReturn("2015-12");
+        ResultSetColumnDecoder.raw(1, values).decode(resultSet);
+        assertEquals("2015-12", values.get(1));
+    }
+
+    private List decode(int sqlType, ColumnType columnType, List values) throws Exception {
+        new ResultSetColumnDecoder(dialect, 1, sqlType, columnType, values).decode(resultSet);
+        assertEquals(1, values.size());
+        return values;
+    }
+
+    private DoubleColumnarList decodeDoubles(int sqlType) throws Exception {
+        return (DoubleColumnarList) decode(sqlType, ColumnType.NUMBER, ColumnarList.create(ColumnType.NUMBER));
+    }
+
+    private DateColumnarList decodeDates(int sqlType) throws Exception {
+        return (DateColumnarList) decode(sqlType, ColumnType.DATE, ColumnarList.create(ColumnType.DATE));
+    }
+
+    private List[] numberLists() {
+        return new List[] {new ArrayList(), new DoubleColumnarList()};
+    }
+
+    private List[] dateLists() {
+        return new List[] {new ArrayList(), new DateColumnarList()};
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RowCountCacheTest {
+
+    static final String SQL = "SELECT COUNT(*) FROM (SELECT * FROM EXPENSES WHERE CITY = ?) dbSQL";
+
+    // Background tasks are run on demand
+    List<Runnable> tasks = new ArrayList<>();
+    QueryResultCacheTest.TestClock clock = new QueryResultCacheTest.TestClock();
+    RowCountCache cache = new RowCountCache(100, tasks::add, clock);
+    AtomicInteger counts = new AtomicInteger();
+    AtomicInteger refreshes = new AtomicInteger();
+    int rows = 50;
+
+    @Test
+    public void testCachedCount() throws Exception {
+        assertEquals(50, getRowCount("Barcelona", 10000, null));
+        rows = 60;
+        assertEquals(50, getRowCount("Barcelona", 10000, null));
+        assertEquals(1, counts.get());
+        assertTrue(tasks.isEmpty());
+
+        // Other filters are counted apart
+        assertEquals(60, getRowCount("Madrid", 10000, null));
+        assertEquals(2, counts.get());
+    }
+
+    @Test
+    public void testExpiredCount() throws Exception {
+        assertEquals(50, getRowCount("Barcelona", 0, null));
+        rows = 60;
+
+        // The expired count is returned while refreshed in the background (only once)
+        assertEquals(50, getRowCount("Barcelona", 0, null));
+        assertEquals(50, getRowCount("Barcelona", 0, null));
+        assertEquals(1, tasks.size());
+        runTasks();
+        assertEquals(60, getRowCount("Barcelona", 10000, null));
+        assertEquals(1, counts.get());
+        assertEquals(1, refreshes.get());
+    }
+
+    @Test
+    public void testExpiredByClock() throws Exception {
+        assertEquals(50, getRowCount("Barcelona", 1000, null));
+        clock.advance(999);
+        assertEquals(50, getRowCount("Barcelona", 1000, null));
+        assertTrue(tasks.isEmpty());
+
+        clock.advance(1);
+        assertEquals(50, getRowCount("Barcelona", 1000, null));
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    public void testExecutor() throws Exception {
+        RowCountCache defaultCache = new RowCountCache();
+        Executor defaultExecutor = defaultCache.getExecutor();
+        assertTrue(defaultExecutor instanceof ThreadPoolExecutor);
+        assertSame(defaultExecutor, defaultCache.getExecutor());
+
+        // The default pool is shut down once replaced, the executor set is left to its owner
+        Executor executor = tasks::add;
+        defaultCache.setExecutor(executor);
+        assertTrue(((ThreadPoolExecutor) defaultExecutor).isShutdown());
+        assertSame(executor, defaultCache.getExecutor());
+        defaultCache.shutdown();
+        assertSame(executor, defaultCache.getExecutor());
+    }
+
+    @Test
+    public void testEstimate() throws Exception {
+        assertEquals(45, getRowCount("Barcelona", 10000, () -> 45));
+        assertEquals(45, getRowCount("Barcelona", 10000, () -> 45));
+        assertEquals(0, counts.get());
+        assertEquals(1, tasks.size());
+        runTasks();
+        assertEquals(50, getRowCount("Barcelona", 10000, () -> 45));
+        assertTrue(tasks.isEmpty());
+
+        // Estimate not available
+        assertEquals(50, getRowCount("Madrid", 10000, () -> null));
+        assertEquals(50, getRowCount("London", 10000, () -> {
+            throw new IllegalStateException("No statistics");
+        }));
+        assertEquals(2, counts.get());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        assertEquals(45, getRowCount("Barcelona", 10000, () -> 45));
+        cache.invalidate("ds1");
+        rows = 60;
+
+        // The refresh started before is discarded
+        runTasks();
+        assertEquals(0, cache.getNumberOfEntries());
+        assertEquals(60, getRowCount("Barcelona", 10000, null));
+    }
+
+    @Test
+    public void testRefreshError() throws Exception {
+        assertEquals(50, getRowCount("Barcelona", 0, null));
+        cache.getRowCount(key("Barcelona"), 0, this::count, null, () -> {
+            throw new IllegalStateException("Connection refused");
+        });
+        runTasks();
+        assertEquals(50, getRowCount("Barcelona", 0, null));
+        runTasks();
+        assertEquals(1, refreshes.get());
+    }
+
+    private int getRowCount(String city, long timeToLive, Callable<Integer> estimator) throws Exception {
+        return cache.getRowCount(key(city), timeToLive, this::count, estimator, () -> {
+            refreshes.incrementAndGet();
+            return rows;
+        });
+    }
+
+    private int count() {
+        counts.incrementAndGet();
+        return rows;
+    }
+
+    private void runTasks() {
+        List<Runnable> pending = new ArrayList<>(tasks);
+        tasks.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    private QueryResultCache.Key key(String city) {
+        return new QueryResultCache.Key("ds1", "java:jboss/test", SQL, Collections.singletonList(city), null);
+    }
+}
@@ -72,6 +72,8 @@ public class SQLCloseResourcesTest {
         PowerMockito.mockStatic(JDBCUtils.class);
         when(JDBCUtils.dialect(connection)).thenReturn(dialect);
         when(JDBCUtils.executeQuery(any(Connection.class), any())).thenReturn(resultSetHandler);
+        when(JDBCUtils.executeQuery(any(Connection.class), any(), any())).thenReturn(resultSetHandler);
+        when(dialect.bind(any())).thenReturn(dialect);
     }
 
     @Test
@@ -20,6 +20,7 @@ import java.nio.charset.StandardCharsets;
 
 import org.apache.commons.io.IOUtils;
 import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetGroupTest;
 import org.dashbuilder.dataset.DataSetLookupFactory;
 import org.dashbuilder.dataset.DataSetMetadata;
 import org.dashbuilder.dataset.def.SQLDataSetDef;
@@ -44,6 +45,7 @@ public class SQLDataSetDefTest extends SQLDataSetTestBase {
     public void testAll() throws Exception {
         if (!testSettings.isMonetDB()) {
             testAllColumns();
+            testFetchSize();
         }
         testSQLDataSet();
         testColumnSet();
@@ -201,6 +203,38 @@ public class SQLDataSetDefTest extends SQLDataSetTestBase {
         }, 0);
     }
 
+    @Test
+    public void testFetchSize() throws Exception {
+        URL fileURL = Thread.currentThread().getContextClassLoader().getResource("expenseReports_allcolumns.dset");
+        String json = IOUtils.toString(fileURL, StandardCharsets.UTF_8);
+        SQLDataSetDef def = (SQLDataSetDef) jsonMarshaller.fromJson(json);
+        def.setFetchSize(7);
+        def = (SQLDataSetDef) jsonMarshaller.fromJson(jsonMarshaller.toJsonString(def));
+        assertThat(def.getFetchSize()).isEqualTo(7);
+        dataSetDefRegistry.registerDataSetDef(def);
+
+        DataSet dataSet = dataSetManager.lookupDataSet(
+                DataSetLookupFactory.newDataSetLookupBuilder()
+                        .dataset("expense_reports_allcolumns")
+                        .rowOffset(10)
+                        .rowNumber(30)
+                        .buildLookup());
+        assertThat(dataSet.getRowCount()).isEqualTo(30);
+        assertThat(dataSet.getRowCountNonTrimmed()).isEqualTo(50);
+
+        // The global fetch size applies to the data sets with no fetch size
+        sqlDataSetProvider.setFetchSize(5);
+        try {
+            dataSet = dataSetManager.lookupDataSet(
+                    DataSetLookupFactory.newDataSetLookupBuilder()
+                            .dataset(DataSetGroupTest.EXPENSE_REPORTS)
+                            .buildLookup());
+            assertThat(dataSet.getRowCount()).isEqualTo(50);
+        } finally {
+            sqlDataSetProvider.setFetchSize(0);
+        }
+    }
+
     public static void assertDataSetDefinition(final DataSet dataSet, final String uuid) {
         assertThat(dataSet.getUUID()).isEqualTo(uuid);
         assertThat(dataSet.getDefinition()).isNotNull();
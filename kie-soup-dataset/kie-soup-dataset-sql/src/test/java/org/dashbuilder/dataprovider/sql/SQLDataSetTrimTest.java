@@ -133,4 +133,30 @@ public class SQLDataSetTrimTest extends SQLDataSetTestBase {
         assertThat(result.getRowCount()).isEqualTo(5);
     }
 
+
+    @Test
+    public void testCachedRowCount() throws Exception {
+        sqlDataSetProvider.setRowCountCacheEnabled(true);
+        try {
+            DataSetLookup lookup = DataSetLookupFactory.newDataSetLookupBuilder()
+                    .dataset(DataSetGroupTest.EXPENSE_REPORTS)
+                    .filter(COLUMN_CITY, notEqualsTo("Barcelona"))
+                    .rowNumber(10)
+                    .buildLookup();
+            DataSet result = dataSetManager.lookupDataSet(lookup);
+            int total = result.getRowCountNonTrimmed();
+            assertThat(result.getRowCount()).isEqualTo(10);
+
+            // The total is not counted again until the cached one expires
+            populateDbTable();
+            result = dataSetManager.lookupDataSet(lookup);
+            assertThat(result.getRowCountNonTrimmed()).isEqualTo(total);
+
+            sqlDataSetProvider.onDataSetDefStale(dataSetDefRegistry.getDataSetDef(DataSetGroupTest.EXPENSE_REPORTS));
+            result = dataSetManager.lookupDataSet(lookup);
+            assertThat(result.getRowCountNonTrimmed()).isEqualTo(total * 2);
+        } finally {
+            sqlDataSetProvider.setRowCountCacheEnabled(false);
+        }
+    }
 }
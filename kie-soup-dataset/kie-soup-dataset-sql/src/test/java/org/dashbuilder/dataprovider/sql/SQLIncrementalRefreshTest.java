@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.sql;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.DataSetLookupFactory;
+import org.dashbuilder.dataset.def.SQLDataSetDef;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.dashbuilder.dataset.ExpenseReportsData.*;
+import static org.dashbuilder.dataprovider.sql.SQLFactory.select;
+import static org.dashbuilder.dataset.filter.FilterFactory.equalsTo;
+
+public class SQLIncrementalRefreshTest extends SQLDataSetTestBase {
+
+    @Override
+    public void testAll() throws Exception {
+        testAppendNewRows();
+        testWatermarkRowsNotDuplicated();
+        testCacheMaxRowsOnAppend();
+    }
+
+    @Test
+    public void testAppendNewRows() throws Exception {
+        URL fileURL = Thread.currentThread().getContextClassLoader().getResource("expenseReports_static.dset");
+        String json = IOUtils.toString(fileURL, StandardCharsets.UTF_8);
+        SQLDataSetDef def = (SQLDataSetDef) jsonMarshaller.fromJson(json);
+        def.setWatermarkColumn(COLUMN_ID);
+        def = (SQLDataSetDef) jsonMarshaller.fromJson(jsonMarshaller.toJsonString(def));
+        assertThat(def.getWatermarkColumn()).isEqualTo(COLUMN_ID);
+        dataSetDefRegistry.registerDataSetDef(def);
+
+        DataSet before = dataSetManager.lookupDataSet(createLookup());
+        DataSet cached = sqlDataSetProvider.getStaticDataSetProvider().lookupDataSet(def.getUUID(), null);
+        assertThat(cached.getRowCount()).isEqualTo(50);
+
+        // Only the new rows are appended to the cached data set
+        populateDbTable();
+        assertThat(sqlDataSetProvider.refreshDataSet(def)).isTrue();
+        DataSet refreshed = sqlDataSetProvider.getStaticDataSetProvider().lookupDataSet(def.getUUID(), null);
+        assertThat(refreshed).isNotSameAs(cached);
+        assertThat(refreshed.getRowCount()).isEqualTo(100);
+        assertThat(((Number) refreshed.getValueAt(50, COLUMN_ID)).intValue()).isEqualTo(51);
+
+        DataSet after = dataSetManager.lookupDataSet(createLookup());
+        double amount = ((Number) before.getValueAt(0, 1)).doubleValue();
+        assertThat(((Number) after.getValueAt(0, 1)).doubleValue()).isCloseTo(amount * 2, within(0.01));
+
+        // Nothing new
+        assertThat(sqlDataSetProvider.refreshDataSet(def)).isTrue();
+        refreshed = sqlDataSetProvider.getStaticDataSetProvider().lookupDataSet(def.getUUID(), null);
+        assertThat(refreshed.getRowCount()).isEqualTo(100);
+    }
+
+    @Test
+    public void testWatermarkRowsNotDuplicated() throws Exception {
+        // The dates are fetched again from the watermark on, as they might be more precise in database
+        SQLDataSetDef def = registerDataSetDef(COLUMN_DATE, 1000);
+        dataSetManager.lookupDataSet(createLookup());
+        DataSet cached = sqlDataSetProvider.getStaticDataSetProvider().lookupDataSet(def.getUUID(), null);
+        int rowCount = cached.getRowCount();
+
+        assertThat(sqlDataSetProvider.refreshDataSet(def)).isTrue();
+        DataSet refreshed = sqlDataSetProvider.getStaticDataSetProvider().lookupDataSet(def.getUUID(), null);
+        assertThat(refreshed.getRowCount()).isEqualTo(rowCount);
+    }
+
+    @Test
+    public void testCacheMaxRowsOnAppend() throws Exception {
+        int rowCount = select(conn).from(EXPENSES).fetchCount();
+        SQLDataSetDef def = registerDataSetDef(COLUMN_ID, rowCount + 10);
+        dataSetManager.lookupDataSet(createLookup());
+        DataSet cached = sqlDataSetProvider.getStaticDataSetProvider().lookupDataSet(def.getUUID(), null);
+        assertThat(cached.getRowCount()).isEqualTo(rowCount);
+
+        // The cached rows plus the new ones go beyond the cache max. rows
+        populateDbTable();
+        assertThat(sqlDataSetProvider.refreshDataSet(def)).isFalse();
+        DataSet refreshed = sqlDataSetProvider.getStaticDataSetProvider().lookupDataSet(def.getUUID(), null);
+        assertThat(refreshed).isSameAs(cached);
+    }
+
+    private SQLDataSetDef registerDataSetDef(String watermarkColumn, int cacheMaxRows) throws Exception {
+        URL fileURL = Thread.currentThread().getContextClassLoader().getResource("expenseReports_static.dset");
+        String json = IOUtils.toString(fileURL, StandardCharsets.UTF_8);
+        SQLDataSetDef def = (SQLDataSetDef) jsonMarshaller.fromJson(json);
+        def.setWatermarkColumn(watermarkColumn);
+        def.setCacheMaxRows(cacheMaxRows);
+        dataSetDefRegistry.registerDataSetDef(def);
+        return def;
+    }
+
+    private DataSetLookup createLookup() {
+        return DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset("expense_reports_static")
+                .filter(COLUMN_CITY, equalsTo("Barcelona"))
+                .group(COLUMN_CITY)
+                .column(COLUMN_CITY)
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM)
+                .buildLookup();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.sql;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetGroupTest;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.DataSetLookupFactory;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.dashbuilder.dataset.ExpenseReportsData.*;
+import static org.dashbuilder.dataprovider.sql.SQLFactory.select;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+
+public class SQLPreparedStatementTest extends SQLDataSetTestBase {
+
+    static final String[] CITIES = {"Barcelona", "Madrid", "Brno", "London", "Westford", "Raleigh", "O'Hare"};
+
+    @Override
+    public void testAll() throws Exception {
+        testSameResults();
+        testRepeatedLookups();
+        testStatementReused();
+        testStatementReusedThroughProxies();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sqlDataSetProvider.setPreparedStatementsEnabled(true);
+        super.tearDown();
+    }
+
+    @Test
+    public void testSameResults() throws Exception {
+        for (DataSetLookup lookup : createLookups()) {
+            sqlDataSetProvider.setPreparedStatementsEnabled(false);
+            String expected = dataSetFormatter.formatDataSet(dataSetManager.lookupDataSet(lookup), "{", "}", ",\n", "\"", "\"", ", ");
+            sqlDataSetProvider.setPreparedStatementsEnabled(true);
+            String prepared = dataSetFormatter.formatDataSet(dataSetManager.lookupDataSet(lookup), "{", "}", ",\n", "\"", "\"", ", ");
+            assertThat(prepared).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testRepeatedLookups() throws Exception {
+        // Same lookup shape with different filter values, as dashboard filter clicks do
+        for (int i = 0; i < CITIES.length * 2; i++) {
+            DataSetLookup lookup = DataSetLookupFactory.newDataSetLookupBuilder()
+                    .dataset(DataSetGroupTest.EXPENSE_REPORTS)
+                    .filter(COLUMN_CITY, equalsTo(CITIES[i % CITIES.length]))
+                    .filter(COLUMN_AMOUNT, greaterThan(i * 50d))
+                    .group(COLUMN_DEPARTMENT)
+                    .column(COLUMN_DEPARTMENT)
+                    .column(COLUMN_AMOUNT, AggregateFunctionType.SUM)
+                    .buildLookup();
+            sqlDataSetProvider.setPreparedStatementsEnabled(false);
+            String expected = dataSetFormatter.formatDataSet(dataSetManager.lookupDataSet(lookup), "{", "}", ",\n", "\"", "\"", ", ");
+            sqlDataSetProvider.setPreparedStatementsEnabled(true);
+            String prepared = dataSetFormatter.formatDataSet(dataSetManager.lookupDataSet(lookup), "{", "}", ",\n", "\"", "\"", ", ");
+            assertThat(prepared).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testStatementReused() throws Exception {
+        PreparedStatementCache cache = JDBCUtils.getStatementCache();
+        long hits = cache.getHits();
+        Statement statement = null;
+        for (String city : CITIES) {
+            // The same SQL is run on the same connection with a different parameter value every time
+            List<Object> params = new ArrayList<Object>();
+            String sql = select(conn).from(EXPENSES).where(CITY.equalsTo(city)).getCountSQL(params);
+            try (ResultSetHandler handler = cache.executeQuery(conn, sql, params)) {
+                if (statement != null) {
+                    assertThat(handler.getStatement()).isSameAs(statement);
+                }
+                statement = handler.getStatement();
+                assertThat(handler.getResultSet().next()).isTrue();
+                int count = handler.getResultSet().getInt(1);
+                assertThat(count).isEqualTo(select(conn).from(EXPENSES).where(CITY.equalsTo(city)).fetchCount());
+            }
+        }
+        assertThat(cache.getHits()).isEqualTo(hits + CITIES.length - 1);
+    }
+
+    @Test
+    public void testStatementReusedThroughProxies() throws Exception {
+        PreparedStatementCache cache = JDBCUtils.getStatementCache();
+        List<Object> params = new ArrayList<Object>();
+        String sql = select(conn).from(EXPENSES).where(CITY.equalsTo("Barcelona")).getCountSQL(params);
+
+        // Every lookup gets a different proxy of the same pooled connection
+        Statement statement;
+        try (ResultSetHandler handler = cache.executeQuery(proxy(conn), sql, params)) {
+            statement = handler.getStatement();
+        }
+        long hits = cache.getHits();
+        try (ResultSetHandler handler = cache.executeQuery(proxy(conn), sql, params)) {
+            assertThat(handler.getStatement()).isSameAs(statement);
+            assertThat(handler.getResultSet().next()).isTrue();
+        }
+        assertThat(cache.getHits()).isEqualTo(hits + 1);
+    }
+
+    private Connection proxy(final Connection physical) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("isWrapperFor")) {
+                        return args[0] == Connection.class;
+                    }
+                    if (method.getName().equals("unwrap")) {
+                        return physical;
+                    }
+                    return method.invoke(physical, args);
+                });
+    }
+
+    private List<DataSetLookup> createLookups() {
+        List<DataSetLookup> lookups = new ArrayList<DataSetLookup>();
+        lookups.add(DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(DataSetGroupTest.EXPENSE_REPORTS)
+                .filter(COLUMN_CITY, equalsTo("Barcelona"))
+                .buildLookup());
+        lookups.add(DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(DataSetGroupTest.EXPENSE_REPORTS)
+                .filter(COLUMN_EMPLOYEE, likeTo(COLUMN_EMPLOYEE, "%an%"))
+                .filter(COLUMN_AMOUNT, between(100d, 500d))
+                .sort(COLUMN_ID, "asc")
+                .buildLookup());
+        lookups.add(DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(DataSetGroupTest.EXPENSE_REPORTS)
+                .filter(COLUMN_DEPARTMENT, in(COLUMN_DEPARTMENT, Arrays.asList("Sales", "Engineering")))
+                .filter(COLUMN_DATE, greaterOrEqualsTo(new GregorianCalendar(2015, 0, 1).getTime()))
+                .sort(COLUMN_ID, "asc")
+                .buildLookup());
+        lookups.add(DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(DataSetGroupTest.EXPENSE_REPORTS)
+                .filter(COLUMN_CITY, OR(equalsTo("Madrid"), notEqualsTo(COLUMN_AMOUNT, 1100.1d)))
+                .filter(COLUMN_EMPLOYEE, notIn(COLUMN_EMPLOYEE, Arrays.asList("Roxie Foraker", "O'Neil")))
+                .group(COLUMN_CITY)
+                .column(COLUMN_CITY)
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM)
+                .sort(COLUMN_CITY, "asc")
+                .buildLookup());
+        lookups.add(DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(DataSetGroupTest.EXPENSE_REPORTS)
+                .filter(COLUMN_EMPLOYEE, equalsTo("David' OR EMPLOYEE != 'Toni"))
+                .buildLookup());
+        return lookups;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.sql;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetGroupTest;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.DataSetLookupFactory;
+import org.dashbuilder.dataset.def.DataSetDef;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.dashbuilder.dataset.ExpenseReportsData.*;
+import static org.dashbuilder.dataset.filter.FilterFactory.*;
+
+public class SQLQueryResultCacheTest extends SQLDataSetTestBase {
+
+    @Override
+    public void testAll() throws Exception {
+        testCachedLookup();
+        testStaleDefinition();
+        testNoConnectionOnHit();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sqlDataSetProvider.setQueryCacheEnabled(false);
+        super.tearDown();
+    }
+
+    @Test
+    public void testCachedLookup() throws Exception {
+        sqlDataSetProvider.setQueryCacheEnabled(true);
+        QueryResultCache cache = sqlDataSetProvider.getQueryResultCache();
+        long hits = cache.getHits();
+
+        DataSet first = dataSetManager.lookupDataSet(createLookup("Barcelona"));
+        DataSet second = dataSetManager.lookupDataSet(createLookup("Barcelona"));
+        assertThat(cache.getHits()).isEqualTo(hits + 1);
+        assertThat(format(second)).isEqualTo(format(first));
+
+        // A different filter value is a different query
+        dataSetManager.lookupDataSet(createLookup("Madrid"));
+        assertThat(cache.getHits()).isEqualTo(hits + 1);
+
+        // Trimmed lookups keep the total number of rows
+        DataSetLookup trimmed = DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(DataSetGroupTest.EXPENSE_REPORTS)
+                .rowNumber(10)
+                .buildLookup();
+        dataSetManager.lookupDataSet(trimmed);
+        DataSet dataSet = dataSetManager.lookupDataSet(trimmed);
+        assertThat(dataSet.getRowCount()).isEqualTo(10);
+        assertThat(dataSet.getRowCountNonTrimmed()).isEqualTo(50);
+    }
+
+    @Test
+    public void testStaleDefinition() throws Exception {
+        sqlDataSetProvider.setQueryCacheEnabled(true);
+        DataSet before = dataSetManager.lookupDataSet(createLookup("Barcelona"));
+
+        // Still cached after the table changes
+        populateDbTable();
+        DataSet cached = dataSetManager.lookupDataSet(createLookup("Barcelona"));
+        assertThat(format(cached)).isEqualTo(format(before));
+
+        DataSetDef def = dataSetDefRegistry.getDataSetDef(DataSetGroupTest.EXPENSE_REPORTS);
+        sqlDataSetProvider.onDataSetDefStale(def);
+        DataSet after = dataSetManager.lookupDataSet(createLookup("Barcelona"));
+        double amount = ((Number) before.getValueAt(0, 1)).doubleValue();
+        assertThat(((Number) after.getValueAt(0, 1)).doubleValue()).isCloseTo(amount * 2, within(0.01));
+    }
+
+    @Test
+    public void testNoConnectionOnHit() throws Exception {
+        sqlDataSetProvider.setQueryCacheEnabled(true);
+        SQLDataSourceLocator dataSourceLocator = sqlDataSetProvider.getDataSourceLocator();
+        AtomicInteger connections = new AtomicInteger();
+        sqlDataSetProvider.setDataSourceLocator(def -> {
+            connections.incrementAndGet();
+            return dataSourceLocator.lookup(def);
+        });
+        try {
+            dataSetManager.lookupDataSet(createLookup("Barcelona"));
+            int misses = connections.get();
+            assertThat(misses).isGreaterThan(0);
+
+            // Served from the cache before taking any connection
+            dataSetManager.lookupDataSet(createLookup("Barcelona"));
+            assertThat(connections.get()).isEqualTo(misses);
+
+            // The time frames are resolved on every lookup, so they are never cached
+            int entries = sqlDataSetProvider.getQueryResultCache().getNumberOfEntries();
+            DataSetLookup timeFrame = DataSetLookupFactory.newDataSetLookupBuilder()
+                    .dataset(DataSetGroupTest.EXPENSE_REPORTS)
+                    .filter(COLUMN_DATE, timeFrame("10second"))
+                    .buildLookup();
+            dataSetManager.lookupDataSet(timeFrame);
+            int timeFrameMisses = connections.get();
+            dataSetManager.lookupDataSet(timeFrame);
+            assertThat(connections.get()).isGreaterThan(timeFrameMisses);
+            assertThat(sqlDataSetProvider.getQueryResultCache().getNumberOfEntries()).isEqualTo(entries);
+        } finally {
+            sqlDataSetProvider.setDataSourceLocator(dataSourceLocator);
+        }
+    }
+
+    private DataSetLookup createLookup(String city) {
+        return DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset(DataSetGroupTest.EXPENSE_REPORTS)
+                .filter(COLUMN_CITY, equalsTo(city))
+                .group(COLUMN_CITY)
+                .column(COLUMN_CITY)
+                .column(COLUMN_AMOUNT, AggregateFunctionType.SUM)
+                .buildLookup();
+    }
+
+    private String format(DataSet dataSet) {
+        return dataSetFormatter.formatDataSet(dataSet, "{", "}", ",\n", "\"", "\"", ", ");
+    }
+}
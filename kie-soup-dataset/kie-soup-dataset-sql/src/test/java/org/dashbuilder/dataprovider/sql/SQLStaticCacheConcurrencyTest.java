@@ -0,0 +1,140 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dashbuilder.dataprovider.sql;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+import org.apache.commons.io.IOUtils;
+import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetLookupFactory;
+import org.dashbuilder.dataset.def.SQLDataSetDef;
+import org.dashbuilder.dataset.def.SQLDataSourceDef;
+import org.dashbuilder.dataset.group.AggregateFunctionType;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.dashbuilder.dataset.ExpenseReportsData.*;
+
+public class SQLStaticCacheConcurrencyTest extends SQLDataSetTestBase {
+
+    static final int THREADS = 8;
+
+    AtomicInteger queries = new AtomicInteger();
+
+    @Override
+    public void testAll() throws Exception {
+        testConcurrentLoad();
+    }
+
+    @Test
+    public void testConcurrentLoad() throws Exception {
+        URL fileURL = Thread.currentThread().getContextClassLoader().getResource("expenseReports_static.dset");
+        String json = IOUtils.toString(fileURL, StandardCharsets.UTF_8);
+        SQLDataSetDef def = (SQLDataSetDef) jsonMarshaller.fromJson(json);
+        dataSetDefRegistry.registerDataSetDef(def);
+
+        final SQLDataSourceLocator locator = sqlDataSetProvider.getDataSourceLocator();
+        sqlDataSetProvider.setDataSourceLocator(new SQLDataSourceLocator() {
+            public DataSource lookup(SQLDataSetDef def) throws Exception {
+                return countQueries(DataSource.class, locator.lookup(def));
+            }
+            public List<SQLDataSourceDef> list() {
+                return locator.list();
+            }
+        });
+        try {
+            // The queries of a single load
+            lookup();
+            int singleLoad = queries.getAndSet(0);
+            assertThat(singleLoad).isGreaterThan(0);
+            lookup();
+            assertThat(queries.get()).isEqualTo(0);
+
+            // Concurrent lookups after a refresh share a single load
+            sqlDataSetProvider.onDataSetDefStale(def);
+            final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try {
+                List<Future<DataSet>> results = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    results.add(executor.submit(() -> {
+                        barrier.await();
+                        return lookup();
+                    }));
+                }
+                for (Future<DataSet> result : results) {
+                    assertThat(result.get().getRowCount()).isEqualTo(5);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            assertThat(queries.get()).isEqualTo(singleLoad);
+        } finally {
+            sqlDataSetProvider.setDataSourceLocator(locator);
+        }
+    }
+
+    private DataSet lookup() throws Exception {
+        return dataSetManager.lookupDataSet(
+                DataSetLookupFactory.newDataSetLookupBuilder()
+                        .dataset("expense_reports_static")
+                        .group(COLUMN_DEPARTMENT)
+                        .column(COLUMN_DEPARTMENT)
+                        .column(COLUMN_AMOUNT, AggregateFunctionType.SUM)
+                        .buildLookup());
+    }
+
+    /**
+     * Wraps the given JDBC object so that every statement executed is counted.
+     */
+    private <T> T countQueries(Class<T> type, final Object target) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                queries.incrementAndGet();
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Connection) {
+                return countQueries(Connection.class, result);
+            }
+            if (result instanceof PreparedStatement) {
+                return countQueries(PreparedStatement.class, result);
+            }
+            if (result instanceof Statement) {
+                return countQueries(Statement.class, result);
+            }
+            return result;
+        }));
+    }
+}
@@ -48,6 +48,7 @@ public class SQLTableDataSetLookupTest extends SQLDataSetTestBase {
         testDataSetGroup();
         testDataSetGroupByHour();
         testDataSetNestedGroup();
+        testDataSetGroupJoin();
         testEmptyArguments();
     }
 
@@ -246,6 +247,36 @@ public class SQLTableDataSetLookupTest extends SQLDataSetTestBase {
         subTest.testNoResultsSelection();
     }
 
+    @Test
+    public void testDataSetGroupJoin() throws Exception {
+        DataSet result = dataSetManager.lookupDataSet(
+                DataSetLookupFactory.newDataSetLookupBuilder()
+                        .dataset(DataSetGroupTest.EXPENSE_REPORTS)
+                        .group(COLUMN_CITY)
+                        .group(COLUMN_DEPARTMENT).join()
+                        .column(COLUMN_CITY)
+                        .column(COLUMN_DEPARTMENT)
+                        .column(COUNT, "occurrences")
+                        .column(COLUMN_AMOUNT, SUM, "total")
+                        .sort(COLUMN_CITY, "asc")
+                        .sort(COLUMN_DEPARTMENT, "asc")
+                        .buildLookup());
+
+        // Grouped by both columns in a single query
+        assertThat(result.getRowCount()).isEqualTo(15);
+        assertThat(result.getValueAt(0, 0)).isEqualTo("Barcelona");
+        assertThat(result.getValueAt(0, 1)).isEqualTo("Engineering");
+        assertThat(((Number) result.getValueAt(0, 2)).intValue()).isEqualTo(3);
+        assertThat(result.getValueAt(1, 0)).isEqualTo("Barcelona");
+        assertThat(result.getValueAt(1, 1)).isEqualTo("Services");
+        assertThat(((Number) result.getValueAt(1, 2)).intValue()).isEqualTo(3);
+        int count = 0;
+        for (int i = 0; i < result.getRowCount(); i++) {
+            count += ((Number) result.getValueAt(i, 2)).intValue();
+        }
+        assertThat(count).isEqualTo(50);
+    }
+
     @Test
     public void testDataSetFilter() throws Exception {
         DataSetFilterTest subTest = new DataSetFilterTest();
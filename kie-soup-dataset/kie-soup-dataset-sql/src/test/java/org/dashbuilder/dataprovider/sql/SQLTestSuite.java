@@ -39,6 +39,10 @@ public class SQLTestSuite extends SQLDataSetTestBase {
         sqlTestList.add(setUp(new SQLQueryDataSetLookupTest()));
         sqlTestList.add(setUp(new SQLInjectionAttacksTest()));
         sqlTestList.add(setUp(new SQLColumnsTypeTest()));
+        sqlTestList.add(setUp(new SQLPreparedStatementTest()));
+        sqlTestList.add(setUp(new SQLQueryResultCacheTest()));
+        sqlTestList.add(setUp(new SQLStaticCacheConcurrencyTest()));
+        sqlTestList.add(setUp(new SQLIncrementalRefreshTest()));
     }
 
     public void testAll() throws Exception {
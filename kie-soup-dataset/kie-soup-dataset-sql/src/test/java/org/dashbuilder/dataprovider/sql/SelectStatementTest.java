@@ -17,6 +17,9 @@ package org.dashbuilder.dataprovider.sql;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.dashbuilder.dataprovider.sql.model.Select;
 import org.junit.Before;
@@ -66,4 +69,52 @@ public class SelectStatementTest {
 
         assertEquals(select.getSQL(), "SELECT \"id\" FROM (SELECT ID AS \"id\" FROM TABLE) \"dbSQL\"");
     }
+
+    @Test
+    public void testBindParameters() throws Exception {
+        when(metadata.storesLowerCaseIdentifiers()).thenReturn(false);
+        when(metadata.storesUpperCaseIdentifiers()).thenReturn(true);
+
+        Select select = new Select(connection, JDBCUtils.H2);
+        select.columns(column("id"));
+        select.from(table("table"));
+        select.where(column("name").equalsTo("David' OR 1=1"));
+        select.where(column("id").in(Arrays.asList(1, 2)));
+        select.where(column("code").isNull());
+
+        List<Object> params = new ArrayList<Object>();
+        assertEquals("SELECT ID FROM TABLE WHERE NAME = ? AND (ID = ? OR ID = ?) AND CODE IS NULL", select.getSQL(params));
+        assertEquals(Arrays.asList("David' OR 1=1", 1, 2), params);
+
+        // The dialect itself keeps rendering literals
+        assertEquals("SELECT ID FROM TABLE WHERE NAME = 'David'' OR 1=1' AND (ID = 1 OR ID = 2) AND CODE IS NULL", select.getSQL());
+    }
+
+    @Test
+    public void testEstimateCountSQL() throws Exception {
+        when(metadata.storesLowerCaseIdentifiers()).thenReturn(false);
+        when(metadata.storesUpperCaseIdentifiers()).thenReturn(true);
+
+        Select select = new Select(connection, JDBCUtils.POSTGRES);
+        select.columns(column("id"));
+        select.from(table("expenses"));
+        List<Object> params = new ArrayList<Object>();
+        assertEquals("SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass(?)", select.getEstimateCountSQL(params));
+        assertEquals(Arrays.asList("EXPENSES"), params);
+
+        select = new Select(connection, JDBCUtils.MYSQL);
+        select.columns(column("id"));
+        select.from(table("sales", "expenses"));
+        params = new ArrayList<Object>();
+        assertEquals("SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?", select.getEstimateCountSQL(params));
+        assertEquals(Arrays.asList("sales", "EXPENSES"), params);
+
+        // Only the rows of whole tables are estimated
+        select.where(column("id").equalsTo(1));
+        assertNull(select.getEstimateCountSQL(new ArrayList<Object>()));
+        select = new Select(connection, JDBCUtils.H2);
+        select.columns(column("id"));
+        select.from(table("expenses"));
+        assertNull(select.getEstimateCountSQL(new ArrayList<Object>()));
+    }
 }